@@ -0,0 +1,96 @@
+package com.queomedia.scheel.benchmarks;
+
+import com.queomedia.scheel.core.Cryptography;
+import com.queomedia.scheel.core.PasswordGenerator;
+import com.queomedia.scheel.core.PasswordPolicy;
+import com.queomedia.scheel.core.VaultRecord;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Creates the throwaway vault and the accounts the benchmarks work on.
+ *
+ * <p>The vault files are always read from the working directory, so benchmarks of the storage create their vault
+ * there. To never touch a real vault, creating one fails if any vault file exists already.</p>
+ */
+final class BenchmarkVault {
+
+    /**
+     * Master password of the throwaway vault.
+     */
+    static final String M_PASSWORD = "benchmark-master-password";
+
+    /**
+     * Every file a vault consists of, created by the benchmarks or the core.
+     */
+    private static final List<String> FILES = List.of("MPass.txt", "Services.txt", "Usernames.txt", "Passwords.txt",
+            "Timestamps.txt", "Vault.lock", "Vault.commit");
+
+    /**
+     * Not to be instantiated.
+     */
+    private BenchmarkVault() {
+    }
+
+    /**
+     * Creates an empty vault in the working directory.
+     *
+     * @throws Exception             If the master password file cannot be written.
+     * @throws IllegalStateException If there is a vault already.
+     */
+    static void create() throws Exception {
+        create(M_PASSWORD);
+    }
+
+    /**
+     * Creates an empty vault in the working directory.
+     *
+     * @param mPassword The master password of the vault.
+     * @throws Exception             If the master password file cannot be written.
+     * @throws IllegalStateException If there is a vault already.
+     */
+    static void create(final String mPassword) throws Exception {
+        for (String file : FILES) {
+            if (Files.exists(Path.of(file))) {
+                throw new IllegalStateException("Run the benchmarks in an empty directory, they would overwrite "
+                        + file + " here");
+            }
+        }
+        Files.write(Path.of("MPass.txt"), Cryptography.encrypt(mPassword.getBytes(UTF_8), mPassword));
+    }
+
+    /**
+     * Deletes the vault created by {@link #create()}.
+     *
+     * @throws IOException If a file cannot be deleted.
+     */
+    static void delete() throws IOException {
+        for (String file : FILES) {
+            Files.deleteIfExists(Path.of(file));
+        }
+    }
+
+    /**
+     * Creates accounts resembling real ones: distinct services, e-mail addresses as usernames and generated
+     * passwords of the default policy, all different.
+     *
+     * @param count The number of accounts.
+     * @return The accounts.
+     */
+    static List<VaultRecord> accounts(final int count) {
+        List<String> passwords = new PasswordGenerator(PasswordPolicy.DEFAULT).generate(count);
+        long now = System.currentTimeMillis();
+        List<VaultRecord> accounts = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            accounts.add(new VaultRecord("service-" + i + ".example.com", "user" + i + "@example.com",
+                    passwords.get(i), now - i * 60_000L));
+        }
+        return accounts;
+    }
+}
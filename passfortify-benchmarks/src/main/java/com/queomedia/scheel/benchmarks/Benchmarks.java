@@ -0,0 +1,56 @@
+package com.queomedia.scheel.benchmarks;
+
+import org.openjdk.jmh.Main;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Runs the JMH benchmarks of the core, keeping the results as JSON.
+ *
+ * <pre>
+ * java -jar passfortify-benchmarks-1.0.1.jar [JMH options] [benchmark pattern]
+ * </pre>
+ *
+ * <p>All JMH options are supported, e.g. {@code -p vaultSize=1000} or {@code -f 3}. Unless a result format or file
+ * is given, the results are written to {@code passfortify-benchmarks-<version>.json}, so the results of different
+ * releases can be compared with any JMH result viewer. The storage benchmarks create a throwaway vault in the
+ * working directory and refuse to run where a vault exists.</p>
+ */
+public final class Benchmarks {
+
+    /**
+     * Version used in the result file name when run from the class path instead of the jar.
+     */
+    private static final String DEVELOPMENT_VERSION = "dev";
+
+    /**
+     * Not to be instantiated.
+     */
+    private Benchmarks() {
+    }
+
+    /**
+     * Runs the benchmarks.
+     *
+     * @param args JMH options and benchmark patterns.
+     * @throws Exception If the benchmarks cannot be run.
+     */
+    public static void main(final String[] args) throws Exception {
+        List<String> arguments = new ArrayList<>(List.of(args));
+        if (!arguments.contains("-rf") && !arguments.contains("-rff")) {
+            arguments.addAll(0, List.of("-rf", "json", "-rff", "passfortify-benchmarks-" + version() + ".json"));
+        }
+        Main.main(arguments.toArray(new String[0]));
+    }
+
+    /**
+     * Returns the version of the benchmarked release.
+     *
+     * @return The version from the manifest of the jar.
+     */
+    static String version() {
+        String version = Benchmarks.class.getPackage().getImplementationVersion();
+        return version != null ? version : DEVELOPMENT_VERSION;
+    }
+}
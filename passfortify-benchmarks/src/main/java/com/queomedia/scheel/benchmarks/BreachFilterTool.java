@@ -0,0 +1,108 @@
+package com.queomedia.scheel.benchmarks;
+
+import com.queomedia.scheel.core.BreachFilter;
+import com.queomedia.scheel.core.BreachIndex;
+
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.HexFormat;
+import java.util.Locale;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Command line tool that benchmarks lookups in a local breached-password hash list with and without its
+ * {@link BreachFilter}.
+ *
+ * <pre>
+ * passfortify breach-filter build &lt;hashes.txt&gt;
+ * java -cp passfortify-benchmarks-1.0.1.jar com.queomedia.scheel.benchmarks.BreachFilterTool &lt;hashes.txt&gt; [lookups]
+ * </pre>
+ *
+ * <p>The filter is built with the command line interface first. The benchmark compares lookups in the sorted file
+ * alone with lookups screened by the filter and reports the measured false positive rate.</p>
+ */
+public final class BreachFilterTool {
+
+    /**
+     * Number of lookups of every kind the benchmark performs if not specified.
+     */
+    private static final int DEFAULT_LOOKUPS = 1_000_000;
+
+    /**
+     * Entry point of the tool.
+     *
+     * @param args The hash list, optionally followed by the number of lookups.
+     * @throws Exception If reading the files fails.
+     */
+    public static void main(final String[] args) throws Exception {
+        if (args.length < 1) {
+            System.err.println("Usage: BreachFilterTool <hashes.txt> [lookups]");
+            System.exit(1);
+        }
+        bench(Path.of(args[0]), args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_LOOKUPS);
+    }
+
+    /**
+     * Measures lookup throughput with and without the filter, using random passwords that are almost certainly
+     * not breached, which is the common case during an audit.
+     *
+     * @param hashFile The hash list, its filter must have been built before.
+     * @param lookups  Number of lookups of every kind.
+     * @throws Exception If reading fails.
+     */
+    private static void bench(final Path hashFile, final int lookups) throws Exception {
+        final int passwordLength = 16;
+        SecureRandom random = new SecureRandom();
+        MessageDigest sha1 = MessageDigest.getInstance("SHA-1");
+        byte[][] hashes = new byte[lookups][];
+        for (int i = 0; i < lookups; i++) {
+            StringBuilder password = new StringBuilder();
+            for (int j = 0; j < passwordLength; j++) {
+                password.append((char) random.nextInt('a', 'z' + 1));
+            }
+            //The upper case hex form of the hash file, computed up front so only the lookups are measured
+            hashes[i] = HexFormat.of().withUpperCase().formatHex(sha1.digest(password.toString().getBytes(UTF_8)))
+                    .getBytes(UTF_8);
+        }
+
+        try (BreachFilter filter = BreachFilter.open(BreachFilter.defaultLocation(hashFile));
+                BreachIndex exact = BreachIndex.open(hashFile, null);
+                BreachIndex screened = BreachIndex.open(hashFile, BreachFilter.open(
+                        BreachFilter.defaultLocation(hashFile)))) {
+            long falsePositives = 0;
+            long start = System.nanoTime();
+            for (byte[] hash : hashes) {
+                falsePositives += filter.mightContain(hash) ? 1 : 0;
+            }
+            report("filter only", lookups, System.nanoTime() - start);
+            System.out.printf(Locale.ROOT, "  measured false positive rate: %.5f%% (expected %.5f%%)%n",
+                    falsePositives * 100.0 / lookups, filter.falsePositiveRate() * 100);
+
+            start = System.nanoTime();
+            for (byte[] hash : hashes) {
+                exact.breachCount(hash);
+            }
+            report("sorted file only", lookups, System.nanoTime() - start);
+
+            start = System.nanoTime();
+            for (byte[] hash : hashes) {
+                screened.breachCount(hash);
+            }
+            report("filter + sorted file", lookups, System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Prints the throughput and average latency of a benchmark run.
+     *
+     * @param name    Name of the run.
+     * @param lookups Number of lookups performed.
+     * @param nanos   Time taken in nanoseconds.
+     */
+    private static void report(final String name, final int lookups, final long nanos) {
+        System.out.printf(Locale.ROOT, "%-22s %,14.0f lookups/s %10.3f us/lookup%n", name,
+                lookups / (nanos / 1e9), nanos / 1e3 / lookups);
+    }
+}
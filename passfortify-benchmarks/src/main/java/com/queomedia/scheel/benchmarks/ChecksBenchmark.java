@@ -0,0 +1,113 @@
+package com.queomedia.scheel.benchmarks;
+
+import com.queomedia.scheel.core.PasswordTools;
+import com.queomedia.scheel.core.VaultRecord;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The checks run on saved passwords: the duplicate check over vaults of different sizes, and the strength
+ * estimate of single passwords.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ChecksBenchmark {
+
+    /**
+     * The passwords of a vault.
+     */
+    @State(Scope.Benchmark)
+    public static class Vault {
+
+        /**
+         * Number of accounts in the vault.
+         */
+        @Param({"100", "1000", "10000", "100000"})
+        public int vaultSize;
+
+        /**
+         * The passwords, all different, so the duplicate check has to look at every one.
+         */
+        String[] passwords;
+
+        /**
+         * Creates the passwords.
+         */
+        @Setup
+        public void setup() {
+            List<VaultRecord> accounts = BenchmarkVault.accounts(vaultSize);
+            passwords = new String[accounts.size()];
+            for (int i = 0; i < passwords.length; i++) {
+                passwords[i] = accounts.get(i).password();
+            }
+        }
+    }
+
+    /**
+     * Passwords of the kinds users save, checked in turn.
+     */
+    @State(Scope.Thread)
+    public static class Samples {
+
+        /**
+         * Generated, dictionary based, keyboard walk, date and l33t passwords.
+         */
+        private static final String[] PASSWORDS = {"k#8Lq!z2Vw9@rT4m", "correcthorsebatterystaple", "qwertzuiop123",
+            "Summer2024!", "p@ssw0rd", "19.07.1987", "Tr0ub4dor&3", "aaaaaaaaaaaa", "dragon", "xkcd936 is great"};
+
+        /**
+         * Position of the next password.
+         */
+        private int next;
+
+        /**
+         * Returns the next password.
+         *
+         * @return The password.
+         */
+        String next() {
+            String password = PASSWORDS[next];
+            next = (next + 1) % PASSWORDS.length;
+            return password;
+        }
+    }
+
+    /**
+     * Checks the vault for reused passwords. The check compares every pair of passwords, so a single call on the
+     * largest vault takes a while.
+     *
+     * @param vault The vault.
+     * @return Whether a password is reused, never.
+     */
+    @Benchmark
+    public boolean duplicatePasswordCheck(final Vault vault) {
+        return PasswordTools.duplicatePasswordCheck(vault.passwords);
+    }
+
+    /**
+     * Estimates the strength of a password.
+     *
+     * @param samples The passwords.
+     * @return The estimated entropy in bits.
+     */
+    @Benchmark
+    public int passwordStrength(final Samples samples) {
+        return PasswordTools.passwordStrength(samples.next());
+    }
+}
@@ -0,0 +1,124 @@
+package com.queomedia.scheel.benchmarks;
+
+import com.queomedia.scheel.core.Cryptography;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import javax.crypto.SecretKey;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Encryption and decryption of one file at different sizes, and the key derivation both start with.
+ *
+ * <p>Every call derives its key with 128,000 PBKDF2 iterations, so small payloads mostly measure the derivation;
+ * comparing {@link #deriveKey(Salt)} with {@link #encrypt(Payload)} shows what the cipher itself adds.</p>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CryptographyBenchmark {
+
+    /**
+     * A payload and its ciphertext.
+     */
+    @State(Scope.Benchmark)
+    public static class Payload {
+
+        /**
+         * Size of the plain text in bytes: one account, a vault file of about a thousand accounts, and one of about
+         * a hundred thousand.
+         */
+        @Param({"64", "65536", "4194304"})
+        public int payloadSize;
+
+        /**
+         * The plain text.
+         */
+        byte[] plainText;
+
+        /**
+         * The plain text encrypted with the master password of the benchmarks.
+         */
+        byte[] cipherText;
+
+        /**
+         * Creates the payload.
+         *
+         * @throws Exception If it cannot be encrypted.
+         */
+        @Setup
+        public void setup() throws Exception {
+            plainText = Cryptography.getRandomNonce(payloadSize);
+            cipherText = Cryptography.encrypt(plainText, BenchmarkVault.M_PASSWORD);
+        }
+    }
+
+    /**
+     * The salt of the key derivation.
+     */
+    @State(Scope.Benchmark)
+    public static class Salt {
+
+        /**
+         * A random salt of the length encryption uses.
+         */
+        byte[] salt;
+
+        /**
+         * Creates the salt.
+         */
+        @Setup
+        public void setup() {
+            final int saltLength = 64;
+            salt = Cryptography.getRandomNonce(saltLength);
+        }
+    }
+
+    /**
+     * Encrypts the payload.
+     *
+     * @param payload The payload.
+     * @return The ciphertext.
+     * @throws Exception If encryption fails.
+     */
+    @Benchmark
+    public byte[] encrypt(final Payload payload) throws Exception {
+        return Cryptography.encrypt(payload.plainText, BenchmarkVault.M_PASSWORD);
+    }
+
+    /**
+     * Decrypts the payload.
+     *
+     * @param payload The payload.
+     * @return The plain text.
+     * @throws Exception If decryption fails.
+     */
+    @Benchmark
+    public byte[] decrypt(final Payload payload) throws Exception {
+        return Cryptography.decrypt(payload.cipherText, BenchmarkVault.M_PASSWORD);
+    }
+
+    /**
+     * Derives a key from the master password.
+     *
+     * @param salt The salt.
+     * @return The key.
+     * @throws Exception If the key cannot be derived.
+     */
+    @Benchmark
+    public SecretKey deriveKey(final Salt salt) throws Exception {
+        return Cryptography.getAESKeyFromPassword(BenchmarkVault.M_PASSWORD, salt.salt);
+    }
+}
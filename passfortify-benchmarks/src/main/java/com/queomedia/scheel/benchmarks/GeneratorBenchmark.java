@@ -0,0 +1,81 @@
+package com.queomedia.scheel.benchmarks;
+
+import com.queomedia.scheel.core.PassphraseGenerator;
+import com.queomedia.scheel.core.PasswordGenerator;
+import com.queomedia.scheel.core.PasswordPolicy;
+import com.queomedia.scheel.core.PasswordTools;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Generating passwords with the default policy and with a strict policy of a service, and generating passphrases.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class GeneratorBenchmark {
+
+    /**
+     * Generator of a policy demanding several characters of every class and excluding ambiguous ones.
+     */
+    private PasswordGenerator strictGenerator;
+
+    /**
+     * The passphrase generator of the application.
+     */
+    private PassphraseGenerator passphraseGenerator;
+
+    /**
+     * Creates the generators, loading the wordlist.
+     */
+    @Setup
+    public void setup() {
+        strictGenerator = new PasswordGenerator(PasswordPolicy.parse(
+                "length=24-32 lower=3 upper=3 digits=3 custom=!$%&*+-_ custom-min=3 no-ambiguous"));
+        passphraseGenerator = PassphraseGenerator.defaults();
+    }
+
+    /**
+     * Generates a password with the default policy, as the generate button does.
+     *
+     * @return The password.
+     */
+    @Benchmark
+    public String defaultPassword() {
+        return PasswordTools.passwordGenerator();
+    }
+
+    /**
+     * Generates a password with the strict policy.
+     *
+     * @return The password.
+     */
+    @Benchmark
+    public String policyPassword() {
+        return strictGenerator.generate();
+    }
+
+    /**
+     * Generates a passphrase of eight words.
+     *
+     * @return The passphrase.
+     */
+    @Benchmark
+    public PassphraseGenerator.Passphrase passphrase() {
+        return passphraseGenerator.generate();
+    }
+}
@@ -0,0 +1,54 @@
+package com.queomedia.scheel.benchmarks;
+
+import com.queomedia.scheel.core.Metric;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The cost of recording a duration, which every instrumented operation pays whether anyone watches the metrics or
+ * not. Recording includes reading the clock twice, as the operations do; {@link #clock()} shows how much of it is
+ * the clock, which depends on the clock source of the machine more than on the histogram.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MetricsBenchmark {
+
+    /**
+     * Reads the clock only, the part of recording that does not depend on the histogram.
+     *
+     * @return The time.
+     */
+    @Benchmark
+    public long clock() {
+        return System.nanoTime();
+    }
+
+    /**
+     * Records a duration from a single thread.
+     */
+    @Benchmark
+    public void record() {
+        Metric.DECRYPT.recordSince(System.nanoTime());
+    }
+
+    /**
+     * Records durations of the same metric from four threads, like the agent serving several clients at once.
+     */
+    @Benchmark
+    @Threads(4)
+    public void recordContended() {
+        Metric.DECRYPT.recordSince(System.nanoTime());
+    }
+}
@@ -0,0 +1,81 @@
+package com.queomedia.scheel.benchmarks;
+
+import com.queomedia.scheel.core.PasswordGenerator;
+import com.queomedia.scheel.core.PasswordPolicy;
+
+import java.io.BufferedWriter;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Command line tool that generates passwords in bulk and measures the throughput of {@link PasswordGenerator}.
+ * To provision accounts, {@code passfortify generate --count N [policy rules]} does the same without the report.
+ *
+ * <pre>
+ * java -cp passfortify-benchmarks-1.0.1.jar com.queomedia.scheel.benchmarks.PasswordBatchTool &lt;count&gt; [policy]
+ * java -cp passfortify-benchmarks-1.0.1.jar com.queomedia.scheel.benchmarks.PasswordBatchTool 1000
+ *         "length=20 lower=1 upper=1 digits=1 special=1"
+ * </pre>
+ *
+ * <p>The policy uses the format of {@link PasswordPolicy#parse(String)} and may span several arguments.
+ * The passwords are written to standard output, one per line. Entropy per password and the measured throughput
+ * in passwords per second are reported on standard error, so they do not end up in redirected output.</p>
+ */
+public final class PasswordBatchTool {
+
+    /**
+     * Policy used if none is given: 20 characters of printable ASCII without the space.
+     */
+    private static final String DEFAULT_POLICY = "length=20 lower=0 upper=0 digits=0 special=0";
+
+    /**
+     * Number of passwords generated per call, bounds the memory used for large counts.
+     */
+    private static final int BATCH_SIZE = 10_000;
+
+    /**
+     * Entry point of the tool.
+     *
+     * @param args The number of passwords, optionally followed by the policy.
+     * @throws Exception If writing the output fails.
+     */
+    public static void main(final String[] args) throws Exception {
+        if (args.length < 1) {
+            System.err.println("Usage: PasswordBatchTool <count> [policy]");
+            System.exit(1);
+        }
+        long count = Long.parseLong(args[0]);
+        String specification = args.length > 1 ? String.join(" ", Arrays.copyOfRange(args, 1, args.length))
+                : DEFAULT_POLICY;
+        PasswordPolicy policy = PasswordPolicy.parse(specification);
+        PasswordGenerator generator = new PasswordGenerator(policy);
+
+        Writer out = new BufferedWriter(new OutputStreamWriter(System.out, UTF_8), 1 << 16);
+        long generationNanos = 0;
+        long start = System.nanoTime();
+        for (long done = 0; done < count; done += BATCH_SIZE) {
+            long batchStart = System.nanoTime();
+            List<String> passwords = generator.generate((int) Math.min(BATCH_SIZE, count - done));
+            generationNanos += System.nanoTime() - batchStart;
+            for (String password : passwords) {
+                out.write(password);
+                out.write('\n');
+            }
+        }
+        out.flush();
+        double totalSeconds = (System.nanoTime() - start) / 1e9;
+        double generationSeconds = generationNanos / 1e9;
+
+        System.err.printf(Locale.ROOT, "Generated %,d passwords for policy '%s'%n", count, policy);
+        System.err.printf(Locale.ROOT, "  entropy:      at least %.1f bits each, alphabet of %d%n",
+                policy.entropyBits(), policy.alphabetSize());
+        System.err.printf(Locale.ROOT, "  generation:   %,.0f passwords/s%n",
+                count / Math.max(generationSeconds, 1e-9));
+        System.err.printf(Locale.ROOT, "  incl. output: %,.0f passwords/s%n", count / Math.max(totalSeconds, 1e-9));
+    }
+}
@@ -0,0 +1,366 @@
+package com.queomedia.scheel.benchmarks;
+
+import com.queomedia.scheel.core.PasswordTools;
+import com.queomedia.scheel.core.VaultColumns;
+import com.queomedia.scheel.core.VaultRecord;
+import com.queomedia.scheel.core.VaultStore;
+
+import com.sun.management.ThreadMXBean;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Command line tool that creates synthetic vaults of any size and reports how the operations of the application
+ * scale with the number of accounts.
+ *
+ * <pre>
+ * java -cp passfortify-benchmarks-1.0.1.jar com.queomedia.scheel.benchmarks.ScalingReportTool generate &lt;accounts&gt;
+ *         [--master &lt;password&gt;] [--reuse 0.2] [--long 0.02] [--seed 1]
+ * java -cp passfortify-benchmarks-1.0.1.jar com.queomedia.scheel.benchmarks.ScalingReportTool report
+ *         [--sizes 100,1000,10000] [--repeat 5] [--reuse 0.2] [--long 0.02] [--seed 1]
+ * </pre>
+ *
+ * <p>{@code generate} writes a vault of {@link SyntheticVault} accounts to the working directory, to profile the
+ * application against. {@code report} creates such a vault for every size in turn and runs the operations of a
+ * session on it through the same code the windows use: unlock, reveal, the duplicate password check, search, add,
+ * edit, delete and changing the master password. For every operation it reports the median latency and the bytes
+ * allocated by the calling thread, and how both grow with the size of the vault. Both commands have to be run in
+ * an empty directory.</p>
+ */
+public final class ScalingReportTool {
+
+    /**
+     * Sizes reported on if none are given.
+     */
+    private static final String DEFAULT_SIZES = "100,1000,10000";
+
+    /**
+     * Runs per operation and size if not given.
+     */
+    private static final int DEFAULT_REPEAT = 5;
+
+    /**
+     * Time after which an operation is not repeated anymore, so quadratic operations on large vaults end.
+     */
+    private static final long BUDGET_NANOS = TimeUnit.SECONDS.toNanos(30);
+
+    /**
+     * Size of the vault the operations are run on once before reporting, so the first size is not measured cold.
+     */
+    private static final int WARM_UP_SIZE = 100;
+
+    /**
+     * Text searched for, matching a service of the long tail and some usernames.
+     */
+    private static final String SEARCH_TEXT = "shop1";
+
+    /**
+     * Width of the operation column of the report.
+     */
+    private static final int NAME_WIDTH = 24;
+
+    /**
+     * Width of the value columns of the report.
+     */
+    private static final int VALUE_WIDTH = 12;
+
+    /**
+     * Generates the accounts of the vaults.
+     */
+    private final SyntheticVault vault;
+
+    /**
+     * Runs per operation and size.
+     */
+    private final int repeat;
+
+    /**
+     * Counts the memory allocated by the measuring thread.
+     */
+    private final ThreadMXBean threads = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    /**
+     * The current master password, changed by the workload.
+     */
+    private String mPassword = BenchmarkVault.M_PASSWORD;
+
+    /**
+     * Number of accounts added by the workload, used to name them.
+     */
+    private int added;
+
+    /**
+     * Creates the tool.
+     *
+     * @param vault  Generates the accounts of the vaults.
+     * @param repeat Runs per operation and size.
+     */
+    private ScalingReportTool(final SyntheticVault vault, final int repeat) {
+        this.vault = vault;
+        this.repeat = repeat;
+    }
+
+    /**
+     * Entry point of the tool.
+     *
+     * @param args The command and its options.
+     * @throws Exception If the vault cannot be written or an operation fails.
+     */
+    public static void main(final String[] args) throws Exception {
+        List<String> arguments = new ArrayList<>(List.of(args));
+        double reuse = Double.parseDouble(option(arguments, "--reuse", "0.2"));
+        double longValues = Double.parseDouble(option(arguments, "--long", "0.02"));
+        long seed = Long.parseLong(option(arguments, "--seed", "1"));
+        String master = option(arguments, "--master", BenchmarkVault.M_PASSWORD);
+        int repeat = Integer.parseInt(option(arguments, "--repeat", String.valueOf(DEFAULT_REPEAT)));
+        int[] sizes = Arrays.stream(option(arguments, "--sizes", DEFAULT_SIZES).split(","))
+                .mapToInt(size -> Integer.parseInt(size.trim())).sorted().toArray();
+        SyntheticVault vault = new SyntheticVault(reuse, longValues, seed);
+
+        if (arguments.size() == 2 && arguments.get(0).equals("generate")) {
+            generate(vault, Integer.parseInt(arguments.get(1)), master);
+        } else if (arguments.size() == 1 && arguments.get(0).equals("report")) {
+            System.out.printf(Locale.ROOT, "Synthetic vaults: %.0f%% reused passwords, %.0f%% long values, seed %d, "
+                    + "median of up to %d runs%n%n", reuse * 100, longValues * 100, seed, repeat);
+            new ScalingReportTool(vault, repeat).report(sizes);
+        } else {
+            System.err.println("Usage: ScalingReportTool generate <accounts> [--master <password>] [options]");
+            System.err.println("       ScalingReportTool report [--sizes 100,1000,10000] [--repeat 5] [options]");
+            System.err.println("Options: --reuse <share of reused passwords> --long <share of long values> "
+                    + "--seed <seed>");
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Writes a synthetic vault to the working directory.
+     *
+     * @param vault    Generates the accounts.
+     * @param count    The number of accounts.
+     * @param mPassword The master password of the vault.
+     * @throws Exception If the vault cannot be written, or there is a vault already.
+     */
+    private static void generate(final SyntheticVault vault, final int count, final String mPassword)
+            throws Exception {
+        List<VaultRecord> accounts = vault.generate(count);
+        BenchmarkVault.create(mPassword);
+        PasswordTools.writeVaultRecords(accounts, mPassword, 1);
+
+        Set<String> services = new HashSet<>();
+        Map<String, Integer> passwordUses = new HashMap<>();
+        for (VaultRecord account : accounts) {
+            services.add(account.service());
+            passwordUses.merge(account.password(), 1, Integer::sum);
+        }
+        long reused = accounts.stream().filter(account -> passwordUses.get(account.password()) > 1).count();
+        System.out.printf(Locale.ROOT, "%d accounts written: %d distinct services, %d accounts sharing a password%n",
+                count, services.size(), reused);
+    }
+
+    /**
+     * Runs the workload on vaults of the given sizes and prints the report.
+     *
+     * @param sizes The sizes, ascending.
+     * @throws Exception If an operation fails.
+     */
+    private void report(final int[] sizes) throws Exception {
+        if (!threads.isThreadAllocatedMemorySupported()) {
+            System.err.println("This JVM does not count allocated memory, allocations are reported as 0");
+        } else {
+            threads.setThreadAllocatedMemoryEnabled(true);
+        }
+        System.err.println("Warming up on " + WARM_UP_SIZE + " accounts");
+        run(WARM_UP_SIZE);
+
+        Map<Integer, Map<String, Result>> results = new LinkedHashMap<>();
+        for (int size : sizes) {
+            System.err.println("Measuring " + size + " accounts");
+            results.put(size, run(size));
+        }
+        printTable("Latency in milliseconds", sizes, results, result -> result.nanos() / 1e6);
+        System.out.println();
+        printTable("Allocated megabytes", sizes, results, result -> result.bytes() / 1e6);
+        System.out.println();
+        System.out.println("Growth is the exponent b in value ~ n^b from the smallest to the largest vault: "
+                + "about 0 is constant, 1 linear, 2 quadratic.");
+    }
+
+    /**
+     * Creates a vault and runs every operation of the workload on it.
+     *
+     * @param size The number of accounts.
+     * @return The measurements by operation, in the order they were run.
+     * @throws Exception If an operation fails.
+     */
+    private Map<String, Result> run(final int size) throws Exception {
+        List<VaultRecord> accounts = vault.generate(size);
+        mPassword = BenchmarkVault.M_PASSWORD;
+        BenchmarkVault.create(mPassword);
+        try {
+            PasswordTools.writeVaultRecords(accounts, mPassword, 1);
+            String[] passwords = accounts.stream().map(VaultRecord::password).toArray(String[]::new);
+            VaultStore store = VaultStore.shared();
+
+            Map<String, Result> results = new LinkedHashMap<>();
+            results.put("unlock", measure(() -> PasswordTools.checkMasterpassword(mPassword)));
+            //Decrypting all account files, as revealing the accounts in a new window does
+            results.put("reveal", measure(() -> PasswordTools.getVaultRecords(mPassword)));
+            results.put("duplicate check", measure(() -> PasswordTools.duplicatePasswordCheck(passwords)));
+
+            store.records(mPassword); //The store decrypts once, later operations work on its snapshot
+            results.put("search", measure(() -> search(store.columns(mPassword))));
+            results.put("add", measure(() -> store.add(List.of(new VaultRecord("Added" + (++added) + ".example",
+                    "added@example.com", "added-password", 0)), mPassword)));
+            results.put("edit", measure(() -> {
+                List<VaultRecord> records = store.records(mPassword);
+                VaultRecord edited = records.get(records.size() / 2);
+                store.update(edited, new VaultRecord(edited.service(), edited.username(), edited.password() + "!",
+                        0), mPassword);
+            }));
+            //Deleting the accounts added before, so the size stays the same
+            results.put("delete", measure(() -> {
+                List<VaultRecord> records = store.records(mPassword);
+                store.remove(records.get(records.size() - 1), mPassword);
+            }));
+            results.put("change master password", measure(() -> {
+                String next = mPassword.equals(BenchmarkVault.M_PASSWORD) ? BenchmarkVault.M_PASSWORD + "-changed"
+                        : BenchmarkVault.M_PASSWORD;
+                store.changeMasterPassword(mPassword, next);
+                mPassword = next;
+            }));
+            return results;
+        } finally {
+            BenchmarkVault.delete();
+        }
+    }
+
+    /**
+     * Filters accounts like the search of the main window: by service or username, ignoring case.
+     *
+     * @param columns The accounts.
+     * @return The number of matches.
+     */
+    private static int search(final VaultColumns columns) {
+        return columns.search(SEARCH_TEXT).cardinality();
+    }
+
+    /**
+     * Runs an operation repeatedly, until it ran {@link #repeat} times or used up {@link #BUDGET_NANOS}.
+     *
+     * @param operation The operation.
+     * @return The median latency and allocation.
+     * @throws Exception If the operation fails.
+     */
+    private Result measure(final Operation operation) throws Exception {
+        long[] nanos = new long[repeat];
+        long[] bytes = new long[repeat];
+        int runs = 0;
+        long spent = 0;
+        while (runs < repeat && (runs == 0 || spent < BUDGET_NANOS)) {
+            long allocatedBefore = threads.getCurrentThreadAllocatedBytes();
+            long start = System.nanoTime();
+            operation.run();
+            nanos[runs] = System.nanoTime() - start;
+            bytes[runs] = Math.max(0, threads.getCurrentThreadAllocatedBytes() - allocatedBefore);
+            spent += nanos[runs];
+            runs++;
+        }
+        return new Result(median(nanos, runs), median(bytes, runs));
+    }
+
+    /**
+     * Returns the median of the first values of an array.
+     *
+     * @param values The values.
+     * @param count  The number of values to use.
+     * @return The median.
+     */
+    private static long median(final long[] values, final int count) {
+        long[] sorted = Arrays.copyOf(values, count);
+        Arrays.sort(sorted);
+        return sorted[count / 2];
+    }
+
+    /**
+     * Prints one value of every operation and size, and how it grows with the size.
+     *
+     * @param title   The title of the table.
+     * @param sizes   The sizes, ascending.
+     * @param results The measurements by size and operation.
+     * @param value   Extracts the value from a measurement.
+     */
+    private static void printTable(final String title, final int[] sizes,
+                                   final Map<Integer, Map<String, Result>> results,
+                                   final ToDoubleFunction<Result> value) {
+        System.out.println(title);
+        StringBuilder header = new StringBuilder(String.format(Locale.ROOT, "%-" + NAME_WIDTH + "s", "Operation"));
+        for (int size : sizes) {
+            header.append(String.format(Locale.ROOT, "%" + VALUE_WIDTH + "d", size));
+        }
+        System.out.println(header.append(String.format(Locale.ROOT, "%" + VALUE_WIDTH + "s", "Growth")));
+
+        for (String operation : results.get(sizes[0]).keySet()) {
+            StringBuilder line = new StringBuilder(String.format(Locale.ROOT, "%-" + NAME_WIDTH + "s", operation));
+            for (int size : sizes) {
+                line.append(String.format(Locale.ROOT, "%" + VALUE_WIDTH + ".3f",
+                        value.applyAsDouble(results.get(size).get(operation))));
+            }
+            double first = value.applyAsDouble(results.get(sizes[0]).get(operation));
+            double last = value.applyAsDouble(results.get(sizes[sizes.length - 1]).get(operation));
+            String growth = sizes.length < 2 || first <= 0 || last <= 0 ? "-" : String.format(Locale.ROOT,
+                    "n^%.1f", Math.log(last / first) / Math.log((double) sizes[sizes.length - 1] / sizes[0]));
+            System.out.println(line.append(String.format(Locale.ROOT, "%" + VALUE_WIDTH + "s", growth)));
+        }
+    }
+
+    /**
+     * Removes an option and its value from the arguments.
+     *
+     * @param arguments The arguments.
+     * @param name      The name of the option.
+     * @param fallback  The value if the option is not given.
+     * @return The value.
+     */
+    private static String option(final List<String> arguments, final String name, final String fallback) {
+        int index = arguments.indexOf(name);
+        if (index < 0 || index + 1 >= arguments.size()) {
+            return fallback;
+        }
+        arguments.remove(index);
+        return arguments.remove(index);
+    }
+
+    /**
+     * An operation of the workload.
+     */
+    @FunctionalInterface
+    private interface Operation {
+
+        /**
+         * Runs the operation once.
+         *
+         * @throws Exception If it fails.
+         */
+        void run() throws Exception;
+    }
+
+    /**
+     * The median measurements of an operation.
+     *
+     * @param nanos The latency in nanoseconds.
+     * @param bytes The bytes allocated by the calling thread.
+     */
+    private record Result(long nanos, long bytes) {
+    }
+}
@@ -0,0 +1,190 @@
+package com.queomedia.scheel.benchmarks;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Command line tool that measures how long a command takes from process start to exit, with and without class data
+ * sharing, to compare the startup of releases and the effect of the archive built by {@code mvn -Pcds package}.
+ *
+ * <pre>
+ * java -cp passfortify-benchmarks-1.0.1.jar com.queomedia.scheel.benchmarks.StartupBenchmarkTool [--runs 10]
+ *         [--archive PassFortify.jsa] -- java -jar PassFortify-1.0.1.jar --training-run
+ * </pre>
+ *
+ * <p>The command has to exit by itself, like the application does with {@code --training-run} once its windows are
+ * loaded. It is run without class data sharing ({@code -Xshare:off}), with the archive of the JDK only and, if
+ * {@code --archive} is given, with the archive of the application; the options are inserted after the first word of
+ * the command. The configurations take turns, so a slower phase of the machine hits all of them alike, after one
+ * unmeasured round that fills the file system cache. The report gives the minimum, median and maximum wall time of
+ * every configuration and is appended to {@code passfortify-startup.csv}, to keep the numbers of every release.</p>
+ */
+public final class StartupBenchmarkTool {
+
+    /**
+     * Runs per configuration if not given.
+     */
+    private static final int DEFAULT_RUNS = 10;
+
+    /**
+     * File the results are appended to.
+     */
+    private static final Path RESULTS = Path.of("passfortify-startup.csv");
+
+    /**
+     * Header of the result file.
+     */
+    private static final String RESULTS_HEADER = "version,date,configuration,runs,min_ms,median_ms,max_ms";
+
+    /**
+     * Width of the configuration column of the report.
+     */
+    private static final int NAME_WIDTH = 16;
+
+    /**
+     * Nanoseconds per millisecond.
+     */
+    private static final double NANOS_PER_MILLI = 1e6;
+
+    /**
+     * Not to be instantiated.
+     */
+    private StartupBenchmarkTool() {
+    }
+
+    /**
+     * Entry point of the tool.
+     *
+     * @param args The options, {@code --} and the command to measure.
+     * @throws Exception If the command cannot be started or fails.
+     */
+    public static void main(final String[] args) throws Exception {
+        List<String> arguments = new ArrayList<>(List.of(args));
+        int separator = arguments.indexOf("--");
+        if (separator < 0 || separator == arguments.size() - 1) {
+            System.err.println("Usage: StartupBenchmarkTool [--runs 10] [--archive <file.jsa>] -- <command>");
+            System.exit(1);
+            return;
+        }
+        List<String> command = new ArrayList<>(arguments.subList(separator + 1, arguments.size()));
+        List<String> options = new ArrayList<>(arguments.subList(0, separator));
+        int runs = Integer.parseInt(option(options, "--runs", String.valueOf(DEFAULT_RUNS)));
+        String archive = option(options, "--archive", null);
+
+        Map<String, List<String>> configurations = new LinkedHashMap<>();
+        configurations.put("No CDS", List.of("-Xshare:off"));
+        configurations.put("JDK CDS", List.of());
+        if (archive != null) {
+            if (!Files.isRegularFile(Path.of(archive))) {
+                throw new IllegalArgumentException(archive + " does not exist");
+            }
+            configurations.put("AppCDS", List.of("-XX:SharedArchiveFile=" + archive, "-Xshare:on"));
+        }
+
+        Map<String, long[]> durations = new LinkedHashMap<>();
+        for (String configuration : configurations.keySet()) {
+            durations.put(configuration, new long[runs]);
+        }
+        for (int run = -1; run < runs; run++) {
+            for (Map.Entry<String, List<String>> configuration : configurations.entrySet()) {
+                long nanos = measure(withOptions(command, configuration.getValue()));
+                if (run >= 0) {
+                    durations.get(configuration.getKey())[run] = nanos;
+                }
+            }
+        }
+        report(String.join(" ", command), durations);
+    }
+
+    /**
+     * Inserts JVM options after the first word of a command.
+     *
+     * @param command The command, starting with the java launcher.
+     * @param options The options.
+     * @return The command with the options.
+     */
+    private static List<String> withOptions(final List<String> command, final List<String> options) {
+        List<String> result = new ArrayList<>(command);
+        result.addAll(1, options);
+        return result;
+    }
+
+    /**
+     * Runs a command once, discarding its output.
+     *
+     * @param command The command.
+     * @return The time from starting the process to its exit in nanoseconds.
+     * @throws IOException          If the command cannot be started or fails.
+     * @throws InterruptedException If waiting for the command is interrupted.
+     */
+    private static long measure(final List<String> command) throws IOException, InterruptedException {
+        long start = System.nanoTime();
+        Process process = new ProcessBuilder(command).redirectOutput(ProcessBuilder.Redirect.DISCARD)
+                .redirectError(ProcessBuilder.Redirect.DISCARD).start();
+        int exitCode = process.waitFor();
+        long nanos = System.nanoTime() - start;
+        if (exitCode != 0) {
+            throw new IOException(String.join(" ", command) + " exited with " + exitCode);
+        }
+        return nanos;
+    }
+
+    /**
+     * Prints the results and appends them to the result file.
+     *
+     * @param command   The measured command.
+     * @param durations The durations of every configuration in nanoseconds.
+     * @throws IOException If the result file cannot be written.
+     */
+    private static void report(final String command, final Map<String, long[]> durations) throws IOException {
+        String version = Benchmarks.version();
+        System.out.println("Startup of: " + command);
+        System.out.printf(Locale.ROOT, "%-" + NAME_WIDTH + "s%10s%10s%10s%n", "Configuration", "Min ms", "Median ms",
+                "Max ms");
+        List<String> lines = new ArrayList<>();
+        if (!Files.exists(RESULTS)) {
+            lines.add(RESULTS_HEADER);
+        }
+        for (Map.Entry<String, long[]> configuration : durations.entrySet()) {
+            long[] sorted = configuration.getValue().clone();
+            Arrays.sort(sorted);
+            double min = sorted[0] / NANOS_PER_MILLI;
+            double median = sorted[sorted.length / 2] / NANOS_PER_MILLI;
+            double max = sorted[sorted.length - 1] / NANOS_PER_MILLI;
+            System.out.printf(Locale.ROOT, "%-" + NAME_WIDTH + "s%10.0f%10.0f%10.0f%n", configuration.getKey(), min,
+                    median, max);
+            lines.add(String.format(Locale.ROOT, "%s,%s,%s,%d,%.0f,%.0f,%.0f", version, LocalDate.now(),
+                    configuration.getKey(), sorted.length, min, median, max));
+        }
+        Files.write(RESULTS, lines, UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        System.out.println("Appended to " + RESULTS.toAbsolutePath());
+    }
+
+    /**
+     * Removes an option and its value from the arguments.
+     *
+     * @param arguments The arguments, modified.
+     * @param name      The name of the option.
+     * @param fallback  The value if the option is missing.
+     * @return The value.
+     */
+    private static String option(final List<String> arguments, final String name, final String fallback) {
+        int index = arguments.indexOf(name);
+        if (index < 0 || index + 1 >= arguments.size()) {
+            return fallback;
+        }
+        arguments.remove(index);
+        return arguments.remove(index);
+    }
+}
@@ -0,0 +1,110 @@
+package com.queomedia.scheel.benchmarks;
+
+import com.queomedia.scheel.core.PasswordTools;
+import com.queomedia.scheel.core.VaultRecord;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reading and writing the account files of vaults of different sizes.
+ *
+ * <p>Runs on a throwaway vault in the working directory, which has to be free of vault files. Adding an account
+ * rewrites all account files, so {@link #addAccount()} writes the vault with one more account than it was created
+ * with; every invocation starts from the same size.</p>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 3)
+@Measurement(iterations = 3, time = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class StorageBenchmark {
+
+    /**
+     * Number of accounts in the vault.
+     */
+    @Param({"100", "1000", "10000", "100000"})
+    public int vaultSize;
+
+    /**
+     * The accounts of the vault plus the one {@link #addAccount()} adds.
+     */
+    private List<VaultRecord> withAddedAccount;
+
+    /**
+     * Version of the last write, every write needs a newer one.
+     */
+    private long version;
+
+    /**
+     * Creates the vault.
+     *
+     * @throws Exception If the vault cannot be written, or a vault exists in the working directory.
+     */
+    @Setup
+    public void setup() throws Exception {
+        BenchmarkVault.create();
+        List<VaultRecord> accounts = BenchmarkVault.accounts(vaultSize);
+        PasswordTools.writeVaultRecords(accounts, BenchmarkVault.M_PASSWORD, ++version);
+        withAddedAccount = new ArrayList<>(accounts);
+        withAddedAccount.add(new VaultRecord("added.example.com", "added@example.com", "added-password",
+                System.currentTimeMillis()));
+    }
+
+    /**
+     * Deletes the vault.
+     *
+     * @throws Exception If a file cannot be deleted.
+     */
+    @TearDown
+    public void tearDown() throws Exception {
+        BenchmarkVault.delete();
+    }
+
+    /**
+     * Decrypts the service file into lines, as done for every account file when the vault is read.
+     *
+     * @return The services.
+     * @throws Exception If the file cannot be read or decrypted.
+     */
+    @Benchmark
+    public String[] readServiceFile() throws Exception {
+        return PasswordTools.getContentLines("Services.txt", BenchmarkVault.M_PASSWORD);
+    }
+
+    /**
+     * Reads all accounts from the four account files.
+     *
+     * @return The accounts.
+     * @throws Exception If the files cannot be read or decrypted.
+     */
+    @Benchmark
+    public List<VaultRecord> readVault() throws Exception {
+        return PasswordTools.getVaultRecords(BenchmarkVault.M_PASSWORD);
+    }
+
+    /**
+     * Adds an account by writing all account files, as every save does.
+     *
+     * @throws Exception If the files cannot be written.
+     */
+    @Benchmark
+    public void addAccount() throws Exception {
+        PasswordTools.writeVaultRecords(withAddedAccount, BenchmarkVault.M_PASSWORD, ++version);
+    }
+}
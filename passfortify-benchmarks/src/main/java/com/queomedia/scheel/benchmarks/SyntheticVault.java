@@ -0,0 +1,216 @@
+package com.queomedia.scheel.benchmarks;
+
+import com.queomedia.scheel.core.VaultRecord;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Generates accounts that look like the vaults of real users, in any number.
+ *
+ * <p>Real vaults are skewed: a few services (mail, shopping, social networks) hold several accounts each while a
+ * long tail appears once, most usernames share a handful of mail domains, some passwords are reused, and a few
+ * values are long, like API keys or recovery codes saved as the password. Services and domains are therefore drawn
+ * from Zipf distributions, a configurable share of the passwords is reused from a small set of favourites, and a
+ * configurable share of the accounts gets long values. The same seed always yields the same accounts.</p>
+ */
+final class SyntheticVault {
+
+    /**
+     * Services most users have an account at, the head of the service distribution.
+     */
+    private static final String[] POPULAR_SERVICES = {"Google", "Amazon", "Facebook", "Microsoft", "Apple", "PayPal",
+        "Netflix", "GitHub", "LinkedIn", "Instagram", "Twitter", "Spotify", "eBay", "Dropbox", "Steam", "Reddit",
+        "Discord", "Zoom", "Slack", "Adobe", "Booking.com", "Airbnb", "Uber", "Twitch", "Pinterest", "Telekom",
+        "Vodafone", "DKB", "Sparkasse", "ING"};
+
+    /**
+     * Mail domains of the usernames, most common first.
+     */
+    private static final String[] DOMAINS = {"gmail.com", "outlook.com", "web.de", "gmx.de", "yahoo.com",
+        "icloud.com", "proton.me", "t-online.de", "queo-group.com", "posteo.de", "hotmail.com", "mailbox.org"};
+
+    /**
+     * First names the local parts of the usernames are made of.
+     */
+    private static final String[] NAMES = {"anna", "ben", "clara", "david", "emma", "felix", "greta", "hannes",
+        "ida", "jonas", "katrin", "lukas", "mia", "noah", "olga", "paul"};
+
+    /**
+     * Characters of generated passwords: printable ASCII without the space.
+     */
+    private static final String PASSWORD_CHARACTERS = "abcdefghijklmnopqrstuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZ"
+            + "0123456789!\"#$%&'()*+,-./:;<=>?@[\\]^_`{|}~";
+
+    /**
+     * Characters of long values, which are usually keys or codes in base64.
+     */
+    private static final String LONG_VALUE_CHARACTERS = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz"
+            + "0123456789+/";
+
+    /**
+     * Number of passwords reused passwords are drawn from; users tend to have a few favourites.
+     */
+    private static final int FAVOURITES = 20;
+
+    /**
+     * Exponent of the Zipf distributions, close to what word and site frequencies show.
+     */
+    private static final double SKEW = 1.1;
+
+    /**
+     * Timestamps are spread over this many years before now.
+     */
+    private static final int YEARS = 5;
+
+    /**
+     * Share of the accounts whose password is one of the favourites, between 0 and 1.
+     */
+    private final double reuseRatio;
+
+    /**
+     * Share of the accounts with a long service and password, between 0 and 1.
+     */
+    private final double longValueRatio;
+
+    /**
+     * Seed of the random numbers.
+     */
+    private final long seed;
+
+    /**
+     * Creates a generator.
+     *
+     * @param reuseRatio     Share of the accounts whose password is reused, between 0 and 1.
+     * @param longValueRatio Share of the accounts with long values, between 0 and 1.
+     * @param seed           Seed of the random numbers, the same seed yields the same accounts.
+     */
+    SyntheticVault(final double reuseRatio, final double longValueRatio, final long seed) {
+        if (reuseRatio < 0 || reuseRatio > 1 || longValueRatio < 0 || longValueRatio > 1) {
+            throw new IllegalArgumentException("Ratios have to be between 0 and 1");
+        }
+        this.reuseRatio = reuseRatio;
+        this.longValueRatio = longValueRatio;
+        this.seed = seed;
+    }
+
+    /**
+     * Generates accounts.
+     *
+     * @param count The number of accounts.
+     * @return The accounts, in the order they would have been added.
+     */
+    List<VaultRecord> generate(final int count) {
+        Random random = new Random(seed);
+        //The long tail grows with the vault, so larger vaults have more distinct services as well
+        Zipf services = new Zipf(POPULAR_SERVICES.length + Math.max(count / 2, 1));
+        Zipf domains = new Zipf(DOMAINS.length);
+        Zipf favourites = new Zipf(FAVOURITES);
+        List<String> favouritePasswords = new ArrayList<>(FAVOURITES);
+        long now = System.currentTimeMillis();
+        long span = TimeUnit.DAYS.toMillis(365L * YEARS);
+
+        List<VaultRecord> accounts = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            boolean longValues = random.nextDouble() < longValueRatio;
+            String service = service(services.sample(random));
+            if (longValues) {
+                service = "https://" + service.toLowerCase() + "/" + randomString(random, LONG_VALUE_CHARACTERS,
+                        64 + random.nextInt(192));
+            }
+            String username = NAMES[random.nextInt(NAMES.length)] + (random.nextInt(2) == 0 ? "." : "")
+                    + random.nextInt(10_000) + "@" + DOMAINS[domains.sample(random)];
+
+            String password;
+            if (longValues) {
+                password = randomString(random, LONG_VALUE_CHARACTERS, 512 + random.nextInt(1536));
+            } else if (random.nextDouble() < reuseRatio && !favouritePasswords.isEmpty()) {
+                password = favouritePasswords.get(favourites.sample(random) % favouritePasswords.size());
+            } else {
+                password = randomString(random, PASSWORD_CHARACTERS, 12 + random.nextInt(13));
+                if (favouritePasswords.size() < FAVOURITES) {
+                    favouritePasswords.add(password);
+                }
+            }
+            accounts.add(new VaultRecord(service, username, password, now - (long) (random.nextDouble() * span)));
+        }
+        return accounts;
+    }
+
+    /**
+     * Returns the name of a service by its rank.
+     *
+     * @param rank The rank, 0 is the most common.
+     * @return The popular service of that rank, or a service of the long tail.
+     */
+    private static String service(final int rank) {
+        if (rank < POPULAR_SERVICES.length) {
+            return POPULAR_SERVICES[rank];
+        }
+        return "Shop" + (rank - POPULAR_SERVICES.length) + ".example";
+    }
+
+    /**
+     * Creates a random string.
+     *
+     * @param random     The random numbers.
+     * @param characters The characters to choose from.
+     * @param length     The length.
+     * @return The string.
+     */
+    private static String randomString(final Random random, final String characters, final int length) {
+        StringBuilder value = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            value.append(characters.charAt(random.nextInt(characters.length())));
+        }
+        return value.toString();
+    }
+
+    /**
+     * Draws ranks from a Zipf distribution: rank k is drawn with a probability proportional to 1 / (k + 1)^s.
+     */
+    private static final class Zipf {
+
+        /**
+         * Cumulative weights of the ranks.
+         */
+        private final double[] cumulative;
+
+        /**
+         * Creates the distribution.
+         *
+         * @param ranks The number of ranks.
+         */
+        Zipf(final int ranks) {
+            cumulative = new double[ranks];
+            double sum = 0;
+            for (int k = 0; k < ranks; k++) {
+                sum += 1 / Math.pow(k + 1, SKEW);
+                cumulative[k] = sum;
+            }
+        }
+
+        /**
+         * Draws a rank.
+         *
+         * @param random The random numbers.
+         * @return The rank, from 0 to the number of ranks minus one.
+         */
+        int sample(final Random random) {
+            double target = random.nextDouble() * cumulative[cumulative.length - 1];
+            int low = 0;
+            int high = cumulative.length - 1;
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                if (cumulative[middle] < target) {
+                    low = middle + 1;
+                } else {
+                    high = middle;
+                }
+            }
+            return low;
+        }
+    }
+}
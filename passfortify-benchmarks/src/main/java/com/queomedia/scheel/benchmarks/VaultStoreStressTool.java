@@ -0,0 +1,176 @@
+package com.queomedia.scheel.benchmarks;
+
+import com.queomedia.scheel.core.Cryptography;
+import com.queomedia.scheel.core.PasswordTools;
+import com.queomedia.scheel.core.VaultRecord;
+import com.queomedia.scheel.core.VaultStore;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Command line tool that hammers {@link VaultStore} from many threads and checks that no write was lost.
+ *
+ * <pre>
+ * java -cp passfortify-benchmarks-1.0.1.jar com.queomedia.scheel.benchmarks.VaultStoreStressTool
+ *         [writers] [writes per writer] [readers]
+ * java -cp passfortify-benchmarks-1.0.1.jar com.queomedia.scheel.benchmarks.VaultStoreStressTool --join
+ *         [writers] [writes] [readers]
+ * </pre>
+ *
+ * <p>Has to be run in an empty directory, it creates a throwaway vault there. Every writer adds accounts and then
+ * changes the password of each of them, while the readers read the accounts continuously. Afterwards the vault is
+ * decrypted from disk and every account has to be present exactly once with its changed password. Every write
+ * derives one key per account file, so a few dozen writes already take a while.</p>
+ *
+ * <p>With {@code --join} the tool works on the throwaway vault of an instance already running in the same
+ * directory, to check that instances do not lose each other's writes. Every instance only checks its own accounts
+ * and reports how many of its writes had to be rebased onto the other instance's.</p>
+ */
+public final class VaultStoreStressTool {
+
+    /**
+     * Master password of the throwaway vault.
+     */
+    private static final String M_PASSWORD = "stress-test";
+
+    /**
+     * Entry point of the tool.
+     *
+     * @param args Optionally the number of writers, writes per writer and readers.
+     * @throws Exception If the vault cannot be read or written.
+     */
+    public static void main(final String[] args) throws Exception {
+        List<String> arguments = new ArrayList<>(List.of(args));
+        boolean join = arguments.remove("--join");
+        int writers = arguments.size() > 0 ? Integer.parseInt(arguments.get(0)) : 4;
+        int writes = arguments.size() > 1 ? Integer.parseInt(arguments.get(1)) : 3;
+        int readers = arguments.size() > 2 ? Integer.parseInt(arguments.get(2)) : 4;
+        if (join) {
+            if (!PasswordTools.checkMasterpassword(M_PASSWORD)) {
+                System.err.println("No stress test vault here to join");
+                System.exit(1);
+            }
+        } else {
+            if (Files.exists(Path.of("MPass.txt")) || Files.exists(Path.of("Services.txt"))) {
+                System.err.println("Run the stress test in an empty directory, it would overwrite the vault here");
+                System.exit(1);
+            }
+            Files.write(Path.of("MPass.txt"), Cryptography.encrypt(M_PASSWORD.getBytes(UTF_8), M_PASSWORD));
+        }
+        String prefix = "service-" + ProcessHandle.current().pid() + "-";
+
+        VaultStore store = VaultStore.shared();
+        AtomicBoolean writing = new AtomicBoolean(true);
+        LongAdder reads = new LongAdder();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(writers + readers);
+        List<Future<?>> writerResults = new ArrayList<>();
+        List<Future<?>> readerResults = new ArrayList<>();
+        for (int w = 0; w < writers; w++) {
+            int writer = w;
+            writerResults.add(executor.submit(() -> {
+                start.await();
+                for (int i = 0; i < writes; i++) {
+                    //Every second write changes an account added before, so adds and updates interleave
+                    if (i % 2 == 0) {
+                        store.add(List.of(new VaultRecord(prefix + writer + "-" + i, "user", "initial", 0)),
+                                M_PASSWORD);
+                    } else {
+                        change(store, prefix + writer + "-" + (i - 1));
+                    }
+                }
+                if (writes % 2 == 1) {
+                    change(store, prefix + writer + "-" + (writes - 1));
+                }
+                return null;
+            }));
+        }
+        for (int r = 0; r < readers; r++) {
+            readerResults.add(executor.submit(() -> {
+                start.await();
+                while (writing.get()) {
+                    store.records(M_PASSWORD);
+                    reads.increment();
+                }
+                return null;
+            }));
+        }
+
+        long startNanos = System.nanoTime();
+        start.countDown();
+        try {
+            for (Future<?> result : writerResults) {
+                result.get();
+            }
+        } finally {
+            writing.set(false); //Also if a writer failed, so the readers end and the tool exits
+            executor.shutdown();
+        }
+        for (Future<?> result : readerResults) {
+            result.get();
+        }
+        double seconds = (System.nanoTime() - startNanos) / 1e9;
+
+        //Decrypting what actually reached the disk, not the store's snapshot
+        List<String> problems = new ArrayList<>();
+        Set<String> seen = new HashSet<>();
+        List<VaultRecord> stored = PasswordTools.getVaultRecords(M_PASSWORD);
+        for (VaultRecord record : stored) {
+            if (!record.service().startsWith(prefix)) {
+                continue; //Written by another instance
+            }
+            if (!seen.add(record.service())) {
+                problems.add("Duplicate " + record.service());
+            }
+            if (!record.password().equals("changed-" + record.service())) {
+                problems.add("Lost update of " + record.service());
+            }
+        }
+        int expected = writers * ((writes + 1) / 2);
+        if (seen.size() != expected) {
+            problems.add("Expected " + expected + " accounts, found " + seen.size());
+        }
+
+        System.out.printf(Locale.ROOT, "%d writers, %d writes each, %d readers: %.1f s, %d reads (%.0f reads/s), "
+                + "%d writes rebased%n", writers, writes, readers, seconds, reads.sum(), reads.sum() / seconds,
+                store.rebaseCount());
+        if (problems.isEmpty()) {
+            System.out.println("OK: all " + expected + " accounts present once with their last update");
+        } else {
+            problems.forEach(System.out::println);
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Changes the password of an account to {@code changed-<service>}.
+     *
+     * @param store   The store.
+     * @param service The service of the account, which has to exist once.
+     * @throws Exception If the vault cannot be read or written.
+     */
+    private static void change(final VaultStore store, final String service) throws Exception {
+        for (VaultRecord record : store.records(M_PASSWORD)) {
+            if (record.service().equals(service)) {
+                store.update(record, new VaultRecord(service, record.username(), "changed-" + service, 0),
+                        M_PASSWORD);
+                return;
+            }
+        }
+        throw new IllegalStateException(service + " was lost");
+    }
+}
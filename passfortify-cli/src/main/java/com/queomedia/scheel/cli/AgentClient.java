@@ -0,0 +1,154 @@
+package com.queomedia.scheel.cli;
+
+import com.queomedia.scheel.core.VaultRecord;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Connection to a running {@link VaultAgent}.
+ */
+final class AgentClient implements Closeable {
+
+    /**
+     * The connection.
+     */
+    private final SocketChannel channel;
+
+    /**
+     * Stream answers are read from.
+     */
+    private final DataInputStream in;
+
+    /**
+     * Stream requests are written to.
+     */
+    private final DataOutputStream out;
+
+    /**
+     * Wraps an open connection and sends the greeting.
+     *
+     * @param channel The connection.
+     * @throws IOException If the greeting cannot be sent.
+     */
+    private AgentClient(final SocketChannel channel) throws IOException {
+        this.channel = channel;
+        this.in = new DataInputStream(new BufferedInputStream(Channels.newInputStream(channel)));
+        this.out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel)));
+        out.writeInt(AgentProtocol.MAGIC);
+        out.writeByte(AgentProtocol.VERSION);
+    }
+
+    /**
+     * Connects to the agent listening on a socket.
+     *
+     * @param socket The socket.
+     * @return The connection, or null if no agent is listening.
+     */
+    static AgentClient connect(final Path socket) {
+        if (!Files.exists(socket)) {
+            return null;
+        }
+        SocketChannel channel = null;
+        try {
+            channel = SocketChannel.open(StandardProtocolFamily.UNIX);
+            channel.connect(UnixDomainSocketAddress.of(socket));
+            return new AgentClient(channel);
+        } catch (IOException e) {
+            if (channel != null) {
+                try {
+                    channel.close();
+                } catch (IOException closeFailure) {
+                    e.addSuppressed(closeFailure);
+                }
+            }
+            return null; //Stale socket of an agent that was killed
+        }
+    }
+
+    /**
+     * Looks up the accounts of a service, including passwords.
+     *
+     * @param service  The service, matched ignoring case.
+     * @param username The username, or null for any username.
+     * @return The matching accounts.
+     * @throws IOException If the agent fails.
+     */
+    List<VaultRecord> get(final String service, final String username) throws IOException {
+        out.writeByte(AgentProtocol.OP_GET);
+        out.writeUTF(service);
+        out.writeUTF(username == null ? "" : username);
+        return receive();
+    }
+
+    /**
+     * Lists accounts whose service or username contains a text, without passwords.
+     *
+     * @param query The text, or null for all accounts.
+     * @return The matching accounts.
+     * @throws IOException If the agent fails.
+     */
+    List<VaultRecord> search(final String query) throws IOException {
+        out.writeByte(AgentProtocol.OP_SEARCH);
+        out.writeUTF(query == null ? "" : query);
+        return receive();
+    }
+
+    /**
+     * Returns all accounts including passwords.
+     *
+     * @return The accounts.
+     * @throws IOException If the agent fails.
+     */
+    List<VaultRecord> export() throws IOException {
+        out.writeByte(AgentProtocol.OP_EXPORT);
+        return receive();
+    }
+
+    /**
+     * Stops the agent, which forgets the master password.
+     *
+     * @throws IOException If the agent fails.
+     */
+    void lock() throws IOException {
+        out.writeByte(AgentProtocol.OP_LOCK);
+        receive();
+    }
+
+    /**
+     * Sends the pending request and reads the answer.
+     *
+     * @return The records of the answer.
+     * @throws IOException If the connection fails or the agent reports an error.
+     */
+    private List<VaultRecord> receive() throws IOException {
+        out.flush();
+        byte status = in.readByte();
+        if (status != AgentProtocol.STATUS_OK) {
+            throw new IOException("Agent error: " + in.readUTF());
+        }
+        int count = in.readInt();
+        List<VaultRecord> records = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            records.add(AgentProtocol.readRecord(in));
+        }
+        return records;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
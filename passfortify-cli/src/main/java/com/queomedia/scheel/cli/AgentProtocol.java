@@ -0,0 +1,216 @@
+package com.queomedia.scheel.cli;
+
+import com.queomedia.scheel.core.VaultRecord;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.PosixFileAttributes;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.nio.file.attribute.UserPrincipal;
+import java.util.HexFormat;
+import java.util.Set;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * The binary protocol spoken between {@link VaultAgent} and {@link AgentClient} over a Unix domain socket.
+ *
+ * <p>A client opens a connection with {@link #MAGIC} and {@link #VERSION}, then sends any number of requests. A
+ * request is one operation byte followed by its arguments as {@link DataOutputStream#writeUTF(String) UTF}
+ * strings. The agent answers every request with a status byte; {@link #STATUS_OK} is followed by the number of
+ * records and the records, {@link #STATUS_ERROR} by a message. A record is service, username and password as UTF
+ * strings and the last modification time as a long. Searches never transmit passwords, the field is empty.</p>
+ *
+ * <p>The socket lives in a directory only the current user may access, one socket per vault directory, see
+ * {@link #runtimeDirectory()}.</p>
+ */
+final class AgentProtocol {
+
+    /**
+     * Sent by the client when connecting, "PFAG".
+     */
+    static final int MAGIC = 0x50464147;
+
+    /**
+     * Version of the protocol.
+     */
+    static final byte VERSION = 1;
+
+    /**
+     * Looks up the accounts of a service. Arguments: service, username (empty for any).
+     */
+    static final byte OP_GET = 1;
+
+    /**
+     * Lists accounts whose service or username contains a text. Arguments: text (empty for all).
+     */
+    static final byte OP_SEARCH = 2;
+
+    /**
+     * Returns all accounts including passwords. No arguments.
+     */
+    static final byte OP_EXPORT = 3;
+
+    /**
+     * Stops the agent. No arguments, answered with zero records.
+     */
+    static final byte OP_LOCK = 4;
+
+    /**
+     * The request succeeded.
+     */
+    static final byte STATUS_OK = 0;
+
+    /**
+     * The request failed.
+     */
+    static final byte STATUS_ERROR = 1;
+
+    /**
+     * The permissions of the runtime directory, only the owner may access it.
+     */
+    private static final Set<PosixFilePermission> PRIVATE_DIRECTORY = PosixFilePermissions.fromString("rwx------");
+
+    /**
+     * Not to be instantiated.
+     */
+    private AgentProtocol() {
+    }
+
+    /**
+     * Returns the socket of the agent serving the vault in a directory, creating the private runtime directory.
+     *
+     * @param vaultDirectory The vault directory.
+     * @return The socket path.
+     * @throws IOException If the runtime directory cannot be created or is not private.
+     */
+    static Path socketPath(final Path vaultDirectory) throws IOException {
+        return runtimeFile(vaultDirectory, "agent-", ".sock");
+    }
+
+    /**
+     * Returns a file only the current user can access that belongs to the vault in a directory, creating the
+     * private runtime directory.
+     *
+     * @param vaultDirectory The vault directory.
+     * @param prefix         Start of the file name.
+     * @param suffix         End of the file name.
+     * @return The file path.
+     * @throws IOException If the runtime directory cannot be created or is not private.
+     */
+    static Path runtimeFile(final Path vaultDirectory, final String prefix, final String suffix) throws IOException {
+        Path directory = runtimeDirectory();
+        //Hashing keeps the path short, socket paths are limited to about 100 bytes. FNV-1a instead of a message
+        //digest, loading the security providers would cost more than the whole agent request
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : vaultDirectory.toAbsolutePath().normalize().toString().getBytes(UTF_8)) {
+            hash = (hash ^ (b & 0xFF)) * 0x100000001b3L;
+        }
+        return directory.resolve(prefix + HexFormat.of().toHexDigits(hash) + suffix);
+    }
+
+    /**
+     * Returns the private runtime directory of the current user, creating it if it does not exist.
+     *
+     * <p>{@code XDG_RUNTIME_DIR} is private to the user already; without it the directory is created in the shared
+     * temporary directory under a name anyone can predict. It is created with its permissions in one step, so there
+     * is no moment it is accessible to others, and an existing directory is only used if it is no symbolic link,
+     * belongs to the current user and only the owner may access it. Otherwise another user could have created it
+     * in advance, then read the connection file or listen on the socket instead of the agent.</p>
+     *
+     * @return The directory.
+     * @throws IOException If the directory cannot be created or is not private.
+     */
+    static Path runtimeDirectory() throws IOException {
+        String xdgRuntimeDir = System.getenv("XDG_RUNTIME_DIR");
+        Path directory = xdgRuntimeDir != null && !xdgRuntimeDir.isBlank()
+                ? Path.of(xdgRuntimeDir, "passfortify")
+                : Path.of(System.getProperty("java.io.tmpdir"), "passfortify-" + System.getProperty("user.name"));
+        boolean posix = directory.getFileSystem().supportedFileAttributeViews().contains("posix");
+        try {
+            if (posix) {
+                Files.createDirectory(directory, PosixFilePermissions.asFileAttribute(PRIVATE_DIRECTORY));
+            } else {
+                Files.createDirectory(directory); //Not shared with other users on these file systems
+            }
+        } catch (FileAlreadyExistsException e) {
+            //Created earlier, checked below like a directory just created
+        }
+        checkPrivate(directory, posix);
+        return directory;
+    }
+
+    /**
+     * Checks that a directory can only be accessed by the current user.
+     *
+     * @param directory The directory.
+     * @param posix     Whether the file system has POSIX permissions.
+     * @throws IOException If it is no directory, a symbolic link, owned by another user or accessible to others.
+     */
+    private static void checkPrivate(final Path directory, final boolean posix) throws IOException {
+        BasicFileAttributes attributes = posix
+                ? Files.readAttributes(directory, PosixFileAttributes.class, LinkOption.NOFOLLOW_LINKS)
+                : Files.readAttributes(directory, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+        if (attributes.isSymbolicLink()) {
+            throw new IOException("Refusing to use " + directory + ", it is a symbolic link");
+        }
+        if (!attributes.isDirectory()) {
+            throw new IOException("Refusing to use " + directory + ", it is not a directory");
+        }
+        checkOwner(directory);
+        if (posix && !((PosixFileAttributes) attributes).permissions().equals(PRIVATE_DIRECTORY)) {
+            throw new IOException("Refusing to use " + directory + ", its permissions are "
+                    + PosixFilePermissions.toString(((PosixFileAttributes) attributes).permissions())
+                    + " instead of " + PosixFilePermissions.toString(PRIVATE_DIRECTORY));
+        }
+    }
+
+    /**
+     * Checks that a file belongs to the current user.
+     *
+     * @param file The file, symbolic links are not followed.
+     * @throws IOException If it belongs to another user.
+     */
+    static void checkOwner(final Path file) throws IOException {
+        UserPrincipal owner = Files.getOwner(file, LinkOption.NOFOLLOW_LINKS);
+        UserPrincipal currentUser = file.getFileSystem().getUserPrincipalLookupService()
+                .lookupPrincipalByName(System.getProperty("user.name"));
+        if (!owner.equals(currentUser)) {
+            throw new IOException("Refusing to use " + file + ", it belongs to " + owner.getName());
+        }
+    }
+
+    /**
+     * Writes a record.
+     *
+     * @param out          The stream to write to.
+     * @param record       The record.
+     * @param withPassword Whether the password is sent, otherwise an empty password is.
+     * @throws IOException If writing fails.
+     */
+    static void writeRecord(final DataOutputStream out, final VaultRecord record, final boolean withPassword)
+            throws IOException {
+        out.writeUTF(record.service());
+        out.writeUTF(record.username());
+        out.writeUTF(withPassword ? record.password() : "");
+        out.writeLong(record.lastModified());
+    }
+
+    /**
+     * Reads a record.
+     *
+     * @param in The stream to read from.
+     * @return The record.
+     * @throws IOException If reading fails.
+     */
+    static VaultRecord readRecord(final DataInputStream in) throws IOException {
+        return new VaultRecord(in.readUTF(), in.readUTF(), in.readUTF(), in.readLong());
+    }
+}
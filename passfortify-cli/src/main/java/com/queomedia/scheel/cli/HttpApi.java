@@ -0,0 +1,418 @@
+package com.queomedia.scheel.cli;
+
+import com.queomedia.scheel.core.PasswordTools;
+import com.queomedia.scheel.core.VaultColumns;
+import com.queomedia.scheel.core.VaultRecord;
+import com.queomedia.scheel.core.VaultStore;
+import com.queomedia.scheel.core.VirtualThreads;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Local HTTP API to the unlocked vault, for tools that cannot shell out to the command line interface.
+ *
+ * <pre>
+ * GET  /accounts?q=text            accounts whose service or username contains the text, without passwords
+ * GET  /accounts/&lt;service&gt;?user=name accounts of a service including passwords, 404 if there is none
+ * POST /accounts                   adds an account from the form fields service, username and optionally password,
+ *                                  generating a password following the service's policy if none is given
+ * POST /lock                       stops the server
+ * </pre>
+ *
+ * <p>The server only binds to the loopback interface. Every request has to carry the token generated at start in
+ * an {@code Authorization: Bearer} header. URL and token are written to a connection file only the current user
+ * can read, see {@link #connectionFile(Path)}. Answers are JSON arrays as written by {@code --json}.</p>
+ *
+ * <p>Requests are handled on one thread each, virtual where the runtime supports it. Reads are answered from
+ * memory, writes are serialized by {@link VaultStore}.</p>
+ */
+final class HttpApi {
+
+    /**
+     * Length of the generated token in bytes.
+     */
+    private static final int TOKEN_BYTES = 32;
+
+    /**
+     * Largest accepted request body in bytes.
+     */
+    private static final int MAX_BODY_BYTES = 64 * 1024;
+
+    /**
+     * Number of connections the operating system queues while all are busy being accepted.
+     */
+    private static final int BACKLOG = 256;
+
+    /**
+     * System property of the JDK server enabling TCP_NODELAY, read when the first server is created.
+     */
+    private static final String NODELAY_PROPERTY = "sun.net.httpserver.nodelay";
+
+    /**
+     * The master password of the vault.
+     */
+    private final String mPassword;
+
+    /**
+     * The port to listen on, 0 for any free port.
+     */
+    private final int port;
+
+    /**
+     * Where URL and token are published.
+     */
+    private final Path connectionFile;
+
+    /**
+     * The token requests have to present.
+     */
+    private final byte[] token;
+
+    /**
+     * Released by {@code POST /lock}.
+     */
+    private final CountDownLatch stopped = new CountDownLatch(1);
+
+    /**
+     * Creates the API for the vault in the current directory.
+     *
+     * @param mPassword      The master password, already checked.
+     * @param port           The port to listen on, 0 for any free port.
+     * @param connectionFile Where URL and token are published.
+     */
+    HttpApi(final String mPassword, final int port, final Path connectionFile) {
+        this.mPassword = mPassword;
+        this.port = port;
+        this.connectionFile = connectionFile;
+        byte[] random = new byte[TOKEN_BYTES];
+        new SecureRandom().nextBytes(random);
+        this.token = Base64.getUrlEncoder().withoutPadding().encode(random);
+    }
+
+    /**
+     * Returns the connection file of the API serving the vault in a directory. Its first line is the base URL, its
+     * second line the token.
+     *
+     * @param vaultDirectory The vault directory.
+     * @return The connection file, in the private runtime directory of {@link AgentProtocol#runtimeDirectory()}.
+     * @throws IOException If the runtime directory cannot be created or is not private.
+     */
+    static Path connectionFile(final Path vaultDirectory) throws IOException {
+        return AgentProtocol.runtimeFile(vaultDirectory, "api-", ".txt");
+    }
+
+    /**
+     * Decrypts the vault, then serves requests until {@code POST /lock} or the end of the process.
+     *
+     * @throws Exception If the vault cannot be decrypted, the port cannot be bound or the connection file belongs to
+     *                   another user.
+     */
+    void serve() throws Exception {
+        if (Files.exists(connectionFile, LinkOption.NOFOLLOW_LINKS)) {
+            //Left behind by a server that was killed; one planted by someone else is not overwritten
+            AgentProtocol.checkOwner(connectionFile);
+        }
+        VaultStore.shared().records(mPassword);
+        //Headers and body are written separately; without TCP_NODELAY every answer waits for a delayed ACK
+        if (System.getProperty(NODELAY_PROPERTY) == null) {
+            System.setProperty(NODELAY_PROPERTY, "true");
+        }
+        HttpServer server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), BACKLOG);
+        server.createContext("/accounts", exchange -> handle(exchange, this::accounts));
+        server.createContext("/lock", exchange -> handle(exchange, this::lock));
+        ExecutorService executor = VirtualThreads.newThreadPerTaskExecutor("passfortify-http");
+        server.setExecutor(executor);
+        server.start();
+
+        String url = "http://" + server.getAddress().getHostString() + ":" + server.getAddress().getPort() + "/";
+        publishConnection(url);
+        Thread cleanup = new Thread(this::deleteConnectionFile, "passfortify-http-cleanup");
+        Runtime.getRuntime().addShutdownHook(cleanup);
+        System.err.println("API listening on " + url + (VirtualThreads.isSupported() ? " (virtual threads)" : "")
+                + ", token in " + connectionFile);
+        try {
+            stopped.await();
+        } finally {
+            server.stop(0);
+            executor.shutdown();
+            deleteConnectionFile();
+            Runtime.getRuntime().removeShutdownHook(cleanup);
+        }
+        System.err.println("API stopped");
+    }
+
+    /**
+     * Checks the token, runs an endpoint and reports its failures as JSON.
+     *
+     * @param exchange The request.
+     * @param endpoint The endpoint.
+     */
+    private void handle(final HttpExchange exchange, final Endpoint endpoint) {
+        try {
+            String authorization = exchange.getRequestHeaders().getFirst("Authorization");
+            if (authorization == null || !authorization.startsWith("Bearer ")
+                    || !MessageDigest.isEqual(token, authorization.substring(7).getBytes(UTF_8))) {
+                sendError(exchange, 401, "Missing or wrong token");
+                return;
+            }
+            endpoint.handle(exchange);
+        } catch (ApiException e) {
+            sendError(exchange, e.status, e.getMessage());
+        } catch (Exception e) {
+            sendError(exchange, 500, String.valueOf(e.getMessage()));
+        } finally {
+            exchange.close();
+        }
+    }
+
+    /**
+     * Serves {@code /accounts} and {@code /accounts/<service>}.
+     *
+     * @param exchange The request.
+     * @throws Exception If the vault cannot be read or written.
+     */
+    private void accounts(final HttpExchange exchange) throws Exception {
+        String path = exchange.getRequestURI().getPath();
+        String method = exchange.getRequestMethod();
+        Map<String, String> query = parseForm(exchange.getRequestURI().getRawQuery());
+        if (path.equals("/accounts") || path.equals("/accounts/")) {
+            if (method.equals("GET")) {
+                VaultColumns columns = VaultStore.shared().columns(mPassword);
+                sendRecords(exchange, 200, VaultQueries.search(columns, query.get("q")), false);
+            } else if (method.equals("POST")) {
+                Map<String, String> form = parseForm(readBody(exchange));
+                String service = form.get("service");
+                String username = form.get("username");
+                if (service == null || service.isEmpty() || username == null) {
+                    throw new ApiException(400, "service and username are required");
+                }
+                String password = form.get("password");
+                if (password == null) {
+                    password = PasswordTools.passwordGenerator(service); //Following the service's policy
+                }
+                List<VaultRecord> added = VaultStore.shared().add(
+                        List.of(new VaultRecord(service, username, password, 0)), mPassword);
+                sendRecords(exchange, 201, added, true);
+            } else {
+                throw new ApiException(405, "Use GET or POST");
+            }
+        } else if (path.startsWith("/accounts/")) {
+            if (!method.equals("GET")) {
+                throw new ApiException(405, "Use GET");
+            }
+            String service = path.substring("/accounts/".length());
+            List<VaultRecord> records = VaultStore.shared().records(mPassword);
+            List<VaultRecord> matches = VaultQueries.accounts(records, service, query.get("user"));
+            if (matches.isEmpty()) {
+                throw new ApiException(404, "No account found for " + service);
+            }
+            sendRecords(exchange, 200, matches, true);
+        } else {
+            throw new ApiException(404, "Unknown path " + path);
+        }
+    }
+
+    /**
+     * Serves {@code /lock}.
+     *
+     * @param exchange The request.
+     * @throws IOException If the answer cannot be sent.
+     */
+    private void lock(final HttpExchange exchange) throws IOException {
+        if (!exchange.getRequestMethod().equals("POST")) {
+            throw new ApiException(405, "Use POST");
+        }
+        exchange.sendResponseHeaders(204, -1);
+        stopped.countDown();
+    }
+
+    /**
+     * Sends records as a JSON array.
+     *
+     * @param exchange      The request.
+     * @param status        The HTTP status.
+     * @param records       The records.
+     * @param withPasswords Whether passwords are included.
+     * @throws IOException If the answer cannot be sent.
+     */
+    private static void sendRecords(final HttpExchange exchange, final int status, final List<VaultRecord> records,
+            final boolean withPasswords) throws IOException {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        PrintStream out = new PrintStream(buffer, false, UTF_8);
+        RecordWriter writer = new RecordWriter(out, RecordWriter.Format.JSON,
+                withPasswords ? PassFortifyCli.EXPORT_COLUMNS : PassFortifyCli.ACCOUNT_COLUMNS);
+        for (VaultRecord record : records) {
+            if (withPasswords) {
+                writer.write(record.service(), record.username(), record.password(), record.lastModified());
+            } else {
+                writer.write(record.service(), record.username(), record.lastModified());
+            }
+        }
+        writer.finish();
+        send(exchange, status, buffer.toByteArray());
+    }
+
+    /**
+     * Sends an error as a JSON object with the key {@code error}.
+     *
+     * @param exchange The request.
+     * @param status   The HTTP status.
+     * @param message  What went wrong.
+     */
+    private static void sendError(final HttpExchange exchange, final int status, final String message) {
+        StringBuilder json = new StringBuilder("{\"error\": ");
+        RecordWriter.appendJsonString(json, message);
+        json.append("}\n");
+        try {
+            send(exchange, status, json.toString().getBytes(UTF_8));
+        } catch (IOException e) {
+            //The client went away
+        }
+    }
+
+    /**
+     * Sends a JSON answer.
+     *
+     * @param exchange The request.
+     * @param status   The HTTP status.
+     * @param body     The JSON document.
+     * @throws IOException If the answer cannot be sent.
+     */
+    private static void send(final HttpExchange exchange, final int status, final byte[] body) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.getResponseHeaders().set("Cache-Control", "no-store");
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    /**
+     * Reads the request body.
+     *
+     * @param exchange The request.
+     * @return The body.
+     * @throws IOException If reading fails or the body is too large.
+     */
+    private static String readBody(final HttpExchange exchange) throws IOException {
+        try (InputStream in = exchange.getRequestBody()) {
+            byte[] body = in.readNBytes(MAX_BODY_BYTES + 1);
+            if (body.length > MAX_BODY_BYTES) {
+                throw new ApiException(413, "Request body larger than " + MAX_BODY_BYTES + " bytes");
+            }
+            return new String(body, UTF_8);
+        }
+    }
+
+    /**
+     * Parses URL encoded fields, as in a query string or a form body.
+     *
+     * @param encoded The fields, may be null.
+     * @return The decoded fields, the last value wins for repeated names.
+     */
+    private static Map<String, String> parseForm(final String encoded) {
+        Map<String, String> fields = new HashMap<>();
+        if (encoded == null || encoded.isEmpty()) {
+            return fields;
+        }
+        for (String pair : encoded.split("&")) {
+            int separator = pair.indexOf('=');
+            String name = separator < 0 ? pair : pair.substring(0, separator);
+            String value = separator < 0 ? "" : pair.substring(separator + 1);
+            try {
+                fields.put(URLDecoder.decode(name, UTF_8), URLDecoder.decode(value, UTF_8));
+            } catch (IllegalArgumentException e) {
+                throw new ApiException(400, "Malformed field " + name);
+            }
+        }
+        return fields;
+    }
+
+    /**
+     * Writes URL and token to the connection file, readable only by the current user.
+     *
+     * @param url The base URL.
+     * @throws IOException If the file cannot be written.
+     */
+    private void publishConnection(final String url) throws IOException {
+        Files.deleteIfExists(connectionFile);
+        try {
+            Files.createFile(connectionFile, PosixFilePermissions.asFileAttribute(
+                    PosixFilePermissions.fromString("rw-------")));
+        } catch (UnsupportedOperationException e) {
+            Files.createFile(connectionFile); //The runtime directory is private anyway
+        }
+        Files.writeString(connectionFile, url + "\n" + new String(token, UTF_8) + "\n", UTF_8);
+    }
+
+    /**
+     * Deletes the connection file, so clients do not try to reach a stopped server.
+     */
+    private void deleteConnectionFile() {
+        try {
+            Files.deleteIfExists(connectionFile);
+        } catch (IOException e) {
+            //Replaced by the next server
+        }
+    }
+
+    /**
+     * One endpoint of the API.
+     */
+    @FunctionalInterface
+    private interface Endpoint {
+
+        /**
+         * Answers a request whose token was checked.
+         *
+         * @param exchange The request.
+         * @throws Exception If the request cannot be answered.
+         */
+        void handle(HttpExchange exchange) throws Exception;
+    }
+
+    /**
+     * Thrown to answer a request with an error status.
+     */
+    private static final class ApiException extends RuntimeException {
+
+        /**
+         * The HTTP status.
+         */
+        private final int status;
+
+        /**
+         * Creates the exception.
+         *
+         * @param status  The HTTP status.
+         * @param message What was wrong.
+         */
+        ApiException(final int status, final String message) {
+            super(message);
+            this.status = status;
+        }
+    }
+}
@@ -0,0 +1,171 @@
+package com.queomedia.scheel.cli;
+
+import com.queomedia.scheel.core.VirtualThreads;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.net.URLEncoder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Measures the local HTTP API under concurrent lookups of one service.
+ *
+ * <p>Usage: {@code java -cp passfortify-cli.jar com.queomedia.scheel.cli.HttpLoadTool <service> [--threads N]
+ * [--requests N]}, run from the vault directory while {@code passfortify serve} is running. URL and token are taken
+ * from the connection file. After a warm-up the tool reports throughput and the 50th, 99th percentile and maximum
+ * latency of the measured requests.</p>
+ *
+ * <p>Requests go through {@link HttpURLConnection} with keep-alive, which costs less CPU per request than
+ * {@code java.net.http.HttpClient} and so disturbs a server sharing the machine less.</p>
+ */
+public class HttpLoadTool {
+
+    /**
+     * Concurrent clients unless {@code --threads} is given.
+     */
+    private static final int DEFAULT_THREADS = 64;
+
+    /**
+     * Measured requests unless {@code --requests} is given.
+     */
+    private static final int DEFAULT_REQUESTS = 50_000;
+
+    /**
+     * Requests sent before measuring, so the server and the client are compiled and connected.
+     */
+    private static final int WARM_UP_REQUESTS = 5_000;
+
+    /**
+     * Runs the load test.
+     *
+     * @param args The service, optionally {@code --threads} and {@code --requests}.
+     * @throws Exception If the API cannot be reached.
+     */
+    public static void main(final String[] args) throws Exception {
+        String service = null;
+        int threads = DEFAULT_THREADS;
+        int requests = DEFAULT_REQUESTS;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--threads" -> threads = Integer.parseInt(args[++i]);
+                case "--requests" -> requests = Integer.parseInt(args[++i]);
+                default -> service = args[i];
+            }
+        }
+        if (service == null || threads < 1 || requests < 1) {
+            System.err.println("Usage: HttpLoadTool <service> [--threads N] [--requests N]");
+            System.exit(1);
+        }
+        Path connectionFile = HttpApi.connectionFile(Path.of(""));
+        if (!Files.exists(connectionFile)) {
+            System.err.println("No API running for " + Path.of("").toAbsolutePath() + ", start passfortify serve");
+            System.exit(1);
+        }
+        AgentProtocol.checkOwner(connectionFile); //Never send the token to a server someone else published
+        List<String> connection = Files.readAllLines(connectionFile, UTF_8);
+        URL url = new URL(connection.get(0) + "accounts/" + URLEncoder.encode(service, UTF_8).replace("+", "%20"));
+        String authorization = "Bearer " + connection.get(1);
+        //Keep one idle connection per client, the default of 5 would reconnect for most requests
+        System.setProperty("http.maxConnections", String.valueOf(threads));
+
+        run(url, authorization, threads, WARM_UP_REQUESTS);
+        long start = System.nanoTime();
+        long[] latencies = run(url, authorization, threads, requests);
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        int errors = 0;
+        for (long latency : latencies) {
+            if (latency < 0) {
+                errors++;
+            }
+        }
+        long[] sorted = Arrays.stream(latencies).filter(latency -> latency >= 0).sorted().toArray();
+        System.out.printf(Locale.ROOT, "Requests: %d, threads: %d, errors: %d, virtual threads: %b%n", requests,
+                threads, errors, VirtualThreads.isSupported());
+        System.out.printf(Locale.ROOT, "Throughput: %.0f requests/s%n", requests / seconds);
+        if (sorted.length > 0) {
+            System.out.printf(Locale.ROOT, "Latency p50: %.3f ms, p99: %.3f ms, max: %.3f ms%n",
+                    percentile(sorted, 0.50) / 1e6, percentile(sorted, 0.99) / 1e6, sorted[sorted.length - 1] / 1e6);
+        }
+    }
+
+    /**
+     * Sends requests from concurrent clients.
+     *
+     * @param url           The URL to request.
+     * @param authorization Value of the {@code Authorization} header.
+     * @param threads       Number of concurrent clients.
+     * @param requests      Number of requests to send in total.
+     * @return The latency of every request in nanoseconds, -1 for failed requests.
+     * @throws Exception If a client fails unexpectedly.
+     */
+    private static long[] run(final URL url, final String authorization, final int threads, final int requests)
+            throws Exception {
+        long[] latencies = new long[requests];
+        AtomicInteger next = new AtomicInteger();
+        ExecutorService executor = VirtualThreads.newThreadPerTaskExecutor("passfortify-load");
+        try {
+            List<Future<?>> clients = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                clients.add(executor.submit(() -> {
+                    int index;
+                    while ((index = next.getAndIncrement()) < requests) {
+                        long start = System.nanoTime();
+                        latencies[index] = get(url, authorization) ? System.nanoTime() - start : -1;
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> future : clients) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+        return latencies;
+    }
+
+    /**
+     * Sends one request and reads the whole answer, so the connection can be reused.
+     *
+     * @param url           The URL to request.
+     * @param authorization Value of the {@code Authorization} header.
+     * @return True if the request succeeded.
+     * @throws IOException If the server cannot be reached.
+     */
+    private static boolean get(final URL url, final String authorization) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+        connection.setRequestProperty("Authorization", authorization);
+        int status = connection.getResponseCode();
+        try (InputStream in = status < 400 ? connection.getInputStream() : connection.getErrorStream()) {
+            if (in != null) {
+                in.readAllBytes();
+            }
+        }
+        return status == 200;
+    }
+
+    /**
+     * Returns a percentile of sorted values.
+     *
+     * @param sorted   The values in ascending order, not empty.
+     * @param fraction The percentile as a fraction, e.g. 0.99.
+     * @return The value below which the fraction of values lies.
+     */
+    private static long percentile(final long[] sorted, final double fraction) {
+        int index = (int) Math.ceil(fraction * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(sorted.length - 1, index))];
+    }
+}
@@ -0,0 +1,856 @@
+package com.queomedia.scheel.cli;
+
+import com.queomedia.scheel.core.BreachFilter;
+import com.queomedia.scheel.core.FlightRecording;
+import com.queomedia.scheel.core.MappedWordlist;
+import com.queomedia.scheel.core.PassFortifyMetrics;
+import com.queomedia.scheel.core.PassphraseGenerator;
+import com.queomedia.scheel.core.PasswordGenerator;
+import com.queomedia.scheel.core.PasswordPolicy;
+import com.queomedia.scheel.core.PasswordTools;
+import com.queomedia.scheel.core.VaultColumns;
+import com.queomedia.scheel.core.VaultRecord;
+import com.queomedia.scheel.core.VaultStore;
+import com.queomedia.scheel.core.WordSource;
+import com.queomedia.scheel.core.Wordlist;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Command line interface to the vault in the current directory, meant for scripts.
+ *
+ * <pre>
+ * passfortify [--json | --tsv] [--timing] [--no-agent] &lt;command&gt; [arguments]
+ *
+ *   get &lt;service&gt; [--user &lt;username&gt;]        prints the password of an account
+ *   add &lt;service&gt; &lt;username&gt; [--password-stdin] adds an account, generating a password unless one is given
+ *   list                                    lists all accounts without passwords
+ *   search &lt;text&gt;                           lists accounts whose service or username contains the text
+ *   generate [--count N] [--passphrase] [policy rules]
+ *                                           generates passwords, no vault needed
+ *   generate [--count N] --passphrase [--wordlist &lt;file&gt;] [--words N] [--separator S]
+ *            [--capitalize none|first|upper|random] [--digits N]
+ *                                           generates passphrases, from a wordlist with one word per line
+ *   import &lt;file | -&gt;                       adds accounts from tab separated lines: service, username, password
+ *   export                                  prints all accounts including passwords
+ *   agent [--idle-minutes N]                keeps the vault unlocked for the other commands until locked or idle
+ *   lock                                    stops the agent
+ *   serve [--port N]                        serves the unlocked vault over a local HTTP API, see {@link HttpApi}
+ *   breach-filter build &lt;file&gt; [--rate R] [--max-mb N]
+ *                                           builds the filter that speeds up breach checks against a Pwned
+ *                                           Passwords SHA-1 file, no vault needed
+ * </pre>
+ *
+ * <p>The master password is read from the first line of standard input. If the environment variable
+ * {@value #MASTER_FD_VARIABLE} is set, it is read from that file descriptor instead, which keeps standard input free
+ * for {@code import -} and {@code --password-stdin}, e.g. {@code PASSFORTIFY_MASTER_FD=3 passfortify export 3<key}.</p>
+ *
+ * <p>While an agent runs for the vault, {@code get}, {@code list}, {@code search} and {@code export} ask it
+ * instead of reading a master password and decrypting the vault, see {@link VaultAgent}. {@code --no-agent}
+ * skips the agent.</p>
+ *
+ * <p>Only core classes are loaded, the JavaFX toolkit is never started. With {@code --timing} the time spent from
+ * JVM start to {@code main}, unlocking the vault (key derivation and decryption) or asking the agent and running
+ * the command is reported on standard error.</p>
+ *
+ * <p>Exit codes: 0 on success, 1 for usage errors, 2 if no or more than one account matched, 3 if the vault cannot
+ * be unlocked.</p>
+ */
+public class PassFortifyCli {
+
+    /**
+     * Environment variable naming the file descriptor the master password is read from.
+     */
+    static final String MASTER_FD_VARIABLE = "PASSFORTIFY_MASTER_FD";
+
+    /**
+     * Exit code for usage errors.
+     */
+    private static final int EXIT_USAGE = 1;
+
+    /**
+     * Exit code if no or more than one account matched.
+     */
+    private static final int EXIT_NO_MATCH = 2;
+
+    /**
+     * Exit code if the vault cannot be unlocked.
+     */
+    private static final int EXIT_LOCKED = 3;
+
+    /**
+     * Location of the master password file, its presence marks a vault directory.
+     */
+    private static final String M_PASS_LOCATION = "MPass.txt";
+
+    /**
+     * Minutes an agent waits for a request before it stops, unless {@code --idle-minutes} is given.
+     */
+    private static final int DEFAULT_IDLE_MINUTES = 15;
+
+    /**
+     * Words per passphrase unless {@code --words} is given, as in {@link PassphraseGenerator#defaults()}.
+     */
+    private static final int DEFAULT_PASSPHRASE_WORDS = 8;
+
+    /**
+     * False positive rate of a breach filter unless {@code --rate} is given.
+     */
+    private static final double DEFAULT_FALSE_POSITIVE_RATE = 0.001;
+
+    /**
+     * Number of bytes in a megabyte, the unit of {@code --max-mb}.
+     */
+    private static final long MEGABYTE = 1024 * 1024;
+
+    /**
+     * Columns of account listings.
+     */
+    static final List<String> ACCOUNT_COLUMNS = List.of("service", "username", "lastModified");
+
+    /**
+     * Columns of exported accounts.
+     */
+    static final List<String> EXPORT_COLUMNS = List.of("service", "username", "password", "lastModified");
+
+    /**
+     * Where results are written to.
+     */
+    private final PrintStream out;
+
+    /**
+     * The output format.
+     */
+    private final RecordWriter.Format format;
+
+    /**
+     * Whether a running agent is asked instead of unlocking the vault.
+     */
+    private final boolean useAgent;
+
+    /**
+     * Reader over standard input, created on first use.
+     */
+    private BufferedReader stdin;
+
+    /**
+     * Time spent unlocking the vault, in nanoseconds.
+     */
+    private long unlockNanos;
+
+    /**
+     * Time spent waiting for the agent, in nanoseconds.
+     */
+    private long agentNanos;
+
+    /**
+     * Creates a command line session.
+     *
+     * @param out      Where results are written to.
+     * @param format   The output format.
+     * @param useAgent Whether a running agent is asked instead of unlocking the vault.
+     */
+    PassFortifyCli(final PrintStream out, final RecordWriter.Format format, final boolean useAgent) {
+        this.out = out;
+        this.format = format;
+        this.useAgent = useAgent;
+    }
+
+    /**
+     * Entry point of the command line interface.
+     *
+     * @param args Options, the command and its arguments.
+     */
+    public static void main(final String[] args) {
+        long mainStart = System.nanoTime();
+        FlightRecording.startIfRequested(); //Only reads a system property unless recording was asked for
+        RecordWriter.Format format = RecordWriter.Format.TSV;
+        boolean timing = false;
+        boolean useAgent = true;
+        List<String> arguments = new ArrayList<>();
+        for (String arg : args) {
+            switch (arg) {
+                case "--json" -> format = RecordWriter.Format.JSON;
+                case "--tsv" -> format = RecordWriter.Format.TSV;
+                case "--timing" -> timing = true;
+                case "--no-agent" -> useAgent = false;
+                default -> arguments.add(arg);
+            }
+        }
+        if (arguments.isEmpty()) {
+            usage("Missing command");
+        }
+
+        PassFortifyCli cli = new PassFortifyCli(new PrintStream(System.out, false, UTF_8), format, useAgent);
+        int exitCode;
+        try {
+            exitCode = cli.run(arguments.get(0), arguments.subList(1, arguments.size()));
+        } catch (UsageException e) {
+            usage(e.getMessage());
+            return;
+        } catch (Exception e) {
+            System.err.println("Error: " + e.getMessage());
+            exitCode = EXIT_USAGE;
+        }
+        if (timing) {
+            cli.reportTiming(mainStart);
+        }
+        System.exit(exitCode);
+    }
+
+    /**
+     * Runs a command.
+     *
+     * @param command   The command.
+     * @param arguments Its arguments and options.
+     * @return The exit code.
+     * @throws Exception If reading the vault or a file fails.
+     */
+    int run(final String command, final List<String> arguments) throws Exception {
+        return switch (command) {
+            case "get" -> get(arguments);
+            case "add" -> add(arguments);
+            case "list" -> list(arguments, null);
+            case "search" -> list(arguments, single(arguments, "search <text>"));
+            case "generate" -> generate(arguments);
+            case "import" -> importAccounts(arguments);
+            case "export" -> export(arguments);
+            case "agent" -> agent(arguments);
+            case "lock" -> lock(arguments);
+            case "serve" -> serve(arguments);
+            case "breach-filter" -> breachFilter(arguments);
+            default -> throw new UsageException("Unknown command: " + command);
+        };
+    }
+
+    /**
+     * Prints the password of the account of a service.
+     *
+     * @param arguments The service, optionally {@code --user} and a username.
+     * @return The exit code.
+     * @throws Exception If the vault cannot be read.
+     */
+    private int get(final List<String> arguments) throws Exception {
+        List<String> positional = new ArrayList<>(arguments);
+        String user = option(positional, "--user");
+        String service = single(positional, "get <service> [--user <username>]");
+        List<VaultRecord> matches = fromAgent(agent -> agent.get(service, user));
+        if (matches == null) {
+            String mPassword = unlock();
+            if (mPassword == null) {
+                return EXIT_LOCKED;
+            }
+            matches = VaultQueries.accounts(loadColumns(mPassword).records(), service, user);
+        }
+        if (matches.size() != 1) {
+            System.err.println(matches.isEmpty() ? "No account found for " + service
+                    : matches.size() + " accounts found for " + service + ", pick one with --user");
+            return EXIT_NO_MATCH;
+        }
+        VaultRecord match = matches.get(0);
+        if (format == RecordWriter.Format.TSV) {
+            out.println(match.password()); //Only the password, so scripts can capture it directly
+            out.flush();
+        } else {
+            RecordWriter writer = new RecordWriter(out, format, EXPORT_COLUMNS);
+            writer.write(match.service(), match.username(), match.password(), match.lastModified());
+            writer.finish();
+        }
+        return 0;
+    }
+
+    /**
+     * Adds an account and prints its password.
+     *
+     * @param arguments The service and username, optionally {@code --password-stdin}.
+     * @return The exit code.
+     * @throws Exception If the vault cannot be written.
+     */
+    private int add(final List<String> arguments) throws Exception {
+        List<String> positional = new ArrayList<>(arguments);
+        boolean passwordFromStdin = positional.remove("--password-stdin");
+        if (positional.size() != 2) {
+            throw new UsageException("Usage: add <service> <username> [--password-stdin]");
+        }
+        String mPassword = unlock();
+        if (mPassword == null) {
+            return EXIT_LOCKED;
+        }
+        String password;
+        if (passwordFromStdin) {
+            password = stdin().readLine();
+            if (password == null || password.isEmpty()) {
+                throw new UsageException("No password on standard input");
+            }
+        } else {
+            password = PasswordTools.passwordGenerator(positional.get(0)); //Following the service's policy
+        }
+        VaultStore.shared().add(List.of(new VaultRecord(positional.get(0), positional.get(1), password, 0)), mPassword);
+
+        RecordWriter writer = new RecordWriter(out, format, List.of("service", "username", "password"));
+        writer.write(positional.get(0), positional.get(1), password);
+        writer.finish();
+        return 0;
+    }
+
+    /**
+     * Lists accounts without their passwords.
+     *
+     * @param arguments Unused apart from the search text.
+     * @param query     Text the service or username has to contain, ignoring case, null to list all accounts.
+     * @return The exit code.
+     * @throws Exception If the vault cannot be read.
+     */
+    private int list(final List<String> arguments, final String query) throws Exception {
+        if (query == null && !arguments.isEmpty()) {
+            throw new UsageException("Usage: list");
+        }
+        List<VaultRecord> matches = fromAgent(agent -> agent.search(query));
+        if (matches == null) {
+            String mPassword = unlock();
+            if (mPassword == null) {
+                return EXIT_LOCKED;
+            }
+            matches = VaultQueries.search(loadColumns(mPassword), query);
+        }
+        RecordWriter writer = new RecordWriter(out, format, ACCOUNT_COLUMNS);
+        for (VaultRecord record : matches) {
+            writer.write(record.service(), record.username(), record.lastModified());
+        }
+        writer.finish();
+        return 0;
+    }
+
+    /**
+     * Generates passwords or passphrases. Does not touch the vault.
+     *
+     * @param arguments Optionally {@code --count}, {@code --passphrase} or passphrase options, and policy rules.
+     * @return The exit code.
+     * @throws IOException If the wordlist cannot be read or indexed.
+     */
+    private int generate(final List<String> arguments) throws IOException {
+        List<String> rules = new ArrayList<>(arguments);
+        String countOption = option(rules, "--count");
+        String wordlistOption = option(rules, "--wordlist");
+        String wordsOption = option(rules, "--words");
+        String separatorOption = option(rules, "--separator");
+        String capitalizeOption = option(rules, "--capitalize");
+        String digitsOption = option(rules, "--digits");
+        boolean customPassphrase = wordlistOption != null || wordsOption != null || separatorOption != null
+                || capitalizeOption != null || digitsOption != null;
+        boolean passphrase = rules.remove("--passphrase") || customPassphrase;
+        int count = number(countOption, "--count", 1);
+
+        RecordWriter writer = new RecordWriter(out, format, List.of("password", "entropyBits"));
+        if (passphrase) {
+            if (!rules.isEmpty()) {
+                throw new UsageException("Policy rules do not apply to passphrases");
+            }
+            if (!customPassphrase) {
+                writePassphrases(writer, PassphraseGenerator.defaults(), count);
+            } else {
+                int words = number(wordsOption, "--words", DEFAULT_PASSPHRASE_WORDS);
+                String separator = separatorOption == null ? " " : separatorOption;
+                PassphraseGenerator.Capitalization capitalization = capitalization(capitalizeOption);
+                int digits = number(digitsOption, "--digits", 0);
+                if (wordlistOption == null) {
+                    writePassphrases(writer, passphraseGenerator(Wordlist.bundled(), words, separator,
+                            capitalization, digits), count);
+                } else {
+                    try (MappedWordlist wordlist = MappedWordlist.open(Path.of(wordlistOption))) {
+                        writePassphrases(writer, passphraseGenerator(wordlist, words, separator, capitalization,
+                                digits), count);
+                    }
+                }
+            }
+        } else {
+            PasswordPolicy policy = rules.isEmpty() ? PasswordPolicy.DEFAULT
+                    : PasswordPolicy.parse(String.join(" ", rules));
+            double entropy = Math.floor(policy.entropyBits() * 10) / 10;
+            for (String password : new PasswordGenerator(policy).generate(count)) {
+                writer.write(password, entropy);
+            }
+        }
+        writer.finish();
+        return 0;
+    }
+
+    /**
+     * Creates a passphrase generator from the options of {@code generate}.
+     *
+     * @param wordlist       The wordlist.
+     * @param words          Number of words per passphrase.
+     * @param separator      Text placed between two words.
+     * @param capitalization How words are capitalized.
+     * @param digits         Number of random digits added.
+     * @return The generator.
+     * @throws UsageException If an option is out of range or the wordlist is empty.
+     */
+    private static PassphraseGenerator passphraseGenerator(final WordSource wordlist, final int words,
+            final String separator, final PassphraseGenerator.Capitalization capitalization, final int digits) {
+        try {
+            return new PassphraseGenerator(List.of(wordlist), words, separator, capitalization, digits);
+        } catch (IllegalArgumentException e) {
+            throw new UsageException(e.getMessage());
+        }
+    }
+
+    /**
+     * Writes passphrases with their entropy.
+     *
+     * @param writer    The output.
+     * @param generator The generator.
+     * @param count     Number of passphrases.
+     */
+    private static void writePassphrases(final RecordWriter writer, final PassphraseGenerator generator,
+            final int count) {
+        for (int i = 0; i < count; i++) {
+            PassphraseGenerator.Passphrase generated = generator.generate();
+            writer.write(generated.phrase(), Math.floor(generated.entropyBits() * 10) / 10);
+        }
+    }
+
+    /**
+     * Parses the value of {@code --capitalize}.
+     *
+     * @param value {@code none}, {@code first}, {@code upper} or {@code random}, null for none.
+     * @return The capitalization.
+     * @throws UsageException If the value is none of these.
+     */
+    private static PassphraseGenerator.Capitalization capitalization(final String value) {
+        if (value == null) {
+            return PassphraseGenerator.Capitalization.NONE;
+        }
+        return switch (value.toLowerCase(Locale.ROOT)) {
+            case "none" -> PassphraseGenerator.Capitalization.NONE;
+            case "first" -> PassphraseGenerator.Capitalization.FIRST_LETTER;
+            case "upper" -> PassphraseGenerator.Capitalization.UPPER_CASE;
+            case "random" -> PassphraseGenerator.Capitalization.RANDOM;
+            default -> throw new UsageException("--capitalize needs none, first, upper or random");
+        };
+    }
+
+    /**
+     * Parses the value of a numeric option.
+     *
+     * @param value    The value, null if the option was not given.
+     * @param name     The option, for the error message.
+     * @param fallback The number if the option was not given.
+     * @return The number.
+     * @throws UsageException If the value is not a number.
+     */
+    private static int number(final String value, final String name, final int fallback) {
+        try {
+            return value == null ? fallback : Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw new UsageException(name + " needs a number");
+        }
+    }
+
+    /**
+     * Builds the {@link BreachFilter} of a Pwned Passwords SHA-1 file next to it, where the breach check of the
+     * application picks it up, and prints its figures. Does not touch the vault.
+     *
+     * @param arguments {@code build}, the hash file, optionally {@code --rate} and {@code --max-mb}.
+     * @return The exit code.
+     * @throws IOException If the hash file cannot be read or the filter cannot be written.
+     */
+    private int breachFilter(final List<String> arguments) throws IOException {
+        List<String> positional = new ArrayList<>(arguments);
+        String rateOption = option(positional, "--rate");
+        String maxMegabytesOption = option(positional, "--max-mb");
+        if (positional.size() != 2 || !positional.get(0).equals("build")) {
+            throw new UsageException("Usage: breach-filter build <file> [--rate R] [--max-mb N]");
+        }
+        double rate;
+        try {
+            rate = rateOption == null ? DEFAULT_FALSE_POSITIVE_RATE : Double.parseDouble(rateOption);
+        } catch (NumberFormatException e) {
+            throw new UsageException("--rate needs a number");
+        }
+        long maxBytes = number(maxMegabytesOption, "--max-mb", 0) * MEGABYTE;
+        Path hashFile = Path.of(positional.get(1));
+        Path filterFile = BreachFilter.defaultLocation(hashFile);
+
+        long start = System.nanoTime();
+        BreachFilter filter;
+        try {
+            filter = BreachFilter.build(hashFile, filterFile, rate, maxBytes);
+        } catch (IllegalArgumentException e) {
+            throw new UsageException(e.getMessage());
+        }
+        try (filter) {
+            double seconds = Math.floor((System.nanoTime() - start) / 1e7) / 100;
+            RecordWriter writer = new RecordWriter(out, format, List.of("filter", "entries", "bytes",
+                    "hashFunctions", "falsePositiveRate", "seconds"));
+            writer.write(filterFile.toString(), filter.entryCount(), Files.size(filterFile), filter.hashFunctions(),
+                    filter.falsePositiveRate(), seconds);
+            writer.finish();
+        }
+        return 0;
+    }
+
+    /**
+     * Adds accounts from tab separated lines of service, username and password. Empty lines and lines starting
+     * with {@code #} are skipped, further columns are ignored, so the output of {@code export} can be imported.
+     *
+     * @param arguments The file to read, or {@code -} for standard input.
+     * @return The exit code.
+     * @throws Exception If the file cannot be read or the vault cannot be written.
+     */
+    private int importAccounts(final List<String> arguments) throws Exception {
+        String source = single(arguments, "import <file | ->");
+        String mPassword = unlock();
+        if (mPassword == null) {
+            return EXIT_LOCKED;
+        }
+        BufferedReader reader = source.equals("-") ? stdin() : Files.newBufferedReader(Path.of(source), UTF_8);
+        List<VaultRecord> accounts = new ArrayList<>();
+        try {
+            String line;
+            int lineNumber = 0;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (line.isBlank() || line.startsWith("#")) {
+                    continue;
+                }
+                String[] fields = line.split("\t", -1);
+                if (fields.length < 3) {
+                    throw new UsageException("Line " + lineNumber + ": expected service, username and password");
+                }
+                accounts.add(new VaultRecord(RecordWriter.unescape(fields[0]), RecordWriter.unescape(fields[1]),
+                        RecordWriter.unescape(fields[2]), 0));
+            }
+        } finally {
+            if (reader != stdin) {
+                reader.close();
+            }
+        }
+        VaultStore.shared().add(accounts, mPassword);
+        System.err.println("Imported " + accounts.size() + " accounts");
+        return 0;
+    }
+
+    /**
+     * Prints all accounts including their passwords.
+     *
+     * @param arguments Has to be empty.
+     * @return The exit code.
+     * @throws Exception If the vault cannot be read.
+     */
+    private int export(final List<String> arguments) throws Exception {
+        if (!arguments.isEmpty()) {
+            throw new UsageException("Usage: export");
+        }
+        List<VaultRecord> records = fromAgent(AgentClient::export);
+        if (records == null) {
+            String mPassword = unlock();
+            if (mPassword == null) {
+                return EXIT_LOCKED;
+            }
+            records = loadColumns(mPassword).records();
+        }
+        RecordWriter writer = new RecordWriter(out, format, EXPORT_COLUMNS);
+        for (VaultRecord record : records) {
+            writer.write(record.service(), record.username(), record.password(), record.lastModified());
+        }
+        writer.finish();
+        return 0;
+    }
+
+    /**
+     * Unlocks the vault and serves it to the other commands until locked or idle. Runs in the foreground, start it
+     * in the background to keep using the shell.
+     *
+     * @param arguments Optionally {@code --idle-minutes} and the number of minutes.
+     * @return The exit code.
+     * @throws Exception If the vault cannot be read or the socket cannot be bound.
+     */
+    private int agent(final List<String> arguments) throws Exception {
+        List<String> positional = new ArrayList<>(arguments);
+        String idleOption = option(positional, "--idle-minutes");
+        if (!positional.isEmpty()) {
+            throw new UsageException("Usage: agent [--idle-minutes N]");
+        }
+        int idleMinutes;
+        try {
+            idleMinutes = idleOption == null ? DEFAULT_IDLE_MINUTES : Integer.parseInt(idleOption);
+        } catch (NumberFormatException e) {
+            throw new UsageException("--idle-minutes needs a number");
+        }
+        if (idleMinutes < 1) {
+            throw new UsageException("--idle-minutes has to be at least 1");
+        }
+        String mPassword = unlock();
+        if (mPassword == null) {
+            return EXIT_LOCKED;
+        }
+        PassFortifyMetrics.register(); //The agent runs long enough to be watched
+        new VaultAgent(mPassword, AgentProtocol.socketPath(Path.of("")), Duration.ofMinutes(idleMinutes)).serve();
+        return 0;
+    }
+
+    /**
+     * Stops the agent of the vault in the current directory.
+     *
+     * @param arguments Has to be empty.
+     * @return The exit code, 0 also if no agent was running.
+     * @throws IOException If the agent fails.
+     */
+    private int lock(final List<String> arguments) throws IOException {
+        if (!arguments.isEmpty()) {
+            throw new UsageException("Usage: lock");
+        }
+        try (AgentClient agent = AgentClient.connect(AgentProtocol.socketPath(Path.of("")))) {
+            if (agent == null) {
+                System.err.println("No agent running");
+            } else {
+                agent.lock();
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Unlocks the vault and serves it over the local HTTP API until {@code POST /lock}. Runs in the foreground.
+     *
+     * @param arguments Optionally {@code --port} and the port, any free port otherwise.
+     * @return The exit code.
+     * @throws Exception If the vault cannot be read or the port cannot be bound.
+     */
+    private int serve(final List<String> arguments) throws Exception {
+        List<String> positional = new ArrayList<>(arguments);
+        String portOption = option(positional, "--port");
+        if (!positional.isEmpty()) {
+            throw new UsageException("Usage: serve [--port N]");
+        }
+        int port;
+        try {
+            port = portOption == null ? 0 : Integer.parseInt(portOption);
+        } catch (NumberFormatException e) {
+            throw new UsageException("--port needs a number");
+        }
+        if (port < 0 || port > 65535) {
+            throw new UsageException("--port has to be between 0 and 65535");
+        }
+        String mPassword = unlock();
+        if (mPassword == null) {
+            return EXIT_LOCKED;
+        }
+        PassFortifyMetrics.register(); //The server runs long enough to be watched
+        new HttpApi(mPassword, port, HttpApi.connectionFile(Path.of(""))).serve();
+        return 0;
+    }
+
+    /**
+     * Sends a request to the agent of the vault in the current directory.
+     *
+     * @param request The request.
+     * @return The answer, or null if no agent is running or agents are not to be used.
+     * @throws IOException If the agent fails.
+     */
+    private List<VaultRecord> fromAgent(final AgentRequest request) throws IOException {
+        if (!useAgent) {
+            return null;
+        }
+        long start = System.nanoTime();
+        try (AgentClient agent = AgentClient.connect(AgentProtocol.socketPath(Path.of("")))) {
+            return agent == null ? null : request.send(agent);
+        } finally {
+            agentNanos += System.nanoTime() - start;
+        }
+    }
+
+    /**
+     * Reads the master password and checks it against the vault in the current directory.
+     *
+     * @return The master password, or null if it is wrong or there is no vault. The reason is reported on
+     *         standard error.
+     * @throws IOException If the master password cannot be read.
+     */
+    private String unlock() throws IOException {
+        if (!Files.exists(Path.of(M_PASS_LOCATION))) {
+            System.err.println("No vault found in " + Path.of("").toAbsolutePath()
+                    + ", run the command from the folder PassFortify stores its files in");
+            return null;
+        }
+        String mPassword = readMasterPassword();
+        long start = System.nanoTime();
+        boolean correct;
+        try {
+            correct = PasswordTools.checkMasterpassword(mPassword);
+        } catch (Exception e) {
+            correct = false; //Decryption with a wrong key fails instead of returning garbage
+        }
+        unlockNanos += System.nanoTime() - start;
+        if (!correct) {
+            System.err.println("Wrong master password");
+            return null;
+        }
+        return mPassword;
+    }
+
+    /**
+     * Reads the master password from the file descriptor named by {@value #MASTER_FD_VARIABLE}, or from the first
+     * line of standard input.
+     *
+     * @return The master password.
+     * @throws IOException    If reading fails.
+     * @throws UsageException If no master password was provided.
+     */
+    private String readMasterPassword() throws IOException {
+        String line;
+        String fd = System.getenv(MASTER_FD_VARIABLE);
+        if (fd != null) {
+            try (BufferedReader reader = Files.newBufferedReader(Path.of("/dev/fd", fd.trim()), UTF_8)) {
+                line = reader.readLine();
+            }
+        } else {
+            line = stdin().readLine();
+        }
+        if (line == null || line.isEmpty()) {
+            throw new UsageException("No master password provided on standard input or through "
+                    + MASTER_FD_VARIABLE);
+        }
+        return line;
+    }
+
+    /**
+     * Decrypts all accounts through the vault store, which skips the empty record an empty account file yields.
+     *
+     * @param mPassword The master password.
+     * @return The accounts.
+     * @throws Exception If the files cannot be read or decrypted.
+     */
+    private VaultColumns loadColumns(final String mPassword) throws Exception {
+        long start = System.nanoTime();
+        VaultColumns columns = VaultStore.shared().columns(mPassword);
+        unlockNanos += System.nanoTime() - start;
+        return columns;
+    }
+
+    /**
+     * Returns the reader over standard input, creating it on first use.
+     *
+     * @return The reader.
+     */
+    private BufferedReader stdin() {
+        if (stdin == null) {
+            stdin = new BufferedReader(new InputStreamReader(System.in, UTF_8));
+        }
+        return stdin;
+    }
+
+    /**
+     * Removes an option and its value from the arguments.
+     *
+     * @param arguments The arguments, modified in place.
+     * @param name      The option, e.g. {@code --user}.
+     * @return The value, or null if the option is not present.
+     * @throws UsageException If the option has no value.
+     */
+    private static String option(final List<String> arguments, final String name) {
+        int index = arguments.indexOf(name);
+        if (index < 0) {
+            return null;
+        }
+        if (index + 1 >= arguments.size()) {
+            throw new UsageException(name + " needs a value");
+        }
+        String value = arguments.get(index + 1);
+        arguments.subList(index, index + 2).clear();
+        return value;
+    }
+
+    /**
+     * Returns the only argument of a command.
+     *
+     * @param arguments The arguments.
+     * @param usage     The usage of the command, reported if there is not exactly one argument.
+     * @return The argument.
+     * @throws UsageException If there is not exactly one argument.
+     */
+    private static String single(final List<String> arguments, final String usage) {
+        if (arguments.size() != 1) {
+            throw new UsageException("Usage: " + usage);
+        }
+        return arguments.get(0);
+    }
+
+    /**
+     * Reports where the time of this run went.
+     *
+     * @param mainStart Value of {@link System#nanoTime()} when {@code main} was entered.
+     */
+    private void reportTiming(final long mainStart) {
+        long totalNanos = System.nanoTime() - mainStart;
+        long jvmMillis = ProcessHandle.current().info().startInstant()
+                .map(start -> Duration.between(start, Instant.now()).toMillis() - totalNanos / 1_000_000)
+                .orElse(-1L);
+        System.err.printf(Locale.ROOT, "JVM start to main: %d ms%n", jvmMillis);
+        System.err.printf(Locale.ROOT, "Unlock (KDF and decryption): %.1f ms%n", unlockNanos / 1e6);
+        System.err.printf(Locale.ROOT, "Agent request: %.3f ms%n", agentNanos / 1e6);
+        System.err.printf(Locale.ROOT, "Command without unlock and agent: %.1f ms%n",
+                (totalNanos - unlockNanos - agentNanos) / 1e6);
+    }
+
+    /**
+     * Prints the usage and exits.
+     *
+     * @param message What was wrong.
+     */
+    private static void usage(final String message) {
+        System.err.println(message);
+        System.err.println("Usage: passfortify [--json | --tsv] [--timing] [--no-agent] <command> [arguments]");
+        System.err.println("Commands: get <service> [--user <username>], add <service> <username> [--password-stdin],");
+        System.err.println("          list, search <text>, generate [--count N] [--passphrase] [policy rules],");
+        System.err.println("          generate [--count N] --passphrase [--wordlist <file>] [--words N]");
+        System.err.println("                   [--separator S] [--capitalize none|first|upper|random] [--digits N],");
+        System.err.println("          import <file | ->, export, agent [--idle-minutes N], lock, serve [--port N],");
+        System.err.println("          breach-filter build <file> [--rate R] [--max-mb N]");
+        System.exit(EXIT_USAGE);
+    }
+
+    /**
+     * A request sent to the agent.
+     */
+    @FunctionalInterface
+    private interface AgentRequest {
+
+        /**
+         * Sends the request.
+         *
+         * @param agent The connection to the agent.
+         * @return The answer.
+         * @throws IOException If the agent fails.
+         */
+        List<VaultRecord> send(AgentClient agent) throws IOException;
+    }
+
+    /**
+     * Thrown if the command line is malformed.
+     */
+    static final class UsageException extends RuntimeException {
+
+        /**
+         * Creates the exception.
+         *
+         * @param message What was wrong.
+         */
+        UsageException(final String message) {
+            super(message);
+        }
+    }
+}
@@ -0,0 +1,189 @@
+package com.queomedia.scheel.cli;
+
+import java.io.PrintStream;
+import java.util.List;
+
+/**
+ * Writes records as tab separated lines or as a JSON array of objects.
+ *
+ * <p>Tab separated output has no header and escapes backslashes, tabs and line breaks as {@code \\}, {@code \t},
+ * {@code \n} and {@code \r}, so every record stays on one line and {@link #unescape(String)} restores the values.
+ * JSON output writes one object per record, keyed by the column names; numbers are written as JSON numbers.</p>
+ */
+class RecordWriter {
+
+    /**
+     * The supported output formats.
+     */
+    enum Format {
+
+        /**
+         * One record per line, values separated by tabs.
+         */
+        TSV,
+
+        /**
+         * A JSON array of objects.
+         */
+        JSON
+    }
+
+    /**
+     * Stream the records are written to.
+     */
+    private final PrintStream out;
+
+    /**
+     * The output format.
+     */
+    private final Format format;
+
+    /**
+     * Names of the values of every record, used as JSON keys.
+     */
+    private final List<String> columns;
+
+    /**
+     * Number of records written so far.
+     */
+    private int count;
+
+    /**
+     * Creates a writer.
+     *
+     * @param out     Stream the records are written to.
+     * @param format  The output format.
+     * @param columns Names of the values of every record.
+     */
+    RecordWriter(final PrintStream out, final Format format, final List<String> columns) {
+        this.out = out;
+        this.format = format;
+        this.columns = columns;
+    }
+
+    /**
+     * Writes a record.
+     *
+     * @param values One value per column. Numbers are written as numbers, everything else as text.
+     */
+    void write(final Object... values) {
+        StringBuilder line = new StringBuilder();
+        if (format == Format.TSV) {
+            for (int i = 0; i < values.length; i++) {
+                if (i > 0) {
+                    line.append('\t');
+                }
+                line.append(escape(String.valueOf(values[i])));
+            }
+        } else {
+            line.append(count == 0 ? "[\n  {" : ",\n  {");
+            for (int i = 0; i < values.length; i++) {
+                if (i > 0) {
+                    line.append(", ");
+                }
+                appendJsonString(line, columns.get(i));
+                line.append(": ");
+                if (values[i] instanceof Number) {
+                    line.append(values[i]);
+                } else {
+                    appendJsonString(line, String.valueOf(values[i]));
+                }
+            }
+            line.append('}');
+        }
+        count++;
+        if (format == Format.TSV) {
+            out.println(line);
+        } else {
+            out.print(line);
+        }
+    }
+
+    /**
+     * Completes the output. Has to be called once after the last record, also if there were none.
+     */
+    void finish() {
+        if (format == Format.JSON) {
+            out.println(count == 0 ? "[]" : "\n]");
+        }
+        out.flush();
+    }
+
+    /**
+     * Escapes a value for tab separated output.
+     *
+     * @param value The value.
+     * @return The value without tabs or line breaks.
+     */
+    static String escape(final String value) {
+        StringBuilder escaped = new StringBuilder(value.length());
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '\\' -> escaped.append("\\\\");
+                case '\t' -> escaped.append("\\t");
+                case '\n' -> escaped.append("\\n");
+                case '\r' -> escaped.append("\\r");
+                default -> escaped.append(c);
+            }
+        }
+        return escaped.toString();
+    }
+
+    /**
+     * Reverses {@link #escape(String)}. Unknown escape sequences are kept as they are.
+     *
+     * @param value The escaped value.
+     * @return The original value.
+     */
+    static String unescape(final String value) {
+        if (value.indexOf('\\') < 0) {
+            return value;
+        }
+        StringBuilder unescaped = new StringBuilder(value.length());
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c != '\\' || i + 1 == value.length()) {
+                unescaped.append(c);
+                continue;
+            }
+            char next = value.charAt(++i);
+            switch (next) {
+                case '\\' -> unescaped.append('\\');
+                case 't' -> unescaped.append('\t');
+                case 'n' -> unescaped.append('\n');
+                case 'r' -> unescaped.append('\r');
+                default -> unescaped.append(c).append(next);
+            }
+        }
+        return unescaped.toString();
+    }
+
+    /**
+     * Appends a value as a quoted JSON string.
+     *
+     * @param target The builder to append to.
+     * @param value  The value.
+     */
+    static void appendJsonString(final StringBuilder target, final String value) {
+        target.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"' -> target.append("\\\"");
+                case '\\' -> target.append("\\\\");
+                case '\n' -> target.append("\\n");
+                case '\r' -> target.append("\\r");
+                case '\t' -> target.append("\\t");
+                default -> {
+                    if (c < ' ') {
+                        target.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        target.append(c);
+                    }
+                }
+            }
+        }
+        target.append('"');
+    }
+}
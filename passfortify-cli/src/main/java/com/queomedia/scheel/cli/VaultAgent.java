@@ -0,0 +1,232 @@
+package com.queomedia.scheel.cli;
+
+import com.queomedia.scheel.core.VaultRecord;
+import com.queomedia.scheel.core.VaultStore;
+import com.queomedia.scheel.core.VirtualThreads;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.AsynchronousCloseException;
+import java.nio.channels.Channels;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Keeps an unlocked vault in memory and answers queries over a Unix domain socket, so scripts pay for the key
+ * derivation once instead of on every call.
+ *
+ * <p>The agent holds the master password and the decrypted accounts until it is locked, its idle timeout expires
+ * or the process ends. Accounts are decrypted again whenever the account files changed, e.g. after {@code add}.
+ * Every connection is served on its own thread, virtual where the runtime supports it. Only the owner of the
+ * socket directory can connect, see {@link AgentProtocol#socketPath(Path)}.</p>
+ */
+final class VaultAgent {
+
+    /**
+     * The master password of the vault.
+     */
+    private final String mPassword;
+
+    /**
+     * The socket the agent listens on.
+     */
+    private final Path socket;
+
+    /**
+     * How long the agent waits for a request before it stops.
+     */
+    private final Duration idleTimeout;
+
+    /**
+     * Value of {@link System#nanoTime()} at the last request.
+     */
+    private volatile long lastActivity = System.nanoTime();
+
+    /**
+     * The listening channel, closed to stop the agent.
+     */
+    private ServerSocketChannel server;
+
+    /**
+     * Creates an agent for the vault in the current directory.
+     *
+     * @param mPassword   The master password, already checked.
+     * @param socket      The socket to listen on.
+     * @param idleTimeout How long to wait for a request before stopping.
+     */
+    VaultAgent(final String mPassword, final Path socket, final Duration idleTimeout) {
+        this.mPassword = mPassword;
+        this.socket = socket;
+        this.idleTimeout = idleTimeout;
+    }
+
+    /**
+     * Decrypts the vault, then serves requests until the agent is locked or idle for too long.
+     *
+     * @throws Exception If the vault cannot be decrypted or the socket cannot be bound, e.g. because another
+     *                   agent serves the same vault.
+     */
+    void serve() throws Exception {
+        VaultStore.shared().records(mPassword);
+        if (Files.exists(socket)) {
+            try (AgentClient running = AgentClient.connect(socket)) {
+                if (running != null) {
+                    throw new IOException("An agent is already running on " + socket);
+                }
+            }
+            Files.delete(socket); //Left behind by an agent that was killed
+        }
+        server = ServerSocketChannel.open(StandardProtocolFamily.UNIX);
+        server.bind(UnixDomainSocketAddress.of(socket));
+        Thread cleanup = new Thread(this::deleteSocket, "passfortify-agent-cleanup");
+        Runtime.getRuntime().addShutdownHook(cleanup);
+        startWatchdog();
+        System.err.println("Agent listening on " + socket + (VirtualThreads.isSupported() ? " (virtual threads)" : ""));
+
+        ExecutorService executor = VirtualThreads.newThreadPerTaskExecutor("passfortify-agent");
+        try {
+            while (server.isOpen()) {
+                SocketChannel client;
+                try {
+                    client = server.accept();
+                } catch (AsynchronousCloseException e) {
+                    break; //Locked or idle
+                }
+                executor.execute(() -> handle(client));
+            }
+        } finally {
+            executor.shutdown();
+            deleteSocket();
+            Runtime.getRuntime().removeShutdownHook(cleanup);
+        }
+        System.err.println("Agent stopped");
+    }
+
+    /**
+     * Serves the requests of one connection until the client closes it.
+     *
+     * @param client The connection.
+     */
+    private void handle(final SocketChannel client) {
+        try (client) {
+            DataInputStream in = new DataInputStream(new BufferedInputStream(Channels.newInputStream(client)));
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(client)));
+            if (in.readInt() != AgentProtocol.MAGIC || in.readByte() != AgentProtocol.VERSION) {
+                return; //Not a client of this version, nothing sensible to answer
+            }
+            while (true) {
+                byte op;
+                try {
+                    op = in.readByte();
+                } catch (EOFException e) {
+                    return;
+                }
+                lastActivity = System.nanoTime();
+                answer(op, in, out);
+                out.flush();
+                if (op == AgentProtocol.OP_LOCK) {
+                    stop();
+                    return;
+                }
+            }
+        } catch (IOException e) {
+            //The client went away, nothing to clean up beyond closing the channel
+        }
+    }
+
+    /**
+     * Answers one request.
+     *
+     * @param op  The operation.
+     * @param in  The stream the arguments are read from.
+     * @param out The stream the answer is written to.
+     * @throws IOException If the connection fails.
+     */
+    private void answer(final byte op, final DataInputStream in, final DataOutputStream out) throws IOException {
+        List<VaultRecord> result;
+        boolean withPasswords = true;
+        try {
+            switch (op) {
+                case AgentProtocol.OP_GET -> {
+                    String service = in.readUTF();
+                    result = VaultQueries.accounts(VaultStore.shared().records(mPassword), service, in.readUTF());
+                }
+                case AgentProtocol.OP_SEARCH -> {
+                    result = VaultQueries.search(VaultStore.shared().columns(mPassword), in.readUTF());
+                    withPasswords = false;
+                }
+                case AgentProtocol.OP_EXPORT -> result = VaultStore.shared().records(mPassword);
+                case AgentProtocol.OP_LOCK -> result = List.of();
+                default -> throw new IOException("Unknown operation " + op);
+            }
+        } catch (IOException e) {
+            throw e;
+        } catch (Exception e) {
+            out.writeByte(AgentProtocol.STATUS_ERROR);
+            out.writeUTF(String.valueOf(e.getMessage()));
+            return;
+        }
+        out.writeByte(AgentProtocol.STATUS_OK);
+        out.writeInt(result.size());
+        for (VaultRecord record : result) {
+            AgentProtocol.writeRecord(out, record, withPasswords);
+        }
+    }
+
+    /**
+     * Starts a daemon thread stopping the agent once no request arrived for {@link #idleTimeout}.
+     */
+    private void startWatchdog() {
+        Thread watchdog = new Thread(() -> {
+            long timeoutNanos = idleTimeout.toNanos();
+            try {
+                while (server.isOpen()) {
+                    long idle = System.nanoTime() - lastActivity;
+                    if (idle >= timeoutNanos) {
+                        System.err.println("Agent idle for " + idleTimeout.toMinutes() + " minutes");
+                        stop();
+                        return;
+                    }
+                    Thread.sleep(Math.max(1, (timeoutNanos - idle) / 1_000_000));
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }, "passfortify-agent-watchdog");
+        watchdog.setDaemon(true);
+        watchdog.start();
+    }
+
+    /**
+     * Stops accepting connections, which ends {@link #serve()}.
+     */
+    private void stop() {
+        try {
+            server.close();
+        } catch (IOException e) {
+            //Closing a server channel does not fail in a way that matters here
+        }
+    }
+
+    /**
+     * Deletes the socket file, so clients do not try to connect to a stopped agent.
+     */
+    private void deleteSocket() {
+        try {
+            Files.deleteIfExists(socket);
+        } catch (IOException e) {
+            //Replaced by the next agent
+        }
+    }
+}
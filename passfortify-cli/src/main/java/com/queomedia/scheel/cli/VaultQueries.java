@@ -0,0 +1,68 @@
+package com.queomedia.scheel.cli;
+
+import com.queomedia.scheel.core.FlightRecording;
+import com.queomedia.scheel.core.Metric;
+import com.queomedia.scheel.core.VaultColumns;
+import com.queomedia.scheel.core.VaultRecord;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * The account filters shared by the command line interface and the agent, so both answer a query identically.
+ */
+final class VaultQueries {
+
+    /**
+     * Not to be instantiated.
+     */
+    private VaultQueries() {
+    }
+
+    /**
+     * Finds the accounts of a service.
+     *
+     * @param records  All accounts.
+     * @param service  The service, matched ignoring case.
+     * @param username The username, matched ignoring case, or null or empty for any username.
+     * @return The matching accounts.
+     */
+    static List<VaultRecord> accounts(final List<VaultRecord> records, final String service, final String username) {
+        List<VaultRecord> matches = new ArrayList<>();
+        for (VaultRecord record : records) {
+            if (record.service().equalsIgnoreCase(service)
+                    && (username == null || username.isEmpty() || record.username().equalsIgnoreCase(username))) {
+                matches.add(record);
+            }
+        }
+        return matches;
+    }
+
+    /**
+     * Finds accounts whose service or username contains a text, comparing every distinct service and username once.
+     *
+     * @param columns All accounts.
+     * @param query   The text, matched ignoring case, or null or empty for all accounts.
+     * @return The matching accounts.
+     */
+    static List<VaultRecord> search(final VaultColumns columns, final String query) {
+        if (query == null || query.isEmpty()) {
+            return columns.records();
+        }
+        long start = System.nanoTime();
+        FlightRecording.Search event = new FlightRecording.Search();
+        event.begin();
+        BitSet rows = columns.search(query);
+        List<VaultRecord> matches = new ArrayList<>(rows.cardinality());
+        for (int row = rows.nextSetBit(0); row >= 0; row = rows.nextSetBit(row + 1)) {
+            matches.add(columns.record(row));
+        }
+        Metric.SEARCH.recordSince(start);
+        event.entries = columns.size();
+        event.matches = matches.size();
+        event.queryLength = query.length();
+        event.commit();
+        return matches;
+    }
+}
@@ -0,0 +1,6 @@
+module com.queomedia.scheel.cli {
+    requires com.queomedia.scheel.core;
+    requires jdk.httpserver;
+
+    exports com.queomedia.scheel.cli;
+}
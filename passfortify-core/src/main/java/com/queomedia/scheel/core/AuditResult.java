@@ -0,0 +1,47 @@
+package com.queomedia.scheel.core;
+
+/**
+ * Result of auditing a single account. Holds no secrets, so reports can be kept and displayed safely.
+ *
+ * @param index        Position of the account in the vault at the time of the audit.
+ * @param id           The id {@link VaultStore} knows the account by, to find it again after accounts moved.
+ * @param service      The service of the account.
+ * @param username     The username of the account.
+ * @param strength     Estimated entropy of the password in bits.
+ * @param reuseCount   Number of accounts using the same password, including this one.
+ * @param reuseGroup   Position of the first account using the same password. Accounts sharing a password share
+ *                     this value.
+ * @param ageDays      Days since the password was last changed, -1 if unknown.
+ * @param breachCount  Number of times the password appears in known breaches, -1 if no breach file was checked.
+ */
+public record AuditResult(int index, long id, String service, String username, int strength, int reuseCount,
+        int reuseGroup, long ageDays, long breachCount) {
+
+    /**
+     * Checks whether the password of the account is used by other accounts as well.
+     *
+     * @return True if the password is reused.
+     */
+    public boolean isReused() {
+        return reuseCount > 1;
+    }
+
+    /**
+     * Checks whether the password appears in the checked breach file.
+     *
+     * @return True if the password is known to be breached.
+     */
+    public boolean isBreached() {
+        return breachCount > 0;
+    }
+
+    /**
+     * Returns the strength label of the password.
+     *
+     * @return The label, e.g. "weak".
+     * @see PasswordTools#strengthLabel(int)
+     */
+    public String strengthLabel() {
+        return PasswordTools.strengthLabel(strength);
+    }
+}
@@ -0,0 +1,350 @@
+package com.queomedia.scheel.core;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Compact Bloom filter over the hashes of a breached-password list, stored in a versioned file.
+ *
+ * <p>The filter answers "definitely not breached" for almost all passwords without touching the large sorted hash
+ * file, so only the rare positive hits need the exact lookup in {@link BreachIndex}. It is built once from a local
+ * hash list, written straight into a memory-mapped file, and memory-mapped again when used. As SHA-1 hashes are
+ * already uniformly distributed, the bit positions are derived from the hash itself by double hashing instead of
+ * hashing a second time.</p>
+ *
+ * <p>File layout (big-endian): the magic {@code PFBF} and the format version as ints, the number of hash
+ * functions as an int padded to a long, the number of bits, the number of entries and the expected false positive
+ * rate as longs, padding up to {@link #HEADER_SIZE} bytes, followed by the bit array as longs.</p>
+ */
+public class BreachFilter implements Closeable {
+
+    /**
+     * Magic number at the start of every filter file, "PFBF" in ASCII.
+     */
+    static final int MAGIC = 0x50464246;
+
+    /**
+     * Current version of the file format.
+     */
+    static final int VERSION = 1;
+
+    /**
+     * Size of the header. The bit array starts right after it.
+     */
+    static final int HEADER_SIZE = 64;
+
+    /**
+     * Header offset of the number of hash functions, stored in the upper half of a long.
+     */
+    private static final int HASH_FUNCTIONS_OFFSET = 8;
+
+    /**
+     * Header offset of the number of bits.
+     */
+    private static final int BIT_COUNT_OFFSET = 16;
+
+    /**
+     * Header offset of the number of entries.
+     */
+    private static final int ENTRY_COUNT_OFFSET = 24;
+
+    /**
+     * Header offset of the expected false positive rate.
+     */
+    private static final int FALSE_POSITIVE_RATE_OFFSET = 32;
+
+    /**
+     * File name suffix of a filter belonging to a hash file.
+     */
+    static final String FILE_SUFFIX = ".bloom";
+
+    /**
+     * Upper bound for the number of hash functions.
+     */
+    private static final int MAX_HASH_FUNCTIONS = 30;
+
+    /**
+     * The mapped filter file.
+     */
+    private final MappedFile file;
+
+    /**
+     * Number of hash functions.
+     */
+    private final int hashFunctions;
+
+    /**
+     * Number of bits in the filter.
+     */
+    private final long bitCount;
+
+    /**
+     * Number of hashes added to the filter.
+     */
+    private final long entryCount;
+
+    /**
+     * False positive rate expected for the number of entries.
+     */
+    private final double falsePositiveRate;
+
+    /**
+     * Creates a filter on top of a mapped file whose header has been validated.
+     *
+     * @param file The mapped filter file.
+     */
+    private BreachFilter(final MappedFile file) {
+        this.file = file;
+        this.hashFunctions = (int) (file.getLong(HASH_FUNCTIONS_OFFSET) >>> Integer.SIZE);
+        this.bitCount = file.getLong(BIT_COUNT_OFFSET);
+        this.entryCount = file.getLong(ENTRY_COUNT_OFFSET);
+        this.falsePositiveRate = Double.longBitsToDouble(file.getLong(FALSE_POSITIVE_RATE_OFFSET));
+    }
+
+    /**
+     * Opens a filter file.
+     *
+     * @param path The filter file.
+     * @return The filter.
+     * @throws IOException              If the file cannot be mapped.
+     * @throws IllegalArgumentException If the file is not a filter, has an unsupported version or a damaged header.
+     */
+    public static BreachFilter open(final Path path) throws IOException {
+        MappedFile file = MappedFile.open(path);
+        if (file.size() < HEADER_SIZE || (int) (file.getLong(0) >>> Integer.SIZE) != MAGIC) {
+            file.close();
+            throw new IllegalArgumentException(path + " is not a breach filter file");
+        }
+        int version = (int) file.getLong(0);
+        if (version != VERSION) {
+            file.close();
+            throw new IllegalArgumentException("Unsupported breach filter version " + version + " in " + path);
+        }
+        //A damaged header would make lookups divide by zero or read past the end of the file
+        long hashFunctions = file.getLong(HASH_FUNCTIONS_OFFSET) >>> Integer.SIZE;
+        long bits = file.getLong(BIT_COUNT_OFFSET);
+        if (hashFunctions < 1 || hashFunctions > MAX_HASH_FUNCTIONS || bits <= 0 || bits % Long.SIZE != 0
+                || file.size() != HEADER_SIZE + bits / Byte.SIZE) {
+            file.close();
+            throw new IllegalArgumentException(path + " is a damaged breach filter file");
+        }
+        return new BreachFilter(file);
+    }
+
+    /**
+     * Builds a filter from a hash list and writes it to the given file.
+     *
+     * @param hashFile          A file with one hex SHA-1 hash per line, optionally followed by {@code :COUNT}.
+     * @param filterFile        The filter file to create, an existing file is replaced. If building fails, the file
+     *                          is deleted.
+     * @param falsePositiveRate The desired false positive rate, e.g. 0.001.
+     * @param maxBytes          Upper bound for the size of the bit array in bytes, 0 for no bound. If the bound is
+     *                          hit, the false positive rate rises accordingly.
+     * @return The opened filter.
+     * @throws IOException If reading the hash file or writing the filter fails.
+     */
+    public static BreachFilter build(final Path hashFile, final Path filterFile, final double falsePositiveRate,
+            final long maxBytes) throws IOException {
+        if (falsePositiveRate <= 0 || falsePositiveRate >= 1) {
+            throw new IllegalArgumentException("False positive rate must be between 0 and 1");
+        }
+        try (MappedFile hashes = MappedFile.open(hashFile)) {
+            //First pass counts the hashes, so the filter can be sized before anything is inserted
+            long entries = 0;
+            for (long line = 0; line < hashes.size(); line = nextLine(hashes, line)) {
+                if (isHashLine(hashes, line)) {
+                    entries++;
+                }
+            }
+            long n = Math.max(entries, 1);
+            long bits = (long) Math.ceil(-n * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+            if (maxBytes > 0) {
+                bits = Math.min(bits, maxBytes * Byte.SIZE);
+            }
+            bits = Math.max(Long.SIZE, (bits + Long.SIZE - 1) / Long.SIZE * Long.SIZE);
+            int k = (int) Math.max(1, Math.min(MAX_HASH_FUNCTIONS, Math.round((double) bits / n * Math.log(2))));
+            double expectedRate = Math.pow(1 - Math.exp(-(double) k * n / bits), k);
+
+            try (MappedFile filter = MappedFile.create(filterFile, HEADER_SIZE + bits / Byte.SIZE)) {
+                filter.putLong(0, ((long) MAGIC << Integer.SIZE) | VERSION);
+                filter.putLong(HASH_FUNCTIONS_OFFSET, (long) k << Integer.SIZE);
+                filter.putLong(BIT_COUNT_OFFSET, bits);
+                filter.putLong(ENTRY_COUNT_OFFSET, entries);
+                filter.putLong(FALSE_POSITIVE_RATE_OFFSET, Double.doubleToLongBits(expectedRate));
+
+                //Second pass sets the bits straight in the mapped file, the bit array never lives on the heap
+                for (long line = 0; line < hashes.size(); line = nextLine(hashes, line)) {
+                    if (isHashLine(hashes, line)) {
+                        long h1 = parseHex(hashes, line);
+                        long h2 = parseHex(hashes, line + Long.BYTES * 2);
+                        for (int i = 0; i < k; i++) {
+                            long bit = Long.remainderUnsigned(h1 + i * h2, bits);
+                            long word = HEADER_SIZE + (bit >>> 6) * Long.BYTES;
+                            filter.putLong(word, filter.getLong(word) | (1L << (bit & 63)));
+                        }
+                    }
+                }
+                filter.force();
+            } catch (IOException | RuntimeException e) {
+                //A partly written filter has a valid header, so it must not be left behind to be opened later
+                try {
+                    Files.deleteIfExists(filterFile);
+                } catch (IOException suppressed) {
+                    e.addSuppressed(suppressed);
+                }
+                throw e;
+            }
+        }
+        return open(filterFile);
+    }
+
+    /**
+     * Returns the location of the filter belonging to a hash file.
+     *
+     * @param hashFile The hash file.
+     * @return The hash file name with {@link #FILE_SUFFIX} appended.
+     */
+    public static Path defaultLocation(final Path hashFile) {
+        return hashFile.resolveSibling(hashFile.getFileName() + FILE_SUFFIX);
+    }
+
+    /**
+     * Checks whether a password may be breached.
+     *
+     * @param password The plaintext password.
+     * @return False if the password is definitely not in the hash list, true if it may be.
+     */
+    public boolean mightContain(final String password) {
+        return mightContain(BreachIndex.sha1Hex(password));
+    }
+
+    /**
+     * Checks whether the password with the given hash may be breached.
+     *
+     * @param hash The hex SHA-1 hash of the password.
+     * @return False if the hash is definitely not in the hash list, true if it may be.
+     */
+    public boolean mightContain(final byte[] hash) {
+        long h1 = parseHex(hash, 0);
+        long h2 = parseHex(hash, Long.BYTES * 2);
+        for (int i = 0; i < hashFunctions; i++) {
+            long bit = Long.remainderUnsigned(h1 + i * h2, bitCount);
+            if ((file.getLong(HEADER_SIZE + (bit >>> 6) * Long.BYTES) & (1L << (bit & 63))) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the number of hash functions.
+     *
+     * @return The number of bits checked per lookup.
+     */
+    public int hashFunctions() {
+        return hashFunctions;
+    }
+
+    /**
+     * Returns the size of the filter.
+     *
+     * @return The number of bits.
+     */
+    public long bitCount() {
+        return bitCount;
+    }
+
+    /**
+     * Returns the number of hashes the filter was built from.
+     *
+     * @return The number of entries.
+     */
+    public long entryCount() {
+        return entryCount;
+    }
+
+    /**
+     * Returns the false positive rate expected for the size and the number of entries of the filter.
+     *
+     * @return The expected false positive rate.
+     */
+    public double falsePositiveRate() {
+        return falsePositiveRate;
+    }
+
+    /**
+     * Checks whether a line starts with a hex SHA-1 hash.
+     *
+     * @param file The mapped hash file.
+     * @param line Start of the line.
+     * @return True if the line starts with 40 hex digits.
+     */
+    private static boolean isHashLine(final MappedFile file, final long line) {
+        if (line + BreachIndex.HASH_LENGTH > file.size()) {
+            return false;
+        }
+        for (int i = 0; i < BreachIndex.HASH_LENGTH; i++) {
+            if (Character.digit(file.get(line + i), 16) < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Moves forward to the start of the next line.
+     *
+     * @param file The mapped hash file.
+     * @param line Start of the current line.
+     * @return Start of the next line, or the file size if there is none.
+     */
+    private static long nextLine(final MappedFile file, final long line) {
+        long position = line;
+        while (position < file.size() && file.get(position) != '\n') {
+            position++;
+        }
+        return position + 1;
+    }
+
+    /**
+     * Parses 16 hex digits from the mapped hash file.
+     *
+     * @param file     The mapped hash file.
+     * @param position Position of the first digit.
+     * @return The parsed 64 bits.
+     */
+    private static long parseHex(final MappedFile file, final long position) {
+        long value = 0;
+        for (int i = 0; i < Long.BYTES * 2; i++) {
+            value = (value << 4) | Character.digit(file.get(position + i), 16);
+        }
+        return value;
+    }
+
+    /**
+     * Parses 16 hex digits from a hash.
+     *
+     * @param hash   The hex hash.
+     * @param offset Position of the first digit.
+     * @return The parsed 64 bits.
+     */
+    private static long parseHex(final byte[] hash, final int offset) {
+        long value = 0;
+        for (int i = 0; i < Long.BYTES * 2; i++) {
+            value = (value << 4) | Character.digit(hash[offset + i], 16);
+        }
+        return value;
+    }
+
+    /**
+     * Closes the mapped file.
+     *
+     * @throws IOException If closing fails.
+     */
+    @Override
+    public void close() throws IOException {
+        file.close();
+    }
+}
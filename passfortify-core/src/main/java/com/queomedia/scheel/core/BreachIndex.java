@@ -0,0 +1,335 @@
+package com.queomedia.scheel.core;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Offline lookup of breached passwords in a locally downloaded Pwned Passwords file.
+ *
+ * <p>The file has to be the SHA-1 version ordered by hash, with one {@code HASH:COUNT} line per password, as
+ * produced by the official downloader. It is memory-mapped and never copied onto the heap. When opening, a small
+ * index of 4096 entries is built that stores where the lines of every three-character hash prefix begin, so a
+ * lookup only binary-searches the region belonging to its prefix.</p>
+ *
+ * <p>If a {@link BreachFilter} built from the same file lies next to it, it is mapped as well and consulted first,
+ * so passwords that are definitely not breached never touch the large hash file.</p>
+ */
+public class BreachIndex implements Closeable {
+
+    /**
+     * Number of hex characters of a SHA-1 hash.
+     */
+    static final int HASH_LENGTH = 40;
+
+    /**
+     * Number of leading hex characters covered by the prefix index.
+     */
+    private static final int PREFIX_LENGTH = 3;
+
+    /**
+     * Number of prefixes in the index.
+     */
+    private static final int PREFIX_COUNT = 1 << (4 * PREFIX_LENGTH);
+
+    /**
+     * Upper case hex digits, used to encode hashes.
+     */
+    private static final byte[] HEX = "0123456789ABCDEF".getBytes(UTF_8);
+
+    /**
+     * SHA-1 digests are not thread-safe, so every thread gets its own.
+     */
+    private static final ThreadLocal<MessageDigest> SHA1 = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-1");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-1 is not available", e);
+        }
+    });
+
+    /**
+     * The mapped hash file.
+     */
+    private final MappedFile file;
+
+    /**
+     * Filter screening lookups before the exact search, null if there is none.
+     */
+    private final BreachFilter filter;
+
+    /**
+     * Offset of the first line of every prefix, plus the file size as the end of the last prefix.
+     */
+    private final long[] prefixOffsets = new long[PREFIX_COUNT + 1];
+
+    /**
+     * Maps the given file and builds the prefix index.
+     *
+     * @param file   The mapped hash file.
+     * @param filter Filter screening lookups, may be null.
+     */
+    private BreachIndex(final MappedFile file, final BreachFilter filter) {
+        this.file = file;
+        this.filter = filter;
+        byte[] prefix = new byte[PREFIX_LENGTH];
+        long offset = 0;
+        for (int i = 0; i < PREFIX_COUNT; i++) {
+            for (int j = 0; j < PREFIX_LENGTH; j++) {
+                prefix[j] = HEX[(i >>> (4 * (PREFIX_LENGTH - 1 - j))) & 0xF];
+            }
+            offset = lowerBound(prefix, offset, file.size());
+            prefixOffsets[i] = offset;
+        }
+        prefixOffsets[PREFIX_COUNT] = file.size();
+    }
+
+    /**
+     * Opens a sorted Pwned Passwords SHA-1 file, together with its filter if one has been built.
+     *
+     * @param path The hash file.
+     * @return The index.
+     * @throws IOException              If the file cannot be mapped.
+     * @throws IllegalArgumentException If the file does not start with a SHA-1 hash.
+     * @see BreachFilter#defaultLocation(Path)
+     */
+    public static BreachIndex open(final Path path) throws IOException {
+        Path filterPath = BreachFilter.defaultLocation(path);
+        boolean useFilter = Files.exists(filterPath)
+                && Files.getLastModifiedTime(filterPath).compareTo(Files.getLastModifiedTime(path)) >= 0;
+        return open(path, useFilter ? BreachFilter.open(filterPath) : null);
+    }
+
+    /**
+     * Opens a sorted Pwned Passwords SHA-1 file with the given filter.
+     *
+     * @param path   The hash file.
+     * @param filter Filter built from the same file, or null to always search the file. It is closed with the index,
+     *               or right away if the index cannot be opened.
+     * @return The index.
+     * @throws IOException              If the file cannot be mapped.
+     * @throws IllegalArgumentException If the file does not start with a SHA-1 hash.
+     */
+    public static BreachIndex open(final Path path, final BreachFilter filter) throws IOException {
+        MappedFile file;
+        try {
+            file = MappedFile.open(path);
+        } catch (IOException | RuntimeException e) {
+            //The index owns the filter from the start, so it is closed on every way out
+            closeQuietly(filter, e);
+            throw e;
+        }
+        if (!startsWithHash(file)) {
+            file.close();
+            if (filter != null) {
+                filter.close();
+            }
+            throw new IllegalArgumentException(path + " is not a sorted SHA-1 hash file");
+        }
+        return new BreachIndex(file, filter);
+    }
+
+    /**
+     * Closes a filter while another error is already being reported.
+     *
+     * @param filter The filter, may be null.
+     * @param error  The error being reported, gets a failure to close attached.
+     */
+    private static void closeQuietly(final BreachFilter filter, final Exception error) {
+        if (filter == null) {
+            return;
+        }
+        try {
+            filter.close();
+        } catch (IOException e) {
+            error.addSuppressed(e);
+        }
+    }
+
+    /**
+     * Checks how often the given password appears in the breach file.
+     *
+     * @param password The plaintext password.
+     * @return The number of times the password has been seen in breaches, 0 if it was not found.
+     */
+    public long breachCount(final String password) {
+        return breachCount(sha1Hex(password));
+    }
+
+    /**
+     * Checks how often the password with the given hash appears in the breach file.
+     *
+     * @param hash The upper case hex SHA-1 hash of the password.
+     * @return The number of times the password has been seen in breaches, 0 if it was not found.
+     */
+    public long breachCount(final byte[] hash) {
+        if (filter != null && !filter.mightContain(hash)) {
+            return 0;
+        }
+        int prefix = 0;
+        for (int i = 0; i < PREFIX_LENGTH; i++) {
+            prefix = (prefix << 4) | Character.digit(hash[i], 16);
+        }
+        long line = lowerBound(hash, prefixOffsets[prefix], prefixOffsets[prefix + 1]);
+        if (line >= file.size() || compare(line, hash, HASH_LENGTH) != 0) {
+            return 0;
+        }
+        return parseCount(line + HASH_LENGTH);
+    }
+
+    /**
+     * Computes the upper case hex SHA-1 hash of a password, the form used by the breach file.
+     *
+     * @param password The plaintext password.
+     * @return The hash as 40 ASCII characters.
+     */
+    static byte[] sha1Hex(final String password) {
+        byte[] digest = SHA1.get().digest(password.getBytes(UTF_8));
+        byte[] hex = new byte[HASH_LENGTH];
+        for (int i = 0; i < digest.length; i++) {
+            hex[2 * i] = HEX[(digest[i] >>> 4) & 0xF];
+            hex[2 * i + 1] = HEX[digest[i] & 0xF];
+        }
+        return hex;
+    }
+
+    /**
+     * Finds the first line in the given region whose leading characters are not smaller than the key.
+     * Both bounds must be line starts.
+     *
+     * @param key  The key to search for.
+     * @param from Start of the region, inclusive.
+     * @param to   End of the region, exclusive.
+     * @return The start of the first matching line, or {@code to} if all lines are smaller.
+     */
+    private long lowerBound(final byte[] key, final long from, final long to) {
+        long low = from;
+        long high = to;
+        while (low < high) {
+            long line = lineStart((low + high) >>> 1, low);
+            if (compare(line, key, key.length) < 0) {
+                low = nextLine(line, high);
+            } else {
+                high = line;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Compares the beginning of a line with a key. Lower case hex digits in the file are treated as upper case.
+     *
+     * @param line   Start of the line.
+     * @param key    The key.
+     * @param length Number of characters to compare.
+     * @return A negative number, zero or a positive number if the line is smaller, equal or greater.
+     */
+    private int compare(final long line, final byte[] key, final int length) {
+        for (int i = 0; i < length; i++) {
+            int b = line + i < file.size() ? file.get(line + i) : 0;
+            if (b >= 'a' && b <= 'f') {
+                b -= 'a' - 'A';
+            }
+            if (b != key[i]) {
+                return b - key[i];
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Moves back to the start of the line containing the given position.
+     *
+     * @param position A position within a line.
+     * @param floor    A known line start that is not passed.
+     * @return The start of the line.
+     */
+    private long lineStart(final long position, final long floor) {
+        long start = position;
+        while (start > floor && file.get(start - 1) != '\n') {
+            start--;
+        }
+        return start;
+    }
+
+    /**
+     * Moves forward to the start of the next line.
+     *
+     * @param line    Start of the current line.
+     * @param ceiling Position that is not passed.
+     * @return The start of the next line, or {@code ceiling} if there is none before it.
+     */
+    private long nextLine(final long line, final long ceiling) {
+        long position = line;
+        while (position < ceiling && file.get(position) != '\n') {
+            position++;
+        }
+        return Math.min(position + 1, ceiling);
+    }
+
+    /**
+     * Parses the breach count following a hash. Files without counts report 1 for every listed hash.
+     *
+     * @param position Position directly after the hash.
+     * @return The breach count.
+     */
+    private long parseCount(final long position) {
+        if (position >= file.size() || file.get(position) != ':') {
+            return 1;
+        }
+        long count = 0;
+        for (long i = position + 1; i < file.size(); i++) {
+            byte b = file.get(i);
+            if (b < '0' || b > '9') {
+                break;
+            }
+            count = count * 10 + (b - '0');
+        }
+        return Math.max(count, 1);
+    }
+
+    /**
+     * Checks that the file starts with a SHA-1 hash.
+     *
+     * @param file The mapped file.
+     * @return True if the first 40 bytes are hex digits.
+     */
+    private static boolean startsWithHash(final MappedFile file) {
+        if (file.size() < HASH_LENGTH) {
+            return false;
+        }
+        for (int i = 0; i < HASH_LENGTH; i++) {
+            if (Character.digit(file.get(i), 16) < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Checks whether lookups are screened by a filter.
+     *
+     * @return True if a filter is used.
+     */
+    public boolean hasFilter() {
+        return filter != null;
+    }
+
+    /**
+     * Closes the mapped file and the filter.
+     *
+     * @throws IOException If closing fails.
+     */
+    @Override
+    public void close() throws IOException {
+        file.close();
+        if (filter != null) {
+            filter.close();
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package com.queomedia.scheel.core;
+
+/**
+ * The character classes passwords are built from.
+ *
+ * <p>This is the single definition of the character sets used by all password generators, so the quick generator
+ * and the generation form draw special characters from the same set.</p>
+ */
+public enum CharacterClass {
+
+    /**
+     * Lowercase letters a-z.
+     */
+    LOWERCASE("lower", "abcdefghijklmnopqrstuvwxyz"),
+
+    /**
+     * Uppercase letters A-Z.
+     */
+    UPPERCASE("upper", "ABCDEFGHIJKLMNOPQRSTUVWXYZ"),
+
+    /**
+     * Digits 0-9.
+     */
+    DIGITS("digits", "0123456789"),
+
+    /**
+     * All printable ASCII punctuation and symbols.
+     */
+    SPECIAL("special", "!\"#$%&'()*+,-./:;<=>?@[\\]^_`{|}~");
+
+    /**
+     * Characters that are easily confused with one another in many fonts.
+     */
+    public static final String AMBIGUOUS = "Il1|O0o`'\"";
+
+    /**
+     * Name of the class in a policy specification.
+     */
+    private final String key;
+
+    /**
+     * The characters of this class.
+     */
+    private final String characters;
+
+    /**
+     * Creates a character class.
+     *
+     * @param key        Name of the class in a policy specification.
+     * @param characters The characters of this class.
+     */
+    CharacterClass(final String key, final String characters) {
+        this.key = key;
+        this.characters = characters;
+    }
+
+    /**
+     * Returns the name of the class in a policy specification.
+     *
+     * @return The key, e.g. {@code lower}.
+     * @see PasswordPolicy#parse(String)
+     */
+    public String key() {
+        return key;
+    }
+
+    /**
+     * Returns the characters of this class.
+     *
+     * @return The characters.
+     */
+    public String characters() {
+        return characters;
+    }
+}
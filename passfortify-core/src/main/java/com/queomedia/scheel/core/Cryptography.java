@@ -1,4 +1,4 @@
-package com.queomedia.scheel;
+package com.queomedia.scheel.core;
 
 import java.nio.ByteBuffer;
 import java.nio.file.Files;
@@ -21,7 +21,12 @@ public class Cryptography {
     /**
      * Specifying the algorithm used for encryption.
      */
-    private static final String ENCRYPT_ALGO = "AES/GCM/NoPadding";
+    static final String ENCRYPT_ALGO = "AES/GCM/NoPadding";
+
+    /**
+     * Specifying the function deriving keys from the master password.
+     */
+    private static final String KEY_DERIVATION_ALGO = "PBKDF2WithHmacSHA256";
 
     /**
      * Length of the tag used.
@@ -76,12 +81,21 @@ public class Cryptography {
      */
     public static SecretKey getAESKeyFromPassword(final String masterPassword, final byte[] salt)
             throws NoSuchAlgorithmException, InvalidKeySpecException {
+        long start = System.nanoTime();
+        FlightRecording.KeyDerivation event = new FlightRecording.KeyDerivation();
+        event.begin();
         // Create a SecretKeyFactory instance using PBKDF2 with HMAC SHA-256
-        SecretKeyFactory factory = SecretKeyFactory.getInstance("PBKDF2WithHmacSHA256");
+        SecretKeyFactory factory = SecretKeyFactory.getInstance(KEY_DERIVATION_ALGO);
 
         // Define the key specification with the master password, salt, iteration count, and key length
         KeySpec spec = new PBEKeySpec(masterPassword.toCharArray(), salt, ITERATION_NUMBER, KEY_LENGTH);
-        return new SecretKeySpec(factory.generateSecret(spec).getEncoded(), "AES");
+        SecretKey key = new SecretKeySpec(factory.generateSecret(spec).getEncoded(), "AES");
+        Metric.KEY_DERIVATION.recordSince(start);
+        event.algorithm = KEY_DERIVATION_ALGO;
+        event.iterations = ITERATION_NUMBER;
+        event.keyBits = KEY_LENGTH;
+        event.commit();
+        return key;
     }
 
     /**
@@ -97,6 +111,9 @@ public class Cryptography {
      *                       InvalidKeyException, InvalidAlgorithmParameterException, and IllegalBlockSizeException.
      */
     public static byte[] encrypt(final byte[] pText, final String masterPassword) throws Exception {
+        long start = System.nanoTime();
+        FlightRecording.FileEncrypt event = new FlightRecording.FileEncrypt();
+        event.begin();
         byte[] salt = getRandomNonce(SALT_LENGTH_BYTE);
         byte[] iv = getRandomNonce(IV_LENGTH_BYTE);
 
@@ -113,8 +130,14 @@ public class Cryptography {
         byte[] cipherText = cipher.doFinal(pText); //create cipher text out of plain text
 
         //Concatenate IV, salt, and cipher text into a single byte array
-        return ByteBuffer.allocate(iv.length + salt.length + cipherText.length).put(iv).put(salt).put(cipherText)
-                .array();
+        byte[] encrypted = ByteBuffer.allocate(iv.length + salt.length + cipherText.length).put(iv).put(salt)
+                .put(cipherText).array();
+        Metric.ENCRYPT.recordSince(start);
+        event.algorithm = ENCRYPT_ALGO;
+        event.plaintextBytes = pText.length;
+        event.ciphertextBytes = encrypted.length;
+        event.commit();
+        return encrypted;
 
     }
 
@@ -135,6 +158,11 @@ public class Cryptography {
      *                       and the original ciphertext is returned.
      */
     public static byte[] decrypt(final byte[] cText, final String masterPassword) throws Exception {
+        long start = System.nanoTime();
+        FlightRecording.FileDecrypt event = new FlightRecording.FileDecrypt();
+        event.begin();
+        event.algorithm = ENCRYPT_ALGO;
+        event.ciphertextBytes = cText.length;
         try {
             //Wrap the cipher text in a ByteBuffer for easy extraction
             ByteBuffer bb = ByteBuffer.wrap(cText);
@@ -159,10 +187,16 @@ public class Cryptography {
             cipher.init(Cipher.DECRYPT_MODE, aesKeyFromPassword, new GCMParameterSpec(TAG_LENGTH_BIT, iv));
 
             //Perform the decryption and obtain the plaintext
-            return cipher.doFinal(cipherText);
+            byte[] plainText = cipher.doFinal(cipherText);
+            Metric.DECRYPT.recordSince(start);
+            event.plaintextBytes = plainText.length;
+            event.succeeded = true;
+            event.commit();
+            return plainText;
         } catch (javax.crypto.AEADBadTagException e) {
             // Handle the case where decryption fails due to an incorrect master password
-            System.out.println("Decryption failed. Make sure your master password is correct.");
+            System.err.println("Decryption failed. Make sure your master password is correct.");
+            event.commit();
         }
         //Return the original cipher text if decryption fails
         return cText;
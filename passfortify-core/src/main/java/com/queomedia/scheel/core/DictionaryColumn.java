@@ -0,0 +1,145 @@
+package com.queomedia.scheel.core;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A column of strings that repeat, stored once each in a {@link PackedColumn} and referred to by their index.
+ *
+ * <p>Services and usernames repeat: the same mail address is the username of most accounts, a service often has
+ * several accounts. Every distinct value is kept once, every row only holds the int code of its value. Searches
+ * look at every distinct value once instead of once per row.</p>
+ */
+final class DictionaryColumn {
+
+    /**
+     * Every distinct value once, in the order they first occurred.
+     */
+    private final PackedColumn values;
+
+    /**
+     * The index in {@link #values} of the value of every row.
+     */
+    private final int[] codes;
+
+    /**
+     * Creates a column.
+     *
+     * @param values Every distinct value once.
+     * @param codes  The index of the value of every row.
+     */
+    private DictionaryColumn(final PackedColumn values, final int[] codes) {
+        this.values = values;
+        this.codes = codes;
+    }
+
+    /**
+     * Decodes the value of a row.
+     *
+     * @param row The row.
+     * @return The value.
+     */
+    String get(final int row) {
+        return values.get(codes[row]);
+    }
+
+    /**
+     * Checks which distinct values contain a text, ignoring case like {@code toLowerCase(Locale.ROOT)}.
+     *
+     * @param lowerQuery The text in lower case.
+     * @param asciiQuery The text as bytes, see {@link PackedColumn#asciiBytes(String)}, null if it is not ASCII.
+     * @return Per code, whether its value contains the text; index with {@link #code(int)}.
+     */
+    boolean[] containsIgnoreCase(final String lowerQuery, final byte[] asciiQuery) {
+        boolean[] result = new boolean[values.size()];
+        for (int code = 0; code < result.length; code++) {
+            result[code] = values.containsIgnoreCase(code, lowerQuery, asciiQuery);
+        }
+        return result;
+    }
+
+    /**
+     * Returns the code of the value of a row.
+     *
+     * @param row The row.
+     * @return The code.
+     */
+    int code(final int row) {
+        return codes[row];
+    }
+
+    /**
+     * Returns the heap the column takes, without object headers.
+     *
+     * @return The size of the arrays in bytes.
+     */
+    long byteSize() {
+        return values.byteSize() + (long) codes.length * Integer.BYTES;
+    }
+
+    /**
+     * Collects values into a column.
+     */
+    static final class Builder {
+
+        /**
+         * The distinct values added so far.
+         */
+        private final PackedColumn.Builder values;
+
+        /**
+         * The code of every distinct value added so far. Only used while building.
+         */
+        private final Map<String, Integer> dictionary = new HashMap<>();
+
+        /**
+         * The code of every row added so far.
+         */
+        private int[] codes;
+
+        /**
+         * Number of rows added so far.
+         */
+        private int size;
+
+        /**
+         * Creates a builder.
+         *
+         * @param expectedSize The number of rows expected, to size the arrays.
+         */
+        Builder(final int expectedSize) {
+            values = new PackedColumn.Builder(expectedSize / 4);
+            codes = new int[expectedSize];
+        }
+
+        /**
+         * Adds the value of the next row.
+         *
+         * @param value The value.
+         * @return The builder.
+         */
+        Builder add(final String value) {
+            Integer code = dictionary.get(value);
+            if (code == null) {
+                code = dictionary.size();
+                dictionary.put(value, code);
+                values.add(value);
+            }
+            if (size == codes.length) {
+                codes = Arrays.copyOf(codes, Math.max(16, codes.length * 2));
+            }
+            codes[size++] = code;
+            return this;
+        }
+
+        /**
+         * Creates the column, trimming the arrays to their content.
+         *
+         * @return The column.
+         */
+        DictionaryColumn build() {
+            return new DictionaryColumn(values.build(), Arrays.copyOf(codes, size));
+        }
+    }
+}
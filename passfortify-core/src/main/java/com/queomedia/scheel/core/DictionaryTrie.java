@@ -0,0 +1,206 @@
+package com.queomedia.scheel.core;
+
+import java.util.ArrayDeque;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Immutable prefix tree over lowercase dictionary words, compiled into flat arrays.
+ *
+ * <p>The trie is built once from a map of words to frequency ranks and then flattened into a compressed
+ * sparse row layout: every node owns a contiguous, sorted slice of the edge arrays. Walking the trie
+ * therefore never allocates and only touches primitive arrays, which keeps lookups cheap enough to run on every
+ * keystroke. A rank of {@code 0} marks a node that does not terminate a word.</p>
+ */
+public class DictionaryTrie {
+
+    /**
+     * Index of the root node.
+     */
+    static final int ROOT = 0;
+
+    /**
+     * Returned by {@link #step(int, char)} when the node has no edge for the given character.
+     */
+    static final int NO_NODE = -1;
+
+    /**
+     * Index of the first outgoing edge of every node. The edges of node {@code n} are
+     * {@code firstEdge[n]} (inclusive) to {@code firstEdge[n + 1]} (exclusive).
+     */
+    private final int[] firstEdge;
+
+    /**
+     * Label of every edge, sorted ascending within the slice of a node.
+     */
+    private final char[] edgeChars;
+
+    /**
+     * Target node of every edge.
+     */
+    private final int[] edgeTargets;
+
+    /**
+     * Frequency rank of the word ending at each node, or 0 if no word ends there.
+     */
+    private final int[] ranks;
+
+    /**
+     * Length of the longest word in the trie.
+     */
+    private final int maxDepth;
+
+    /**
+     * Creates a trie from its compiled arrays. Use {@link #compile(Map)} to build one.
+     *
+     * @param firstEdge   Edge offsets per node.
+     * @param edgeChars   Edge labels.
+     * @param edgeTargets Edge targets.
+     * @param ranks       Word ranks per node.
+     * @param maxDepth    Length of the longest word.
+     */
+    private DictionaryTrie(final int[] firstEdge, final char[] edgeChars, final int[] edgeTargets, final int[] ranks,
+            final int maxDepth) {
+        this.firstEdge = firstEdge;
+        this.edgeChars = edgeChars;
+        this.edgeTargets = edgeTargets;
+        this.ranks = ranks;
+        this.maxDepth = maxDepth;
+    }
+
+    /**
+     * Compiles a trie out of the given words. Words are lowercased; if a word occurs more than once the lowest
+     * (most common) rank wins.
+     *
+     * @param words Map of words to their frequency rank, starting at 1 for the most common word.
+     * @return The compiled trie.
+     */
+    public static DictionaryTrie compile(final Map<String, Integer> words) {
+        BuildNode root = new BuildNode();
+        int nodeCount = 1;
+        int edgeCount = 0;
+        int maxDepth = 0;
+
+        //Building a temporary pointer based trie first, it is thrown away after flattening
+        for (Map.Entry<String, Integer> word : words.entrySet()) {
+            String lower = word.getKey().toLowerCase(Locale.ROOT);
+            if (lower.isEmpty()) {
+                continue;
+            }
+            BuildNode node = root;
+            for (int i = 0; i < lower.length(); i++) {
+                BuildNode child = node.children.get(lower.charAt(i));
+                if (child == null) {
+                    child = new BuildNode();
+                    node.children.put(lower.charAt(i), child);
+                    nodeCount++;
+                    edgeCount++;
+                }
+                node = child;
+            }
+            int rank = Math.max(1, word.getValue());
+            node.rank = node.rank == 0 ? rank : Math.min(node.rank, rank);
+            maxDepth = Math.max(maxDepth, lower.length());
+        }
+
+        int[] firstEdge = new int[nodeCount + 1];
+        char[] edgeChars = new char[edgeCount];
+        int[] edgeTargets = new int[edgeCount];
+        int[] ranks = new int[nodeCount];
+
+        //Breadth first numbering, children of a node receive consecutive ids
+        ArrayDeque<BuildNode> queue = new ArrayDeque<>();
+        root.id = ROOT;
+        queue.add(root);
+        int nextId = 1;
+        int edge = 0;
+        while (!queue.isEmpty()) {
+            BuildNode node = queue.poll();
+            firstEdge[node.id] = edge;
+            ranks[node.id] = node.rank;
+            for (Map.Entry<Character, BuildNode> child : node.children.entrySet()) {
+                child.getValue().id = nextId++;
+                edgeChars[edge] = child.getKey();
+                edgeTargets[edge] = child.getValue().id;
+                edge++;
+                queue.add(child.getValue());
+            }
+        }
+        firstEdge[nodeCount] = edge;
+        return new DictionaryTrie(firstEdge, edgeChars, edgeTargets, ranks, maxDepth);
+    }
+
+    /**
+     * Follows the edge labelled with the given character.
+     *
+     * @param node      The node to start from.
+     * @param character The lowercase character to follow.
+     * @return The target node, or {@link #NO_NODE} if there is no such edge.
+     */
+    public int step(final int node, final char character) {
+        int low = firstEdge[node];
+        int high = firstEdge[node + 1] - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            char label = edgeChars[mid];
+            if (label < character) {
+                low = mid + 1;
+            } else if (label > character) {
+                high = mid - 1;
+            } else {
+                return edgeTargets[mid];
+            }
+        }
+        return NO_NODE;
+    }
+
+    /**
+     * Returns the frequency rank of the word ending at the given node.
+     *
+     * @param node The node to inspect.
+     * @return The rank of the word, or 0 if no word ends at this node.
+     */
+    public int rank(final int node) {
+        return ranks[node];
+    }
+
+    /**
+     * Returns the length of the longest word contained in the trie.
+     *
+     * @return The maximum word length.
+     */
+    public int maxDepth() {
+        return maxDepth;
+    }
+
+    /**
+     * Returns the number of nodes in the trie.
+     *
+     * @return The node count, including the root.
+     */
+    public int size() {
+        return ranks.length;
+    }
+
+    /**
+     * Mutable node only used while compiling.
+     */
+    private static final class BuildNode {
+
+        /**
+         * Children sorted by their edge label.
+         */
+        private final TreeMap<Character, BuildNode> children = new TreeMap<>();
+
+        /**
+         * Rank of the word ending here, 0 if none.
+         */
+        private int rank;
+
+        /**
+         * Id assigned during flattening.
+         */
+        private int id;
+    }
+}
@@ -0,0 +1,286 @@
+package com.queomedia.scheel.core;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
+import java.util.BitSet;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * The fields of a decrypted account file, as positions in the decrypted bytes.
+ *
+ * <p>An account file holds one field per account. The buffer is walked once to find where every field starts and
+ * ends; nothing is copied and no string is created until a field is asked for. Two formats are read:</p>
+ * <ul>
+ *     <li>Escaped, written since the header {@code PFVAULT2}: every field ends with {@code \n}. Backslash, line
+ *     feed and carriage return in a value are written as {@code \\}, {@code \n} and {@code \r}, so a value may
+ *     contain any character. A backslash at the end of a field, which the format never writes, is taken
+ *     literally and does not swallow the terminator.</li>
+ *     <li>Lines, written by earlier releases: fields are separated by the line separator of the platform and
+ *     written as they are, so a value containing a line break was split into two fields. Empty fields at the end
+ *     are dropped, as {@link String#split(String)} did; like it, a file without any separator is one field, even
+ *     if it is empty.</li>
+ * </ul>
+ */
+final class FieldBuffer {
+
+    /**
+     * Ends every field of the escaped format.
+     */
+    private static final byte TERMINATOR = '\n';
+
+    /**
+     * Starts an escape sequence of the escaped format.
+     */
+    private static final byte ESCAPE = '\\';
+
+    /**
+     * Separates the fields of the line format.
+     */
+    private static final byte[] LINE_SEPARATOR = System.lineSeparator().getBytes(UTF_8);
+
+    /**
+     * Number of fields the bounds are sized for at first.
+     */
+    private static final int INITIAL_CAPACITY = 64;
+
+    /**
+     * A buffer without fields.
+     */
+    private static final FieldBuffer EMPTY = new FieldBuffer(new byte[0], new int[0], 0, new BitSet());
+
+    /**
+     * The decrypted file.
+     */
+    private final byte[] content;
+
+    /**
+     * Start of field i at index 2i, its end (exclusive) at index 2i + 1.
+     */
+    private final int[] bounds;
+
+    /**
+     * Number of fields.
+     */
+    private final int size;
+
+    /**
+     * The fields containing an escape sequence, the others are plain UTF-8.
+     */
+    private final BitSet escapedFields;
+
+    /**
+     * Creates a buffer.
+     *
+     * @param content       The decrypted file.
+     * @param bounds        Start and end of every field.
+     * @param size          Number of fields.
+     * @param escapedFields The fields containing an escape sequence.
+     */
+    private FieldBuffer(final byte[] content, final int[] bounds, final int size, final BitSet escapedFields) {
+        this.content = content;
+        this.bounds = bounds;
+        this.size = size;
+        this.escapedFields = escapedFields;
+    }
+
+    /**
+     * Returns a buffer without fields, for a missing file.
+     *
+     * @return The buffer.
+     */
+    static FieldBuffer empty() {
+        return EMPTY;
+    }
+
+    /**
+     * Finds the fields of a decrypted account file.
+     *
+     * @param content The decrypted file, kept by the buffer and not to be modified afterwards.
+     * @param escaped True for the escaped format, false for the line format of earlier releases.
+     * @return The buffer.
+     */
+    static FieldBuffer parse(final byte[] content, final boolean escaped) {
+        return escaped ? parseEscaped(content) : parseLines(content);
+    }
+
+    /**
+     * Finds the fields of the escaped format.
+     *
+     * @param content The decrypted file.
+     * @return The buffer.
+     */
+    private static FieldBuffer parseEscaped(final byte[] content) {
+        int[] bounds = new int[2 * INITIAL_CAPACITY];
+        BitSet escapedFields = new BitSet();
+        int size = 0;
+        int start = 0;
+        for (int i = 0; i < content.length; i++) {
+            byte b = content[i];
+            if (b == ESCAPE && i + 1 < content.length && content[i + 1] != TERMINATOR) {
+                escapedFields.set(size);
+                i++; //The escaped character cannot end the field
+            } else if (b == TERMINATOR) {
+                bounds = add(bounds, size++, start, i);
+                start = i + 1;
+            }
+        }
+        if (start < content.length) {
+            bounds = add(bounds, size++, start, content.length); //A last field without terminator
+        }
+        return new FieldBuffer(content, bounds, size, escapedFields);
+    }
+
+    /**
+     * Finds the fields of the line format of earlier releases.
+     *
+     * @param content The decrypted file.
+     * @return The buffer.
+     */
+    private static FieldBuffer parseLines(final byte[] content) {
+        int[] bounds = new int[2 * INITIAL_CAPACITY];
+        int size = 0;
+        int start = 0;
+        int last = content.length - LINE_SEPARATOR.length;
+        for (int i = 0; i <= last; i++) {
+            if (content[i] == LINE_SEPARATOR[0] && startsWithSeparator(content, i)) {
+                bounds = add(bounds, size++, start, i);
+                start = i + LINE_SEPARATOR.length;
+                i = start - 1;
+            }
+        }
+        boolean separated = size > 0;
+        bounds = add(bounds, size++, start, content.length);
+        while (separated && size > 0 && bounds[2 * size - 1] == bounds[2 * size - 2]) {
+            size--; //Dropping empty fields at the end
+        }
+        return new FieldBuffer(content, bounds, size, new BitSet());
+    }
+
+    /**
+     * Checks whether the line separator starts at a position.
+     *
+     * @param content  The decrypted file.
+     * @param position The position, at least the length of the separator before the end.
+     * @return True if it does.
+     */
+    private static boolean startsWithSeparator(final byte[] content, final int position) {
+        for (int j = 1; j < LINE_SEPARATOR.length; j++) {
+            if (content[position + j] != LINE_SEPARATOR[j]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Records the bounds of a field, growing the array if needed.
+     *
+     * @param bounds The bounds.
+     * @param field  The index of the field.
+     * @param start  Its start.
+     * @param end    Its end, exclusive.
+     * @return The bounds, a larger copy if they were full.
+     */
+    private static int[] add(final int[] bounds, final int field, final int start, final int end) {
+        int[] result = 2 * field + 1 < bounds.length ? bounds : Arrays.copyOf(bounds, bounds.length * 2);
+        result[2 * field] = start;
+        result[2 * field + 1] = end;
+        return result;
+    }
+
+    /**
+     * Returns the number of fields.
+     *
+     * @return The number of fields.
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * Returns a field as a string, unescaped.
+     *
+     * @param field The index of the field.
+     * @return The value, empty for an index past the last field, as a missing line is an empty value.
+     */
+    String string(final int field) {
+        if (field >= size) {
+            return "";
+        }
+        int start = bounds[2 * field];
+        int end = bounds[2 * field + 1];
+        if (!escapedFields.get(field)) {
+            return new String(content, start, end - start, UTF_8);
+        }
+        ByteArrayOutputStream unescaped = new ByteArrayOutputStream(end - start);
+        for (int i = start; i < end; i++) {
+            byte b = content[i];
+            if (b == ESCAPE && i + 1 < end) {
+                byte escaped = content[++i];
+                unescaped.write(switch (escaped) {
+                    case 'n' -> '\n';
+                    case 'r' -> '\r';
+                    default -> escaped;
+                });
+            } else {
+                unescaped.write(b);
+            }
+        }
+        return unescaped.toString(UTF_8);
+    }
+
+    /**
+     * Returns a field as a number, without creating a string. Whitespace around the digits is ignored.
+     *
+     * @param field    The index of the field.
+     * @param fallback The value for a missing, empty or malformed field.
+     * @return The value.
+     */
+    long longValue(final int field, final long fallback) {
+        if (field >= size) {
+            return fallback;
+        }
+        int start = bounds[2 * field];
+        int end = bounds[2 * field + 1];
+        while (start < end && content[start] <= ' ') {
+            start++;
+        }
+        while (end > start && content[end - 1] <= ' ') {
+            end--;
+        }
+        boolean negative = start < end && content[start] == '-';
+        int i = negative ? start + 1 : start;
+        if (i == end) {
+            return fallback;
+        }
+        long value = 0;
+        for (; i < end; i++) {
+            int digit = content[i] - '0';
+            if (digit < 0 || digit > 9 || value > (Long.MAX_VALUE - digit) / 10) {
+                return fallback;
+            }
+            value = value * 10 + digit;
+        }
+        return negative ? -value : value;
+    }
+
+    /**
+     * Appends a value as one field of the escaped format.
+     *
+     * @param fields The fields written so far.
+     * @param value  The value.
+     */
+    static void append(final StringBuilder fields, final String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '\\' -> fields.append("\\\\");
+                case '\n' -> fields.append("\\n");
+                case '\r' -> fields.append("\\r");
+                default -> fields.append(c);
+            }
+        }
+        fields.append((char) TERMINATOR);
+    }
+}
@@ -0,0 +1,310 @@
+package com.queomedia.scheel.core;
+
+import jdk.jfr.Category;
+import jdk.jfr.Configuration;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Recording;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.util.HashMap;
+import java.util.Map;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * The Java Flight Recorder events of the vault operations, and the recording that captures them.
+ *
+ * <p>Every event carries sizes, counts and algorithms, never a password, username, service or search term. The
+ * events are disabled unless the bundled profile {@code passfortify.jfc} enables them, so ordinary recordings do not
+ * pay for them. {@link #startIfRequested()} records with the JDK default settings plus the profile, so the
+ * operations appear next to the thread samples, locks and garbage collections of the FX thread.</p>
+ */
+public final class FlightRecording {
+
+    /**
+     * System property naming the file to record to, e.g. {@code -Dpassfortify.recording=freeze.jfr}.
+     */
+    public static final String RECORDING_PROPERTY = "passfortify.recording";
+
+    /**
+     * The bundled profile, next to this class.
+     */
+    private static final String PROFILE = "passfortify.jfc";
+
+    /**
+     * Category all events are listed under in JDK Mission Control.
+     */
+    private static final String CATEGORY = "PassFortify";
+
+    /**
+     * Not to be instantiated.
+     */
+    private FlightRecording() {
+    }
+
+    /**
+     * Starts recording if {@link #RECORDING_PROPERTY} names a file, which is written when the process exits.
+     * Failing to start is reported on standard error and otherwise ignored.
+     */
+    public static void startIfRequested() {
+        String destination = System.getProperty(RECORDING_PROPERTY);
+        if (destination == null || destination.isBlank()) {
+            return;
+        }
+        try (InputStream profile = FlightRecording.class.getResourceAsStream(PROFILE);
+                Reader reader = new InputStreamReader(profile, UTF_8)) {
+            Map<String, String> settings = new HashMap<>(Configuration.getConfiguration("default").getSettings());
+            settings.putAll(Configuration.create(reader).getSettings());
+            Recording recording = new Recording(settings);
+            recording.setName(CATEGORY);
+            recording.setDestination(Path.of(destination));
+            recording.setDumpOnExit(true);
+            recording.start();
+        } catch (IOException | ParseException | RuntimeException e) {
+            System.err.println("Flight recording could not be started: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Checking the master password, the first step of every session.
+     */
+    @Name("com.queomedia.scheel.Unlock")
+    @Label("Unlock")
+    @Category(CATEGORY)
+    @Description("Checking the master password")
+    @Enabled(false)
+    static final class Unlock extends Event {
+
+        /**
+         * Whether the master password was correct.
+         */
+        @Label("Succeeded")
+        boolean succeeded;
+    }
+
+    /**
+     * Deriving a key from the master password.
+     */
+    @Name("com.queomedia.scheel.KeyDerivation")
+    @Label("Key Derivation")
+    @Category(CATEGORY)
+    @Description("Deriving an encryption key from the master password")
+    @Enabled(false)
+    static final class KeyDerivation extends Event {
+
+        /**
+         * The key derivation function.
+         */
+        @Label("Algorithm")
+        String algorithm;
+
+        /**
+         * The number of iterations of the function.
+         */
+        @Label("Iterations")
+        int iterations;
+
+        /**
+         * The length of the derived key in bits.
+         */
+        @Label("Key Length")
+        int keyBits;
+    }
+
+    /**
+     * Encrypting the content of one file, including its key derivation.
+     */
+    @Name("com.queomedia.scheel.FileEncrypt")
+    @Label("File Encrypt")
+    @Category(CATEGORY)
+    @Description("Encrypting the content of one file, including its key derivation")
+    @Enabled(false)
+    static final class FileEncrypt extends Event {
+
+        /**
+         * The cipher.
+         */
+        @Label("Algorithm")
+        String algorithm;
+
+        /**
+         * Size of the content.
+         */
+        @Label("Plaintext Size")
+        @DataAmount
+        long plaintextBytes;
+
+        /**
+         * Size of the encrypted content, including IV and salt.
+         */
+        @Label("Ciphertext Size")
+        @DataAmount
+        long ciphertextBytes;
+    }
+
+    /**
+     * Decrypting the content of one file, including its key derivation.
+     */
+    @Name("com.queomedia.scheel.FileDecrypt")
+    @Label("File Decrypt")
+    @Category(CATEGORY)
+    @Description("Decrypting the content of one file, including its key derivation")
+    @Enabled(false)
+    static final class FileDecrypt extends Event {
+
+        /**
+         * The cipher.
+         */
+        @Label("Algorithm")
+        String algorithm;
+
+        /**
+         * Size of the encrypted content, including IV and salt.
+         */
+        @Label("Ciphertext Size")
+        @DataAmount
+        long ciphertextBytes;
+
+        /**
+         * Size of the decrypted content, 0 if decryption failed.
+         */
+        @Label("Plaintext Size")
+        @DataAmount
+        long plaintextBytes;
+
+        /**
+         * Whether the master password fit the content.
+         */
+        @Label("Succeeded")
+        boolean succeeded;
+    }
+
+    /**
+     * Reading and decrypting all account files into the accounts of the vault.
+     */
+    @Name("com.queomedia.scheel.VaultLoad")
+    @Label("Vault Load")
+    @Category(CATEGORY)
+    @Description("Reading and decrypting all account files")
+    @Enabled(false)
+    static final class VaultLoad extends Event {
+
+        /**
+         * The number of accounts read.
+         */
+        @Label("Entries")
+        int entries;
+
+        /**
+         * Size of the account files read.
+         */
+        @Label("Size")
+        @DataAmount
+        long bytes;
+
+        /**
+         * The version of the account files.
+         */
+        @Label("Version")
+        long version;
+    }
+
+    /**
+     * Encrypting and writing all account files.
+     */
+    @Name("com.queomedia.scheel.VaultSave")
+    @Label("Vault Save")
+    @Category(CATEGORY)
+    @Description("Encrypting and writing all account files")
+    @Enabled(false)
+    static final class VaultSave extends Event {
+
+        /**
+         * The cipher.
+         */
+        @Label("Algorithm")
+        String algorithm;
+
+        /**
+         * The number of accounts written.
+         */
+        @Label("Entries")
+        int entries;
+
+        /**
+         * Size of the encrypted account files.
+         */
+        @Label("Size")
+        @DataAmount
+        long bytes;
+
+        /**
+         * The version of the commit.
+         */
+        @Label("Version")
+        long version;
+    }
+
+    /**
+     * Filtering the accounts by service or username, in the table or on the command line.
+     */
+    @Name("com.queomedia.scheel.Search")
+    @Label("Search")
+    @Category(CATEGORY)
+    @Description("Filtering the accounts by service or username")
+    @Enabled(false)
+    public static final class Search extends Event {
+
+        /**
+         * The number of accounts searched.
+         */
+        @Label("Entries")
+        public int entries;
+
+        /**
+         * The number of accounts found.
+         */
+        @Label("Matches")
+        public int matches;
+
+        /**
+         * The length of the search term; the term itself is left out, it tells which accounts exist.
+         */
+        @Label("Query Length")
+        public int queryLength;
+    }
+
+    /**
+     * Copying the vault files to a backup folder.
+     */
+    @Name("com.queomedia.scheel.Backup")
+    @Label("Backup")
+    @Category(CATEGORY)
+    @Description("Copying the vault files to a backup folder")
+    @Enabled(false)
+    static final class Backup extends Event {
+
+        /**
+         * The number of files copied.
+         */
+        @Label("Files")
+        int files;
+
+        /**
+         * Size of the files copied.
+         */
+        @Label("Size")
+        @DataAmount
+        long bytes;
+    }
+}
@@ -0,0 +1,114 @@
+package com.queomedia.scheel.core;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts durations in buckets of powers of two, without locks.
+ *
+ * <p>Bucket {@code b} counts durations from 2^b to 2^(b+1) - 1 nanoseconds, so 64 buckets cover every duration and
+ * recording is a leading zero count and an atomic increment. Percentiles read from the buckets are accurate to a
+ * factor of two, which is enough to see where time goes; count, total and maximum are exact. Readers see a slightly
+ * inconsistent state while recording goes on, never a torn value.</p>
+ */
+final class LatencyHistogram {
+
+    /**
+     * Number of buckets, one per bit of a long.
+     */
+    private static final int BUCKETS = Long.SIZE;
+
+    /**
+     * Number of durations per bucket.
+     */
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+
+    /**
+     * Sum of all durations in nanoseconds.
+     */
+    private final LongAdder totalNanos = new LongAdder();
+
+    /**
+     * The longest duration in nanoseconds.
+     */
+    private final AtomicLong maxNanos = new AtomicLong();
+
+    /**
+     * Records a duration.
+     *
+     * @param nanos The duration in nanoseconds, negative values count as 0.
+     */
+    void record(final long nanos) {
+        long value = Math.max(nanos, 0);
+        buckets.getAndIncrement(BUCKETS - 1 - Long.numberOfLeadingZeros(value | 1));
+        totalNanos.add(value);
+        if (value > maxNanos.get()) { //Rarely true once the histogram has seen a few durations
+            maxNanos.accumulateAndGet(value, Math::max);
+        }
+    }
+
+    /**
+     * Copies the current state.
+     *
+     * @return The copy.
+     */
+    Snapshot snapshot() {
+        long[] counts = new long[BUCKETS];
+        long count = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            counts[i] = buckets.get(i);
+            count += counts[i];
+        }
+        return new Snapshot(count, totalNanos.sum(), maxNanos.get(), counts);
+    }
+
+    /**
+     * Forgets all durations recorded so far. Durations recorded at the same time may be lost or counted partially.
+     */
+    void reset() {
+        for (int i = 0; i < BUCKETS; i++) {
+            buckets.set(i, 0);
+        }
+        totalNanos.reset();
+        maxNanos.set(0);
+    }
+
+    /**
+     * The state of a histogram at one point in time.
+     *
+     * @param count      Number of durations.
+     * @param totalNanos Sum of the durations in nanoseconds.
+     * @param maxNanos   The longest duration in nanoseconds.
+     * @param buckets    Number of durations per bucket.
+     */
+    record Snapshot(long count, long totalNanos, long maxNanos, long[] buckets) {
+
+        /**
+         * Returns the mean duration.
+         *
+         * @return The mean in nanoseconds, 0 without durations.
+         */
+        double meanNanos() {
+            return count == 0 ? 0 : (double) totalNanos / count;
+        }
+
+        /**
+         * Estimates a percentile as the middle of the bucket it falls into.
+         *
+         * @param fraction The percentile as a fraction, e.g. 0.99.
+         * @return The estimate in nanoseconds, never above the maximum, 0 without durations.
+         */
+        double percentileNanos(final double fraction) {
+            long rank = (long) Math.ceil(fraction * count);
+            long seen = 0;
+            for (int b = 0; b < buckets.length; b++) {
+                seen += buckets[b];
+                if (seen >= rank && seen > 0) {
+                    return Math.min(1.5 * (1L << b), maxNanos);
+                }
+            }
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,193 @@
+package com.queomedia.scheel.core;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Read-only memory mapping of a file of any size.
+ *
+ * <p>A single {@link MappedByteBuffer} cannot exceed 2 GB, so the file is mapped in segments of 1 GB and every
+ * access is routed to its segment. The mapped pages live outside of the heap and are loaded by the operating system
+ * on demand, which keeps multi-gigabyte files cheap to open and to search.</p>
+ *
+ * <p>Files created through {@link #create(Path, long)} are mapped for writing as well, which lets large data
+ * structures be built directly in the file instead of on the heap.</p>
+ */
+public class MappedFile implements Closeable {
+
+    /**
+     * Number of bits addressing a byte within a segment.
+     */
+    private static final int SEGMENT_BITS = 30;
+
+    /**
+     * Size of a segment in bytes.
+     */
+    private static final long SEGMENT_SIZE = 1L << SEGMENT_BITS;
+
+    /**
+     * Mask extracting the offset within a segment.
+     */
+    private static final long SEGMENT_MASK = SEGMENT_SIZE - 1;
+
+    /**
+     * The channel the segments are mapped from.
+     */
+    private final FileChannel channel;
+
+    /**
+     * The mapped segments, in file order.
+     */
+    private final MappedByteBuffer[] segments;
+
+    /**
+     * Size of the file in bytes.
+     */
+    private final long size;
+
+    /**
+     * Maps the given file.
+     *
+     * @param channel The channel to map.
+     * @param mode    Whether to map for reading only or for writing as well.
+     * @throws IOException If the file cannot be mapped.
+     */
+    private MappedFile(final FileChannel channel, final FileChannel.MapMode mode) throws IOException {
+        this.channel = channel;
+        this.size = channel.size();
+        int count = (int) ((size + SEGMENT_SIZE - 1) >>> SEGMENT_BITS);
+        segments = new MappedByteBuffer[count];
+        for (int i = 0; i < count; i++) {
+            long position = (long) i << SEGMENT_BITS;
+            segments[i] = channel.map(mode, position, Math.min(SEGMENT_SIZE, size - position));
+            segments[i].order(ByteOrder.BIG_ENDIAN);
+        }
+    }
+
+    /**
+     * Opens and maps a file for reading.
+     *
+     * @param path The file to map.
+     * @return The mapped file.
+     * @throws IOException If the file cannot be opened or mapped.
+     */
+    public static MappedFile open(final Path path) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            return new MappedFile(channel, FileChannel.MapMode.READ_ONLY);
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Creates a zero-filled file of the given size, replacing an existing one, and maps it for writing.
+     *
+     * @param path The file to create.
+     * @param size Size of the file in bytes.
+     * @return The mapped file.
+     * @throws IOException If the file cannot be created or mapped.
+     */
+    public static MappedFile create(final Path path, final long size) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            //Writing the last byte grows the file to its full size
+            channel.write(ByteBuffer.wrap(new byte[1]), size - 1);
+            return new MappedFile(channel, FileChannel.MapMode.READ_WRITE);
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Returns the size of the file.
+     *
+     * @return The size in bytes.
+     */
+    public long size() {
+        return size;
+    }
+
+    /**
+     * Reads a single byte.
+     *
+     * @param position Position of the byte in the file.
+     * @return The byte.
+     */
+    public byte get(final long position) {
+        return segments[(int) (position >>> SEGMENT_BITS)].get((int) (position & SEGMENT_MASK));
+    }
+
+    /**
+     * Reads a big-endian long. The long may span two segments.
+     *
+     * @param position Position of the first byte in the file.
+     * @return The long.
+     */
+    public long getLong(final long position) {
+        int offset = (int) (position & SEGMENT_MASK);
+        if (offset <= SEGMENT_SIZE - Long.BYTES) {
+            return segments[(int) (position >>> SEGMENT_BITS)].getLong(offset);
+        }
+        long value = 0;
+        for (int i = 0; i < Long.BYTES; i++) {
+            value = (value << Byte.SIZE) | (get(position + i) & 0xFF);
+        }
+        return value;
+    }
+
+    /**
+     * Writes a single byte. Only possible for files opened through {@link #create(Path, long)}.
+     *
+     * @param position Position of the byte in the file.
+     * @param value    The byte to write.
+     */
+    public void put(final long position, final byte value) {
+        segments[(int) (position >>> SEGMENT_BITS)].put((int) (position & SEGMENT_MASK), value);
+    }
+
+    /**
+     * Writes a big-endian long. Only possible for files opened through {@link #create(Path, long)}.
+     *
+     * @param position Position of the first byte in the file.
+     * @param value    The long to write.
+     */
+    public void putLong(final long position, final long value) {
+        int offset = (int) (position & SEGMENT_MASK);
+        if (offset <= SEGMENT_SIZE - Long.BYTES) {
+            segments[(int) (position >>> SEGMENT_BITS)].putLong(offset, value);
+            return;
+        }
+        for (int i = 0; i < Long.BYTES; i++) {
+            put(position + i, (byte) (value >>> (Byte.SIZE * (Long.BYTES - 1 - i))));
+        }
+    }
+
+    /**
+     * Writes all changes of a writable mapping to the storage device.
+     */
+    public void force() {
+        for (MappedByteBuffer segment : segments) {
+            segment.force();
+        }
+    }
+
+    /**
+     * Closes the underlying channel. The mapping itself is released once the buffers are garbage collected.
+     *
+     * @throws IOException If closing the channel fails.
+     */
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
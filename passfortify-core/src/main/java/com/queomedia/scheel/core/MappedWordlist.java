@@ -0,0 +1,438 @@
+package com.queomedia.scheel.core;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Locale;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Memory-mapped wordlist for lists too large to keep on the heap.
+ *
+ * <p>The list itself is a UTF-8 text file with one word per line. Next to it an index file is kept that holds one
+ * {@code long} per word, packing the byte offset of the word into the upper 48 bits and its length into the lower 16
+ * bits. Both files are mapped, so opening a list with millions of words costs neither heap nor start-up time once
+ * the index exists. The index is rebuilt whenever it is missing or older than the list. Words are indexed once, a
+ * repetition of a word is skipped.</p>
+ *
+ * <p>Index layout: magic and version at 0, word count at 8, cased word count at 16, entries from
+ * {@link #HEADER_SIZE} on.</p>
+ */
+public class MappedWordlist implements WordSource, Closeable {
+
+    /**
+     * Identifies an index file, "PFWI".
+     */
+    static final int MAGIC = 0x50465749;
+
+    /**
+     * Version of the index layout. Indexes of version 1 may list a word several times and are rebuilt.
+     */
+    static final int VERSION = 2;
+
+    /**
+     * Size of the index header in bytes.
+     */
+    static final int HEADER_SIZE = 32;
+
+    /**
+     * Offset of the word count in the index header.
+     */
+    private static final int WORD_COUNT_OFFSET = 8;
+
+    /**
+     * Offset of the cased word count in the index header.
+     */
+    private static final int CASED_COUNT_OFFSET = 16;
+
+    /**
+     * Suffix appended to the list file name to locate its index.
+     */
+    static final String INDEX_SUFFIX = ".idx";
+
+    /**
+     * Number of bits holding the word length in an index entry.
+     */
+    private static final int LENGTH_BITS = 16;
+
+    /**
+     * Longest word that fits into an index entry, in bytes.
+     */
+    private static final int MAX_WORD_LENGTH = (1 << LENGTH_BITS) - 1;
+
+    /**
+     * The mapped wordlist.
+     */
+    private final MappedFile words;
+
+    /**
+     * The mapped index.
+     */
+    private final MappedFile index;
+
+    /**
+     * Number of words.
+     */
+    private final int size;
+
+    /**
+     * Number of words starting with a cased letter.
+     */
+    private final int casedCount;
+
+    /**
+     * Creates a wordlist on top of a mapped list and its validated index.
+     *
+     * @param words The mapped wordlist.
+     * @param index The mapped index.
+     */
+    private MappedWordlist(final MappedFile words, final MappedFile index) {
+        this.words = words;
+        this.index = index;
+        this.size = (int) index.getLong(WORD_COUNT_OFFSET);
+        this.casedCount = (int) index.getLong(CASED_COUNT_OFFSET);
+    }
+
+    /**
+     * Opens a wordlist, building its index first if it is missing or outdated.
+     *
+     * @param path The wordlist, one word per line.
+     * @return The mapped wordlist.
+     * @throws IOException              If one of the files cannot be read, written or mapped.
+     * @throws IllegalArgumentException If the list contains a word longer than 65535 bytes.
+     * @see #indexLocation(Path)
+     */
+    public static MappedWordlist open(final Path path) throws IOException {
+        Path indexPath = indexLocation(path);
+        if (!Files.exists(indexPath)
+                || Files.getLastModifiedTime(indexPath).compareTo(Files.getLastModifiedTime(path)) < 0) {
+            buildIndex(path, indexPath);
+        }
+        MappedFile index = MappedFile.open(indexPath);
+        if (!isValid(index)) {
+            //Interrupted while building or written by an earlier release
+            index.close();
+            buildIndex(path, indexPath);
+            index = MappedFile.open(indexPath);
+            if (!isValid(index)) {
+                index.close();
+                throw new IllegalArgumentException(indexPath + " is not a valid wordlist index");
+            }
+        }
+        return new MappedWordlist(MappedFile.open(path), index);
+    }
+
+    /**
+     * Checks the header of an index.
+     *
+     * @param index The mapped index.
+     * @return True if it is complete and has the current layout.
+     */
+    private static boolean isValid(final MappedFile index) {
+        return index.size() >= HEADER_SIZE && index.getLong(0) == (((long) MAGIC << Integer.SIZE) | VERSION)
+                && index.size() == HEADER_SIZE + index.getLong(WORD_COUNT_OFFSET) * Long.BYTES;
+    }
+
+    /**
+     * Returns the location of the index belonging to a wordlist.
+     *
+     * @param path The wordlist.
+     * @return The wordlist file name with {@link #INDEX_SUFFIX} appended.
+     */
+    public static Path indexLocation(final Path path) {
+        return path.resolveSibling(path.getFileName() + INDEX_SUFFIX);
+    }
+
+    /**
+     * Scans a wordlist and writes its index. Surrounding whitespace is not part of a word and empty lines are
+     * skipped, matching {@link Wordlist#read(java.io.InputStream)}. A word that occurs again, also in other case,
+     * is only indexed the first time: every indexed word is distinct, even once capitalized, so the entropy of a
+     * {@link PassphraseGenerator} drawing from the list is exact.
+     *
+     * <p>Repetitions are found out of core: the entries of all words are written to a temporary file next to the
+     * index, sorted there by the word in lower case and compacted, so the heap use does not grow with the list.
+     * The index lists the words in that order, which does not matter for drawing them.</p>
+     *
+     * @param path      The wordlist.
+     * @param indexPath The index file to create, an existing file is replaced.
+     * @throws IOException If reading the list or writing the index fails.
+     */
+    private static void buildIndex(final Path path, final Path indexPath) throws IOException {
+        Path entriesPath = indexPath.resolveSibling(indexPath.getFileName() + ".tmp");
+        try (MappedFile list = MappedFile.open(path)) {
+            //First pass counts the words, so the entries can be sized up front
+            long count = 0;
+            for (long line = 0; line < list.size(); line = lineEnd(list, line) + 1) {
+                long end = lineEnd(list, line);
+                if (wordEnd(list, line, end) > wordStart(list, line, end)) {
+                    count++;
+                }
+            }
+            if (count > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException(path + " contains more than " + Integer.MAX_VALUE + " words");
+            }
+
+            long distinct;
+            try (MappedFile entries = MappedFile.create(entriesPath, Math.max(1, count * Long.BYTES))) {
+                //Second pass writes an entry per word, in the order of the list
+                long entry = 0;
+                for (long line = 0, end; line < list.size(); line = end + 1) {
+                    end = lineEnd(list, line);
+                    long start = wordStart(list, line, end);
+                    long length = wordEnd(list, line, end) - start;
+                    //On a blank line the word ends before it starts
+                    if (length <= 0) {
+                        continue;
+                    }
+                    if (length > MAX_WORD_LENGTH) {
+                        throw new IllegalArgumentException("Word at byte " + start + " of " + path + " is too long");
+                    }
+                    entries.putLong(entry, start << LENGTH_BITS | length);
+                    entry += Long.BYTES;
+                }
+
+                //Sorting brings every repetition right after the first occurrence of its word, which is kept
+                sort(list, entries, count);
+                distinct = 0;
+                for (long i = 0; i < count; i++) {
+                    long current = entries.getLong(i * Long.BYTES);
+                    if (distinct == 0 || compareFolded(list, entries.getLong((distinct - 1) * Long.BYTES),
+                            current) != 0) {
+                        entries.putLong(distinct++ * Long.BYTES, current);
+                    }
+                }
+
+                try (MappedFile index = MappedFile.create(indexPath, HEADER_SIZE + distinct * Long.BYTES)) {
+                    long cased = 0;
+                    for (long i = 0; i < distinct; i++) {
+                        long current = entries.getLong(i * Long.BYTES);
+                        index.putLong(HEADER_SIZE + i * Long.BYTES, current);
+                        if (Wordlist.isCased(decode(list, current >>> LENGTH_BITS,
+                                (int) (current & MAX_WORD_LENGTH)).codePointAt(0))) {
+                            cased++;
+                        }
+                    }
+                    index.putLong(WORD_COUNT_OFFSET, distinct);
+                    index.putLong(CASED_COUNT_OFFSET, cased);
+                    //The magic goes in last, an interrupted build leaves an index that is rejected and rebuilt
+                    index.putLong(0, ((long) MAGIC << Integer.SIZE) | VERSION);
+                    index.force();
+                }
+            }
+        } finally {
+            Files.deleteIfExists(entriesPath);
+        }
+    }
+
+    /**
+     * Sorts index entries in place with heapsort, which needs no memory besides the mapped entries.
+     *
+     * @param list    The mapped list the entries point into.
+     * @param entries The mapped entries.
+     * @param count   The number of entries.
+     * @see #compare(MappedFile, long, long)
+     */
+    private static void sort(final MappedFile list, final MappedFile entries, final long count) {
+        for (long root = count / 2 - 1; root >= 0; root--) {
+            siftDown(list, entries, root, count);
+        }
+        for (long end = count - 1; end > 0; end--) {
+            long first = entries.getLong(0);
+            entries.putLong(0, entries.getLong(end * Long.BYTES));
+            entries.putLong(end * Long.BYTES, first);
+            siftDown(list, entries, 0, end);
+        }
+    }
+
+    /**
+     * Moves an entry down the heap until both of its children are smaller.
+     *
+     * @param list    The mapped list the entries point into.
+     * @param entries The mapped entries.
+     * @param root    The position of the entry.
+     * @param size    The number of entries in the heap.
+     */
+    private static void siftDown(final MappedFile list, final MappedFile entries, final long root, final long size) {
+        long position = root;
+        long value = entries.getLong(position * Long.BYTES);
+        for (long child = 2 * position + 1; child < size; child = 2 * position + 1) {
+            long childValue = entries.getLong(child * Long.BYTES);
+            if (child + 1 < size) {
+                long rightValue = entries.getLong((child + 1) * Long.BYTES);
+                if (compare(list, rightValue, childValue) > 0) {
+                    child++;
+                    childValue = rightValue;
+                }
+            }
+            if (compare(list, value, childValue) >= 0) {
+                break;
+            }
+            entries.putLong(position * Long.BYTES, childValue);
+            position = child;
+        }
+        entries.putLong(position * Long.BYTES, value);
+    }
+
+    /**
+     * Orders index entries by their word in lower case, and repetitions of a word by their position in the list.
+     *
+     * @param list The mapped list the entries point into.
+     * @param a    An entry.
+     * @param b    Another entry.
+     * @return Negative, zero or positive as the first entry sorts before, with or after the second.
+     */
+    private static int compare(final MappedFile list, final long a, final long b) {
+        int folded = compareFolded(list, a, b);
+        //An entry starts with the offset of its word, so this keeps the first occurrence first
+        return folded != 0 ? folded : Long.compare(a, b);
+    }
+
+    /**
+     * Compares the words of two index entries in lower case, like {@code toLowerCase(Locale.ROOT)} and
+     * {@link String#compareTo(String)} would.
+     *
+     * @param list The mapped list the entries point into.
+     * @param a    An entry.
+     * @param b    Another entry.
+     * @return Zero if both words are the same apart from case, otherwise their order.
+     */
+    private static int compareFolded(final MappedFile list, final long a, final long b) {
+        long startA = a >>> LENGTH_BITS;
+        long startB = b >>> LENGTH_BITS;
+        int lengthA = (int) (a & MAX_WORD_LENGTH);
+        int lengthB = (int) (b & MAX_WORD_LENGTH);
+        for (int i = 0; i < Math.min(lengthA, lengthB); i++) {
+            byte valueA = list.get(startA + i);
+            byte valueB = list.get(startB + i);
+            if (valueA < 0 || valueB < 0) {
+                //Only ASCII can be lower cased byte by byte, the rest of the words is compared as strings
+                return decode(list, startA, lengthA).toLowerCase(Locale.ROOT)
+                        .compareTo(decode(list, startB, lengthB).toLowerCase(Locale.ROOT));
+            }
+            int difference = toLowerAscii(valueA) - toLowerAscii(valueB);
+            if (difference != 0) {
+                return difference;
+            }
+        }
+        //A longer word stays longer in lower case, lower casing never drops a character
+        return Integer.compare(lengthA, lengthB);
+    }
+
+    /**
+     * Lower cases an ASCII character.
+     *
+     * @param value The character.
+     * @return The character in lower case.
+     */
+    private static int toLowerAscii(final byte value) {
+        return value >= 'A' && value <= 'Z' ? value + ('a' - 'A') : value;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public int casedCount() {
+        return casedCount;
+    }
+
+    @Override
+    public void appendWord(final int index, final StringBuilder target) {
+        long entry = this.index.getLong(HEADER_SIZE + (long) index * Long.BYTES);
+        long start = entry >>> LENGTH_BITS;
+        int length = (int) (entry & MAX_WORD_LENGTH);
+        //Plain ASCII words are copied byte by byte, only other words need a real UTF-8 decoder
+        for (int i = 0; i < length; i++) {
+            if (words.get(start + i) < 0) {
+                target.append(decode(words, start, length));
+                return;
+            }
+        }
+        for (int i = 0; i < length; i++) {
+            target.append((char) words.get(start + i));
+        }
+    }
+
+    /**
+     * Decodes a word from the mapped list.
+     *
+     * @param file   The mapped list.
+     * @param start  Offset of the first byte.
+     * @param length Length in bytes.
+     * @return The decoded word.
+     */
+    private static String decode(final MappedFile file, final long start, final int length) {
+        byte[] bytes = new byte[length];
+        for (int i = 0; i < length; i++) {
+            bytes[i] = file.get(start + i);
+        }
+        return new String(bytes, UTF_8);
+    }
+
+    /**
+     * Finds the first non-whitespace byte of a line.
+     *
+     * @param file The mapped list.
+     * @param line Offset of the first byte of the line.
+     * @param end  Offset of the end of the line.
+     * @return Offset of the start of the word, equal to the end of the word for a blank line.
+     */
+    private static long wordStart(final MappedFile file, final long line, final long end) {
+        long position = line;
+        while (position < end && isBlank(file.get(position))) {
+            position++;
+        }
+        return position;
+    }
+
+    /**
+     * Finds the end of the word on a line, excluding trailing whitespace and a carriage return.
+     *
+     * @param file The mapped list.
+     * @param line Offset of the first byte of the line.
+     * @param end  Offset of the end of the line.
+     * @return Offset after the last byte of the word.
+     */
+    private static long wordEnd(final MappedFile file, final long line, final long end) {
+        long position = end;
+        while (position > line && isBlank(file.get(position - 1))) {
+            position--;
+        }
+        return position;
+    }
+
+    /**
+     * Finds the end of a line.
+     *
+     * @param file The mapped list.
+     * @param line Offset of the first byte of the line.
+     * @return Offset of the line feed ending the line, or the file size for the last line.
+     */
+    private static long lineEnd(final MappedFile file, final long line) {
+        long position = line;
+        while (position < file.size() && file.get(position) != '\n') {
+            position++;
+        }
+        return position;
+    }
+
+    /**
+     * Checks whether a byte is ASCII whitespace.
+     *
+     * @param value The byte to check.
+     * @return True for spaces, tabs, carriage returns and other ASCII control characters.
+     */
+    private static boolean isBlank(final byte value) {
+        return value >= 0 && value <= ' ';
+    }
+
+    @Override
+    public void close() throws IOException {
+        index.close();
+        words.close();
+    }
+}
@@ -0,0 +1,105 @@
+package com.queomedia.scheel.core;
+
+/**
+ * The operations whose durations are recorded all the time, and published by {@link PassFortifyMetrics}.
+ *
+ * <p>Timing an operation is two calls to {@link System#nanoTime()} and a lock-free histogram update:</p>
+ * <pre>
+ * long start = System.nanoTime();
+ * ...
+ * Metric.DECRYPT.recordSince(start);
+ * </pre>
+ */
+public enum Metric {
+
+    /**
+     * Deriving a key from the master password, part of every encryption and decryption.
+     */
+    KEY_DERIVATION("KeyDerivation"),
+
+    /**
+     * Encrypting one file, including its key derivation.
+     */
+    ENCRYPT("Encrypt"),
+
+    /**
+     * Decrypting one file, including its key derivation.
+     */
+    DECRYPT("Decrypt"),
+
+    /**
+     * Reading an account file from disk.
+     */
+    FILE_READ("FileRead"),
+
+    /**
+     * Writing and replacing an account file on disk.
+     */
+    FILE_WRITE("FileWrite"),
+
+    /**
+     * Filling the account table of the main window.
+     */
+    TABLE_POPULATION("TablePopulation"),
+
+    /**
+     * Searching the accounts by service or username.
+     */
+    SEARCH("Search"),
+
+    /**
+     * Auditing all accounts.
+     */
+    AUDIT("Audit"),
+
+    /**
+     * Waiting for the FX thread to run a task posted to it, which is how long the window does not respond.
+     */
+    UI_RESPONSIVENESS("UiResponsiveness");
+
+    /**
+     * Start of the names of the attributes of the operation, e.g. {@code DecryptP99Micros}.
+     */
+    private final String attributePrefix;
+
+    /**
+     * The recorded durations.
+     */
+    private final LatencyHistogram histogram = new LatencyHistogram();
+
+    /**
+     * Creates a metric.
+     *
+     * @param attributePrefix Start of the names of its attributes.
+     */
+    Metric(final String attributePrefix) {
+        this.attributePrefix = attributePrefix;
+    }
+
+    /**
+     * Records an operation that started at the given time and ends now.
+     *
+     * @param startNanos The value of {@link System#nanoTime()} when the operation started.
+     */
+    public void recordSince(final long startNanos) {
+        histogram.record(System.nanoTime() - startNanos);
+    }
+
+    /**
+     * Returns the start of the names of the attributes of the operation.
+     *
+     * @return The prefix.
+     */
+    String attributePrefix() {
+        return attributePrefix;
+    }
+
+    /**
+     * Returns the recorded durations.
+     *
+     * @return The histogram.
+     */
+    LatencyHistogram histogram() {
+        return histogram;
+    }
+}
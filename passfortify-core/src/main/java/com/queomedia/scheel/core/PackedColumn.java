@@ -0,0 +1,186 @@
+package com.queomedia.scheel.core;
+
+import java.util.Arrays;
+import java.util.Locale;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * A column of strings packed into one UTF-8 byte array, with the start of every value in an int array.
+ *
+ * <p>A string costs an object header, a byte array with a header of its own and a reference to both; for the short
+ * values of a vault that is more than the characters. Packed, a value costs its UTF-8 bytes and one int. Values are
+ * decoded into strings when asked for, every time, and searched without decoding where possible.</p>
+ */
+final class PackedColumn {
+
+    /**
+     * The values one after the other.
+     */
+    private final byte[] bytes;
+
+    /**
+     * Start of value i at index i, its end at index i + 1.
+     */
+    private final int[] offsets;
+
+    /**
+     * Creates a column.
+     *
+     * @param bytes   The values one after the other.
+     * @param offsets The start of every value and the end of the last.
+     */
+    private PackedColumn(final byte[] bytes, final int[] offsets) {
+        this.bytes = bytes;
+        this.offsets = offsets;
+    }
+
+    /**
+     * Returns the number of values.
+     *
+     * @return The number of values.
+     */
+    int size() {
+        return offsets.length - 1;
+    }
+
+    /**
+     * Decodes a value.
+     *
+     * @param index The index of the value.
+     * @return The value.
+     */
+    String get(final int index) {
+        return new String(bytes, offsets[index], offsets[index + 1] - offsets[index], UTF_8);
+    }
+
+    /**
+     * Checks whether a value contains a text, ignoring case like {@code toLowerCase(Locale.ROOT)}. Values of ASCII
+     * characters only, most services and usernames, are compared byte by byte without decoding them.
+     *
+     * @param index      The index of the value.
+     * @param lowerQuery The text in lower case.
+     * @param asciiQuery The text as bytes, see {@link #asciiBytes(String)}, null if it is not ASCII.
+     * @return True if the value contains the text.
+     */
+    boolean containsIgnoreCase(final int index, final String lowerQuery, final byte[] asciiQuery) {
+        int start = offsets[index];
+        int end = offsets[index + 1];
+        for (int i = start; i < end; i++) {
+            if (bytes[i] < 0) {
+                //Non-ASCII characters may lower case to ASCII ones, so those values are compared as strings
+                return get(index).toLowerCase(Locale.ROOT).contains(lowerQuery);
+            }
+        }
+        if (asciiQuery == null) {
+            return false; //An ASCII value cannot contain a text with other characters
+        }
+        for (int i = start; i <= end - asciiQuery.length; i++) {
+            int j = 0;
+            while (j < asciiQuery.length && toLowerAscii(bytes[i + j]) == asciiQuery[j]) {
+                j++;
+            }
+            if (j == asciiQuery.length) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Encodes a text in lower case for {@link #containsIgnoreCase(int, String, byte[])}.
+     *
+     * @param lowerQuery The text in lower case.
+     * @return Its bytes, or null if it contains characters other than ASCII.
+     */
+    static byte[] asciiBytes(final String lowerQuery) {
+        byte[] ascii = new byte[lowerQuery.length()];
+        for (int i = 0; i < ascii.length; i++) {
+            char c = lowerQuery.charAt(i);
+            if (c >= 0x80) {
+                return null;
+            }
+            ascii[i] = (byte) c;
+        }
+        return ascii;
+    }
+
+    /**
+     * Lower cases an ASCII character.
+     *
+     * @param b The character.
+     * @return The character in lower case.
+     */
+    private static byte toLowerAscii(final byte b) {
+        return b >= 'A' && b <= 'Z' ? (byte) (b + ('a' - 'A')) : b;
+    }
+
+    /**
+     * Returns the heap the column takes, without object headers.
+     *
+     * @return The size of the arrays in bytes.
+     */
+    long byteSize() {
+        return bytes.length + (long) offsets.length * Integer.BYTES;
+    }
+
+    /**
+     * Collects values into a column.
+     */
+    static final class Builder {
+
+        /**
+         * The values added so far, one after the other.
+         */
+        private byte[] bytes;
+
+        /**
+         * The start of every value added so far and the end of the last.
+         */
+        private int[] offsets;
+
+        /**
+         * Number of values added so far.
+         */
+        private int size;
+
+        /**
+         * Creates a builder.
+         *
+         * @param expectedSize The number of values expected, to size the arrays.
+         */
+        Builder(final int expectedSize) {
+            bytes = new byte[Math.max(16, expectedSize * 8)];
+            offsets = new int[expectedSize + 1];
+        }
+
+        /**
+         * Adds a value.
+         *
+         * @param value The value.
+         * @return The builder.
+         */
+        Builder add(final String value) {
+            byte[] encoded = value.getBytes(UTF_8);
+            int end = offsets[size];
+            if (end + encoded.length > bytes.length) {
+                bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, end + encoded.length));
+            }
+            System.arraycopy(encoded, 0, bytes, end, encoded.length);
+            if (size + 2 > offsets.length) {
+                offsets = Arrays.copyOf(offsets, offsets.length * 2);
+            }
+            offsets[++size] = end + encoded.length;
+            return this;
+        }
+
+        /**
+         * Creates the column, trimming the arrays to their content.
+         *
+         * @return The column.
+         */
+        PackedColumn build() {
+            return new PackedColumn(Arrays.copyOf(bytes, offsets[size]), Arrays.copyOf(offsets, size + 1));
+        }
+    }
+}
@@ -0,0 +1,152 @@
+package com.queomedia.scheel.core;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.management.Attribute;
+import javax.management.AttributeList;
+import javax.management.AttributeNotFoundException;
+import javax.management.DynamicMBean;
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.JMException;
+import javax.management.MBeanAttributeInfo;
+import javax.management.MBeanInfo;
+import javax.management.MBeanOperationInfo;
+import javax.management.MBeanParameterInfo;
+import javax.management.ObjectName;
+import javax.management.ReflectionException;
+
+/**
+ * Publishes the durations of the {@link Metric}s over JMX, e.g. to JConsole or VisualVM.
+ *
+ * <p>Every metric has the read only attributes {@code <Metric>Count}, {@code TotalMillis}, {@code MeanMicros},
+ * {@code P50Micros}, {@code P90Micros}, {@code P99Micros} and {@code MaxMicros}, e.g. {@code DecryptP99Micros}.
+ * The operation {@code reset} forgets all durations. The durations are recorded whether the bean is registered or
+ * not; registering only makes them visible, so long running processes register it and short commands do not pay
+ * for starting the platform MBean server.</p>
+ */
+public final class PassFortifyMetrics implements DynamicMBean {
+
+    /**
+     * Name the bean is registered under.
+     */
+    public static final String OBJECT_NAME = "com.queomedia.scheel:type=PassFortifyMetrics";
+
+    /**
+     * Suffixes of the attribute names of every metric.
+     */
+    private static final String[] STATISTICS = {"Count", "TotalMillis", "MeanMicros", "P50Micros", "P90Micros",
+        "P99Micros", "MaxMicros"};
+
+    /**
+     * Name of the operation that clears all metrics.
+     */
+    private static final String RESET = "reset";
+
+    /**
+     * Nanoseconds per microsecond.
+     */
+    private static final double NANOS_PER_MICRO = 1e3;
+
+    /**
+     * Nanoseconds per millisecond.
+     */
+    private static final double NANOS_PER_MILLI = 1e6;
+
+    /**
+     * Created by {@link #register()} only.
+     */
+    private PassFortifyMetrics() {
+    }
+
+    /**
+     * Registers the bean with the platform MBean server, once per process. Failing to register is reported on
+     * standard error and otherwise ignored, the metrics are not worth failing the application for.
+     */
+    public static synchronized void register() {
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(new PassFortifyMetrics(),
+                    new ObjectName(OBJECT_NAME));
+        } catch (InstanceAlreadyExistsException e) {
+            //Registered before
+        } catch (JMException | RuntimeException e) {
+            System.err.println("Metrics could not be published over JMX: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public Object getAttribute(final String attribute) throws AttributeNotFoundException {
+        for (Metric metric : Metric.values()) {
+            if (attribute.startsWith(metric.attributePrefix())) {
+                String statistic = attribute.substring(metric.attributePrefix().length());
+                LatencyHistogram.Snapshot snapshot = metric.histogram().snapshot();
+                Object value = switch (statistic) {
+                    case "Count" -> snapshot.count();
+                    case "TotalMillis" -> snapshot.totalNanos() / NANOS_PER_MILLI;
+                    case "MeanMicros" -> snapshot.meanNanos() / NANOS_PER_MICRO;
+                    case "P50Micros" -> snapshot.percentileNanos(0.5) / NANOS_PER_MICRO;
+                    case "P90Micros" -> snapshot.percentileNanos(0.9) / NANOS_PER_MICRO;
+                    case "P99Micros" -> snapshot.percentileNanos(0.99) / NANOS_PER_MICRO;
+                    case "MaxMicros" -> snapshot.maxNanos() / NANOS_PER_MICRO;
+                    default -> null; //Another metric may share the prefix
+                };
+                if (value != null) {
+                    return value;
+                }
+            }
+        }
+        throw new AttributeNotFoundException(attribute);
+    }
+
+    @Override
+    public void setAttribute(final Attribute attribute) throws AttributeNotFoundException {
+        throw new AttributeNotFoundException(attribute.getName() + " is read only");
+    }
+
+    @Override
+    public AttributeList getAttributes(final String[] attributes) {
+        AttributeList list = new AttributeList();
+        for (String attribute : attributes) {
+            try {
+                list.add(new Attribute(attribute, getAttribute(attribute)));
+            } catch (AttributeNotFoundException e) {
+                //Unknown attributes are left out, as the interface demands
+            }
+        }
+        return list;
+    }
+
+    @Override
+    public AttributeList setAttributes(final AttributeList attributes) {
+        return new AttributeList(); //All attributes are read only
+    }
+
+    @Override
+    public Object invoke(final String actionName, final Object[] params, final String[] signature)
+            throws ReflectionException {
+        if (!RESET.equals(actionName)) {
+            throw new ReflectionException(new NoSuchMethodException(actionName));
+        }
+        for (Metric metric : Metric.values()) {
+            metric.histogram().reset();
+        }
+        return null;
+    }
+
+    @Override
+    public MBeanInfo getMBeanInfo() {
+        List<MBeanAttributeInfo> attributes = new ArrayList<>();
+        for (Metric metric : Metric.values()) {
+            for (String statistic : STATISTICS) {
+                String type = statistic.equals("Count") ? "long" : "double";
+                attributes.add(new MBeanAttributeInfo(metric.attributePrefix() + statistic, type,
+                        statistic + " of " + metric.name().toLowerCase().replace('_', ' '), true, false, false));
+            }
+        }
+        MBeanOperationInfo reset = new MBeanOperationInfo(RESET, "Forgets all recorded durations",
+                new MBeanParameterInfo[0], "void", MBeanOperationInfo.ACTION);
+        return new MBeanInfo(getClass().getName(), "Durations of the operations of PassFortify",
+                attributes.toArray(new MBeanAttributeInfo[0]), null, new MBeanOperationInfo[] {reset}, null);
+    }
+}
@@ -0,0 +1,271 @@
+package com.queomedia.scheel.core;
+
+import java.security.SecureRandom;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * The PassphraseGenerator class generates random passphrases by selecting words from one or more wordlists.
+ *
+ * <p>A generator is configured with the number of words, the separator placed between them, how words are
+ * capitalized and how many random digits are added. Words are drawn uniformly from all given wordlists combined,
+ * so a larger or additional list directly adds entropy. By default the bundled DiceWare based wordlist is used,
+ * see {@link Wordlist}; large custom lists can be memory-mapped through {@link MappedWordlist}.</p>
+ *
+ * <p>Every passphrase is returned together with its entropy in bits, i.e. the base-2 logarithm of the number of
+ * equally likely passphrases the generator could have produced. It is exact for a single wordlist: the bundled list
+ * and the index of a {@link MappedWordlist} hold every word once, also ignoring case. Words shared by several lists
+ * are counted once per list, so for several lists it is an upper bound.</p>
+ */
+public class PassphraseGenerator {
+
+    /**
+     * How the words of a passphrase are capitalized.
+     */
+    public enum Capitalization {
+
+        /**
+         * Words are used as they appear in the wordlist.
+         */
+        NONE,
+
+        /**
+         * The first letter of every word is capitalized.
+         */
+        FIRST_LETTER,
+
+        /**
+         * Every word is written in upper case.
+         */
+        UPPER_CASE,
+
+        /**
+         * The first letter of every word is capitalized with a chance of one half. Adds up to one bit per word.
+         */
+        RANDOM
+    }
+
+    /**
+     * A generated passphrase.
+     *
+     * @param phrase      The passphrase.
+     * @param entropyBits Entropy of the generator that produced it, in bits.
+     */
+    public record Passphrase(String phrase, double entropyBits) {
+    }
+
+    /**
+     * Shared source of randomness. SecureRandom is thread-safe, so there is no need to seed a new one per call.
+     */
+    private static final SecureRandom INDEX_PICKER = new SecureRandom();
+
+    /**
+     * Number of digits a digit is drawn from.
+     */
+    private static final int DIGITS = 10;
+
+    /**
+     * Wordlists the words are drawn from.
+     */
+    private final WordSource[] wordlists;
+
+    /**
+     * Number of words drawn from all wordlists combined.
+     */
+    private final int totalWords;
+
+    /**
+     * Number of words per passphrase.
+     */
+    private final int wordCount;
+
+    /**
+     * Text placed between two words.
+     */
+    private final String separator;
+
+    /**
+     * How words are capitalized.
+     */
+    private final Capitalization capitalization;
+
+    /**
+     * Number of random digits appended to one randomly chosen word.
+     */
+    private final int digits;
+
+    /**
+     * Entropy of every passphrase produced by this generator, in bits.
+     */
+    private final double entropyBits;
+
+    /**
+     * Creates a passphrase generator.
+     *
+     * @param wordlists      Wordlists the words are drawn from, combined into one list.
+     * @param wordCount      Number of words per passphrase, at least 1.
+     * @param separator      Text placed between two words, may be empty.
+     * @param capitalization How words are capitalized.
+     * @param digits         Number of random digits appended to one randomly chosen word, 0 for none.
+     * @throws IllegalArgumentException If a parameter is out of range or the wordlists contain no words.
+     */
+    public PassphraseGenerator(final List<? extends WordSource> wordlists, final int wordCount,
+            final String separator, final Capitalization capitalization, final int digits) {
+        if (wordCount < 1) {
+            throw new IllegalArgumentException("A passphrase needs at least one word");
+        }
+        if (digits < 0) {
+            throw new IllegalArgumentException("The number of digits must not be negative");
+        }
+        long total = 0;
+        long cased = 0;
+        for (WordSource wordlist : wordlists) {
+            total += wordlist.size();
+            cased += wordlist.casedCount();
+        }
+        if (total == 0 || total > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("The wordlists must contain between 1 and "
+                    + Integer.MAX_VALUE + " words, not " + total);
+        }
+        this.wordlists = wordlists.toArray(new WordSource[0]);
+        this.totalWords = (int) total;
+        this.wordCount = wordCount;
+        this.separator = separator;
+        this.capitalization = capitalization;
+        this.digits = digits;
+
+        //Random capitalization doubles the choices for every word that actually changes when capitalized
+        long choicesPerWord = capitalization == Capitalization.RANDOM ? total + cased : total;
+        double bits = wordCount * log2(choicesPerWord);
+        if (digits > 0) {
+            bits += log2(wordCount) + digits * log2(DIGITS);
+        }
+        this.entropyBits = bits;
+    }
+
+    /**
+     * Returns the generator used by the application: eight lower case words from the bundled wordlist,
+     * separated by spaces.
+     *
+     * @return The default generator.
+     */
+    public static PassphraseGenerator defaults() {
+        return DefaultHolder.GENERATOR;
+    }
+
+    /**
+     * Generates a passphrase by randomly selecting words from the wordlists.
+     *
+     * @return The passphrase together with its entropy.
+     */
+    public Passphrase generate() {
+        final int averageWordLength = 8; //Used to size the builder, so it does not have to grow
+        StringBuilder passphrase = new StringBuilder(wordCount * (averageWordLength + separator.length()) + digits);
+        int digitPosition = digits > 0 ? INDEX_PICKER.nextInt(wordCount) : -1;
+        for (int i = 0; i < wordCount; i++) {
+            if (i > 0) {
+                passphrase.append(separator);
+            }
+            int wordStart = passphrase.length();
+            appendWord(INDEX_PICKER.nextInt(totalWords), passphrase); //Pick a random word from all lists combined
+            capitalize(passphrase, wordStart);
+            if (i == digitPosition) {
+                for (int d = 0; d < digits; d++) {
+                    passphrase.append((char) ('0' + INDEX_PICKER.nextInt(DIGITS)));
+                }
+            }
+        }
+        return new Passphrase(passphrase.toString(), entropyBits);
+    }
+
+    /**
+     * Returns the entropy of every passphrase produced by this generator.
+     *
+     * @return The entropy in bits.
+     */
+    public double entropyBits() {
+        return entropyBits;
+    }
+
+    /**
+     * Appends a word, addressed by its index in all wordlists combined.
+     *
+     * @param index  Index of the word.
+     * @param target The builder to append to.
+     */
+    private void appendWord(final int index, final StringBuilder target) {
+        int remaining = index;
+        for (WordSource wordlist : wordlists) {
+            if (remaining < wordlist.size()) {
+                wordlist.appendWord(remaining, target);
+                return;
+            }
+            remaining -= wordlist.size();
+        }
+    }
+
+    /**
+     * Applies the configured capitalization to the word at the end of the builder.
+     *
+     * @param passphrase The passphrase being built.
+     * @param wordStart  Position of the first character of the word.
+     */
+    private void capitalize(final StringBuilder passphrase, final int wordStart) {
+        if (wordStart == passphrase.length()) {
+            return;
+        }
+        switch (capitalization) {
+            case FIRST_LETTER -> capitalizeFirst(passphrase, wordStart);
+            case UPPER_CASE -> {
+                String upper = passphrase.substring(wordStart).toUpperCase(Locale.ROOT);
+                passphrase.replace(wordStart, passphrase.length(), upper);
+            }
+            case RANDOM -> {
+                if (INDEX_PICKER.nextBoolean()) {
+                    capitalizeFirst(passphrase, wordStart);
+                }
+            }
+            default -> {
+                //Words are kept as they are
+            }
+        }
+    }
+
+    /**
+     * Capitalizes the first letter of a word.
+     *
+     * @param passphrase The passphrase being built.
+     * @param wordStart  Position of the first character of the word.
+     */
+    private static void capitalizeFirst(final StringBuilder passphrase, final int wordStart) {
+        int first = passphrase.codePointAt(wordStart);
+        int upper = Character.toUpperCase(first);
+        if (Character.charCount(first) == 1 && Character.charCount(upper) == 1) {
+            passphrase.setCharAt(wordStart, (char) upper);
+        } else {
+            passphrase.replace(wordStart, wordStart + Character.charCount(first), Character.toString(upper));
+        }
+    }
+
+    /**
+     * Computes the base-2 logarithm.
+     *
+     * @param value The value.
+     * @return log2 of the value.
+     */
+    private static double log2(final double value) {
+        return Math.log(value) / Math.log(2);
+    }
+
+    /**
+     * Creates the default generator on first use, which also loads the bundled wordlist.
+     */
+    private static final class DefaultHolder {
+
+        /**
+         * The default generator.
+         */
+        private static final PassphraseGenerator GENERATOR = new PassphraseGenerator(List.of(Wordlist.bundled()),
+                8, " ", Capitalization.NONE, 0);
+    }
+}
@@ -0,0 +1,176 @@
+package com.queomedia.scheel.core;
+
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Generates random passwords that satisfy a {@link PasswordPolicy}, one at a time or in batches.
+ *
+ * <p>The policy's minimum counts are met by construction: first the required characters of every class are drawn
+ * from that class, then the remaining characters from all allowed characters combined, and finally the password is
+ * shuffled, so required characters do not end up in predictable positions. No password is ever generated and thrown
+ * away for missing a class.</p>
+ *
+ * <p>Random bytes are taken from {@link SecureRandom} in blocks of {@link #BLOCK_SIZE} bytes per thread instead of
+ * one call per character, and indices are derived by rejection sampling: a random value is only used if it falls
+ * below the largest multiple of the table size, so no character of a table is more likely than another. Generating
+ * thousands of passwords in one call therefore costs little more than the random bytes it consumes.</p>
+ *
+ * <p>Instances are immutable and can be shared between threads.</p>
+ */
+public class PasswordGenerator {
+
+    /**
+     * Number of random bytes fetched from SecureRandom at once.
+     */
+    static final int BLOCK_SIZE = 4096;
+
+    /**
+     * Largest number of values an index can be drawn from, indices are drawn from at most two random bytes.
+     */
+    private static final int MAX_BOUND = 1 << 16;
+
+    /**
+     * Shared source of randomness for all buffers. SecureRandom is thread-safe.
+     */
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    /**
+     * Buffered random bytes of the current thread.
+     */
+    private static final ThreadLocal<RandomBlock> BLOCK = ThreadLocal.withInitial(RandomBlock::new);
+
+    /**
+     * The policy generated passwords satisfy.
+     */
+    private final PasswordPolicy policy;
+
+    /**
+     * Creates a generator for the given policy.
+     *
+     * @param policy The policy generated passwords satisfy.
+     */
+    public PasswordGenerator(final PasswordPolicy policy) {
+        this.policy = policy;
+    }
+
+    /**
+     * Generates a single password.
+     *
+     * @return The password.
+     */
+    public String generate() {
+        char[] password = new char[policy.maxLength()];
+        return new String(password, 0, fill(BLOCK.get(), password));
+    }
+
+    /**
+     * Generates a batch of passwords.
+     *
+     * @param count Number of passwords.
+     * @return The passwords.
+     * @throws IllegalArgumentException If the count is negative.
+     */
+    public List<String> generate(final int count) {
+        if (count < 0) {
+            throw new IllegalArgumentException("The number of passwords must not be negative");
+        }
+        RandomBlock random = BLOCK.get();
+        char[] password = new char[policy.maxLength()]; //Reused for every password, only the final strings are allocated
+        List<String> passwords = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            passwords.add(new String(password, 0, fill(random, password)));
+        }
+        return passwords;
+    }
+
+    /**
+     * Returns the policy generated passwords satisfy.
+     *
+     * @return The policy.
+     */
+    public PasswordPolicy policy() {
+        return policy;
+    }
+
+    /**
+     * Fills the start of a buffer with a password satisfying the policy.
+     *
+     * @param random   The random bytes to draw from.
+     * @param password The buffer, at least as long as the maximum length of the policy.
+     * @return The number of characters written.
+     */
+    private int fill(final RandomBlock random, final char[] password) {
+        int length = policy.minLength() + random.nextIndex(policy.maxLength() - policy.minLength() + 1);
+        int position = 0;
+        for (int table = 0; table < policy.tableCount(); table++) {
+            char[] characters = policy.table(table);
+            for (int i = policy.minCount(table); i > 0; i--) {
+                password[position++] = characters[random.nextIndex(characters.length)];
+            }
+        }
+        char[] alphabet = policy.alphabet();
+        while (position < length) {
+            password[position++] = alphabet[random.nextIndex(alphabet.length)];
+        }
+        //Fisher-Yates shuffle, spreading the required characters over the whole password
+        for (int i = length - 1; i > 0; i--) {
+            int j = random.nextIndex(i + 1);
+            char swap = password[i];
+            password[i] = password[j];
+            password[j] = swap;
+        }
+        return length;
+    }
+
+    /**
+     * A block of random bytes, refilled from SecureRandom when used up.
+     */
+    static final class RandomBlock {
+
+        /**
+         * The random bytes.
+         */
+        private final byte[] bytes = new byte[BLOCK_SIZE];
+
+        /**
+         * Position of the next unused byte.
+         */
+        private int position = BLOCK_SIZE;
+
+        /**
+         * Returns the next random byte.
+         *
+         * @return A value between 0 and 255.
+         */
+        private int nextByte() {
+            if (position == BLOCK_SIZE) {
+                RANDOM.nextBytes(bytes);
+                position = 0;
+            }
+            return bytes[position++] & 0xFF;
+        }
+
+        /**
+         * Draws a uniformly distributed index using rejection sampling.
+         *
+         * @param bound Number of possible values, between 1 and {@link #MAX_BOUND}.
+         * @return A value between 0 inclusive and bound exclusive.
+         */
+        int nextIndex(final int bound) {
+            if (bound <= 1) {
+                return 0;
+            }
+            //Values at or above the largest multiple of bound would favour the low indices, those are drawn again
+            int range = bound <= 256 ? 256 : MAX_BOUND;
+            int limit = range - range % bound;
+            while (true) {
+                int value = bound <= 256 ? nextByte() : nextByte() << 8 | nextByte();
+                if (value < limit) {
+                    return value % bound;
+                }
+            }
+        }
+    }
+}
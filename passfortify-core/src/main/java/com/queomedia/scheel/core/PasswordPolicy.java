@@ -0,0 +1,627 @@
+package com.queomedia.scheel.core;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.StringJoiner;
+
+/**
+ * Rules a generated password has to satisfy: its length, the character classes it may use, how many characters of
+ * each class it must contain at least, and characters it must never contain.
+ *
+ * <p>A policy is compiled once when it is built. Exclusions are applied up front, leaving one lookup table per
+ * character class plus one combined table of all allowed characters, and every constraint is checked for
+ * satisfiability. {@link PasswordGenerator} can then meet all minimums in a single pass without generating and
+ * discarding passwords: the required characters are drawn from their tables, the rest from the combined table, and
+ * the result is shuffled.</p>
+ *
+ * <p>Policies are created with {@link #builder()} or parsed from a one-line specification, see
+ * {@link #parse(String)}. Instances are immutable.</p>
+ */
+public final class PasswordPolicy {
+
+    /**
+     * Longest password a policy may ask for.
+     */
+    static final int MAX_LENGTH = (1 << 16) - 1;
+
+    /**
+     * Name of the length rule in a specification.
+     */
+    private static final String LENGTH_KEY = "length";
+
+    /**
+     * Name of the custom alphabet rule in a specification.
+     */
+    private static final String CUSTOM_KEY = "custom";
+
+    /**
+     * Name of the minimum count of the custom alphabet in a specification.
+     */
+    private static final String CUSTOM_MIN_KEY = "custom-min";
+
+    /**
+     * Name of the exclusion rule in a specification.
+     */
+    private static final String EXCLUDE_KEY = "exclude";
+
+    /**
+     * Flag excluding ambiguous characters in a specification.
+     */
+    private static final String NO_AMBIGUOUS_KEY = "no-ambiguous";
+
+    /**
+     * Starts an escape sequence in the characters of a specification.
+     */
+    private static final char ESCAPE = '\\';
+
+    /**
+     * Policy used when nothing else is configured: 12 to 23 characters with at least one lowercase letter,
+     * uppercase letter, digit and special character.
+     */
+    public static final PasswordPolicy DEFAULT = builder().length(12, 23)
+            .require(CharacterClass.LOWERCASE, 1)
+            .require(CharacterClass.UPPERCASE, 1)
+            .require(CharacterClass.DIGITS, 1)
+            .require(CharacterClass.SPECIAL, 1)
+            .build();
+
+    /**
+     * Minimum length, inclusive.
+     */
+    private final int minLength;
+
+    /**
+     * Maximum length, inclusive.
+     */
+    private final int maxLength;
+
+    /**
+     * Allowed characters of every class, exclusions already removed.
+     */
+    private final char[][] classTables;
+
+    /**
+     * Minimum number of characters from each table in {@link #classTables}.
+     */
+    private final int[] minCounts;
+
+    /**
+     * All allowed characters, each exactly once.
+     */
+    private final char[] alphabet;
+
+    /**
+     * Specification the policy can be parsed back from.
+     */
+    private final String specification;
+
+    /**
+     * Creates a compiled policy. Use {@link #builder()} to create one.
+     *
+     * @param minLength     Minimum length, inclusive.
+     * @param maxLength     Maximum length, inclusive.
+     * @param classTables   Allowed characters of every class.
+     * @param minCounts     Minimum number of characters from each class.
+     * @param alphabet      All allowed characters.
+     * @param specification Specification the policy can be parsed back from.
+     */
+    private PasswordPolicy(final int minLength, final int maxLength, final char[][] classTables,
+            final int[] minCounts, final char[] alphabet, final String specification) {
+        this.minLength = minLength;
+        this.maxLength = maxLength;
+        this.classTables = classTables;
+        this.minCounts = minCounts;
+        this.alphabet = alphabet;
+        this.specification = specification;
+    }
+
+    /**
+     * Starts a new policy. Without further calls it allows nothing, so at least one class has to be added.
+     *
+     * @return A builder for a policy of 16 characters.
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Parses a policy specification. A specification is a list of whitespace separated rules:
+     *
+     * <ul>
+     *   <li>{@code length=16} or {@code length=12-20}: the length, or a range the length is drawn from</li>
+     *   <li>{@code lower=N}, {@code upper=N}, {@code digits=N}, {@code special=N}: allows the class and requires at
+     *   least N characters of it; N may be 0</li>
+     *   <li>{@code custom=CHARS} and optionally {@code custom-min=N}: allows an additional alphabet</li>
+     *   <li>{@code exclude=CHARS}: characters that never appear</li>
+     *   <li>{@code no-ambiguous}: excludes {@link CharacterClass#AMBIGUOUS}</li>
+     * </ul>
+     *
+     * <p>For example {@code length=20 lower=1 upper=1 digits=2 special=0 no-ambiguous}.</p>
+     *
+     * <p>The characters of {@code custom} and {@code exclude} may contain the escape sequences {@code \\},
+     * {@code \s} (space), {@code \t}, {@code \n}, {@code \r} and <code>&#92;uXXXX</code>, so whitespace can be
+     * listed without ending the rule. Any other backslash is taken literally.</p>
+     *
+     * @param specification The specification.
+     * @return The compiled policy.
+     * @throws IllegalArgumentException If a rule is unknown or malformed, or the policy cannot be satisfied.
+     */
+    public static PasswordPolicy parse(final String specification) {
+        Builder builder = builder();
+        String customAlphabet = null;
+        int customMin = 0;
+        for (String rule : specification.trim().split("\\s+")) {
+            if (rule.isEmpty()) {
+                continue;
+            }
+            if (rule.equals(NO_AMBIGUOUS_KEY)) {
+                builder.excludeAmbiguous();
+                continue;
+            }
+            int split = rule.indexOf('=');
+            if (split <= 0) {
+                throw new IllegalArgumentException("Malformed policy rule: " + rule);
+            }
+            String key = rule.substring(0, split);
+            String value = rule.substring(split + 1);
+            switch (key) {
+                case LENGTH_KEY -> {
+                    int dash = value.indexOf('-');
+                    if (dash < 0) {
+                        builder.length(parseCount(rule, value));
+                    } else {
+                        builder.length(parseCount(rule, value.substring(0, dash)),
+                                parseCount(rule, value.substring(dash + 1)));
+                    }
+                }
+                case CUSTOM_KEY -> customAlphabet = unescape(value);
+                case CUSTOM_MIN_KEY -> customMin = parseCount(rule, value);
+                case EXCLUDE_KEY -> builder.exclude(unescape(value));
+                default -> builder.require(characterClass(key), parseCount(rule, value));
+            }
+        }
+        if (customAlphabet != null) {
+            builder.custom(customAlphabet, customMin);
+        } else if (customMin > 0) {
+            throw new IllegalArgumentException(CUSTOM_MIN_KEY + " requires " + CUSTOM_KEY);
+        }
+        return builder.build();
+    }
+
+    /**
+     * Parses a non-negative number of a rule.
+     *
+     * @param rule  The whole rule, used in error messages.
+     * @param value The number.
+     * @return The parsed number.
+     * @throws IllegalArgumentException If the value is not a non-negative number.
+     */
+    private static int parseCount(final String rule, final String value) {
+        try {
+            int count = Integer.parseInt(value);
+            if (count >= 0) {
+                return count;
+            }
+        } catch (NumberFormatException e) {
+            //Reported below
+        }
+        throw new IllegalArgumentException("Malformed policy rule: " + rule);
+    }
+
+    /**
+     * Escapes the characters of a rule, so they contain neither whitespace nor control characters.
+     *
+     * @param characters The characters.
+     * @return The characters as written in a specification.
+     * @see #unescape(String)
+     */
+    private static String escape(final String characters) {
+        StringBuilder escaped = new StringBuilder(characters.length());
+        for (int i = 0; i < characters.length(); i++) {
+            char c = characters.charAt(i);
+            switch (c) {
+                case ESCAPE -> escaped.append(ESCAPE).append(ESCAPE);
+                case ' ' -> escaped.append(ESCAPE).append('s');
+                case '\t' -> escaped.append(ESCAPE).append('t');
+                case '\n' -> escaped.append(ESCAPE).append('n');
+                case '\r' -> escaped.append(ESCAPE).append('r');
+                default -> {
+                    if (Character.isWhitespace(c) || Character.isSpaceChar(c) || Character.isISOControl(c)) {
+                        escaped.append(String.format(Locale.ROOT, "%cu%04x", ESCAPE, (int) c));
+                    } else {
+                        escaped.append(c);
+                    }
+                }
+            }
+        }
+        return escaped.toString();
+    }
+
+    /**
+     * Resolves the escape sequences in the characters of a rule. Unknown sequences and a trailing backslash are
+     * kept as they are.
+     *
+     * @param value The characters as written in a specification.
+     * @return The characters.
+     * @see #escape(String)
+     */
+    private static String unescape(final String value) {
+        if (value.indexOf(ESCAPE) < 0) {
+            return value;
+        }
+        StringBuilder characters = new StringBuilder(value.length());
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c != ESCAPE || i + 1 == value.length()) {
+                characters.append(c);
+                continue;
+            }
+            switch (value.charAt(i + 1)) {
+                case ESCAPE -> characters.append(ESCAPE);
+                case 's' -> characters.append(' ');
+                case 't' -> characters.append('\t');
+                case 'n' -> characters.append('\n');
+                case 'r' -> characters.append('\r');
+                case 'u' -> {
+                    int code = i + 6 <= value.length() ? parseHex(value.substring(i + 2, i + 6)) : -1;
+                    if (code < 0) {
+                        characters.append(c);
+                        continue;
+                    }
+                    characters.append((char) code);
+                    i += 4;
+                }
+                default -> {
+                    characters.append(c);
+                    continue;
+                }
+            }
+            i++;
+        }
+        return characters.toString();
+    }
+
+    /**
+     * Parses the four hex digits of a <code>&#92;uXXXX</code> escape sequence.
+     *
+     * @param digits The digits.
+     * @return The character code, -1 if the digits are not hexadecimal.
+     */
+    private static int parseHex(final String digits) {
+        int code = 0;
+        for (int i = 0; i < digits.length(); i++) {
+            int digit = Character.digit(digits.charAt(i), 16);
+            if (digit < 0) {
+                return -1;
+            }
+            code = code << 4 | digit;
+        }
+        return code;
+    }
+
+    /**
+     * Looks up a character class by its specification key.
+     *
+     * @param key The key, e.g. {@code lower}.
+     * @return The class.
+     * @throws IllegalArgumentException If there is no class with this key.
+     */
+    private static CharacterClass characterClass(final String key) {
+        for (CharacterClass characterClass : CharacterClass.values()) {
+            if (characterClass.key().equals(key)) {
+                return characterClass;
+            }
+        }
+        throw new IllegalArgumentException("Unknown policy rule: " + key);
+    }
+
+    /**
+     * Returns the minimum length.
+     *
+     * @return The minimum number of characters, inclusive.
+     */
+    public int minLength() {
+        return minLength;
+    }
+
+    /**
+     * Returns the maximum length.
+     *
+     * @return The maximum number of characters, inclusive.
+     */
+    public int maxLength() {
+        return maxLength;
+    }
+
+    /**
+     * Returns the number of distinct characters a password may contain.
+     *
+     * @return The size of the combined alphabet.
+     */
+    public int alphabetSize() {
+        return alphabet.length;
+    }
+
+    /**
+     * Returns a lower bound for the entropy of a password generated under this policy: the required characters
+     * priced by their own class, all others by the combined alphabet, at the minimum length. The shuffle adds to
+     * this, but is not counted.
+     *
+     * @return The entropy in bits.
+     */
+    public double entropyBits() {
+        double bits = 0;
+        int required = 0;
+        for (int i = 0; i < classTables.length; i++) {
+            bits += minCounts[i] * Math.log(classTables[i].length);
+            required += minCounts[i];
+        }
+        bits += (minLength - required) * Math.log(alphabet.length);
+        return bits / Math.log(2);
+    }
+
+    /**
+     * Returns the number of character tables with a minimum count.
+     *
+     * @return The number of tables.
+     */
+    int tableCount() {
+        return classTables.length;
+    }
+
+    /**
+     * Returns the allowed characters of a class.
+     *
+     * @param table Index of the table.
+     * @return The characters, not to be modified.
+     */
+    char[] table(final int table) {
+        return classTables[table];
+    }
+
+    /**
+     * Returns how many characters of a class a password needs at least.
+     *
+     * @param table Index of the table.
+     * @return The minimum count.
+     */
+    int minCount(final int table) {
+        return minCounts[table];
+    }
+
+    /**
+     * Returns all allowed characters.
+     *
+     * @return The combined alphabet, not to be modified.
+     */
+    char[] alphabet() {
+        return alphabet;
+    }
+
+    /**
+     * Returns the specification of this policy.
+     *
+     * @return A specification {@link #parse(String)} turns into an equal policy.
+     */
+    @Override
+    public String toString() {
+        return specification;
+    }
+
+    /**
+     * Collects the rules of a policy and compiles them.
+     */
+    public static final class Builder {
+
+        /**
+         * Minimum length, inclusive.
+         */
+        private int minLength = 16;
+
+        /**
+         * Maximum length, inclusive.
+         */
+        private int maxLength = 16;
+
+        /**
+         * Minimum count of every allowed class, in the order they were added.
+         */
+        private final Map<CharacterClass, Integer> classes = new LinkedHashMap<>();
+
+        /**
+         * Additional alphabet, null if none.
+         */
+        private String customAlphabet;
+
+        /**
+         * Minimum count of the additional alphabet.
+         */
+        private int customMin;
+
+        /**
+         * Characters that must not appear.
+         */
+        private final StringBuilder excluded = new StringBuilder();
+
+        /**
+         * Whether ambiguous characters are excluded.
+         */
+        private boolean excludeAmbiguous;
+
+        /**
+         * Creates an empty builder. Use {@link PasswordPolicy#builder()}.
+         */
+        private Builder() {
+        }
+
+        /**
+         * Sets a fixed length.
+         *
+         * @param length Number of characters.
+         * @return This builder.
+         */
+        public Builder length(final int length) {
+            return length(length, length);
+        }
+
+        /**
+         * Sets a range the length of every password is drawn from.
+         *
+         * @param min Minimum number of characters, inclusive.
+         * @param max Maximum number of characters, inclusive.
+         * @return This builder.
+         */
+        public Builder length(final int min, final int max) {
+            this.minLength = min;
+            this.maxLength = max;
+            return this;
+        }
+
+        /**
+         * Allows a character class without requiring it.
+         *
+         * @param characterClass The class.
+         * @return This builder.
+         */
+        public Builder allow(final CharacterClass characterClass) {
+            return require(characterClass, 0);
+        }
+
+        /**
+         * Allows a character class and requires a minimum number of its characters.
+         *
+         * @param characterClass The class.
+         * @param min            Minimum count, 0 to only allow the class.
+         * @return This builder.
+         */
+        public Builder require(final CharacterClass characterClass, final int min) {
+            classes.put(characterClass, min);
+            return this;
+        }
+
+        /**
+         * Allows an additional alphabet, for example for services accepting only a few special characters.
+         *
+         * @param characters The characters.
+         * @param min        Minimum count, 0 to only allow them.
+         * @return This builder.
+         */
+        public Builder custom(final String characters, final int min) {
+            this.customAlphabet = characters;
+            this.customMin = min;
+            return this;
+        }
+
+        /**
+         * Excludes characters from all classes.
+         *
+         * @param characters The characters that must not appear.
+         * @return This builder.
+         */
+        public Builder exclude(final String characters) {
+            excluded.append(characters);
+            return this;
+        }
+
+        /**
+         * Excludes characters that are easily confused with one another.
+         *
+         * @return This builder.
+         * @see CharacterClass#AMBIGUOUS
+         */
+        public Builder excludeAmbiguous() {
+            this.excludeAmbiguous = true;
+            return this;
+        }
+
+        /**
+         * Compiles the policy.
+         *
+         * @return The policy.
+         * @throws IllegalArgumentException If the policy allows no characters, a required class is empty after
+         *                                  exclusions, the minimums exceed the minimum length or the length range is
+         *                                  invalid.
+         */
+        public PasswordPolicy build() {
+            if (minLength < 0 || maxLength < minLength || maxLength > MAX_LENGTH) {
+                throw new IllegalArgumentException("Invalid password length " + minLength + " to " + maxLength);
+            }
+            BitSet excludedSet = new BitSet(Character.MAX_VALUE + 1);
+            excluded.chars().forEach(excludedSet::set);
+            if (excludeAmbiguous) {
+                CharacterClass.AMBIGUOUS.chars().forEach(excludedSet::set);
+            }
+
+            List<char[]> tables = new ArrayList<>();
+            List<Integer> mins = new ArrayList<>();
+            StringJoiner specification = new StringJoiner(" ");
+            specification.add(LENGTH_KEY + "=" + (minLength == maxLength ? minLength : minLength + "-" + maxLength));
+            for (Map.Entry<CharacterClass, Integer> entry : classes.entrySet()) {
+                tables.add(compileTable(entry.getKey().key(), entry.getKey().characters(), excludedSet));
+                mins.add(entry.getValue());
+                specification.add(entry.getKey().key() + "=" + entry.getValue());
+            }
+            if (customAlphabet != null) {
+                tables.add(compileTable(CUSTOM_KEY, customAlphabet, excludedSet));
+                mins.add(customMin);
+                specification.add(CUSTOM_KEY + "=" + escape(customAlphabet));
+                if (customMin > 0) {
+                    specification.add(CUSTOM_MIN_KEY + "=" + customMin);
+                }
+            }
+            if (excluded.length() > 0) {
+                specification.add(EXCLUDE_KEY + "=" + escape(excluded.toString()));
+            }
+            if (excludeAmbiguous) {
+                specification.add(NO_AMBIGUOUS_KEY);
+            }
+            if (tables.isEmpty()) {
+                throw new IllegalArgumentException("A password policy has to allow at least one character class");
+            }
+
+            //Classes may overlap through custom alphabets, the combined table lists every character once
+            BitSet seen = new BitSet(Character.MAX_VALUE + 1);
+            StringBuilder alphabet = new StringBuilder();
+            int required = 0;
+            for (int i = 0; i < tables.size(); i++) {
+                for (char c : tables.get(i)) {
+                    if (!seen.get(c)) {
+                        seen.set(c);
+                        alphabet.append(c);
+                    }
+                }
+                required += mins.get(i);
+            }
+            if (required > minLength) {
+                throw new IllegalArgumentException("The policy requires " + required
+                        + " characters, but passwords may be only " + minLength + " characters long");
+            }
+            return new PasswordPolicy(minLength, maxLength, tables.toArray(new char[0][]),
+                    mins.stream().mapToInt(Integer::intValue).toArray(), alphabet.toString().toCharArray(),
+                    specification.toString());
+        }
+
+        /**
+         * Removes excluded and duplicate characters from an alphabet.
+         *
+         * @param name       Name of the class, used in error messages.
+         * @param characters The characters of the class.
+         * @param excluded   The excluded characters.
+         * @return The remaining characters.
+         * @throws IllegalArgumentException If no character remains.
+         */
+        private static char[] compileTable(final String name, final String characters, final BitSet excluded) {
+            char[] table = characters.chars().distinct().filter(c -> !excluded.get(c))
+                    .collect(StringBuilder::new, StringBuilder::appendCodePoint, StringBuilder::append)
+                    .toString().toCharArray();
+            if (table.length == 0) {
+                throw new IllegalArgumentException("No " + name + " characters are left after exclusions");
+            }
+            return table;
+        }
+    }
+}
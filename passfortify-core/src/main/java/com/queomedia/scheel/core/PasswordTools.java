@@ -0,0 +1,491 @@
+package com.queomedia.scheel.core;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Helper class used by main controller class to generate passwords and evaluate password strength.
+ */
+public class PasswordTools {
+
+    /**
+     * Location of the master password file.
+     */
+    static final String M_PASS_LOCATION = "MPass.txt";
+
+    /**
+     * Location of the password file.
+     */
+    private static final String PASSWORD_LOCATION = "Passwords.txt";
+
+    /**
+     * Location of the service file.
+     */
+    private static final String SERVICE_LOCATION = "Services.txt";
+
+    /**
+     * Location of the username file.
+     */
+    private static final String USERNAME_LOCATION = "Usernames.txt";
+
+    /**
+     * Location of the timestamp file, holding the time of the last password change of every account.
+     */
+    private static final String TIMESTAMP_LOCATION = "Timestamps.txt";
+
+    /**
+     * Location of the optional password policies per service.
+     */
+    private static final String POLICY_LOCATION = "Policies.txt";
+
+    /**
+     * Location of the lock file writers of all instances started from the same folder take turns on.
+     */
+    private static final String LOCK_LOCATION = "Vault.lock";
+
+    /**
+     * The location of the journal recording the version of the last commit to the account files.
+     */
+    private static final String JOURNAL_LOCATION = "Vault.commit";
+
+    /**
+     * The policies last loaded from the policy file, null until a password is generated for a service.
+     */
+    private static volatile LoadedPolicies loadedPolicies;
+
+    /**
+     * Generates a random password following the default password policy.
+     * The length is chosen randomly within a specified range, and at least one special character, number,
+     * uppercase letter and lowercase letter is guaranteed.
+     *
+     * @return A randomly generated password with varying length and character types.
+     * @see PasswordPolicy#DEFAULT
+     */
+    public static String passwordGenerator() {
+        return new PasswordGenerator(PasswordPolicy.DEFAULT).generate();
+    }
+
+    /**
+     * Generates a random password following the policy configured for a service in the policy file.
+     * Services without a rule of their own use the default policy. The policy file is only read and compiled again
+     * once it has changed.
+     *
+     * @param service The service the password is for.
+     * @return A randomly generated password satisfying the service's policy.
+     * @throws IOException              If the policy file cannot be read.
+     * @throws IllegalArgumentException If the policy file is malformed.
+     * @see ServicePolicies
+     */
+    public static String passwordGenerator(final String service) throws IOException {
+        PasswordPolicy policy = servicePolicies().forService(service);
+        return new PasswordGenerator(policy).generate();
+    }
+
+    /**
+     * Returns the compiled policies of the policy file, loading them again only if the file was modified, created
+     * or removed since they were last loaded.
+     *
+     * @return The policies.
+     * @throws IOException              If the policy file cannot be read.
+     * @throws IllegalArgumentException If the policy file is malformed.
+     */
+    static ServicePolicies servicePolicies() throws IOException {
+        Path path = Path.of(POLICY_LOCATION);
+        //Before reading, so a change while the file is read is noticed next time
+        long modified = Files.exists(path) ? Files.getLastModifiedTime(path).to(TimeUnit.NANOSECONDS) : -1;
+        LoadedPolicies loaded = loadedPolicies;
+        if (loaded == null || loaded.modified() != modified) {
+            loaded = new LoadedPolicies(ServicePolicies.load(path), modified);
+            loadedPolicies = loaded;
+        }
+        return loaded.policies();
+    }
+
+    /**
+     * Evaluates the strength of a password as its estimated guessing entropy.
+     * The estimate is pattern aware: common passwords, dictionary words, keyboard walks, repeats, sequences, dates
+     * and l33t substitutions are priced as what they are instead of by their character classes alone.
+     *
+     * @param passwordToCheck The password to be evaluated for strength.
+     * @return The estimated entropy in bits, rounded down. Higher values indicate stronger passwords.
+     *
+     * @see StrengthEstimator#estimateBits(CharSequence)
+     */
+    public static int passwordStrength(final String passwordToCheck) {
+        return (int) StrengthEstimator.estimateBits(passwordToCheck);
+    }
+
+    /**
+     * Evaluates the strength of a given password and returns a corresponding strength label.
+     * This method estimates the entropy of the provided password in bits and assigns a strength label
+     * based on predefined thresholds. The password strength labels include "weak," "medium," "strong," and "very strong."
+     *
+     * @param passwordToCheck The password to evaluate for strength.
+     * @return The strength label indicating the assessed strength of the password.
+     */
+    public static String passwordStrengthOutput(final String passwordToCheck) {
+        return strengthLabel(passwordStrength(passwordToCheck));
+    }
+
+    /**
+     * Describes the strength of a password by its label and entropy, for feedback shown while the password is
+     * typed. The entropy is estimated once for both.
+     *
+     * @param passwordToCheck The password to evaluate for strength.
+     * @return The strength label followed by the entropy, e.g. "strong (54 bits)".
+     */
+    public static String passwordStrengthSummary(final String passwordToCheck) {
+        int bits = passwordStrength(passwordToCheck);
+        return strengthLabel(bits) + " (" + bits + " bits)";
+    }
+
+    /**
+     * Maps an entropy estimate to a strength label, so callers that already know the entropy of a password do not
+     * have to evaluate it a second time.
+     *
+     * @param passwordStrength The estimated entropy in bits.
+     * @return The strength label, either "weak," "medium," "strong" or "very strong."
+     */
+    public static String strengthLabel(final int passwordStrength) {
+        final int mediumBits = 36; //Minimum entropy for a medium password
+        final int strongBits = 50; //Minimum entropy for a strong password
+        final int veryStrongBits = 70; //Minimum entropy for a very strong password
+        String savedPasswordStrength;
+        if (passwordStrength < mediumBits) {
+            savedPasswordStrength = "weak";
+        } else if (passwordStrength < strongBits) {
+            savedPasswordStrength = "medium";
+        } else if (passwordStrength < veryStrongBits) {
+            savedPasswordStrength = "strong";
+        } else {
+            savedPasswordStrength = "very strong";
+        }
+        return savedPasswordStrength;
+    }
+
+    /**
+     * Checks for duplicate passwords within an array of password content lines.
+     * This method iterates through the array of password content lines, comparing each password
+     * with every other password. If a duplicate password is found (excluding self-comparisons), the
+     * method returns true. Otherwise, it returns false.
+     *
+     * @param passwordContentLines An array of strings representing password content lines.
+     * @return True if a duplicate password is found; false otherwise.
+     */
+    public static boolean duplicatePasswordCheck(final String[] passwordContentLines) {
+        boolean hasSamePassword = false; //boolean used to save whether a password is found multiple times
+
+        //Loop that goes through the passwords and compares them with each other
+        for (int i = 0; i < passwordContentLines.length; i++) {
+            for (int j = 0; j < passwordContentLines.length; j++) {
+                if (passwordContentLines[i].equals(passwordContentLines[j]) && i != j) {
+                    hasSamePassword = true; //match found, boolean set to true
+                    break; // Exit the inner loop once a match is found
+                }
+            }
+        }
+        return hasSamePassword; //returning whether a password was found to be used multiple times
+    }
+
+    /**
+     * Checks if the provided master password is correct by decrypting the stored master password.
+     * This method verifies the correctness of the provided master password by attempting to decrypt
+     * the stored master password from the designated location. The comparison result is returned as a
+     * boolean, indicating whether the entered password matches the stored one.
+     *
+     * @param mPassword The master password to be checked for correctness.
+     * @return True if the entered password matches the stored master password; false otherwise.
+     *
+     * @throws Exception If an error occurs during the decryption process.
+     */
+    public static boolean checkMasterpassword(final String mPassword) throws Exception {
+        //Security function to check if the master password is correct. Useful as otherwise the application would double encrypt files
+        FlightRecording.Unlock event = new FlightRecording.Unlock();
+        event.begin();
+        byte[] decryptedText = Cryptography.decryptFile(M_PASS_LOCATION, mPassword);
+        String decryptedMPass = new String(decryptedText, UTF_8);
+        event.succeeded = mPassword.equals(decryptedMPass);
+        event.commit();
+        return event.succeeded; //Returning whether the entered password equals the saved one
+    }
+
+    /**
+     * Creates a backup of essential files in a specified destination directory.
+     * This method creates a backup by copying critical files, including passwords, usernames,
+     * services, settings, and master password information, from their original locations to the
+     * specified destination directory. The method also waits for a short duration to ensure that
+     * the backup creation message is displayed after the backup is actually created.
+     *
+     * @param destinationDirectory The path to the directory where the backup files will be stored.*
+     * @throws IOException         If an I/O error occurs during file copying or directory creation.
+     * @throws InterruptedException If the thread sleep is interrupted.
+     */
+    public static void createBackup(final Path destinationDirectory) throws IOException, InterruptedException {
+        final int sleepASecond = 1000;
+        FlightRecording.Backup event = new FlightRecording.Backup();
+        event.begin();
+        Files.createDirectories(destinationDirectory);
+
+        // Define destination paths for each file
+        Path destinationPasswordPath = destinationDirectory.resolve("Passwords.txt");
+        Path destinationUsernamePath = destinationDirectory.resolve("Usernames.txt");
+        Path destinationServicePath = destinationDirectory.resolve("Services.txt");
+        Path destinationSettingsPath = destinationDirectory.resolve(Settings.LOCATION);
+        Path destinationMpassPath = destinationDirectory.resolve("MPass.txt");
+
+        // Copy each file to the corresponding destination, holding the vault lock so all are from one commit
+        try (FileChannel lock = lockVault()) {
+            Files.copy(Path.of(PASSWORD_LOCATION), destinationPasswordPath);
+            Files.copy(Path.of(USERNAME_LOCATION), destinationUsernamePath);
+            Files.copy(Path.of(SERVICE_LOCATION), destinationServicePath);
+            if (Files.exists(Path.of(Settings.LOCATION))) {
+                Files.copy(Path.of(Settings.LOCATION), destinationSettingsPath);
+            }
+            Files.copy(Path.of(M_PASS_LOCATION), destinationMpassPath);
+            if (Files.exists(Path.of(TIMESTAMP_LOCATION))) {
+                Files.copy(Path.of(TIMESTAMP_LOCATION), destinationDirectory.resolve(TIMESTAMP_LOCATION));
+            }
+        }
+        for (Path copy : List.of(destinationPasswordPath, destinationUsernamePath, destinationServicePath,
+                destinationSettingsPath, destinationMpassPath, destinationDirectory.resolve(TIMESTAMP_LOCATION))) {
+            if (Files.exists(copy)) {
+                event.files++;
+                event.bytes += Files.size(copy);
+            }
+        }
+        event.commit();
+
+        //Waiting one second, to display the message once the backup is actually created
+        Thread.sleep(sleepASecond);
+    }
+
+    /**
+     * Decrypts all account files and combines their fields into one record per account.
+     * Missing fields are treated as empty values, a missing or unparsable timestamp as unknown.
+     * A vault no account has been added to yet has no account files and yields no records.
+     * The files are read without locking; a write in progress in another instance is waited out.
+     *
+     * @param mPassword The master password used for decryption.
+     * @return The accounts in the order they are stored in.
+     * @throws Exception If an error occurs while reading or decrypting the files.
+     */
+    public static List<VaultRecord> getVaultRecords(final String mPassword) throws Exception {
+        return decodeRecords(readAccountFiles(), mPassword);
+    }
+
+    /**
+     * Reads the account files as written by one commit.
+     *
+     * @return The encrypted contents of the service, username, password and timestamp file, in this order.
+     * @throws IOException If a file cannot be read.
+     */
+    static VaultFiles.Contents readAccountFiles() throws IOException {
+        return VaultFiles.readConsistent(accountPaths());
+    }
+
+    /**
+     * Decrypts account files read by {@link #readAccountFiles()} into records.
+     *
+     * @param contents  The encrypted account files.
+     * @param mPassword The master password used for decryption.
+     * @return The accounts in the order they are stored in.
+     * @throws Exception If an error occurs while decrypting the files.
+     */
+    static List<VaultRecord> decodeRecords(final VaultFiles.Contents contents, final String mPassword)
+            throws Exception {
+        if (contents.entries().get(0) == null) {
+            return new ArrayList<>();
+        }
+        FieldBuffer services = decodeFields(contents.entries().get(0), mPassword);
+        FieldBuffer usernames = decodeFields(contents.entries().get(1), mPassword);
+        FieldBuffer passwords = decodeFields(contents.entries().get(2), mPassword);
+        FieldBuffer timestamps = decodeFields(contents.entries().get(3), mPassword);
+
+        int maxLines = Math.max(services.size(), Math.max(usernames.size(), passwords.size()));
+        List<VaultRecord> records = new ArrayList<>(maxLines);
+        for (int i = 0; i < maxLines; i++) {
+            records.add(new VaultRecord(services.string(i), usernames.string(i), passwords.string(i),
+                    timestamps.longValue(i, 0))); //A missing or unparsable timestamp is unknown
+        }
+        return records;
+    }
+
+    /**
+     * Replaces the content of all account files, one line per account, as one commit with the given version.
+     * All files are encrypted and written before the first one is replaced, so readers in other instances see the
+     * old and the new files side by side only very briefly, and a crash leaves either the old or the new accounts;
+     * see {@link #recoverVault()}. Callers have to hold the lock of {@link #lockVault()}.
+     *
+     * @param records   The accounts in the order they are to be stored in.
+     * @param mPassword The master password used for encryption.
+     * @param version   The version of the commit, higher than the one of the current files.
+     * @throws Exception If there is an issue with encrypting or writing the files.
+     * @see VaultStore
+     */
+    public static void writeVaultRecords(final List<VaultRecord> records, final String mPassword,
+            final long version) throws Exception {
+        StringBuilder services = new StringBuilder();
+        StringBuilder usernames = new StringBuilder();
+        StringBuilder passwords = new StringBuilder();
+        StringBuilder timestamps = new StringBuilder();
+        for (VaultRecord record : records) {
+            FieldBuffer.append(services, record.service());
+            FieldBuffer.append(usernames, record.username());
+            FieldBuffer.append(passwords, record.password());
+            FieldBuffer.append(timestamps, String.valueOf(record.lastModified()));
+        }
+        List<Path> paths = accountPaths();
+        FlightRecording.VaultSave event = new FlightRecording.VaultSave();
+        event.begin();
+        List<byte[]> encrypted = new ArrayList<>(paths.size());
+        for (StringBuilder content : List.of(services, usernames, passwords, timestamps)) {
+            encrypted.add(Cryptography.encrypt(content.toString().getBytes(UTF_8), mPassword));
+            event.bytes += encrypted.get(encrypted.size() - 1).length;
+        }
+        VaultFiles.commit(paths, version, encrypted, Path.of(JOURNAL_LOCATION));
+        event.algorithm = Cryptography.ENCRYPT_ALGO;
+        event.entries = records.size();
+        event.version = version;
+        event.commit();
+    }
+
+    /**
+     * Returns the version of the last commit to the account files, without decrypting them.
+     *
+     * @return The version, 0 for account files written before versions were recorded.
+     * @throws IOException If a file cannot be read.
+     */
+    static long getVaultVersion() throws IOException {
+        return VaultFiles.readVersion(accountPaths());
+    }
+
+    /**
+     * Completes or discards a commit to the account files that was interrupted by a crash. Callers have to hold
+     * the lock of {@link #lockVault()}.
+     *
+     * @return True if an interrupted commit was completed, so the account files changed.
+     * @throws IOException If a file cannot be read, moved or deleted.
+     */
+    static boolean recoverVault() throws IOException {
+        return VaultFiles.recover(accountPaths(), Path.of(JOURNAL_LOCATION));
+    }
+
+    /**
+     * Waits for and takes the write lock of the vault, shared by all instances started from the same folder.
+     * Closing the returned channel releases the lock.
+     *
+     * @return The channel holding the lock.
+     * @throws IOException If the lock file cannot be opened or locked.
+     */
+    static FileChannel lockVault() throws IOException {
+        return VaultFiles.lock(Path.of(LOCK_LOCATION));
+    }
+
+    /**
+     * Returns the account files in the order of {@link #readAccountFiles()}.
+     *
+     * @return The paths of the service, username, password and timestamp file.
+     */
+    private static List<Path> accountPaths() {
+        return List.of(Path.of(SERVICE_LOCATION), Path.of(USERNAME_LOCATION), Path.of(PASSWORD_LOCATION),
+                Path.of(TIMESTAMP_LOCATION));
+    }
+
+    /**
+     * Decrypts an account file and finds its fields, without creating strings.
+     *
+     * @param entry     The account file, null if it does not exist.
+     * @param mPassword The master password used for decryption.
+     * @return The fields, none for a missing file.
+     * @throws Exception If an error occurs while decrypting the file.
+     */
+    private static FieldBuffer decodeFields(final VaultFiles.Entry entry, final String mPassword) throws Exception {
+        if (entry == null) {
+            return FieldBuffer.empty();
+        }
+        return FieldBuffer.parse(Cryptography.decrypt(entry.ciphertext(), mPassword), entry.escaped());
+    }
+
+    /**
+     * Returns when any of the account files was last modified, so callers keeping accounts in memory can tell
+     * whether they have to reload them.
+     *
+     * @return The latest modification time of the account files in nanoseconds since the epoch, 0 if there are none.
+     * @throws IOException If the modification time cannot be read.
+     */
+    public static long getVaultLastModified() throws IOException {
+        long lastModified = 0;
+        for (String location : new String[] {SERVICE_LOCATION, USERNAME_LOCATION, PASSWORD_LOCATION,
+                TIMESTAMP_LOCATION}) {
+            Path path = Path.of(location);
+            if (Files.exists(path)) {
+                lastModified = Math.max(lastModified, Files.getLastModifiedTime(path).to(TimeUnit.NANOSECONDS));
+            }
+        }
+        return lastModified;
+    }
+
+    /**
+     * Adds content to a file without appending, encrypts the file with the provided master password,
+     * and overwrites the existing content.
+     * This method creates a FileWriter for the specified file, writes the given content to the file,
+     * and then encrypts the entire file using the provided master password. The existing content in
+     * the file is overwritten with the new content.
+     *
+     * @param location      The location of the file to which content is added and encrypted.
+     * @param contentToAdd  The content to be added to the file.
+     * @param mPassword     The master password used to encrypt the file.
+     *
+     * @throws Exception    If an error occurs during the file writing or encryption process.
+     *                      The specific exception type may vary based on the underlying operations.
+     */
+    public static void addDataWithoutAppend(final String location, final String contentToAdd, final String mPassword)
+            throws Exception {
+        byte[] newData = Cryptography.encrypt(contentToAdd.getBytes(StandardCharsets.UTF_8), mPassword);
+        Files.write(Paths.get(location), newData);
+    }
+
+    /**
+     * Retrieves the content of a decrypted account file and returns it as an array of strings, where each
+     * element corresponds to one account. Values containing line breaks are returned as they were stored.
+     *
+     * @param location   The location of the file to be decrypted and read.
+     * @param mPassword  The master password used to decrypt the file.
+     * @return           An array of strings representing the lines of the decrypted file.
+     *
+     * @throws Exception If an error occurs during the decryption process or string conversion.
+     *                   The specific exception type may vary based on the underlying operations.
+     */
+    public static String[] getContentLines(final String location, final String mPassword) throws Exception {
+        //Account files start with a version header, which is not part of the encrypted data
+        VaultFiles.Entry entry = VaultFiles.read(Path.of(location));
+        if (entry == null) {
+            throw new NoSuchFileException(location);
+        }
+        FieldBuffer fields = decodeFields(entry, mPassword);
+        String[] lines = new String[fields.size()];
+        for (int i = 0; i < lines.length; i++) {
+            lines[i] = fields.string(i);
+        }
+        return lines;
+    }
+
+    /**
+     * Policies loaded from the policy file.
+     *
+     * @param policies The compiled policies.
+     * @param modified When the file was last modified at the time, in nanoseconds, or -1 if there was none.
+     */
+    private record LoadedPolicies(ServicePolicies policies, long modified) {
+    }
+}
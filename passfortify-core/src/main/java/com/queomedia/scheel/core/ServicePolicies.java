@@ -0,0 +1,106 @@
+package com.queomedia.scheel.core;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Password policies per service, for services with their own password rules.
+ *
+ * <p>Rules are kept in a plain text file, one service per line, with the service name and a policy specification
+ * separated by a colon and whitespace:</p>
+ *
+ * <pre>
+ * # Bank only accepts a few special characters
+ * MyBank: length=12-16 lower=1 upper=1 digits=1 custom=!$%&amp; custom-min=1
+ * *: length=20 lower=1 upper=1 digits=1 special=1 no-ambiguous
+ * </pre>
+ *
+ * <p>Service names are matched ignoring case. The service {@code *} replaces {@link PasswordPolicy#DEFAULT} for all
+ * services without a rule of their own. Lines starting with {@code #} are comments. Every policy is compiled when
+ * the file is loaded.</p>
+ */
+public class ServicePolicies {
+
+    /**
+     * Service name matching all services without a rule of their own.
+     */
+    static final String ANY_SERVICE = "*";
+
+    /**
+     * Compiled policy of every service, keyed by the lower case service name.
+     */
+    private final Map<String, PasswordPolicy> policies;
+
+    /**
+     * Policy of services without a rule.
+     */
+    private final PasswordPolicy fallback;
+
+    /**
+     * Creates a set of rules.
+     *
+     * @param policies Policies keyed by the lower case service name.
+     * @param fallback Policy of services without a rule.
+     */
+    private ServicePolicies(final Map<String, PasswordPolicy> policies, final PasswordPolicy fallback) {
+        this.policies = policies;
+        this.fallback = fallback;
+    }
+
+    /**
+     * Loads the rules from a file. A missing file yields no rules, so every service uses the default policy.
+     *
+     * @param path The rules file.
+     * @return The rules.
+     * @throws IOException              If the file cannot be read.
+     * @throws IllegalArgumentException If a line is malformed or contains an unsatisfiable policy.
+     */
+    public static ServicePolicies load(final Path path) throws IOException {
+        if (!Files.exists(path)) {
+            return new ServicePolicies(Map.of(), PasswordPolicy.DEFAULT);
+        }
+        List<String> lines = Files.readAllLines(path);
+        Map<String, PasswordPolicy> policies = new HashMap<>();
+        PasswordPolicy fallback = PasswordPolicy.DEFAULT;
+        for (int i = 0; i < lines.size(); i++) {
+            String line = lines.get(i).trim();
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+            String[] parts = line.split(":\\s+", 2);
+            if (parts.length != 2) {
+                throw new IllegalArgumentException(path + " line " + (i + 1) + ": expected 'service: policy'");
+            }
+            PasswordPolicy policy;
+            try {
+                policy = PasswordPolicy.parse(parts[1]);
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException(path + " line " + (i + 1) + ": " + e.getMessage(), e);
+            }
+            if (parts[0].equals(ANY_SERVICE)) {
+                fallback = policy;
+            } else {
+                policies.put(parts[0].toLowerCase(Locale.ROOT), policy);
+            }
+        }
+        return new ServicePolicies(policies, fallback);
+    }
+
+    /**
+     * Returns the policy for a service.
+     *
+     * @param service The service name, may be null or empty.
+     * @return The service's own policy, or the policy for all other services.
+     */
+    public PasswordPolicy forService(final String service) {
+        if (service == null) {
+            return fallback;
+        }
+        return policies.getOrDefault(service.trim().toLowerCase(Locale.ROOT), fallback);
+    }
+}
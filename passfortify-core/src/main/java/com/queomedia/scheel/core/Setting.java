@@ -0,0 +1,82 @@
+package com.queomedia.scheel.core;
+
+/**
+ * The switches of the application, kept by {@link Settings}.
+ */
+public enum Setting {
+
+    /**
+     * Shows asterisks instead of the passwords in the table.
+     */
+    HIDE_PASSWORDS("hidePasswords", "HidePassword", true),
+
+    /**
+     * Warns when the same password is used for several accounts.
+     */
+    DUPLICATE_WARNING("duplicateWarning", "PasswordWarning", false),
+
+    /**
+     * Clears the master password field after each use.
+     */
+    CLEAR_MASTER_PASSWORD("clearMasterPassword", "ClearPassword", false),
+
+    /**
+     * Checks whether a password has been leaked on right click.
+     */
+    CHECK_LEAKS("checkLeaks", "CheckLeak", false);
+
+    /**
+     * Key of the setting in the settings file.
+     */
+    private final String key;
+
+    /**
+     * Name of the setting in the positional format of earlier releases, followed by 0 or 1 there.
+     */
+    private final String legacyName;
+
+    /**
+     * Value of the setting unless the file sets another.
+     */
+    private final boolean defaultValue;
+
+    /**
+     * Creates a setting.
+     *
+     * @param key          Key of the setting in the settings file.
+     * @param legacyName   Name of the setting in the positional format of earlier releases.
+     * @param defaultValue Value of the setting unless the file sets another.
+     */
+    Setting(final String key, final String legacyName, final boolean defaultValue) {
+        this.key = key;
+        this.legacyName = legacyName;
+        this.defaultValue = defaultValue;
+    }
+
+    /**
+     * Returns the key of the setting in the settings file.
+     *
+     * @return The key.
+     */
+    public String key() {
+        return key;
+    }
+
+    /**
+     * Returns the name of the setting in the positional format of earlier releases.
+     *
+     * @return The name, without the trailing 0 or 1.
+     */
+    String legacyName() {
+        return legacyName;
+    }
+
+    /**
+     * Returns the value of the setting unless the file sets another.
+     *
+     * @return The default value.
+     */
+    public boolean defaultValue() {
+        return defaultValue;
+    }
+}
@@ -0,0 +1,290 @@
+package com.queomedia.scheel.core;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * The settings of the application, read once and kept in memory.
+ *
+ * <p>The settings file holds one {@code key=value} per line; lines starting with {@code #} are comments. Keys this
+ * release does not know are kept and written back, so a file shared with a newer release loses nothing. The
+ * positional format of earlier releases, four lines like {@code HidePassword1}, is read as well and replaced by the
+ * new format with the next write:</p>
+ *
+ * <pre>
+ * hidePasswords=true
+ * duplicateWarning=false
+ * clearMasterPassword=false
+ * checkLeaks=true
+ * </pre>
+ *
+ * <p>Changes are seen by listeners at once and written {@value #WRITE_DELAY_MILLIS} ms after the first of them, so
+ * toggling several settings writes the file once and the FX thread never waits for the disk. The file is written
+ * to a temporary file and moved into place, so a crash never leaves half a file. Pending changes are written when
+ * the JVM exits, or earlier with {@link #flush()}.</p>
+ */
+public final class Settings {
+
+    /**
+     * Location of the settings file, in the working directory like the account files.
+     */
+    static final String LOCATION = "settings.txt";
+
+    /**
+     * Time between the first unsaved change and writing the file.
+     */
+    static final long WRITE_DELAY_MILLIS = 500;
+
+    /**
+     * First line of the settings file.
+     */
+    private static final String HEADER = "# PassFortify settings, one key=value per line";
+
+    /**
+     * Writes the files of all settings, on a daemon thread so it does not keep the JVM alive.
+     */
+    private static final ScheduledExecutorService WRITER = Executors.newSingleThreadScheduledExecutor(task -> {
+        Thread thread = new Thread(task, "settings-writer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * The settings file.
+     */
+    private final Path path;
+
+    /**
+     * The value of every key, in the order of the file. Guarded by this.
+     */
+    private final Map<String, String> values;
+
+    /**
+     * The listeners of every setting.
+     */
+    private final Map<Setting, List<Consumer<Boolean>>> listeners = new EnumMap<>(Setting.class);
+
+    /**
+     * Held while writing the file, so a flush and the scheduled write do not write at the same time.
+     */
+    private final Object fileLock = new Object();
+
+    /**
+     * The scheduled write, null if all changes are written. Guarded by this.
+     */
+    private ScheduledFuture<?> pendingWrite;
+
+    /**
+     * Creates settings.
+     *
+     * @param path   The settings file.
+     * @param values The value of every key, in the order of the file.
+     */
+    private Settings(final Path path, final Map<String, String> values) {
+        this.path = path;
+        this.values = values;
+        for (Setting setting : Setting.values()) {
+            listeners.put(setting, new CopyOnWriteArrayList<>());
+        }
+    }
+
+    /**
+     * Returns the settings of this process, read from {@code settings.txt} on first use. If the file cannot be read,
+     * the defaults are used and the problem is printed to standard error.
+     *
+     * @return The settings.
+     */
+    public static Settings shared() {
+        return Holder.INSTANCE;
+    }
+
+    /**
+     * Reads settings from a file. A missing file yields the defaults.
+     *
+     * @param path The settings file.
+     * @return The settings.
+     * @throws IOException If the file cannot be read.
+     */
+    public static Settings load(final Path path) throws IOException {
+        List<String> lines;
+        try {
+            lines = Files.readAllLines(path, UTF_8);
+        } catch (NoSuchFileException e) {
+            return new Settings(path, new LinkedHashMap<>());
+        }
+
+        Map<String, String> values = new LinkedHashMap<>();
+        boolean legacy = false;
+        for (String line : lines) {
+            String trimmed = line.trim();
+            if (trimmed.isEmpty() || trimmed.startsWith("#")) {
+                continue;
+            }
+            int separator = trimmed.indexOf('=');
+            if (separator > 0) {
+                values.put(trimmed.substring(0, separator).trim(), trimmed.substring(separator + 1).trim());
+                continue;
+            }
+            for (Setting setting : Setting.values()) {
+                if (trimmed.equals(setting.legacyName() + "1") || trimmed.equals(setting.legacyName() + "0")) {
+                    values.put(setting.key(), String.valueOf(trimmed.endsWith("1")));
+                    legacy = true;
+                }
+            }
+        }
+
+        Settings settings = new Settings(path, values);
+        if (legacy) {
+            synchronized (settings) {
+                settings.scheduleWrite(); //Converting the file to the new format
+            }
+        }
+        return settings;
+    }
+
+    /**
+     * Returns whether a setting is turned on.
+     *
+     * @param setting The setting.
+     * @return Its value, or its default if the file does not set it.
+     */
+    public synchronized boolean isEnabled(final Setting setting) {
+        String value = values.get(setting.key());
+        return value == null ? setting.defaultValue() : Boolean.parseBoolean(value);
+    }
+
+    /**
+     * Changes a setting and tells its listeners, on the calling thread. Setting the current value does nothing.
+     *
+     * @param setting The setting.
+     * @param enabled Its new value.
+     */
+    public void set(final Setting setting, final boolean enabled) {
+        synchronized (this) {
+            if (isEnabled(setting) == enabled) {
+                return;
+            }
+            values.put(setting.key(), String.valueOf(enabled));
+            scheduleWrite();
+        }
+        //Outside the lock, so a listener may read or change other settings
+        for (Consumer<Boolean> listener : listeners.get(setting)) {
+            listener.accept(enabled);
+        }
+    }
+
+    /**
+     * Adds a listener that is told the new value whenever a setting changes.
+     *
+     * @param setting  The setting.
+     * @param listener The listener, called on the thread changing the setting.
+     */
+    public void addListener(final Setting setting, final Consumer<Boolean> listener) {
+        listeners.get(setting).add(listener);
+    }
+
+    /**
+     * Removes a listener added before.
+     *
+     * @param setting  The setting.
+     * @param listener The listener.
+     */
+    public void removeListener(final Setting setting, final Consumer<Boolean> listener) {
+        listeners.get(setting).remove(listener);
+    }
+
+    /**
+     * Writes unsaved changes now, e.g. before the file is copied.
+     *
+     * @throws IOException If the file cannot be written.
+     */
+    public void flush() throws IOException {
+        synchronized (fileLock) {
+            List<String> lines;
+            synchronized (this) {
+                if (pendingWrite == null) {
+                    return;
+                }
+                pendingWrite.cancel(false);
+                pendingWrite = null;
+                lines = new ArrayList<>(values.size() + 1);
+                lines.add(HEADER);
+                for (Map.Entry<String, String> value : values.entrySet()) {
+                    lines.add(value.getKey() + "=" + value.getValue());
+                }
+            }
+            VaultFiles.replace(path, (String.join(System.lineSeparator(), lines) + System.lineSeparator())
+                    .getBytes(UTF_8));
+        }
+    }
+
+    /**
+     * Schedules writing the file, unless a write is pending already. Called holding the lock of this.
+     */
+    private void scheduleWrite() {
+        if (pendingWrite == null) {
+            pendingWrite = WRITER.schedule(this::flushQuietly, WRITE_DELAY_MILLIS, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Writes unsaved changes, printing a failure to standard error as there is nobody to tell.
+     */
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (IOException e) {
+            System.err.println("Settings could not be saved: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Lazily reads the settings of this process.
+     */
+    private static final class Holder {
+
+        /**
+         * The settings.
+         */
+        private static final Settings INSTANCE = read();
+
+        /**
+         * Not to be instantiated.
+         */
+        private Holder() {
+        }
+
+        /**
+         * Reads the settings file of the working directory and writes unsaved changes when the JVM exits.
+         *
+         * @return The settings, the defaults if the file cannot be read.
+         */
+        private static Settings read() {
+            Path path = Path.of(LOCATION);
+            Settings settings;
+            try {
+                settings = load(path);
+            } catch (IOException e) {
+                System.err.println("Settings could not be read, using the defaults: " + e.getMessage());
+                settings = new Settings(path, new LinkedHashMap<>());
+            }
+            Runtime.getRuntime().addShutdownHook(new Thread(settings::flushQuietly, "settings-flush"));
+            return settings;
+        }
+    }
+}
@@ -0,0 +1,761 @@
+package com.queomedia.scheel.core;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.time.Year;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Pattern aware password strength estimator in the spirit of zxcvbn.
+ *
+ * <p>Instead of only counting character classes, the estimator looks for the patterns attackers try first:
+ * common passwords and dictionary words (including uppercase and l33t variations), keyboard walks, repeated
+ * characters, alphabetic or numeric sequences and dates. Every match is priced in bits of guessing entropy and
+ * the cheapest way to cover the whole password is picked through dynamic programming. Characters that are not
+ * part of any pattern are priced as brute force over the character classes seen so far.</p>
+ *
+ * <p>All matchers advance together in a single pass over the characters. Dictionary lookups walk a precompiled
+ * {@link DictionaryTrie} with a bounded set of cursors, so the estimate only allocates a small reusable
+ * workspace per thread and is cheap enough to run on every keystroke.</p>
+ */
+public class StrengthEstimator {
+
+    /**
+     * Classpath resource holding the most common passwords, most common first.
+     */
+    private static final String COMMON_PASSWORDS = "common-passwords.txt";
+
+    /**
+     * Maximum number of dictionary cursors kept alive at the same time.
+     */
+    private static final int MAX_CURSORS = 64;
+
+    /**
+     * Minimum length of repeats, sequences and keyboard walks to count as a pattern.
+     */
+    private static final int MIN_PATTERN_LENGTH = 3;
+
+    /**
+     * Minimum number of bits a matched pattern costs.
+     */
+    private static final double MIN_MATCH_BITS = 1.0;
+
+    /**
+     * Number of starting keys on a QWERTY keyboard, including shifted keys.
+     */
+    private static final int KEYBOARD_STARTING_KEYS = 94;
+
+    /**
+     * Average number of neighbours of a key on a QWERTY keyboard.
+     */
+    private static final double KEYBOARD_AVERAGE_DEGREE = 4.6;
+
+    /**
+     * Year dates are compared against. Years close to it are guessed first.
+     */
+    private static final int REFERENCE_YEAR = Year.now().getValue();
+
+    /**
+     * Minimum number of years an attacker is assumed to try for a date.
+     */
+    private static final int MIN_YEAR_SPACE = 20;
+
+    /**
+     * Number of days in a year, used to price full dates.
+     */
+    private static final int DAYS_PER_YEAR = 365;
+
+    /**
+     * Character class bit for lowercase letters.
+     */
+    private static final int LOWER = 1;
+
+    /**
+     * Character class bit for uppercase letters.
+     */
+    private static final int UPPER = 2;
+
+    /**
+     * Character class bit for digits.
+     */
+    private static final int DIGIT = 4;
+
+    /**
+     * Character class bit for printable ASCII symbols.
+     */
+    private static final int SYMBOL = 8;
+
+    /**
+     * Character class bit for everything else, e.g. umlauts.
+     */
+    private static final int OTHER = 16;
+
+    /**
+     * QWERTY rows without shift. Blanks are placeholders that keep the rows slanted like on a real keyboard.
+     */
+    private static final String[] KEYBOARD_ROWS = {"`1234567890-=", " qwertyuiop[]\\", " asdfghjkl;'", " zxcvbnm,./"};
+
+    /**
+     * QWERTY rows with shift held down, aligned with {@link #KEYBOARD_ROWS}.
+     */
+    private static final String[] SHIFTED_KEYBOARD_ROWS =
+            {"~!@#$%^&*()_+", " QWERTYUIOP{}|", " ASDFGHJKL:\"", " ZXCVBNM<>?"};
+
+    /**
+     * Keyboard row of every ASCII character, -1 if the character is not on the keyboard.
+     */
+    private static final int[] KEY_ROW = new int[128];
+
+    /**
+     * Keyboard column of every ASCII character.
+     */
+    private static final int[] KEY_COLUMN = new int[128];
+
+    /**
+     * Whether the ASCII character needs shift to be typed.
+     */
+    private static final boolean[] KEY_SHIFTED = new boolean[128];
+
+    /**
+     * Letters a l33t character may stand for, indexed by the ASCII character.
+     */
+    private static final char[][] L33T = new char[128][];
+
+    /**
+     * Separators accepted between the parts of a date.
+     */
+    private static final String DATE_SEPARATORS = "/.-_ ";
+
+    /**
+     * Per thread scratch space, so estimating does not allocate on every keystroke.
+     */
+    private static final ThreadLocal<Workspace> WORKSPACE = ThreadLocal.withInitial(Workspace::new);
+
+    static {
+        Arrays.fill(KEY_ROW, -1);
+        for (int row = 0; row < KEYBOARD_ROWS.length; row++) {
+            for (int column = 0; column < KEYBOARD_ROWS[row].length(); column++) {
+                registerKey(KEYBOARD_ROWS[row].charAt(column), row, column, false);
+                registerKey(SHIFTED_KEYBOARD_ROWS[row].charAt(column), row, column, true);
+            }
+        }
+        String[][] substitutions = {{"4", "a"}, {"@", "a"}, {"8", "b"}, {"(", "c"}, {"{", "c"}, {"[", "c"},
+                {"<", "c"}, {"3", "e"}, {"6", "g"}, {"9", "g"}, {"1", "il"}, {"!", "i"}, {"|", "il"}, {"0", "o"},
+                {"$", "s"}, {"5", "s"}, {"7", "lt"}, {"+", "t"}, {"%", "x"}, {"2", "z"}};
+        for (String[] substitution : substitutions) {
+            L33T[substitution[0].charAt(0)] = substitution[1].toCharArray();
+        }
+    }
+
+    /**
+     * Estimates the guessing entropy of a password in bits.
+     *
+     * @param password The password to evaluate.
+     * @return The estimated entropy in bits, 0 for an empty password.
+     */
+    public static double estimateBits(final CharSequence password) {
+        final int length = password.length();
+        if (length == 0) {
+            return 0;
+        }
+        final DictionaryTrie dictionary = DictionaryHolder.DICTIONARY;
+        final Workspace ws = WORKSPACE.get();
+        final double[] best = ws.best(length + 1);
+        best[0] = 0;
+
+        int seenClasses = 0;
+        int repeatStart = 0;
+        int sequenceStart = 0;
+        int sequenceDelta = 0;
+        int walkStart = 0;
+        int walkTurns = 0;
+        int walkDirection = -1;
+        int walkShifted = 0;
+        int digitRun = 0;
+        ws.cursorCount = 0;
+
+        for (int j = 0; j < length; j++) {
+            final char c = password.charAt(j);
+            final int charClass = characterClass(c);
+            seenClasses |= charClass;
+
+            //Brute force is always possible and serves as the upper bound
+            double cheapest = best[j] + log2(cardinality(seenClasses));
+
+            if (j > 0) {
+                final char previous = password.charAt(j - 1);
+
+                //Repeated characters, e.g. "aaaa"
+                if (c != previous) {
+                    repeatStart = j;
+                }
+
+                //Sequences, e.g. "abcd" or "9876"
+                int delta = c - previous;
+                if (Math.abs(delta) == 1 && charClass == characterClass(previous) && charClass != SYMBOL) {
+                    if (delta != sequenceDelta) {
+                        sequenceStart = j - 1;
+                        sequenceDelta = delta;
+                    }
+                } else {
+                    sequenceStart = j;
+                    sequenceDelta = 0;
+                }
+
+                //Keyboard walks, e.g. "qwerty" or "zaq1"
+                int direction = keyboardDirection(previous, c);
+                if (direction < 0) {
+                    walkStart = j;
+                    walkTurns = 0;
+                    walkDirection = -1;
+                    walkShifted = isShifted(c) ? 1 : 0;
+                } else {
+                    if (direction != walkDirection) {
+                        walkTurns++;
+                        walkDirection = direction;
+                    }
+                    walkShifted += isShifted(c) ? 1 : 0;
+                }
+            } else {
+                walkShifted = isShifted(c) ? 1 : 0;
+            }
+
+            int repeatLength = j - repeatStart + 1;
+            if (repeatLength >= MIN_PATTERN_LENGTH) {
+                double bits = log2(cardinality(charClass)) + log2(repeatLength);
+                cheapest = Math.min(cheapest, best[repeatStart] + Math.max(MIN_MATCH_BITS, bits));
+            }
+
+            int sequenceLength = j - sequenceStart + 1;
+            if (sequenceLength >= MIN_PATTERN_LENGTH) {
+                double bits = log2(sequenceStartGuesses(password.charAt(sequenceStart))) + log2(sequenceLength)
+                        + (sequenceDelta < 0 ? 1 : 0);
+                cheapest = Math.min(cheapest, best[sequenceStart] + Math.max(MIN_MATCH_BITS, bits));
+            }
+
+            int walkLength = j - walkStart + 1;
+            if (walkLength >= MIN_PATTERN_LENGTH && walkTurns > 0) {
+                double bits = log2(KEYBOARD_STARTING_KEYS) + log2(binomial(walkLength - 1, walkTurns - 1))
+                        + walkTurns * log2(KEYBOARD_AVERAGE_DEGREE) + variationBits(walkLength, walkShifted);
+                cheapest = Math.min(cheapest, best[walkStart] + Math.max(MIN_MATCH_BITS, bits));
+            }
+
+            //Dates, e.g. "1990", "24121990" or "1990-12-24"
+            digitRun = charClass == DIGIT ? digitRun + 1 : 0;
+            cheapest = Math.min(cheapest, cheapestDate(password, j, digitRun, best));
+
+            //Dictionary words and common passwords, including uppercase and l33t variations
+            advanceCursors(ws, dictionary, c, j);
+            for (int k = 0; k < ws.cursorCount; k++) {
+                int rank = dictionary.rank(ws.cursorNodes[k]);
+                if (rank > 0) {
+                    int start = ws.cursorStarts[k];
+                    double bits = log2(rank) + upperCaseBits(password, start, j - start + 1, ws.cursorUppers[k])
+                            + ws.cursorSubstitutions[k];
+                    cheapest = Math.min(cheapest, best[start] + Math.max(MIN_MATCH_BITS, bits));
+                }
+            }
+            best[j + 1] = cheapest;
+        }
+        return best[length];
+    }
+
+    /**
+     * Advances all live dictionary cursors by one character and starts a new cursor at the current position.
+     * Cursors that fall off the trie are dropped, l33t characters may split a cursor into several.
+     *
+     * @param ws         The workspace holding the cursors.
+     * @param dictionary The dictionary trie.
+     * @param c          The current character.
+     * @param position   Position of the current character in the password.
+     */
+    private static void advanceCursors(final Workspace ws, final DictionaryTrie dictionary, final char c,
+            final int position) {
+        final char lower = Character.toLowerCase(c);
+        final int upper = Character.isUpperCase(c) ? 1 : 0;
+        final char[] substitutes = c < L33T.length ? L33T[c] : null;
+        int next = 0;
+        for (int k = 0; k <= ws.cursorCount; k++) {
+            //The extra iteration starts a fresh cursor at the root for a word beginning at this position
+            boolean fresh = k == ws.cursorCount;
+            int node = fresh ? DictionaryTrie.ROOT : ws.cursorNodes[k];
+            int start = fresh ? position : ws.cursorStarts[k];
+            int uppers = fresh ? 0 : ws.cursorUppers[k];
+            int substitutions = fresh ? 0 : ws.cursorSubstitutions[k];
+
+            int child = dictionary.step(node, lower);
+            if (child != DictionaryTrie.NO_NODE && next < MAX_CURSORS) {
+                ws.setNext(next++, child, start, uppers + upper, substitutions);
+            }
+            if (substitutes != null) {
+                for (char substitute : substitutes) {
+                    child = dictionary.step(node, substitute);
+                    if (child != DictionaryTrie.NO_NODE && next < MAX_CURSORS) {
+                        ws.setNext(next++, child, start, uppers, substitutions + 1);
+                    }
+                }
+            }
+        }
+        ws.swapCursors(next);
+    }
+
+    /**
+     * Finds the cheapest date pattern ending at the given position.
+     *
+     * @param password The password.
+     * @param end      Position of the last character of the date.
+     * @param digitRun Number of consecutive digits ending at {@code end}.
+     * @param best     Cheapest cost of every prefix computed so far.
+     * @return The cheapest total cost using a date ending at {@code end}, or infinity if there is none.
+     */
+    private static double cheapestDate(final CharSequence password, final int end, final int digitRun,
+            final double[] best) {
+        final int yearLength = 4;
+        final int shortDateLength = 6;
+        final int longDateLength = 8;
+        final int separatedLongDateLength = 10;
+        double cheapest = Double.POSITIVE_INFINITY;
+
+        if (digitRun >= yearLength) {
+            int year = digits(password, end - 3, yearLength);
+            if (year >= 1000 && year < 2100) {
+                cheapest = Math.min(cheapest, best[end - 3] + Math.max(MIN_MATCH_BITS, log2(yearSpace(year))));
+            }
+        }
+        if (digitRun >= shortDateLength) {
+            int start = end - 5;
+            double bits = dateBits(digits(password, start, 2), digits(password, start + 2, 2),
+                    digits(password, start + 4, 2), false);
+            cheapest = Math.min(cheapest, best[start] + bits);
+        }
+        if (digitRun >= longDateLength) {
+            int start = end - 7;
+            double bits = Math.min(
+                    dateBits(digits(password, start, 2), digits(password, start + 2, 2),
+                            digits(password, start + 4, 4), false),
+                    dateBits(digits(password, start + 6, 2), digits(password, start + 4, 2),
+                            digits(password, start, 4), false));
+            cheapest = Math.min(cheapest, best[start] + bits);
+        }
+        if (end + 1 >= longDateLength && isSeparatedDate(password, end - 7, 2, 5)) {
+            int start = end - 7;
+            double bits = dateBits(digits(password, start, 2), digits(password, start + 3, 2),
+                    digits(password, start + 6, 2), true);
+            cheapest = Math.min(cheapest, best[start] + bits);
+        }
+        if (end + 1 >= separatedLongDateLength) {
+            int start = end - 9;
+            if (isSeparatedDate(password, start, 2, 5)) {
+                double bits = dateBits(digits(password, start, 2), digits(password, start + 3, 2),
+                        digits(password, start + 6, 4), true);
+                cheapest = Math.min(cheapest, best[start] + bits);
+            }
+            if (isSeparatedDate(password, start, 4, 7)) {
+                double bits = dateBits(digits(password, start + 8, 2), digits(password, start + 5, 2),
+                        digits(password, start, 4), true);
+                cheapest = Math.min(cheapest, best[start] + bits);
+            }
+        }
+        return cheapest;
+    }
+
+    /**
+     * Checks whether the characters at the two given offsets are the same date separator.
+     *
+     * @param password   The password.
+     * @param start      Start of the candidate date.
+     * @param first      Offset of the first separator relative to {@code start}.
+     * @param second     Offset of the second separator relative to {@code start}.
+     * @return True if both offsets hold the same separator.
+     */
+    private static boolean isSeparatedDate(final CharSequence password, final int start, final int first,
+            final int second) {
+        char separator = password.charAt(start + first);
+        return DATE_SEPARATORS.indexOf(separator) >= 0 && password.charAt(start + second) == separator;
+    }
+
+    /**
+     * Prices a date given as day, month and year. Day and month may be swapped, as the American order is common.
+     *
+     * @param day       The day, or -1 if not numeric.
+     * @param month     The month, or -1 if not numeric.
+     * @param year      The year with two or four digits, or -1 if not numeric.
+     * @param separated Whether the parts are separated by a separator character.
+     * @return The bits of the date, or infinity if the values do not form a date.
+     */
+    private static double dateBits(final int day, final int month, final int year, final boolean separated) {
+        final int maxDay = 31;
+        final int maxMonth = 12;
+        final int centuryPivot = 50;
+        boolean dayFirst = day >= 1 && day <= maxDay && month >= 1 && month <= maxMonth;
+        boolean monthFirst = month >= 1 && month <= maxDay && day >= 1 && day <= maxMonth;
+        if (year < 0 || !(dayFirst || monthFirst)) {
+            return Double.POSITIVE_INFINITY;
+        }
+        int fullYear = year;
+        if (year < 100) {
+            fullYear = year < centuryPivot ? 2000 + year : 1900 + year;
+        }
+        return log2((double) DAYS_PER_YEAR * yearSpace(fullYear)) + (separated ? 2 : 0);
+    }
+
+    /**
+     * Number of years an attacker has to try to hit the given year.
+     *
+     * @param year The year.
+     * @return The size of the searched year range.
+     */
+    private static int yearSpace(final int year) {
+        return Math.max(Math.abs(year - REFERENCE_YEAR), MIN_YEAR_SPACE);
+    }
+
+    /**
+     * Parses a fixed number of decimal digits without creating a string.
+     *
+     * @param text   The text to parse.
+     * @param start  Position of the first digit.
+     * @param length Number of digits.
+     * @return The parsed value, or -1 if any character is not a digit.
+     */
+    private static int digits(final CharSequence text, final int start, final int length) {
+        int value = 0;
+        for (int i = start; i < start + length; i++) {
+            char c = text.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+
+    /**
+     * Bits added by the capitalisation of a dictionary word. Capitalising only the first letter or the whole
+     * word is what people usually do, so those variants are cheap.
+     *
+     * @param password The password.
+     * @param start    Start of the word.
+     * @param length   Length of the word.
+     * @param uppers   Number of uppercase letters in the word.
+     * @return The additional bits.
+     */
+    private static double upperCaseBits(final CharSequence password, final int start, final int length,
+            final int uppers) {
+        if (uppers == 1 && Character.isUpperCase(password.charAt(start))) {
+            return 1;
+        }
+        return variationBits(length, uppers);
+    }
+
+    /**
+     * Bits needed to pick which of {@code length} characters were varied (e.g. shifted), if {@code varied} are.
+     *
+     * @param length Total number of characters.
+     * @param varied Number of varied characters.
+     * @return The additional bits.
+     */
+    private static double variationBits(final int length, final int varied) {
+        if (varied == 0) {
+            return 0;
+        }
+        if (varied == length) {
+            return 1;
+        }
+        double variations = 0;
+        for (int i = 1; i <= Math.min(varied, length - varied); i++) {
+            variations += binomial(length, i);
+        }
+        return log2(variations);
+    }
+
+    /**
+     * Number of guesses needed for the first character of a sequence. Sequences starting at an obvious end of the
+     * alphabet or the digits are tried first.
+     *
+     * @param first First character of the sequence.
+     * @return The number of guesses.
+     */
+    private static int sequenceStartGuesses(final char first) {
+        final int obviousStart = 4;
+        final int digits = 10;
+        final int letters = 26;
+        if ("aAzZ019".indexOf(first) >= 0) {
+            return obviousStart;
+        }
+        return Character.isDigit(first) ? digits : letters;
+    }
+
+    /**
+     * Direction of the step between two adjacent keys on a QWERTY keyboard.
+     *
+     * @param from First key.
+     * @param to   Second key.
+     * @return A direction between 0 and 5, or -1 if the keys are not adjacent.
+     */
+    private static int keyboardDirection(final char from, final char to) {
+        if (from >= KEY_ROW.length || to >= KEY_ROW.length || KEY_ROW[from] < 0 || KEY_ROW[to] < 0) {
+            return -1;
+        }
+        int rows = KEY_ROW[to] - KEY_ROW[from];
+        int columns = KEY_COLUMN[to] - KEY_COLUMN[from];
+        if (rows == 0 && columns == -1) {
+            return 0;
+        } else if (rows == 0 && columns == 1) {
+            return 1;
+        } else if (rows == -1 && columns == 0) {
+            return 2;
+        } else if (rows == -1 && columns == 1) {
+            return 3;
+        } else if (rows == 1 && columns == -1) {
+            return 4;
+        } else if (rows == 1 && columns == 0) {
+            return 5;
+        }
+        return -1;
+    }
+
+    /**
+     * Whether shift is needed to type the character on a QWERTY keyboard.
+     *
+     * @param c The character.
+     * @return True for shifted keys.
+     */
+    private static boolean isShifted(final char c) {
+        return c < KEY_SHIFTED.length && KEY_SHIFTED[c];
+    }
+
+    /**
+     * Registers a key of the keyboard layout.
+     *
+     * @param key     The character on the key, blanks are ignored.
+     * @param row     Row of the key.
+     * @param column  Column of the key.
+     * @param shifted Whether shift is needed.
+     */
+    private static void registerKey(final char key, final int row, final int column, final boolean shifted) {
+        if (key != ' ') {
+            KEY_ROW[key] = row;
+            KEY_COLUMN[key] = column;
+            KEY_SHIFTED[key] = shifted;
+        }
+    }
+
+    /**
+     * Determines the character class of a character.
+     *
+     * @param c The character.
+     * @return One of the character class bits.
+     */
+    private static int characterClass(final char c) {
+        if (c >= 'a' && c <= 'z') {
+            return LOWER;
+        } else if (c >= 'A' && c <= 'Z') {
+            return UPPER;
+        } else if (c >= '0' && c <= '9') {
+            return DIGIT;
+        } else if (c >= ' ' && c <= '~') {
+            return SYMBOL;
+        }
+        return OTHER;
+    }
+
+    /**
+     * Number of distinct characters in the given character classes.
+     *
+     * @param classes Bit set of character classes.
+     * @return The combined number of characters.
+     */
+    private static int cardinality(final int classes) {
+        final int letters = 26;
+        final int digits = 10;
+        final int symbols = 33;
+        final int other = 100;
+        int cardinality = 0;
+        cardinality += (classes & LOWER) != 0 ? letters : 0;
+        cardinality += (classes & UPPER) != 0 ? letters : 0;
+        cardinality += (classes & DIGIT) != 0 ? digits : 0;
+        cardinality += (classes & SYMBOL) != 0 ? symbols : 0;
+        cardinality += (classes & OTHER) != 0 ? other : 0;
+        return cardinality;
+    }
+
+    /**
+     * Binomial coefficient as a double, exact for the small values used here.
+     *
+     * @param n Number of elements.
+     * @param k Number of chosen elements.
+     * @return n choose k.
+     */
+    private static double binomial(final int n, final int k) {
+        if (k < 0 || k > n) {
+            return 0;
+        }
+        double result = 1;
+        for (int i = 1; i <= k; i++) {
+            result = result * (n - k + i) / i;
+        }
+        return result;
+    }
+
+    /**
+     * Logarithm to the base of two.
+     *
+     * @param value The value.
+     * @return log2 of the value.
+     */
+    private static double log2(final double value) {
+        return Math.log(value) / Math.log(2);
+    }
+
+    /**
+     * Builds the dictionary out of the bundled common password list and the bundled DiceWare wordlist.
+     * Common passwords are ranked by their position in the list, wordlist entries all share the rank of the
+     * wordlist size as they are equally likely.
+     *
+     * @return The compiled dictionary.
+     */
+    static DictionaryTrie loadDictionary() {
+        Map<String, Integer> words = new HashMap<>();
+        try (InputStream in = StrengthEstimator.class.getResourceAsStream(COMMON_PASSWORDS)) {
+            if (in != null) {
+                BufferedReader reader = new BufferedReader(new InputStreamReader(in, UTF_8));
+                int rank = 1;
+                for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+                    words.merge(line.trim(), rank++, Math::min);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        Wordlist wordlist = Wordlist.bundled();
+        for (int i = 0; i < wordlist.size(); i++) {
+            words.merge(wordlist.word(i), wordlist.size(), Math::min);
+        }
+        return DictionaryTrie.compile(words);
+    }
+
+    /**
+     * Lazily compiles the dictionary on first use.
+     */
+    private static final class DictionaryHolder {
+
+        /**
+         * The shared dictionary.
+         */
+        private static final DictionaryTrie DICTIONARY = loadDictionary();
+    }
+
+    /**
+     * Reusable scratch arrays of one thread.
+     */
+    private static final class Workspace {
+
+        /**
+         * Cheapest cost of every password prefix.
+         */
+        private double[] best = new double[64];
+
+        /**
+         * Trie node of every live cursor.
+         */
+        private int[] cursorNodes = new int[MAX_CURSORS];
+
+        /**
+         * Start position of every live cursor.
+         */
+        private int[] cursorStarts = new int[MAX_CURSORS];
+
+        /**
+         * Uppercase letters seen by every live cursor.
+         */
+        private int[] cursorUppers = new int[MAX_CURSORS];
+
+        /**
+         * L33t substitutions made by every live cursor.
+         */
+        private int[] cursorSubstitutions = new int[MAX_CURSORS];
+
+        /**
+         * Buffer the next generation of cursors is written to.
+         */
+        private int[] nextNodes = new int[MAX_CURSORS];
+
+        /**
+         * Start positions of the next generation.
+         */
+        private int[] nextStarts = new int[MAX_CURSORS];
+
+        /**
+         * Uppercase counts of the next generation.
+         */
+        private int[] nextUppers = new int[MAX_CURSORS];
+
+        /**
+         * Substitution counts of the next generation.
+         */
+        private int[] nextSubstitutions = new int[MAX_CURSORS];
+
+        /**
+         * Number of live cursors.
+         */
+        private int cursorCount;
+
+        /**
+         * Returns the prefix cost array, growing it if needed.
+         *
+         * @param size Required size.
+         * @return The array.
+         */
+        private double[] best(final int size) {
+            if (best.length < size) {
+                best = new double[Math.max(size, best.length * 2)];
+            }
+            return best;
+        }
+
+        /**
+         * Writes a cursor of the next generation.
+         *
+         * @param index         Index of the cursor.
+         * @param node          Trie node.
+         * @param start         Start position.
+         * @param uppers        Uppercase count.
+         * @param substitutions Substitution count.
+         */
+        private void setNext(final int index, final int node, final int start, final int uppers,
+                final int substitutions) {
+            nextNodes[index] = node;
+            nextStarts[index] = start;
+            nextUppers[index] = uppers;
+            nextSubstitutions[index] = substitutions;
+        }
+
+        /**
+         * Makes the next generation of cursors the live one.
+         *
+         * @param count Number of cursors in the next generation.
+         */
+        private void swapCursors(final int count) {
+            int[] swap = cursorNodes;
+            cursorNodes = nextNodes;
+            nextNodes = swap;
+            swap = cursorStarts;
+            cursorStarts = nextStarts;
+            nextStarts = swap;
+            swap = cursorUppers;
+            cursorUppers = nextUppers;
+            nextUppers = swap;
+            swap = cursorSubstitutions;
+            cursorSubstitutions = nextSubstitutions;
+            nextSubstitutions = swap;
+            cursorCount = count;
+        }
+    }
+}
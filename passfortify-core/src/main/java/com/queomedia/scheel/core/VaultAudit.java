@@ -0,0 +1,188 @@
+package com.queomedia.scheel.core;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Audits all accounts of the vault for weak, reused and old passwords.
+ *
+ * <p>Password reuse is counted in one sequential pass, which is cheap. Scoring the strength of every password is
+ * the expensive part, so the records are split into chunks that are scored in parallel on a {@link ForkJoinPool}.
+ * Each chunk is handed to a listener as soon as it is done, which lets the UI show partial results while the
+ * audit is still running.</p>
+ *
+ * <p>If a {@link BreachIndex} is given, every password is also looked up in the local breach file.</p>
+ */
+public class VaultAudit {
+
+    /**
+     * Number of records scored by a single task before it stops splitting.
+     */
+    private static final int CHUNK_SIZE = 256;
+
+    /**
+     * Audits the given records on the common pool and blocks until all are scored.
+     *
+     * @param entries        The accounts to audit, with their ids.
+     * @param partialResults Receives the results of every finished chunk. Called from pool threads, concurrently.
+     * @return All results, in the order of the accounts.
+     */
+    public static List<AuditResult> audit(final List<VaultEntry> entries,
+            final Consumer<List<AuditResult>> partialResults) {
+        return audit(entries, partialResults, null, ForkJoinPool.commonPool(), System.currentTimeMillis());
+    }
+
+    /**
+     * Audits the given records on the common pool, including a breach check, and blocks until all are scored.
+     *
+     * @param entries        The accounts to audit, with their ids.
+     * @param partialResults Receives the results of every finished chunk. Called from pool threads, concurrently.
+     * @param breachIndex    The breach file to check passwords against, null to skip the check.
+     * @return All results, in the order of the accounts.
+     */
+    public static List<AuditResult> audit(final List<VaultEntry> entries,
+            final Consumer<List<AuditResult>> partialResults, final BreachIndex breachIndex) {
+        return audit(entries, partialResults, breachIndex, ForkJoinPool.commonPool(), System.currentTimeMillis());
+    }
+
+    /**
+     * Audits the given records on the given pool and blocks until all are scored.
+     *
+     * @param entries        The accounts to audit, with their ids.
+     * @param partialResults Receives the results of every finished chunk. Called from pool threads, concurrently.
+     * @param breachIndex    The breach file to check passwords against, null to skip the check.
+     * @param pool           The pool to run on.
+     * @param now            Current time in milliseconds since the epoch, used to compute password age.
+     * @return All results, in the order of the accounts.
+     */
+    public static List<AuditResult> audit(final List<VaultEntry> entries,
+            final Consumer<List<AuditResult>> partialResults, final BreachIndex breachIndex, final ForkJoinPool pool,
+            final long now) {
+        long start = System.nanoTime();
+        //Counting reuse up front, every chunk needs to know about all other passwords
+        Map<String, Integer> reuseCounts = new HashMap<>();
+        Map<String, Integer> reuseGroups = new HashMap<>();
+        for (int i = 0; i < entries.size(); i++) {
+            String password = entries.get(i).record().password();
+            reuseCounts.merge(password, 1, Integer::sum);
+            reuseGroups.putIfAbsent(password, i);
+        }
+
+        AuditResult[] results = new AuditResult[entries.size()];
+        pool.invoke(new AuditTask(entries, reuseCounts, reuseGroups, results, partialResults, breachIndex, now, 0,
+                entries.size()));
+        Metric.AUDIT.recordSince(start);
+        return List.of(results);
+    }
+
+    /**
+     * Scores a range of records, splitting it in halves until it is small enough.
+     */
+    private static final class AuditTask extends RecursiveAction {
+
+        /**
+         * The accounts to audit.
+         */
+        private final List<VaultEntry> entries;
+
+        /**
+         * Number of accounts using each password.
+         */
+        private final Map<String, Integer> reuseCounts;
+
+        /**
+         * First account using each password.
+         */
+        private final Map<String, Integer> reuseGroups;
+
+        /**
+         * Array the results are written to, one slot per record.
+         */
+        private final AuditResult[] results;
+
+        /**
+         * Listener receiving finished chunks.
+         */
+        private final Consumer<List<AuditResult>> partialResults;
+
+        /**
+         * The breach file to check passwords against, may be null.
+         */
+        private final BreachIndex breachIndex;
+
+        /**
+         * Current time in milliseconds since the epoch.
+         */
+        private final long now;
+
+        /**
+         * First record of the range, inclusive.
+         */
+        private final int from;
+
+        /**
+         * Last record of the range, exclusive.
+         */
+        private final int to;
+
+        /**
+         * Creates a task for the given range.
+         *
+         * @param entries        The accounts to audit, with their ids.
+         * @param reuseCounts    Number of accounts using each password.
+         * @param reuseGroups    First account using each password.
+         * @param results        Array the results are written to.
+         * @param partialResults Listener receiving finished chunks.
+         * @param breachIndex    The breach file to check passwords against, may be null.
+         * @param now            Current time in milliseconds since the epoch.
+         * @param from           First record of the range, inclusive.
+         * @param to             Last record of the range, exclusive.
+         */
+        private AuditTask(final List<VaultEntry> entries, final Map<String, Integer> reuseCounts,
+                final Map<String, Integer> reuseGroups, final AuditResult[] results,
+                final Consumer<List<AuditResult>> partialResults, final BreachIndex breachIndex, final long now,
+                final int from, final int to) {
+            this.entries = entries;
+            this.reuseCounts = reuseCounts;
+            this.reuseGroups = reuseGroups;
+            this.results = results;
+            this.partialResults = partialResults;
+            this.breachIndex = breachIndex;
+            this.now = now;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > CHUNK_SIZE) {
+                int mid = (from + to) >>> 1;
+                invokeAll(new AuditTask(entries, reuseCounts, reuseGroups, results, partialResults, breachIndex, now,
+                                from, mid),
+                        new AuditTask(entries, reuseCounts, reuseGroups, results, partialResults, breachIndex, now,
+                                mid, to));
+                return;
+            }
+            List<AuditResult> chunk = new ArrayList<>(to - from);
+            for (int i = from; i < to; i++) {
+                VaultEntry account = entries.get(i);
+                VaultRecord entry = account.record();
+                long ageDays = entry.lastModified() > 0
+                        ? TimeUnit.MILLISECONDS.toDays(now - entry.lastModified()) : -1;
+                AuditResult result = new AuditResult(i, account.id(), entry.service(), entry.username(),
+                        PasswordTools.passwordStrength(entry.password()), reuseCounts.get(entry.password()),
+                        reuseGroups.get(entry.password()), ageDays,
+                        breachIndex != null ? breachIndex.breachCount(entry.password()) : -1);
+                results[i] = result;
+                chunk.add(result);
+            }
+            partialResults.accept(chunk);
+        }
+    }
+}
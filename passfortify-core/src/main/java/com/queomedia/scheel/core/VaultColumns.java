@@ -0,0 +1,224 @@
+package com.queomedia.scheel.core;
+
+import java.util.AbstractList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.RandomAccess;
+
+/**
+ * The decrypted accounts of a vault, stored by column to keep large vaults small in memory.
+ *
+ * <p>As a list of records, every account costs a record, an entry with its id and three strings, each with a byte
+ * array of its own; for 100,000 accounts the headers and references alone take megabytes. Here the passwords are
+ * packed into one UTF-8 byte array with an int offset per account, services and usernames into a dictionary of
+ * their distinct values with an int code per account, and ids and timestamps into long arrays. Strings are only
+ * created for the values asked for, e.g. the cells a table displays; {@link #search(String)} compares every
+ * distinct service and username once, however many accounts share it, on the packed bytes.</p>
+ *
+ * <p>The columns are immutable. {@link #entries()} and {@link #records()} are views creating the records as they
+ * are read, for code that works with whole accounts.</p>
+ */
+public final class VaultColumns {
+
+    /**
+     * The id of every account.
+     */
+    private final long[] ids;
+
+    /**
+     * The service of every account.
+     */
+    private final DictionaryColumn services;
+
+    /**
+     * The username of every account.
+     */
+    private final DictionaryColumn usernames;
+
+    /**
+     * The password of every account.
+     */
+    private final PackedColumn passwords;
+
+    /**
+     * The last modification time of every account.
+     */
+    private final long[] lastModified;
+
+    /**
+     * Creates columns.
+     *
+     * @param ids          The id of every account.
+     * @param services     The service of every account.
+     * @param usernames    The username of every account.
+     * @param passwords    The password of every account.
+     * @param lastModified The last modification time of every account.
+     */
+    private VaultColumns(final long[] ids, final DictionaryColumn services, final DictionaryColumn usernames,
+            final PackedColumn passwords, final long[] lastModified) {
+        this.ids = ids;
+        this.services = services;
+        this.usernames = usernames;
+        this.passwords = passwords;
+        this.lastModified = lastModified;
+    }
+
+    /**
+     * Stores accounts by column.
+     *
+     * @param entries The accounts with their ids, in the order they are stored in.
+     * @return The columns.
+     */
+    public static VaultColumns of(final List<VaultEntry> entries) {
+        int size = entries.size();
+        long[] ids = new long[size];
+        long[] lastModified = new long[size];
+        DictionaryColumn.Builder services = new DictionaryColumn.Builder(size);
+        DictionaryColumn.Builder usernames = new DictionaryColumn.Builder(size);
+        PackedColumn.Builder passwords = new PackedColumn.Builder(size);
+        for (int row = 0; row < size; row++) {
+            VaultEntry entry = entries.get(row);
+            ids[row] = entry.id();
+            services.add(entry.record().service());
+            usernames.add(entry.record().username());
+            passwords.add(entry.record().password());
+            lastModified[row] = entry.record().lastModified();
+        }
+        return new VaultColumns(ids, services.build(), usernames.build(), passwords.build(), lastModified);
+    }
+
+    /**
+     * Returns the number of accounts.
+     *
+     * @return The number of accounts.
+     */
+    public int size() {
+        return ids.length;
+    }
+
+    /**
+     * Returns the id of an account.
+     *
+     * @param row The position of the account.
+     * @return Its id in the {@link VaultStore}.
+     */
+    public long id(final int row) {
+        return ids[row];
+    }
+
+    /**
+     * Returns the service of an account.
+     *
+     * @param row The position of the account.
+     * @return The service.
+     */
+    public String service(final int row) {
+        return services.get(row);
+    }
+
+    /**
+     * Returns the username of an account.
+     *
+     * @param row The position of the account.
+     * @return The username.
+     */
+    public String username(final int row) {
+        return usernames.get(row);
+    }
+
+    /**
+     * Returns the password of an account.
+     *
+     * @param row The position of the account.
+     * @return The password.
+     */
+    public String password(final int row) {
+        return passwords.get(row);
+    }
+
+    /**
+     * Returns an account as a record.
+     *
+     * @param row The position of the account.
+     * @return The account.
+     */
+    public VaultRecord record(final int row) {
+        return new VaultRecord(service(row), username(row), password(row), lastModified[row]);
+    }
+
+    /**
+     * Finds the accounts whose service or username contains a text, ignoring case.
+     *
+     * @param query The text, null or empty for all accounts.
+     * @return The positions of the matching accounts.
+     */
+    public BitSet search(final String query) {
+        BitSet matches = new BitSet(size());
+        if (query == null || query.isEmpty()) {
+            matches.set(0, size());
+            return matches;
+        }
+        String lowerQuery = query.toLowerCase(Locale.ROOT);
+        byte[] asciiQuery = PackedColumn.asciiBytes(lowerQuery);
+        boolean[] serviceMatches = services.containsIgnoreCase(lowerQuery, asciiQuery);
+        boolean[] usernameMatches = usernames.containsIgnoreCase(lowerQuery, asciiQuery);
+        for (int row = 0; row < size(); row++) {
+            if (serviceMatches[services.code(row)] || usernameMatches[usernames.code(row)]) {
+                matches.set(row);
+            }
+        }
+        return matches;
+    }
+
+    /**
+     * Returns the heap the columns take, without object headers, to compare with other representations.
+     *
+     * @return The size of the arrays in bytes.
+     */
+    public long byteSize() {
+        return services.byteSize() + usernames.byteSize() + passwords.byteSize()
+                + (long) (ids.length + lastModified.length) * Long.BYTES;
+    }
+
+    /**
+     * Returns the accounts with their ids, created as they are read.
+     *
+     * @return An unmodifiable view of the accounts.
+     */
+    public List<VaultEntry> entries() {
+        return new Rows<>() {
+            @Override
+            public VaultEntry get(final int row) {
+                return new VaultEntry(id(row), record(row));
+            }
+        };
+    }
+
+    /**
+     * Returns the accounts, created as they are read.
+     *
+     * @return An unmodifiable view of the accounts.
+     */
+    public List<VaultRecord> records() {
+        return new Rows<>() {
+            @Override
+            public VaultRecord get(final int row) {
+                return record(row);
+            }
+        };
+    }
+
+    /**
+     * An unmodifiable list with one element per account.
+     *
+     * @param <T> The type of the elements.
+     */
+    private abstract class Rows<T> extends AbstractList<T> implements RandomAccess {
+
+        @Override
+        public int size() {
+            return VaultColumns.this.size();
+        }
+    }
+}
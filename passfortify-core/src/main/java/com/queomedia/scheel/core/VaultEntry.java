@@ -0,0 +1,10 @@
+package com.queomedia.scheel.core;
+
+/**
+ * An account of the vault together with the id {@link VaultStore} knows it by.
+ *
+ * @param id     The id of the account, see {@link VaultEvent}.
+ * @param record The account.
+ */
+public record VaultEntry(long id, VaultRecord record) {
+}
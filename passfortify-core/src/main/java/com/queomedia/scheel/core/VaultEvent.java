@@ -0,0 +1,46 @@
+package com.queomedia.scheel.core;
+
+/**
+ * A change of the accounts of the vault, published by {@link VaultStore#events()} after it was written.
+ *
+ * <p>Every account carries an id that stays the same while the process runs, also when the account is changed,
+ * the vault is read again or the master password changes. Subscribers can therefore patch the rows they display
+ * instead of reading all accounts again. Ids are not saved and differ between processes.</p>
+ */
+public sealed interface VaultEvent permits VaultEvent.Added, VaultEvent.Updated, VaultEvent.Removed {
+
+    /**
+     * Returns the id of the account the event is about.
+     *
+     * @return The id.
+     */
+    long id();
+
+    /**
+     * An account was added.
+     *
+     * @param id     The id of the new account.
+     * @param record The account.
+     */
+    record Added(long id, VaultRecord record) implements VaultEvent {
+    }
+
+    /**
+     * An account was changed.
+     *
+     * @param id       The id of the account.
+     * @param previous The account before the change.
+     * @param record   The account after the change.
+     */
+    record Updated(long id, VaultRecord previous, VaultRecord record) implements VaultEvent {
+    }
+
+    /**
+     * An account was removed.
+     *
+     * @param id     The id the account had.
+     * @param record The removed account.
+     */
+    record Removed(long id, VaultRecord record) implements VaultEvent {
+    }
+}
@@ -0,0 +1,377 @@
+package com.queomedia.scheel.core;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Versioned, crash-safe access to the encrypted account files, shared by all PassFortify processes of a folder.
+ *
+ * <p>Every account file starts with a plaintext header: the magic {@code PFVAULT2} and a version number, both
+ * 8 bytes, followed by the encrypted content as written by {@link Cryptography#encrypt(byte[], String)}. All files
+ * written by one commit carry the same version, every commit increments it. The magic also tells the format of the
+ * decrypted content, see {@link FieldBuffer}: {@code PFVAULT2} files hold escaped fields, {@code PFVAULT1} files and
+ * files without the header hold plain lines. Files without the header are read as version 0, so vaults of earlier
+ * releases keep working and get the header on their next write.</p>
+ *
+ * <ul>
+ *     <li>Writers hold an exclusive {@link FileChannel#lock() lock} on the lock file for the whole read, modify
+ *     and write, so two instances started from the same folder take turns.</li>
+ *     <li>Every file is written to a temporary file first, forced to the disk and moved into place, so nobody
+ *     ever reads half a file.</li>
+ *     <li>A commit writes all temporary files before it records its version in the journal, the single step that
+ *     makes it happen, and only then moves them into place; see {@link #commit(List, long, List, Path)}. A commit
+ *     interrupted by a crash is completed or discarded by {@link #recover(List, Path)} before the next one.</li>
+ *     <li>Readers never lock. They read all files and try again if the versions differ, which means they caught
+ *     a commit between two files.</li>
+ * </ul>
+ */
+final class VaultFiles {
+
+    /**
+     * Start of the header, "PFVAULT2", of files with escaped fields.
+     */
+    private static final long MAGIC = 0x50465641554c5432L;
+
+    /**
+     * Start of the header, "PFVAULT1", of files with plain lines, written by earlier releases.
+     */
+    private static final long MAGIC_LINES = 0x50465641554c5431L;
+
+    /**
+     * Size of the header in bytes: magic and version.
+     */
+    static final int HEADER_SIZE = 16;
+
+    /**
+     * Times a reader tries to catch the files between two commits before it settles for what it has.
+     */
+    private static final int MAX_READ_ATTEMPTS = 200;
+
+    /**
+     * Pause between two read attempts. A commit moves four finished files into place, which takes far less.
+     */
+    private static final long RETRY_MILLIS = 5;
+
+    /**
+     * Not to be instantiated.
+     */
+    private VaultFiles() {
+    }
+
+    /**
+     * The content of one account file.
+     *
+     * @param version    The version of the commit that wrote it, 0 for files without header.
+     * @param ciphertext The encrypted content without header.
+     * @param escaped    True if the content holds escaped fields, false for plain lines.
+     */
+    record Entry(long version, byte[] ciphertext, boolean escaped) {
+    }
+
+    /**
+     * The content of several account files, all written by the same commit.
+     *
+     * @param version    The common version, 0 if no file has a header; the highest if they are not consistent.
+     * @param entries    One entry per requested file, null for files that do not exist.
+     * @param consistent False if the files are from different commits, nothing based on them may be written.
+     */
+    record Contents(long version, List<Entry> entries, boolean consistent) {
+    }
+
+    /**
+     * Reads a file, separating header and encrypted content.
+     *
+     * @param path The file.
+     * @return The entry, or null if the file does not exist.
+     * @throws IOException If the file cannot be read.
+     */
+    static Entry read(final Path path) throws IOException {
+        long start = System.nanoTime();
+        byte[] content;
+        try {
+            content = Files.readAllBytes(path);
+        } catch (NoSuchFileException e) {
+            return null;
+        }
+        Metric.FILE_READ.recordSince(start);
+        if (!hasHeader(content)) {
+            return new Entry(0, content, false);
+        }
+        ByteBuffer header = ByteBuffer.wrap(content);
+        boolean escaped = header.getLong(0) == MAGIC;
+        return new Entry(header.getLong(Long.BYTES), Arrays.copyOfRange(content, HEADER_SIZE, content.length),
+                escaped);
+    }
+
+    /**
+     * Reads several files as written by one commit, without locking.
+     *
+     * @param paths The files.
+     * @return Their contents. If the files never agreed on a version while reading, e.g. because a commit was
+     *         interrupted by a crash and not recovered yet, the last contents read, marked as not consistent.
+     * @throws IOException If a file cannot be read.
+     */
+    static Contents readConsistent(final List<Path> paths) throws IOException {
+        List<Entry> entries = new ArrayList<>(paths.size());
+        for (int attempt = 1; ; attempt++) {
+            entries.clear();
+            long version = -1;
+            boolean consistent = true;
+            for (Path path : paths) {
+                Entry entry = read(path);
+                entries.add(entry);
+                if (entry != null) {
+                    consistent &= version < 0 || version == entry.version();
+                    version = Math.max(version, entry.version());
+                }
+            }
+            if (consistent || attempt == MAX_READ_ATTEMPTS) {
+                if (!consistent) {
+                    System.err.println("Account files are from different versions, a write was interrupted");
+                }
+                return new Contents(Math.max(0, version), Collections.unmodifiableList(new ArrayList<>(entries)),
+                        consistent);
+            }
+            try {
+                Thread.sleep(RETRY_MILLIS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while reading the account files", e);
+            }
+        }
+    }
+
+    /**
+     * Reads the highest version of several files, only looking at their headers.
+     *
+     * @param paths The files.
+     * @return The highest version, 0 if no file has a header.
+     * @throws IOException If a file cannot be read.
+     */
+    static long readVersion(final List<Path> paths) throws IOException {
+        long version = 0;
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        for (Path path : paths) {
+            if (!Files.exists(path)) {
+                continue;
+            }
+            header.clear();
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+                while (header.hasRemaining() && channel.read(header) >= 0) {
+                    //Reading until the header is complete or the file ends
+                }
+            }
+            if (!header.hasRemaining() && isMagic(header.getLong(0))) {
+                version = Math.max(version, header.getLong(Long.BYTES));
+            }
+        }
+        return version;
+    }
+
+    /**
+     * Replaces several files with headers and encrypted contents as one commit, which a crash either completes or
+     * discards as a whole.
+     *
+     * <p>Every file is written to a temporary file next to it and forced to the disk. Then the journal is replaced
+     * with the version of the commit: before that step the old files are complete and the temporary files are
+     * discarded by {@link #recover(List, Path)}, after it the new files are complete and moved into place, here
+     * or by {@link #recover(List, Path)} after a crash. Callers have to hold the lock of {@link #lock(Path)}.</p>
+     *
+     * @param paths       The files.
+     * @param version     The version of the commit.
+     * @param ciphertexts The encrypted content of every file, escaped fields as written by
+     *                    {@link FieldBuffer#append}.
+     * @param journal     The file recording the version of the last commit.
+     * @throws IOException If a file cannot be written.
+     */
+    static void commit(final List<Path> paths, final long version, final List<byte[]> ciphertexts,
+            final Path journal) throws IOException {
+        for (int i = 0; i < paths.size(); i++) {
+            long start = System.nanoTime();
+            byte[] ciphertext = ciphertexts.get(i);
+            ByteBuffer content = ByteBuffer.allocate(HEADER_SIZE + ciphertext.length);
+            content.putLong(MAGIC).putLong(version).put(ciphertext);
+            writeForced(temporary(paths.get(i)), content.array());
+            Metric.FILE_WRITE.recordSince(start);
+        }
+        replace(journal, ByteBuffer.allocate(Long.BYTES).putLong(version).array());
+        for (Path path : paths) {
+            move(temporary(path), path);
+        }
+        forceDirectory(journal);
+    }
+
+    /**
+     * Completes or discards a commit interrupted by a crash. Temporary files of the version in the journal are
+     * complete and moved into place, any others were written by a commit that never happened and are deleted.
+     * Callers have to hold the lock of {@link #lock(Path)}.
+     *
+     * @param paths   The files of {@link #commit(List, long, List, Path)}.
+     * @param journal The file recording the version of the last commit.
+     * @return True if a commit was completed, so the files changed.
+     * @throws IOException If a file cannot be read, moved or deleted.
+     */
+    static boolean recover(final List<Path> paths, final Path journal) throws IOException {
+        byte[] recorded;
+        try {
+            recorded = Files.readAllBytes(journal);
+        } catch (NoSuchFileException e) {
+            recorded = new byte[0]; //No commit recorded yet, every temporary file is left over
+        }
+        long committed = recorded.length == Long.BYTES ? ByteBuffer.wrap(recorded).getLong() : -1;
+        boolean completed = false;
+        for (Path path : paths) {
+            Path temporary = temporary(path);
+            Entry entry = read(temporary);
+            if (entry == null) {
+                continue;
+            }
+            if (committed > 0 && entry.version() == committed) {
+                move(temporary, path);
+                completed = true;
+            } else {
+                Files.delete(temporary);
+            }
+        }
+        if (completed) {
+            forceDirectory(journal);
+            System.err.println("Completed the interrupted commit " + committed + " of the account files");
+        }
+        return completed;
+    }
+
+    /**
+     * Replaces a file by writing a temporary file, forcing it to the disk and moving it into place, atomically
+     * where the file system supports it.
+     *
+     * @param path    The file.
+     * @param content The new content.
+     * @throws IOException If the file cannot be written.
+     */
+    static void replace(final Path path, final byte[] content) throws IOException {
+        Path temporary = temporary(path);
+        writeForced(temporary, content);
+        move(temporary, path);
+        forceDirectory(path);
+    }
+
+    /**
+     * Returns the temporary file a file is written to before it is moved into place.
+     *
+     * @param path The file.
+     * @return The temporary file next to it.
+     */
+    private static Path temporary(final Path path) {
+        return path.resolveSibling(path.getFileName() + ".tmp");
+    }
+
+    /**
+     * Writes a file and waits until its content is on the disk, so a crash after moving it into place cannot
+     * leave an empty or partial file behind.
+     *
+     * @param path    The file, replaced if it exists.
+     * @param content The content.
+     * @throws IOException If the file cannot be written.
+     */
+    private static void writeForced(final Path path, final byte[] content) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buffer = ByteBuffer.wrap(content);
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(true);
+        }
+    }
+
+    /**
+     * Moves a temporary file into place, atomically where the file system supports it.
+     *
+     * @param temporary The temporary file.
+     * @param path      The file it replaces.
+     * @throws IOException If the file cannot be moved.
+     */
+    private static void move(final Path temporary, final Path path) throws IOException {
+        try {
+            Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * Waits until the moves into the directory of a file are on the disk, where the platform allows to force a
+     * directory.
+     *
+     * @param path A file in the directory.
+     */
+    private static void forceDirectory(final Path path) {
+        Path directory = path.toAbsolutePath().getParent();
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            //Directories cannot be opened on Windows, where the move itself is written through
+        }
+    }
+
+    /**
+     * Waits for and takes the exclusive write lock of the folder. Closing the returned channel releases it.
+     * File locks are held by the process, so another thread of this process holding it is waited out by polling.
+     *
+     * @param lockFile The lock file, created if missing.
+     * @return The channel holding the lock.
+     * @throws IOException If the lock file cannot be opened or locked.
+     */
+    static FileChannel lock(final Path lockFile) throws IOException {
+        FileChannel channel = FileChannel.open(lockFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        try {
+            while (true) {
+                try {
+                    channel.lock();
+                    return channel;
+                } catch (OverlappingFileLockException e) {
+                    Thread.sleep(RETRY_MILLIS);
+                }
+            }
+        } catch (InterruptedException e) {
+            channel.close();
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for the vault lock", e);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Checks whether content starts with the header.
+     *
+     * @param content The content of a file.
+     * @return True if the header is present.
+     */
+    private static boolean hasHeader(final byte[] content) {
+        return content.length >= HEADER_SIZE && isMagic(ByteBuffer.wrap(content).getLong());
+    }
+
+    /**
+     * Checks whether the start of a file is the magic of either format.
+     *
+     * @param start The first 8 bytes of the file.
+     * @return True if the file has a header.
+     */
+    private static boolean isMagic(final long start) {
+        return start == MAGIC || start == MAGIC_LINES;
+    }
+}
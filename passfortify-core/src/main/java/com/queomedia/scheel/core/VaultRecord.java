@@ -0,0 +1,12 @@
+package com.queomedia.scheel.core;
+
+/**
+ * One decrypted account of the vault.
+ *
+ * @param service      The service the account belongs to.
+ * @param username     The username of the account.
+ * @param password     The password of the account.
+ * @param lastModified Time of the last password change in milliseconds since the epoch, 0 if unknown.
+ */
+public record VaultRecord(String service, String username, String password, long lastModified) {
+}
@@ -0,0 +1,514 @@
+package com.queomedia.scheel.core;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Flow;
+import java.util.concurrent.SubmissionPublisher;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * The one place of a process that reads and writes the accounts of the vault in the working directory.
+ *
+ * <p>Windows and servers used to read and rewrite the account files independently, so two saves close to each
+ * other could lose one of them, and deletions by table position could hit the wrong account once another window
+ * had added one. The store keeps the decrypted accounts as an immutable snapshot, stored by column as
+ * {@link VaultColumns} to keep large vaults small, guarded by a {@link StampedLock}:</p>
+ * <ul>
+ *     <li>Reads take an optimistic stamp and only fall back to the read lock if a writer intervened, so they never
+ *     block each other. The snapshot is decrypted again only if the account files changed on disk.</li>
+ *     <li>Writers are serialized by the write lock within the process and by the file lock of {@link VaultFiles}
+ *     across instances started from the same folder. Every write starts from the current files, applies its change
+ *     and rewrites the files once with the next version. Updates and removals name the account as it was read, and
+ *     fail instead of touching another account if it changed in the meantime.</li>
+ *     <li>A writer whose snapshot is older than the version on disk, because another instance committed since,
+ *     is rebased: its change is applied to the newer accounts instead of overwriting them.</li>
+ * </ul>
+ *
+ * <p>Every change is published as {@link VaultEvent}s through {@link #events()}, so windows can patch the accounts
+ * they display. Changes another instance made are published once this process reads the vault again; an account
+ * it changed in place keeps its id, as long as the accounts around it were not changed as well.</p>
+ */
+public final class VaultStore {
+
+    /**
+     * Guards {@link #snapshot}.
+     */
+    private final StampedLock lock = new StampedLock();
+
+    /**
+     * The decrypted accounts, null until the first read. Replaced, never modified, by writers.
+     */
+    private Snapshot snapshot;
+
+    /**
+     * Number of writes that found a newer version on disk than their snapshot and were rebased onto it.
+     */
+    private final LongAdder rebases = new LongAdder();
+
+    /**
+     * The id of the next account that is added or read for the first time. Guarded by the write lock.
+     */
+    private long nextId = 1;
+
+    /**
+     * Publishes the changes. Items are submitted under the write lock, so subscribers see them in commit order.
+     */
+    private final SubmissionPublisher<VaultEvent> publisher = new SubmissionPublisher<>(
+            VirtualThreads.newThreadPerTaskExecutor("vault-events"), Flow.defaultBufferSize());
+
+    /**
+     * Created by the holder only.
+     */
+    private VaultStore() {
+    }
+
+    /**
+     * Returns the store of this process.
+     *
+     * @return The store.
+     */
+    public static VaultStore shared() {
+        return Holder.INSTANCE;
+    }
+
+    /**
+     * Returns all accounts in the order they are stored in.
+     *
+     * @param mPassword The master password, already checked.
+     * @return The accounts, unmodifiable.
+     * @throws Exception If the account files cannot be read or decrypted.
+     */
+    public List<VaultRecord> records(final String mPassword) throws Exception {
+        return current(mPassword).columns.records();
+    }
+
+    /**
+     * Returns all accounts with their ids, in the order they are stored in.
+     *
+     * @param mPassword The master password, already checked.
+     * @return The accounts, unmodifiable.
+     * @throws Exception If the account files cannot be read or decrypted.
+     */
+    public List<VaultEntry> entries(final String mPassword) throws Exception {
+        return current(mPassword).columns.entries();
+    }
+
+    /**
+     * Returns all accounts with their ids as stored in memory, by column, in the order they are stored in.
+     *
+     * @param mPassword The master password, already checked.
+     * @return The accounts.
+     * @throws Exception If the account files cannot be read or decrypted.
+     */
+    public VaultColumns columns(final String mPassword) throws Exception {
+        return current(mPassword).columns;
+    }
+
+    /**
+     * Returns the publisher of the changes of the accounts. Subscribers are called on a thread of their own and
+     * should return quickly, a full buffer makes writers wait.
+     *
+     * @return The publisher.
+     */
+    public Flow.Publisher<VaultEvent> events() {
+        return publisher;
+    }
+
+    /**
+     * Returns the current snapshot, decrypting the account files only if they changed.
+     *
+     * @param mPassword The master password, already checked.
+     * @return The snapshot.
+     * @throws Exception If the account files cannot be read or decrypted.
+     */
+    private Snapshot current(final String mPassword) throws Exception {
+        long stamp = lock.tryOptimisticRead();
+        Snapshot current = snapshot;
+        if (!lock.validate(stamp)) {
+            stamp = lock.readLock();
+            try {
+                current = snapshot;
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+        if (current != null && current.isCurrent(mPassword)) {
+            return current;
+        }
+        stamp = lock.writeLock();
+        try {
+            return load(mPassword);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Adds accounts, recording the current time as their last modification.
+     *
+     * @param accounts  The accounts. Their last modification time is ignored.
+     * @param mPassword The master password, already checked.
+     * @return The added accounts as stored.
+     * @throws Exception If the account files cannot be read or written.
+     */
+    public List<VaultRecord> add(final List<VaultRecord> accounts, final String mPassword) throws Exception {
+        long now = System.currentTimeMillis();
+        List<VaultRecord> added = new ArrayList<>(accounts.size());
+        for (VaultRecord account : accounts) {
+            added.add(new VaultRecord(account.service(), account.username(), account.password(), now));
+        }
+        commit(mPassword, (entries, events) -> {
+            for (VaultRecord record : added) {
+                long id = nextId++;
+                entries.add(new VaultEntry(id, record));
+                events.add(new VaultEvent.Added(id, record));
+            }
+        });
+        return added;
+    }
+
+    /**
+     * Replaces an account. The last modification time is set to now if the password changed.
+     *
+     * @param expected    The account as it was read.
+     * @param replacement The new values of the account. Its last modification time is ignored.
+     * @param mPassword   The master password, already checked.
+     * @return The account as stored.
+     * @throws Exception             If the account files cannot be read or written.
+     * @throws IllegalStateException If the account was changed or removed since it was read.
+     */
+    public VaultRecord update(final VaultRecord expected, final VaultRecord replacement, final String mPassword)
+            throws Exception {
+        long lastModified = replacement.password().equals(expected.password()) ? expected.lastModified()
+                : System.currentTimeMillis();
+        VaultRecord stored = new VaultRecord(replacement.service(), replacement.username(), replacement.password(),
+                lastModified);
+        commit(mPassword, (entries, events) -> {
+            int index = indexOf(entries, expected);
+            long id = entries.get(index).id();
+            entries.set(index, new VaultEntry(id, stored));
+            events.add(new VaultEvent.Updated(id, expected, stored));
+        });
+        return stored;
+    }
+
+    /**
+     * Removes an account.
+     *
+     * @param expected  The account as it was read.
+     * @param mPassword The master password, already checked.
+     * @throws Exception             If the account files cannot be read or written.
+     * @throws IllegalStateException If the account was changed or removed since it was read.
+     */
+    public void remove(final VaultRecord expected, final String mPassword) throws Exception {
+        commit(mPassword, (entries, events) -> {
+            VaultEntry removed = entries.remove(indexOf(entries, expected));
+            events.add(new VaultEvent.Removed(removed.id(), removed.record()));
+        });
+    }
+
+    /**
+     * Encrypts all files of the vault with a new master password.
+     *
+     * @param mPassword The current master password, already checked.
+     * @param newpass   The new master password.
+     * @throws Exception If a file cannot be read, decrypted or written.
+     */
+    public void changeMasterPassword(final String mPassword, final String newpass) throws Exception {
+        long stamp = lock.writeLock();
+        try (FileChannel fileLock = PasswordTools.lockVault()) {
+            PasswordTools.recoverVault();
+            markStale(); //Starting from the files, the snapshot may be older
+            Snapshot current = requireConsistent(load(mPassword));
+            long version = current.version + 1;
+            try {
+                PasswordTools.writeVaultRecords(current.columns.records(), newpass, version);
+                PasswordTools.addDataWithoutAppend(PasswordTools.M_PASS_LOCATION, newpass, newpass);
+            } catch (Exception e) {
+                markStale(); //Decrypting what is on disk on the next read
+                throw e;
+            }
+            //The accounts keep their ids, only the master password of the snapshot changes
+            snapshot = new Snapshot(newpass, current.columns, version, PasswordTools.getVaultLastModified());
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Returns how many writes were rebased onto accounts another instance committed in the meantime.
+     *
+     * @return The number of rebased writes since the start of the process.
+     */
+    public long rebaseCount() {
+        return rebases.sum();
+    }
+
+    /**
+     * Applies a change to the current accounts and commits the result. Holds the write lock of the process and
+     * the file lock of the folder throughout.
+     *
+     * @param mPassword The master password.
+     * @param change    The change, applied to a modifiable copy of the accounts. Throws to abort the write.
+     * @throws Exception If the account files cannot be read or written, or the change failed.
+     */
+    private void commit(final String mPassword, final Change change) throws Exception {
+        long stamp = lock.writeLock();
+        try (FileChannel fileLock = PasswordTools.lockVault()) {
+            if (PasswordTools.recoverVault()) {
+                markStale(); //A commit interrupted by a crash was completed
+            }
+            Snapshot previous = snapshot;
+            Snapshot base = load(mPassword);
+            if (base.version != PasswordTools.getVaultVersion()) {
+                //Another instance committed within the resolution of the modification time
+                markStale();
+                base = load(mPassword);
+            }
+            requireConsistent(base);
+            if (previous != null && previous.version != base.version && previous.mPassword.equals(mPassword)) {
+                rebases.increment(); //The change is applied to what the other instance committed
+            }
+            List<VaultEntry> updated = new ArrayList<>(base.columns.entries());
+            List<VaultEvent> events = new ArrayList<>();
+            change.apply(updated, events);
+            store(updated, mPassword, base.version + 1);
+            publish(events);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Returns the current snapshot, decrypting the account files if they changed. Changes found in the files are
+     * published. Requires the write lock.
+     *
+     * @param mPassword The master password.
+     * @return The snapshot.
+     * @throws Exception If the account files cannot be read or decrypted.
+     */
+    private Snapshot load(final String mPassword) throws Exception {
+        if (snapshot == null || !snapshot.isCurrent(mPassword)) {
+            FlightRecording.VaultLoad recorded = new FlightRecording.VaultLoad();
+            recorded.begin();
+            long modified = PasswordTools.getVaultLastModified(); //Before reading, so later commits are noticed
+            VaultFiles.Contents contents = PasswordTools.readAccountFiles();
+            List<VaultRecord> records = new ArrayList<>();
+            for (VaultRecord record : PasswordTools.decodeRecords(contents, mPassword)) {
+                if (!record.service().isEmpty() || !record.username().isEmpty() || !record.password().isEmpty()) {
+                    records.add(record); //Skipping the empty record an empty account file yields
+                }
+            }
+            List<VaultEvent> events = new ArrayList<>();
+            List<VaultEntry> entries = identify(records, events);
+            //Accounts from files of different commits are shown, but read again every time and never written back
+            snapshot = new Snapshot(mPassword, VaultColumns.of(entries), contents.version(),
+                    contents.consistent() ? modified : Snapshot.STALE);
+            publish(events);
+            for (VaultFiles.Entry entry : contents.entries()) {
+                recorded.bytes += entry == null ? 0 : entry.ciphertext().length;
+            }
+            recorded.entries = records.size();
+            recorded.version = contents.version();
+            recorded.commit();
+        }
+        return snapshot;
+    }
+
+    /**
+     * Checks that a snapshot was read from the files of one commit, so a write based on it cannot store accounts
+     * whose service, username and password come from different commits.
+     *
+     * @param loaded The snapshot just returned by {@link #load(String)}.
+     * @return The snapshot.
+     * @throws IOException If the files are from different commits, which {@link PasswordTools#recoverVault()}
+     *                     could not repair.
+     */
+    private static Snapshot requireConsistent(final Snapshot loaded) throws IOException {
+        if (loaded.modified == Snapshot.STALE) {
+            throw new IOException("The account files are from different versions and could not be restored, "
+                    + "refusing to write. Restore them from a backup.");
+        }
+        return loaded;
+    }
+
+    /**
+     * Gives accounts read from the files the ids they had in the snapshot. Equal accounts keep their ids in order,
+     * an account that replaced one at the same position keeps the id of that one and counts as updated. Requires
+     * the write lock.
+     *
+     * @param records The accounts read.
+     * @param events  Receives the differences to the snapshot; nothing is added on the first read.
+     * @return The accounts with their ids.
+     */
+    private List<VaultEntry> identify(final List<VaultRecord> records, final List<VaultEvent> events) {
+        //Copied once, the view would create every record again on every access
+        List<VaultEntry> previous = snapshot == null ? List.of() : new ArrayList<>(snapshot.columns.entries());
+        Map<VaultRecord, Deque<VaultEntry>> unmatched = new HashMap<>();
+        for (VaultEntry entry : previous) {
+            unmatched.computeIfAbsent(entry.record(), record -> new ArrayDeque<>()).add(entry);
+        }
+        VaultEntry[] matched = new VaultEntry[records.size()];
+        for (int i = 0; i < matched.length; i++) {
+            Deque<VaultEntry> candidates = unmatched.get(records.get(i));
+            matched[i] = candidates == null ? null : candidates.poll();
+        }
+        Set<Long> gone = new HashSet<>();
+        for (Deque<VaultEntry> candidates : unmatched.values()) {
+            for (VaultEntry entry : candidates) {
+                gone.add(entry.id());
+            }
+        }
+
+        List<VaultEntry> entries = new ArrayList<>(records.size());
+        for (int i = 0; i < matched.length; i++) {
+            VaultRecord record = records.get(i);
+            VaultEntry replaced = i < previous.size() ? previous.get(i) : null;
+            if (matched[i] != null) {
+                entries.add(matched[i]);
+            } else if (replaced != null && gone.remove(replaced.id())) {
+                entries.add(new VaultEntry(replaced.id(), record));
+                events.add(new VaultEvent.Updated(replaced.id(), replaced.record(), record));
+            } else {
+                long id = nextId++;
+                entries.add(new VaultEntry(id, record));
+                if (snapshot != null) {
+                    events.add(new VaultEvent.Added(id, record));
+                }
+            }
+        }
+        for (VaultEntry entry : previous) {
+            if (gone.contains(entry.id())) {
+                events.add(new VaultEvent.Removed(entry.id(), entry.record()));
+            }
+        }
+        return entries;
+    }
+
+    /**
+     * Writes the accounts to the account files and publishes them as the new snapshot. Requires the write lock and
+     * the file lock.
+     *
+     * @param entries   The accounts with their ids.
+     * @param mPassword The master password.
+     * @param version   The version of the commit.
+     * @throws Exception If the files cannot be written.
+     */
+    private void store(final List<VaultEntry> entries, final String mPassword, final long version)
+            throws Exception {
+        List<VaultRecord> records = new ArrayList<>(entries.size());
+        for (VaultEntry entry : entries) {
+            records.add(entry.record());
+        }
+        VaultColumns columns = VaultColumns.of(entries);
+        try {
+            PasswordTools.writeVaultRecords(records, mPassword, version);
+        } catch (Exception e) {
+            markStale(); //Some files may have been written, the next read decrypts what is on disk
+            throw e;
+        }
+        snapshot = new Snapshot(mPassword, columns, version, PasswordTools.getVaultLastModified());
+    }
+
+    /**
+     * Makes the next read decrypt the account files again, keeping the snapshot to give the accounts their ids.
+     * Requires the write lock.
+     */
+    private void markStale() {
+        if (snapshot != null) {
+            snapshot = new Snapshot(snapshot.mPassword, snapshot.columns, snapshot.version, Snapshot.STALE);
+        }
+    }
+
+    /**
+     * Publishes changes to the subscribers. Requires the write lock.
+     *
+     * @param events The changes in the order they happened.
+     */
+    private void publish(final List<VaultEvent> events) {
+        for (VaultEvent event : events) {
+            publisher.submit(event);
+        }
+    }
+
+    /**
+     * Finds an account as it was read.
+     *
+     * @param entries  The current accounts.
+     * @param expected The account as it was read.
+     * @return Its position.
+     * @throws IllegalStateException If it is not among the current accounts.
+     */
+    private static int indexOf(final List<VaultEntry> entries, final VaultRecord expected) {
+        for (int i = 0; i < entries.size(); i++) {
+            if (entries.get(i).record().equals(expected)) {
+                return i;
+            }
+        }
+        throw new IllegalStateException("The account '" + expected.service()
+                + "' was changed or deleted in the meantime");
+    }
+
+    /**
+     * Decrypted accounts and the state of the files they were read from.
+     *
+     * @param mPassword The master password they were decrypted with.
+     * @param columns   The accounts with their ids.
+     * @param version   The version of the commit they were read from or written with.
+     * @param modified  When the account files were last modified at the time, in nanoseconds, or {@link #STALE}.
+     */
+    private record Snapshot(String mPassword, VaultColumns columns, long version, long modified) {
+
+        /**
+         * Modification time of a snapshot that has to be read again.
+         */
+        static final long STALE = Long.MIN_VALUE;
+
+        /**
+         * Checks whether the snapshot still reflects the files and was decrypted with the given master password.
+         *
+         * @param masterPassword The master password of the caller.
+         * @return True if the snapshot can be used.
+         * @throws IOException If the modification time cannot be read.
+         */
+        boolean isCurrent(final String masterPassword) throws IOException {
+            return mPassword.equals(masterPassword) && modified == PasswordTools.getVaultLastModified();
+        }
+    }
+
+    /**
+     * A change of the accounts, applied by a writer.
+     */
+    @FunctionalInterface
+    private interface Change {
+
+        /**
+         * Applies the change.
+         *
+         * @param entries The current accounts, to be modified in place.
+         * @param events  Receives the changes made, published once they are written.
+         * @throws IllegalStateException If the change does not apply to the current accounts.
+         */
+        void apply(List<VaultEntry> entries, List<VaultEvent> events);
+    }
+
+    /**
+     * Lazily creates the store of this process.
+     */
+    private static final class Holder {
+
+        /**
+         * The store.
+         */
+        private static final VaultStore INSTANCE = new VaultStore();
+    }
+}
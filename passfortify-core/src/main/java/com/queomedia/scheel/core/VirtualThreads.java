@@ -0,0 +1,74 @@
+package com.queomedia.scheel.core;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Creates executors running every task on its own virtual thread where the runtime supports them.
+ *
+ * <p>The project is compiled for Java 17, which has no virtual threads, so
+ * {@code Executors.newVirtualThreadPerTaskExecutor()} is looked up reflectively. On Java 21 and later every task
+ * gets a cheap virtual thread; on older runtimes a cached pool of daemon platform threads is used instead, which
+ * behaves the same for the small number of concurrent clients a local server sees.</p>
+ */
+public final class VirtualThreads {
+
+    /**
+     * The factory method of virtual thread executors, null if the runtime has none.
+     */
+    private static final Method NEW_VIRTUAL_THREAD_EXECUTOR = findFactory();
+
+    /**
+     * Not to be instantiated.
+     */
+    private VirtualThreads() {
+    }
+
+    /**
+     * Creates an executor that starts a new thread for every task.
+     *
+     * @param name Prefix of the thread names of the platform thread fallback.
+     * @return The executor.
+     */
+    public static ExecutorService newThreadPerTaskExecutor(final String name) {
+        if (NEW_VIRTUAL_THREAD_EXECUTOR != null) {
+            try {
+                return (ExecutorService) NEW_VIRTUAL_THREAD_EXECUTOR.invoke(null);
+            } catch (ReflectiveOperationException e) {
+                //Falling back to platform threads below
+            }
+        }
+        AtomicInteger counter = new AtomicInteger();
+        ThreadFactory factory = task -> {
+            Thread thread = new Thread(task, name + "-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+        return Executors.newCachedThreadPool(factory);
+    }
+
+    /**
+     * Checks whether tasks run on virtual threads.
+     *
+     * @return True if the runtime supports virtual threads.
+     */
+    public static boolean isSupported() {
+        return NEW_VIRTUAL_THREAD_EXECUTOR != null;
+    }
+
+    /**
+     * Looks up {@code Executors.newVirtualThreadPerTaskExecutor()}.
+     *
+     * @return The method, or null if the runtime has no virtual threads.
+     */
+    private static Method findFactory() {
+        try {
+            return Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+        } catch (NoSuchMethodException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package com.queomedia.scheel.core;
+
+/**
+ * A list of words passphrases can be drawn from.
+ *
+ * <p>Implementations are expected to be immutable and safe to use from several threads.</p>
+ *
+ * @see Wordlist
+ * @see MappedWordlist
+ */
+public interface WordSource {
+
+    /**
+     * Returns the number of words.
+     *
+     * @return The size of the list.
+     */
+    int size();
+
+    /**
+     * Returns the number of words that change when their first letter is capitalized.
+     *
+     * @return The number of words starting with a cased letter.
+     */
+    int casedCount();
+
+    /**
+     * Appends a word to a StringBuilder without creating an intermediate string.
+     *
+     * @param index  Index of the word, between 0 and {@link #size()} exclusive.
+     * @param target The builder to append to.
+     */
+    void appendWord(int index, StringBuilder target);
+}
@@ -0,0 +1,173 @@
+package com.queomedia.scheel.core;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Compact, immutable in-memory wordlist.
+ *
+ * <p>All words are stored back to back in a single {@code char[]}, with an offsets array marking where each word
+ * starts. Compared to a {@code List<String>} this avoids one object header, one string and one backing array per
+ * word, and lets a word be appended to a {@link StringBuilder} without creating a string at all.</p>
+ *
+ * <p>The DiceWare based wordlist used for passphrases is bundled with the application and loaded once on first
+ * use through {@link #bundled()}.</p>
+ */
+public class Wordlist implements WordSource {
+
+    /**
+     * Classpath resource holding the bundled wordlist, one word per line.
+     */
+    private static final String BUNDLED_WORDLIST = "wordlist.txt";
+
+    /**
+     * Characters of all words, back to back.
+     */
+    private final char[] characters;
+
+    /**
+     * Start of every word in {@link #characters}, followed by the end of the last word.
+     */
+    private final int[] offsets;
+
+    /**
+     * Number of words starting with a cased letter.
+     */
+    private final int casedCount;
+
+    /**
+     * Creates a wordlist from its packed representation.
+     *
+     * @param characters Characters of all words.
+     * @param offsets    Start of every word plus the end of the last one.
+     * @param casedCount Number of words starting with a cased letter.
+     */
+    private Wordlist(final char[] characters, final int[] offsets, final int casedCount) {
+        this.characters = characters;
+        this.offsets = offsets;
+        this.casedCount = casedCount;
+    }
+
+    /**
+     * Returns the wordlist bundled with the application. It is loaded the first time this method is called.
+     *
+     * @return The bundled wordlist.
+     * @throws UncheckedIOException If the bundled wordlist cannot be read.
+     */
+    public static Wordlist bundled() {
+        return BundledHolder.WORDLIST;
+    }
+
+    /**
+     * Reads a wordlist with one word per line. Surrounding whitespace is removed and empty lines are skipped.
+     *
+     * @param in The UTF-8 encoded wordlist, not closed by this method.
+     * @return The wordlist.
+     * @throws IOException If reading fails.
+     */
+    public static Wordlist read(final InputStream in) throws IOException {
+        String content = new String(in.readAllBytes(), UTF_8);
+        char[] characters = new char[content.length()];
+        int[] offsets = new int[64];
+        int count = 0;
+        int length = 0;
+        int casedCount = 0;
+
+        int lineStart = 0;
+        while (lineStart < content.length()) {
+            int lineEnd = content.indexOf('\n', lineStart);
+            if (lineEnd < 0) {
+                lineEnd = content.length();
+            }
+            //Trimming by index, so no substring is created for every line
+            int wordStart = lineStart;
+            int wordEnd = lineEnd;
+            while (wordStart < wordEnd && Character.isWhitespace(content.charAt(wordStart))) {
+                wordStart++;
+            }
+            while (wordEnd > wordStart && Character.isWhitespace(content.charAt(wordEnd - 1))) {
+                wordEnd--;
+            }
+            if (wordEnd > wordStart) {
+                if (count + 1 >= offsets.length) {
+                    offsets = Arrays.copyOf(offsets, offsets.length * 2);
+                }
+                offsets[count++] = length;
+                if (isCased(content.codePointAt(wordStart))) {
+                    casedCount++;
+                }
+                content.getChars(wordStart, wordEnd, characters, length);
+                length += wordEnd - wordStart;
+            }
+            lineStart = lineEnd + 1;
+        }
+        offsets[count] = length;
+        return new Wordlist(Arrays.copyOf(characters, length), Arrays.copyOf(offsets, count + 1), casedCount);
+    }
+
+    /**
+     * Checks whether capitalizing a character changes it.
+     *
+     * @param codePoint The first character of a word.
+     * @return True if the character has a distinct upper case form.
+     */
+    static boolean isCased(final int codePoint) {
+        return Character.toUpperCase(codePoint) != codePoint;
+    }
+
+    @Override
+    public int size() {
+        return offsets.length - 1;
+    }
+
+    @Override
+    public int casedCount() {
+        return casedCount;
+    }
+
+    @Override
+    public void appendWord(final int index, final StringBuilder target) {
+        target.append(characters, offsets[index], offsets[index + 1] - offsets[index]);
+    }
+
+    /**
+     * Returns a word as a string.
+     *
+     * @param index Index of the word.
+     * @return The word.
+     */
+    public String word(final int index) {
+        return new String(characters, offsets[index], offsets[index + 1] - offsets[index]);
+    }
+
+    /**
+     * Loads the bundled wordlist on first use.
+     */
+    private static final class BundledHolder {
+
+        /**
+         * The bundled wordlist.
+         */
+        private static final Wordlist WORDLIST = load();
+
+        /**
+         * Reads the bundled wordlist from the classpath.
+         *
+         * @return The wordlist.
+         */
+        private static Wordlist load() {
+            try (InputStream in = Wordlist.class.getResourceAsStream(BUNDLED_WORDLIST)) {
+                if (in == null) {
+                    throw new IOException("Bundled wordlist " + BUNDLED_WORDLIST + " is missing");
+                }
+                return read(in);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,6 @@
+module com.queomedia.scheel.core {
+    requires java.management;
+    requires jdk.jfr;
+
+    exports com.queomedia.scheel.core;
+}
@@ -0,0 +1,141 @@
+package com.queomedia.scheel.core;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests of {@link BreachFilter} built from small hash files in a temporary directory.
+ */
+class BreachFilterTest {
+
+    /**
+     * Number of breached passwords in the generated hash file.
+     */
+    private static final int BREACHED = 5_000;
+
+    /**
+     * Every hash the filter was built from passes it, and other hashes only rarely do.
+     *
+     * @param directory A temporary directory.
+     * @throws IOException If the files cannot be written or mapped.
+     */
+    @Test
+    void hasNoFalseNegatives(@TempDir final Path directory) throws IOException {
+        Path hashFile = BreachIndexTest.writeHashFile(directory, BREACHED);
+        try (BreachFilter filter = BreachFilter.build(hashFile, BreachFilter.defaultLocation(hashFile), 0.01, 0)) {
+            assertEquals(BREACHED, filter.entryCount());
+            assertTrue(filter.falsePositiveRate() <= 0.011, "Expected rate " + filter.falsePositiveRate());
+            int falsePositives = 0;
+            for (int i = 0; i < BREACHED; i++) {
+                assertTrue(filter.mightContain("breached-" + i), "breached-" + i);
+                if (filter.mightContain("safe-" + i)) {
+                    falsePositives++;
+                }
+            }
+            //Four times the expected rate leaves room for chance
+            assertTrue(falsePositives < BREACHED * 0.04, falsePositives + " false positives");
+        }
+    }
+
+    /**
+     * A size bound smaller than needed keeps the filter within the bound and reports the higher rate.
+     *
+     * @param directory A temporary directory.
+     * @throws IOException If the files cannot be written or mapped.
+     */
+    @Test
+    void sizeBoundRaisesRate(@TempDir final Path directory) throws IOException {
+        Path hashFile = BreachIndexTest.writeHashFile(directory, BREACHED);
+        Path filterFile = BreachFilter.defaultLocation(hashFile);
+        try (BreachFilter filter = BreachFilter.build(hashFile, filterFile, 0.001, 1024)) {
+            assertEquals(1024 * Byte.SIZE, filter.bitCount());
+            assertEquals(BreachFilter.HEADER_SIZE + 1024, Files.size(filterFile));
+            assertTrue(filter.falsePositiveRate() > 0.001);
+            for (int i = 0; i < BREACHED; i++) {
+                assertTrue(filter.mightContain("breached-" + i), "breached-" + i);
+            }
+        }
+    }
+
+    /**
+     * Files that are not filters, filters of other versions and damaged filters are rejected.
+     *
+     * @param directory A temporary directory.
+     * @throws IOException If the files cannot be written.
+     */
+    @Test
+    void validatesHeader(@TempDir final Path directory) throws IOException {
+        Path hashFile = BreachIndexTest.writeHashFile(directory, 100);
+        Path filterFile = BreachFilter.defaultLocation(hashFile);
+        BreachFilter.build(hashFile, filterFile, 0.01, 0).close();
+        byte[] valid = Files.readAllBytes(filterFile);
+
+        Path other = directory.resolve("other.bloom");
+        Files.write(other, new byte[BreachFilter.HEADER_SIZE + Long.BYTES]);
+        assertThrows(IllegalArgumentException.class, () -> BreachFilter.open(other));
+
+        Path shortFile = directory.resolve("short.bloom");
+        Files.write(shortFile, new byte[] {'P', 'F', 'B', 'F'});
+        assertThrows(IllegalArgumentException.class, () -> BreachFilter.open(shortFile));
+
+        Path newer = directory.resolve("newer.bloom");
+        Files.write(newer, withLong(valid, 0, ((long) BreachFilter.MAGIC << Integer.SIZE) | 2));
+        assertThrows(IllegalArgumentException.class, () -> BreachFilter.open(newer));
+
+        Path truncated = directory.resolve("truncated.bloom");
+        Files.write(truncated, Arrays.copyOf(valid, valid.length - Long.BYTES));
+        assertThrows(IllegalArgumentException.class, () -> BreachFilter.open(truncated));
+
+        Path noBits = directory.resolve("no-bits.bloom");
+        Files.write(noBits, withLong(valid, 16, 0));
+        assertThrows(IllegalArgumentException.class, () -> BreachFilter.open(noBits));
+
+        Path noHashFunctions = directory.resolve("no-hash-functions.bloom");
+        Files.write(noHashFunctions, withLong(valid, 8, 0));
+        assertThrows(IllegalArgumentException.class, () -> BreachFilter.open(noHashFunctions));
+
+        try (BreachFilter filter = BreachFilter.open(filterFile)) {
+            assertEquals(100, filter.entryCount());
+        }
+    }
+
+    /**
+     * Rates outside of (0, 1) are rejected before anything is written.
+     *
+     * @param directory A temporary directory.
+     * @throws IOException If the hash file cannot be written.
+     */
+    @Test
+    void rejectsInvalidRate(@TempDir final Path directory) throws IOException {
+        Path hashFile = BreachIndexTest.writeHashFile(directory, 10);
+        Path filterFile = BreachFilter.defaultLocation(hashFile);
+        assertThrows(IllegalArgumentException.class, () -> BreachFilter.build(hashFile, filterFile, 0, 0));
+        assertThrows(IllegalArgumentException.class, () -> BreachFilter.build(hashFile, filterFile, 1, 0));
+        assertFalse(Files.exists(filterFile));
+    }
+
+    /**
+     * Replaces a long in a copy of a file.
+     *
+     * @param bytes    The file content.
+     * @param position The position of the long.
+     * @param value    The new value.
+     * @return The changed copy.
+     */
+    private static byte[] withLong(final byte[] bytes, final int position, final long value) {
+        byte[] copy = bytes.clone();
+        ByteBuffer.wrap(copy).putLong(position, value);
+        return copy;
+    }
+}
@@ -0,0 +1,157 @@
+package com.queomedia.scheel.core;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import static java.nio.charset.StandardCharsets.US_ASCII;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests of {@link BreachIndex} on small sorted hash files written to a temporary directory.
+ */
+class BreachIndexTest {
+
+    /**
+     * Number of breached passwords in the generated hash file.
+     */
+    private static final int BREACHED = 2_000;
+
+    /**
+     * Every listed password is found with its count, every other password is not, whichever prefix it falls into.
+     *
+     * @param directory A temporary directory.
+     * @throws IOException If the hash file cannot be written or mapped.
+     */
+    @Test
+    void findsListedHashesWithTheirCounts(@TempDir final Path directory) throws IOException {
+        Path path = writeHashFile(directory, BREACHED);
+        try (BreachIndex index = BreachIndex.open(path)) {
+            assertFalse(index.hasFilter());
+            for (int i = 0; i < BREACHED; i++) {
+                assertEquals(i + 1, index.breachCount("breached-" + i), "breached-" + i);
+                assertEquals(0, index.breachCount("safe-" + i), "safe-" + i);
+            }
+        }
+    }
+
+    /**
+     * The first and the last line of the file and of the lowest and highest prefix are found.
+     *
+     * @param directory A temporary directory.
+     * @throws IOException If the hash file cannot be written or mapped.
+     */
+    @Test
+    void findsHashesAtTheEdges(@TempDir final Path directory) throws IOException {
+        String first = "0".repeat(BreachIndex.HASH_LENGTH);
+        String last = "F".repeat(BreachIndex.HASH_LENGTH);
+        String middle = "8" + "0".repeat(BreachIndex.HASH_LENGTH - 1);
+        Path path = directory.resolve("edges.txt");
+        Files.writeString(path, first + ":3\n" + middle + ":5\n" + last + ":7", US_ASCII);
+        try (BreachIndex index = BreachIndex.open(path)) {
+            assertEquals(3, index.breachCount(first.getBytes(US_ASCII)));
+            assertEquals(5, index.breachCount(middle.getBytes(US_ASCII)));
+            assertEquals(7, index.breachCount(last.getBytes(US_ASCII)));
+            assertEquals(0, index.breachCount(("0".repeat(BreachIndex.HASH_LENGTH - 1) + "1").getBytes(US_ASCII)));
+            assertEquals(0, index.breachCount(("E" + "F".repeat(BreachIndex.HASH_LENGTH - 1)).getBytes(US_ASCII)));
+        }
+    }
+
+    /**
+     * Counts are optional and may be followed by a carriage return; lower case hashes are found as well.
+     *
+     * @param directory A temporary directory.
+     * @throws IOException If the hash file cannot be written or mapped.
+     */
+    @Test
+    void parsesCountsAndLineEndings(@TempDir final Path directory) throws IOException {
+        List<String> hashes = sortedHashes("a", "b", "c", "d");
+        Path path = directory.resolve("counts.txt");
+        Files.writeString(path, hashes.get(0) + ":12\r\n" + hashes.get(1) + "\r\n"
+                + hashes.get(2).toLowerCase(Locale.ROOT) + ":0\n" + hashes.get(3) + ":9876543210", US_ASCII);
+        try (BreachIndex index = BreachIndex.open(path)) {
+            assertEquals(12, index.breachCount(hashes.get(0).getBytes(US_ASCII)));
+            assertEquals(1, index.breachCount(hashes.get(1).getBytes(US_ASCII)), "Missing count counts as one");
+            assertEquals(1, index.breachCount(hashes.get(2).getBytes(US_ASCII)), "Listed hashes count at least once");
+            assertEquals(9_876_543_210L, index.breachCount(hashes.get(3).getBytes(US_ASCII)));
+        }
+    }
+
+    /**
+     * Lookups screened by a filter built from the same file give the same results.
+     *
+     * @param directory A temporary directory.
+     * @throws IOException If the files cannot be written or mapped.
+     */
+    @Test
+    void filterDoesNotChangeResults(@TempDir final Path directory) throws IOException {
+        Path path = writeHashFile(directory, BREACHED);
+        BreachFilter.build(path, BreachFilter.defaultLocation(path), 0.01, 0).close();
+        try (BreachIndex index = BreachIndex.open(path)) {
+            assertTrue(index.hasFilter());
+            for (int i = 0; i < BREACHED; i++) {
+                assertEquals(i + 1, index.breachCount("breached-" + i), "breached-" + i);
+                assertEquals(0, index.breachCount("safe-" + i), "safe-" + i);
+            }
+        }
+    }
+
+    /**
+     * Files that do not start with a hash are rejected, missing files are reported as such.
+     *
+     * @param directory A temporary directory.
+     * @throws IOException If the file cannot be written.
+     */
+    @Test
+    void rejectsOtherFiles(@TempDir final Path directory) throws IOException {
+        Path path = directory.resolve("other.txt");
+        Files.writeString(path, "This is not a list of SHA-1 hashes, it only is long enough", US_ASCII);
+        assertThrows(IllegalArgumentException.class, () -> BreachIndex.open(path));
+        assertThrows(NoSuchFileException.class, () -> BreachIndex.open(directory.resolve("missing.txt")));
+    }
+
+    /**
+     * Writes a hash file listing the passwords {@code breached-0} to {@code breached-<count - 1>}, password i with
+     * the count i + 1, sorted by hash.
+     *
+     * @param directory The directory to write to.
+     * @param count     The number of passwords.
+     * @return The hash file.
+     * @throws IOException If the file cannot be written.
+     */
+    static Path writeHashFile(final Path directory, final int count) throws IOException {
+        List<String> lines = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            lines.add(new String(BreachIndex.sha1Hex("breached-" + i), US_ASCII) + ":" + (i + 1));
+        }
+        lines.sort(null);
+        Path path = directory.resolve("pwned-passwords-sha1.txt");
+        Files.write(path, lines, US_ASCII);
+        return path;
+    }
+
+    /**
+     * Hashes passwords.
+     *
+     * @param passwords The passwords.
+     * @return Their upper case hex hashes, sorted.
+     */
+    private static List<String> sortedHashes(final String... passwords) {
+        List<String> hashes = new ArrayList<>();
+        for (String password : passwords) {
+            hashes.add(new String(BreachIndex.sha1Hex(password), US_ASCII));
+        }
+        hashes.sort(null);
+        return hashes;
+    }
+}
@@ -0,0 +1,57 @@
+package com.queomedia.scheel.core;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Locale;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Tests of {@link DictionaryTrie}.
+ */
+class DictionaryTrieTest {
+
+    /**
+     * Words and their prefixes are found with their rank, the most common rank of a repeated word wins.
+     */
+    @Test
+    void ranksOfWordsAndPrefixes() {
+        DictionaryTrie trie = DictionaryTrie.compile(Map.of("pass", 7, "password", 2, "PASSWORD", 1, "", 3));
+        assertEquals(0, trie.rank(walk(trie, "pas")));
+        assertEquals(7, trie.rank(walk(trie, "pass")));
+        assertEquals(1, trie.rank(walk(trie, "password")));
+        assertEquals(DictionaryTrie.NO_NODE, walk(trie, "passe"));
+        assertEquals(8, trie.maxDepth());
+    }
+
+    /**
+     * Words are lower cased the same way under every default locale.
+     */
+    @Test
+    void lowerCasingIgnoresDefaultLocale() {
+        Locale locale = Locale.getDefault();
+        try {
+            Locale.setDefault(Locale.forLanguageTag("tr"));
+            DictionaryTrie trie = DictionaryTrie.compile(Map.of("ADMIN", 1));
+            assertEquals(1, trie.rank(walk(trie, "admin")));
+        } finally {
+            Locale.setDefault(locale);
+        }
+    }
+
+    /**
+     * Follows a word from the root.
+     *
+     * @param trie The trie.
+     * @param word The word in lower case.
+     * @return The node the word ends at, or {@link DictionaryTrie#NO_NODE}.
+     */
+    private static int walk(final DictionaryTrie trie, final String word) {
+        int node = DictionaryTrie.ROOT;
+        for (int i = 0; i < word.length() && node != DictionaryTrie.NO_NODE; i++) {
+            node = trie.step(node, word.charAt(i));
+        }
+        return node;
+    }
+}
@@ -0,0 +1,115 @@
+package com.queomedia.scheel.core;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Tests of {@link FieldBuffer} in both formats: values written by {@link FieldBuffer#append} are read back
+ * unchanged, and files of earlier releases are split exactly as {@link String#split(String)} split them.
+ */
+class FieldBufferTest {
+
+    /**
+     * Line separator of the platform, separating the fields of the line format.
+     */
+    private static final String SEPARATOR = System.lineSeparator();
+
+    /**
+     * Values containing line breaks, backslashes and non-ASCII characters are read back unchanged.
+     */
+    @Test
+    void escapedValuesRoundTrip() {
+        List<String> values = List.of("plain", "", "two\nlines", "crlf\r\n", "\\", "back\\slash\\", "\\n literal",
+                "trailing\\", "\r", "Äpfel ✓", "\n\n");
+        StringBuilder fields = new StringBuilder();
+        values.forEach(value -> FieldBuffer.append(fields, value));
+        FieldBuffer buffer = FieldBuffer.parse(fields.toString().getBytes(UTF_8), true);
+        assertEquals(values.size(), buffer.size());
+        for (int i = 0; i < values.size(); i++) {
+            assertEquals(values.get(i), buffer.string(i));
+        }
+        assertEquals("", buffer.string(values.size()));
+    }
+
+    /**
+     * Escape sequences are resolved, unknown ones keep the escaped character, and a last field may lack its
+     * terminator.
+     */
+    @Test
+    void escapeSequencesAreResolved() {
+        FieldBuffer buffer = parseEscaped("a\\nb\n\\r\\\\\n\\x\nlast");
+        assertArrayEquals(new String[] {"a\nb", "\r\\", "x", "last"}, strings(buffer));
+    }
+
+    /**
+     * A backslash right before the terminator or at the end of the file, which the format never writes, is taken
+     * literally instead of swallowing the terminator and merging two fields.
+     */
+    @Test
+    void trailingBackslashIsLiteral() {
+        assertArrayEquals(new String[] {"a\\", "b"}, strings(parseEscaped("a\\\nb\n")));
+        assertArrayEquals(new String[] {"a", "b\\"}, strings(parseEscaped("a\nb\\")));
+        assertArrayEquals(new String[] {"\\", "\\\\"}, strings(parseEscaped("\\\n\\\\\\\n")));
+    }
+
+    /**
+     * Files of earlier releases are split as {@link String#split(String)} split them: empty fields at the end are
+     * dropped, but a file without separator is one field, even if it is empty.
+     */
+    @Test
+    void linesAreSplitLikeEarlierReleases() {
+        for (String content : List.of("", "one", "one" + SEPARATOR + "two", "one" + SEPARATOR + "two" + SEPARATOR,
+                SEPARATOR, SEPARATOR + SEPARATOR, SEPARATOR + "one", "one" + SEPARATOR + SEPARATOR + "three",
+                "a\\nb" + SEPARATOR + "c\\" + SEPARATOR + SEPARATOR)) {
+            FieldBuffer buffer = FieldBuffer.parse(content.getBytes(UTF_8), false);
+            assertArrayEquals(content.split(SEPARATOR), strings(buffer), content);
+        }
+    }
+
+    /**
+     * Timestamps are parsed without creating strings, with the fallback for anything that is not a number.
+     */
+    @Test
+    void longValuesAreParsed() {
+        FieldBuffer buffer = parseEscaped("1700000000000\n -42 \n\nabc\n12a\n-\n99999999999999999999\n");
+        assertEquals(1700000000000L, buffer.longValue(0, 0));
+        assertEquals(-42, buffer.longValue(1, 0));
+        assertEquals(7, buffer.longValue(2, 7));
+        assertEquals(7, buffer.longValue(3, 7));
+        assertEquals(7, buffer.longValue(4, 7));
+        assertEquals(7, buffer.longValue(5, 7));
+        assertEquals(7, buffer.longValue(6, 7));
+        assertEquals(7, buffer.longValue(7, 7));
+        assertEquals(0, FieldBuffer.empty().size());
+        assertEquals(7, FieldBuffer.empty().longValue(0, 7));
+    }
+
+    /**
+     * Parses content in the escaped format.
+     *
+     * @param content The content.
+     * @return The buffer.
+     */
+    private static FieldBuffer parseEscaped(final String content) {
+        return FieldBuffer.parse(content.getBytes(UTF_8), true);
+    }
+
+    /**
+     * Returns all fields of a buffer.
+     *
+     * @param buffer The buffer.
+     * @return The fields as strings.
+     */
+    private static String[] strings(final FieldBuffer buffer) {
+        String[] strings = new String[buffer.size()];
+        for (int i = 0; i < strings.length; i++) {
+            strings[i] = buffer.string(i);
+        }
+        return strings;
+    }
+}
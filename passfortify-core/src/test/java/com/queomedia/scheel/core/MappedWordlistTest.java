@@ -0,0 +1,97 @@
+package com.queomedia.scheel.core;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.TreeSet;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+/**
+ * Tests of {@link MappedWordlist} on lists written to a temporary directory.
+ */
+class MappedWordlistTest {
+
+    /**
+     * Every word is indexed once, also if it repeats in other case or with surrounding whitespace.
+     *
+     * @param directory A temporary directory.
+     * @throws IOException If the list or its index cannot be written.
+     */
+    @Test
+    void repetitionsAreIndexedOnce(@TempDir final Path directory) throws IOException {
+        Path path = directory.resolve("words.txt");
+        Files.writeString(path, "Apfel\nbirne\n\n  APFEL \r\nÄpfel\näpfel\r\n123\nBirne\nzebra", UTF_8);
+        try (MappedWordlist wordlist = MappedWordlist.open(path)) {
+            assertEquals(List.of("123", "Apfel", "birne", "zebra", "Äpfel"), words(wordlist));
+            assertEquals(2, wordlist.casedCount()); //birne and zebra
+        }
+        assertFalse(Files.exists(directory.resolve("words.txt.idx.tmp")), "Temporary entries were left behind");
+    }
+
+    /**
+     * A list with many repetitions keeps exactly its distinct words; there are no hash collisions to lose one.
+     *
+     * @param directory A temporary directory.
+     * @throws IOException If the list or its index cannot be written.
+     */
+    @Test
+    void largeListKeepsEveryDistinctWord(@TempDir final Path directory) throws IOException {
+        StringBuilder list = new StringBuilder();
+        TreeSet<String> expected = new TreeSet<>();
+        for (int i = 0; i < 20_000; i++) {
+            String word = "w" + Integer.toString(i * 7919 % 5_000, 36);
+            list.append(i % 2 == 0 ? word : word.toUpperCase(Locale.ROOT)).append('\n');
+            expected.add(word);
+        }
+        Path path = directory.resolve("large.txt");
+        Files.writeString(path, list, UTF_8);
+        try (MappedWordlist wordlist = MappedWordlist.open(path)) {
+            TreeSet<String> actual = new TreeSet<>();
+            for (String word : words(wordlist)) {
+                actual.add(word.toLowerCase(Locale.ROOT));
+            }
+            assertEquals(expected.size(), wordlist.size());
+            assertEquals(expected, actual);
+        }
+    }
+
+    /**
+     * An empty list gives an empty index.
+     *
+     * @param directory A temporary directory.
+     * @throws IOException If the list or its index cannot be written.
+     */
+    @Test
+    void emptyList(@TempDir final Path directory) throws IOException {
+        Path path = directory.resolve("empty.txt");
+        Files.writeString(path, "\n \n", UTF_8);
+        try (MappedWordlist wordlist = MappedWordlist.open(path)) {
+            assertEquals(0, wordlist.size());
+        }
+    }
+
+    /**
+     * Reads every word of a list.
+     *
+     * @param wordlist The list.
+     * @return Its words in index order.
+     */
+    private static List<String> words(final WordSource wordlist) {
+        List<String> words = new ArrayList<>();
+        for (int i = 0; i < wordlist.size(); i++) {
+            StringBuilder word = new StringBuilder();
+            wordlist.appendWord(i, word);
+            words.add(word.toString());
+        }
+        return words;
+    }
+}
@@ -0,0 +1,138 @@
+package com.queomedia.scheel.core;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests of {@link PasswordGenerator}: the bounds and distribution of the rejection sampling, and the minimum counts
+ * of every character class in the generated passwords.
+ */
+class PasswordGeneratorTest {
+
+    /**
+     * Number of passwords generated per policy.
+     */
+    private static final int PASSWORDS = 2000;
+
+    /**
+     * Indices stay below their bound, on both sides of the switch from one to two random bytes.
+     */
+    @Test
+    void indicesStayWithinBounds() {
+        PasswordGenerator.RandomBlock random = new PasswordGenerator.RandomBlock();
+        for (int bound : new int[] {1, 2, 3, 255, 256, 257, 65535, 65536}) {
+            for (int i = 0; i < 10_000; i++) {
+                int index = random.nextIndex(bound);
+                assertTrue(index >= 0 && index < bound, "Index " + index + " out of bound " + bound);
+            }
+        }
+    }
+
+    /**
+     * Every index is drawn about equally often, also for bounds that do not divide the range of a byte.
+     */
+    @Test
+    void indicesAreUniform() {
+        PasswordGenerator.RandomBlock random = new PasswordGenerator.RandomBlock();
+        for (int bound : new int[] {3, 7, 100, 300}) {
+            int draws = bound * 1000;
+            int[] counts = new int[bound];
+            for (int i = 0; i < draws; i++) {
+                counts[random.nextIndex(bound)]++;
+            }
+            for (int index = 0; index < bound; index++) {
+                //1000 expected draws per index, a deviation of 25 % is about eight standard deviations
+                assertTrue(counts[index] > 750 && counts[index] < 1250,
+                        "Index " + index + " of " + bound + " drawn " + counts[index] + " times");
+            }
+        }
+    }
+
+    /**
+     * Generated passwords have a length within the range and at least the required characters of every class.
+     */
+    @Test
+    void defaultPolicyIsSatisfied() {
+        PasswordGenerator generator = new PasswordGenerator(PasswordPolicy.DEFAULT);
+        List<String> passwords = generator.generate(PASSWORDS);
+        assertEquals(PASSWORDS, passwords.size());
+        for (String password : passwords) {
+            assertTrue(password.length() >= 12 && password.length() <= 23, password);
+            assertTrue(count(password, CharacterClass.LOWERCASE.characters()) >= 1, password);
+            assertTrue(count(password, CharacterClass.UPPERCASE.characters()) >= 1, password);
+            assertTrue(count(password, CharacterClass.DIGITS.characters()) >= 1, password);
+            assertTrue(count(password, CharacterClass.SPECIAL.characters()) >= 1, password);
+        }
+    }
+
+    /**
+     * Minimums adding up to the whole length are met exactly, however the characters are shuffled.
+     */
+    @Test
+    void minimumsFillingTheLengthAreMet() {
+        PasswordPolicy policy = PasswordPolicy.builder().length(8)
+                .require(CharacterClass.DIGITS, 5)
+                .require(CharacterClass.UPPERCASE, 3)
+                .build();
+        PasswordGenerator generator = new PasswordGenerator(policy);
+        for (int i = 0; i < PASSWORDS; i++) {
+            String password = generator.generate();
+            assertEquals(8, password.length(), password);
+            assertEquals(5, count(password, CharacterClass.DIGITS.characters()), password);
+            assertEquals(3, count(password, CharacterClass.UPPERCASE.characters()), password);
+        }
+    }
+
+    /**
+     * Custom alphabets count towards their own minimum, and excluded characters never appear.
+     */
+    @Test
+    void customAlphabetsAndExclusionsAreHonoured() {
+        PasswordPolicy policy = PasswordPolicy.builder().length(10, 14)
+                .require(CharacterClass.LOWERCASE, 2)
+                .require(CharacterClass.DIGITS, 1)
+                .custom("!?#", 2)
+                .exclude("aeiou#")
+                .excludeAmbiguous()
+                .build();
+        PasswordGenerator generator = new PasswordGenerator(policy);
+        for (String password : generator.generate(PASSWORDS)) {
+            assertTrue(password.length() >= 10 && password.length() <= 14, password);
+            assertTrue(count(password, CharacterClass.LOWERCASE.characters()) >= 2, password);
+            assertTrue(count(password, CharacterClass.DIGITS.characters()) >= 1, password);
+            assertTrue(count(password, "!?") >= 2, password);
+            assertEquals(0, count(password, "aeiou#" + CharacterClass.AMBIGUOUS), password);
+            assertEquals(password.length(),
+                    count(password, CharacterClass.LOWERCASE.characters() + CharacterClass.DIGITS.characters() + "!?"),
+                    password);
+        }
+    }
+
+    /**
+     * A fixed length of zero yields empty passwords, a negative batch size is rejected.
+     */
+    @Test
+    void edgeCases() {
+        PasswordGenerator generator = new PasswordGenerator(
+                PasswordPolicy.builder().length(0).allow(CharacterClass.LOWERCASE).build());
+        assertEquals("", generator.generate());
+        assertEquals(List.of(), new PasswordGenerator(PasswordPolicy.DEFAULT).generate(0));
+        assertThrows(IllegalArgumentException.class, () -> generator.generate(-1));
+    }
+
+    /**
+     * Counts the characters of a password contained in an alphabet.
+     *
+     * @param password The password.
+     * @param alphabet The characters to count.
+     * @return The number of matching characters.
+     */
+    private static int count(final String password, final String alphabet) {
+        return (int) password.chars().filter(c -> alphabet.indexOf(c) >= 0).count();
+    }
+}
@@ -0,0 +1,127 @@
+package com.queomedia.scheel.core;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests of {@link PasswordPolicy}: parsing specifications, writing them back, and rejecting policies that are
+ * malformed or cannot be satisfied.
+ */
+class PasswordPolicyTest {
+
+    /**
+     * Every rule of a specification is parsed, and the specification is written back unchanged.
+     */
+    @Test
+    void specificationIsParsed() {
+        String specification = "length=12-20 lower=1 upper=2 digits=0 custom=!$%& custom-min=1 exclude=xyz"
+                + " no-ambiguous";
+        PasswordPolicy policy = PasswordPolicy.parse(specification);
+        assertEquals(12, policy.minLength());
+        assertEquals(20, policy.maxLength());
+        assertEquals(4, policy.tableCount());
+        assertEquals(2, policy.minCount(1));
+        assertEquals("!$%&", new String(policy.table(3)));
+        assertEquals(1, policy.minCount(3));
+        assertFalse(new String(policy.alphabet()).contains("x"));
+        assertFalse(new String(policy.alphabet()).contains("O"));
+        assertEquals(specification, policy.toString());
+        assertRoundTrip(policy);
+    }
+
+    /**
+     * Policies built with the builder survive a round-trip through their specification, the default policy too.
+     */
+    @Test
+    void builtPoliciesRoundTrip() {
+        assertRoundTrip(PasswordPolicy.DEFAULT);
+        assertRoundTrip(PasswordPolicy.builder().length(8).allow(CharacterClass.DIGITS).build());
+        assertRoundTrip(PasswordPolicy.builder().length(30)
+                .require(CharacterClass.SPECIAL, 3)
+                .custom("äöü=ß", 2)
+                .exclude("\\")
+                .build());
+    }
+
+    /**
+     * Custom and excluded characters containing whitespace, control characters or backslashes are escaped, so they
+     * neither end the rule nor get lost when the specification is parsed again.
+     */
+    @Test
+    void whitespaceInAlphabetsRoundTrips() {
+        PasswordPolicy policy = PasswordPolicy.builder().length(10)
+                .allow(CharacterClass.LOWERCASE)
+                .custom(" \t\n\r\\\u00a0\u2003\u0007x", 3)
+                .exclude("a\u000bb\fc")
+                .build();
+        assertEquals("length=10 lower=0 custom=\\s\\t\\n\\r\\\\\\u00a0\\u2003\\u0007x custom-min=3"
+                + " exclude=a\\u000bb\\u000cc", policy.toString());
+        assertRoundTrip(policy);
+        assertEquals(" \t\n\r\\\u00a0\u2003\u0007x", new String(PasswordPolicy.parse(policy.toString()).table(1)));
+    }
+
+    /**
+     * Escape sequences are resolved when parsing, unknown ones and a trailing backslash are taken literally.
+     */
+    @Test
+    void escapeSequencesAreParsed() {
+        assertEquals(" \t\\", new String(PasswordPolicy.parse("length=4 custom=\\s\\t\\\\").table(0)));
+        assertEquals("Aé", new String(PasswordPolicy.parse("length=4 custom=\\u0041\\u00E9").table(0)));
+        assertEquals("\\qa", new String(PasswordPolicy.parse("length=4 custom=\\qa").table(0)));
+        assertEquals("\\u12", new String(PasswordPolicy.parse("length=4 custom=\\u12").table(0)));
+        assertEquals("\\uxyz1", new String(PasswordPolicy.parse("length=4 custom=\\uxyz1").table(0)));
+        assertEquals("ab\\", new String(PasswordPolicy.parse("length=4 custom=ab\\").table(0)));
+        assertEquals("abc", new String(PasswordPolicy.parse("length=4 custom=abc\\\\ exclude=\\\\").table(0)));
+    }
+
+    /**
+     * Malformed rules and unsatisfiable policies are rejected.
+     */
+    @Test
+    void invalidPoliciesAreRejected() {
+        assertThrows(IllegalArgumentException.class, () -> PasswordPolicy.parse("length=8 colour=1"));
+        assertThrows(IllegalArgumentException.class, () -> PasswordPolicy.parse("length=8 lower"));
+        assertThrows(IllegalArgumentException.class, () -> PasswordPolicy.parse("length=8 lower=-1"));
+        assertThrows(IllegalArgumentException.class, () -> PasswordPolicy.parse("length=eight lower=1"));
+        assertThrows(IllegalArgumentException.class, () -> PasswordPolicy.parse("length=9-8 lower=1"));
+        assertThrows(IllegalArgumentException.class, () -> PasswordPolicy.parse("length=8"));
+        assertThrows(IllegalArgumentException.class, () -> PasswordPolicy.parse("length=8 lower=1 custom-min=1"));
+        assertThrows(IllegalArgumentException.class, () -> PasswordPolicy.parse("length=4 lower=3 digits=2"));
+        assertThrows(IllegalArgumentException.class,
+                () -> PasswordPolicy.parse("length=8 digits=1 exclude=0123456789"));
+        assertThrows(IllegalArgumentException.class, () -> PasswordPolicy.parse("length=8 custom=\\s exclude=\\s"));
+    }
+
+    /**
+     * The entropy counts required characters by their own class and the rest by the combined alphabet.
+     */
+    @Test
+    void entropyIsALowerBound() {
+        PasswordPolicy digits = PasswordPolicy.builder().length(10).allow(CharacterClass.DIGITS).build();
+        assertEquals(10 * Math.log(10) / Math.log(2), digits.entropyBits(), 1e-9);
+        assertTrue(PasswordPolicy.DEFAULT.entropyBits() > 64);
+    }
+
+    /**
+     * Asserts that a policy parsed from the specification of another one is equal to it.
+     *
+     * @param policy The policy.
+     */
+    private static void assertRoundTrip(final PasswordPolicy policy) {
+        PasswordPolicy parsed = PasswordPolicy.parse(policy.toString());
+        assertEquals(policy.toString(), parsed.toString());
+        assertEquals(policy.minLength(), parsed.minLength());
+        assertEquals(policy.maxLength(), parsed.maxLength());
+        assertEquals(policy.tableCount(), parsed.tableCount());
+        for (int i = 0; i < policy.tableCount(); i++) {
+            assertArrayEquals(policy.table(i), parsed.table(i));
+            assertEquals(policy.minCount(i), parsed.minCount(i));
+        }
+        assertArrayEquals(policy.alphabet(), parsed.alphabet());
+    }
+}
@@ -0,0 +1,126 @@
+package com.queomedia.scheel.core;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests of {@link ServicePolicies} and of the cached policies of {@link PasswordTools}.
+ */
+class ServicePoliciesTest {
+
+    /**
+     * Services are matched ignoring case and surrounding whitespace, comments and blank lines are skipped.
+     *
+     * @param directory Temporary directory for the rules file.
+     * @throws Exception If the rules file cannot be written.
+     */
+    @Test
+    void servicesAreMatchedIgnoringCase(@TempDir final Path directory) throws Exception {
+        Path file = directory.resolve("Policies.txt");
+        Files.write(file, List.of("# Bank only accepts a few special characters", "",
+                "MyBank: length=12-16 lower=1 upper=1 digits=1 custom=!$%& custom-min=1",
+                "  Intranet:\tlength=8 digits=8  "));
+        ServicePolicies policies = ServicePolicies.load(file);
+        assertEquals("length=12-16 lower=1 upper=1 digits=1 custom=!$%& custom-min=1",
+                policies.forService("mybank").toString());
+        assertEquals(policies.forService("MyBank"), policies.forService(" MYBANK "));
+        assertEquals("length=8 digits=8", policies.forService("intranet").toString());
+        assertSame(PasswordPolicy.DEFAULT, policies.forService("Other"));
+        assertSame(PasswordPolicy.DEFAULT, policies.forService(null));
+    }
+
+    /**
+     * The service {@code *} replaces the default policy, a missing file leaves it in place.
+     *
+     * @param directory Temporary directory for the rules file.
+     * @throws Exception If the rules file cannot be written.
+     */
+    @Test
+    void anyServiceReplacesTheDefault(@TempDir final Path directory) throws Exception {
+        Path file = directory.resolve("Policies.txt");
+        assertSame(PasswordPolicy.DEFAULT, ServicePolicies.load(file).forService("MyBank"));
+        Files.write(file, List.of("*: length=20 lower=1 no-ambiguous", "MyBank: length=10 digits=1"));
+        ServicePolicies policies = ServicePolicies.load(file);
+        assertEquals("length=20 lower=1 no-ambiguous", policies.forService("Other").toString());
+        assertEquals("length=20 lower=1 no-ambiguous", policies.forService("").toString());
+        assertEquals("length=10 digits=1", policies.forService("mybank").toString());
+    }
+
+    /**
+     * Escaped whitespace in a rule survives loading, as written back by {@link PasswordPolicy#toString()}.
+     *
+     * @param directory Temporary directory for the rules file.
+     * @throws Exception If the rules file cannot be written.
+     */
+    @Test
+    void escapedWhitespaceIsLoaded(@TempDir final Path directory) throws Exception {
+        PasswordPolicy policy = PasswordPolicy.builder().length(12).allow(CharacterClass.LOWERCASE)
+                .custom(" -", 1).build();
+        Path file = directory.resolve("Policies.txt");
+        Files.write(file, List.of("Legacy: " + policy));
+        assertEquals(policy.toString(), ServicePolicies.load(file).forService("legacy").toString());
+    }
+
+    /**
+     * Lines without a policy and unsatisfiable policies are reported with their line number.
+     *
+     * @param directory Temporary directory for the rules file.
+     * @throws Exception If the rules file cannot be written.
+     */
+    @Test
+    void malformedLinesAreRejected(@TempDir final Path directory) throws Exception {
+        Path file = directory.resolve("Policies.txt");
+        Files.write(file, List.of("# Comment", "MyBank length=12"));
+        IllegalArgumentException error = assertThrows(IllegalArgumentException.class,
+                () -> ServicePolicies.load(file));
+        assertTrue(error.getMessage().contains("line 2"), error.getMessage());
+
+        Files.write(file, List.of("MyBank: length=12 lower=1", "Intranet: length=2 digits=3"));
+        error = assertThrows(IllegalArgumentException.class, () -> ServicePolicies.load(file));
+        assertTrue(error.getMessage().contains("line 2"), error.getMessage());
+    }
+
+    /**
+     * The policies of {@link PasswordTools} are loaded once, and again only after the file in the working directory
+     * was modified, created or removed.
+     *
+     * @throws Exception If the rules file cannot be written.
+     */
+    @Test
+    void policiesAreReloadedWhenModified() throws Exception {
+        Path file = Path.of("Policies.txt");
+        try {
+            Files.deleteIfExists(file);
+            ServicePolicies missing = PasswordTools.servicePolicies();
+            assertSame(missing, PasswordTools.servicePolicies());
+            assertSame(PasswordPolicy.DEFAULT, missing.forService("MyBank"));
+
+            Files.write(file, List.of("MyBank: length=10 digits=1"));
+            Files.setLastModifiedTime(file, FileTime.fromMillis(1_000_000));
+            ServicePolicies loaded = PasswordTools.servicePolicies();
+            assertNotSame(missing, loaded);
+            assertSame(loaded, PasswordTools.servicePolicies());
+            assertEquals("length=10 digits=1", loaded.forService("MyBank").toString());
+
+            Files.write(file, List.of("MyBank: length=11 digits=1"));
+            Files.setLastModifiedTime(file, FileTime.fromMillis(2_000_000));
+            assertEquals("length=11 digits=1", PasswordTools.servicePolicies().forService("MyBank").toString());
+
+            Files.delete(file);
+            assertSame(PasswordPolicy.DEFAULT, PasswordTools.servicePolicies().forService("MyBank"));
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+}
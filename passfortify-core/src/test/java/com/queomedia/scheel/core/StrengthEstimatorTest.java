@@ -0,0 +1,101 @@
+package com.queomedia.scheel.core;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests of {@link StrengthEstimator} through the strength labels of {@link PasswordTools}, pinning known passwords
+ * to the band every matcher is expected to put them in.
+ */
+class StrengthEstimatorTest {
+
+    /**
+     * Common passwords and their l33t variants are weak.
+     */
+    @Test
+    void dictionaryWordsAreWeak() {
+        assertEquals("weak", PasswordTools.passwordStrengthOutput("password"));
+        assertEquals("weak", PasswordTools.passwordStrengthOutput("P@ssw0rd"));
+        assertEquals("weak", PasswordTools.passwordStrengthOutput("Dragon2024!"));
+    }
+
+    /**
+     * Keyboard walks are weak, also in the lower rows.
+     */
+    @Test
+    void keyboardWalksAreWeak() {
+        assertEquals("weak", PasswordTools.passwordStrengthOutput("qwertyuiop"));
+        assertEquals("weak", PasswordTools.passwordStrengthOutput("zxcvbnm"));
+    }
+
+    /**
+     * Dates are weak, with or without separators.
+     */
+    @Test
+    void datesAreWeak() {
+        assertEquals("weak", PasswordTools.passwordStrengthOutput("24.12.1990"));
+        assertEquals("weak", PasswordTools.passwordStrengthOutput("19901224"));
+    }
+
+    /**
+     * Repeats and sequences are weak however long they are.
+     */
+    @Test
+    void repeatsAndSequencesAreWeak() {
+        assertEquals("weak", PasswordTools.passwordStrengthOutput("aaaaaaaaaaaa"));
+        assertEquals("weak", PasswordTools.passwordStrengthOutput("abcdefghij"));
+        assertEquals("weak", PasswordTools.passwordStrengthOutput("123456789"));
+    }
+
+    /**
+     * Passwords without a pattern are priced by their length and character classes.
+     */
+    @Test
+    void randomPasswordsAreStrong() {
+        assertEquals("strong", PasswordTools.passwordStrengthOutput("Tr0ub4dor&3"));
+        assertEquals("very strong", PasswordTools.passwordStrengthOutput("xK9#mQ2$vL7!pR4&"));
+        assertEquals("very strong", PasswordTools.passwordStrengthOutput("kT8vQ2mZ9xLw3pRn"));
+    }
+
+    /**
+     * The labels change exactly at 36, 50 and 70 bits.
+     */
+    @Test
+    void labelThresholds() {
+        assertEquals("weak", PasswordTools.strengthLabel(0));
+        assertEquals("weak", PasswordTools.strengthLabel(35));
+        assertEquals("medium", PasswordTools.strengthLabel(36));
+        assertEquals("medium", PasswordTools.strengthLabel(49));
+        assertEquals("strong", PasswordTools.strengthLabel(50));
+        assertEquals("strong", PasswordTools.strengthLabel(69));
+        assertEquals("very strong", PasswordTools.strengthLabel(70));
+    }
+
+    /**
+     * The summary shown while typing reports the label and the entropy of one and the same estimate.
+     */
+    @Test
+    void summaryMatchesEstimate() {
+        for (String password : new String[] {"P@ssw0rd", "Tr0ub4dor&3", "xK9#mQ2$vL7!pR4&"}) {
+            int bits = PasswordTools.passwordStrength(password);
+            assertEquals(PasswordTools.strengthLabel(bits) + " (" + bits + " bits)",
+                    PasswordTools.passwordStrengthSummary(password));
+        }
+    }
+
+    /**
+     * Longer random passwords never get a lower estimate than their prefix.
+     */
+    @Test
+    void estimateGrowsWithRandomCharacters() {
+        String password = "xK9#mQ2$vL7!pR4&";
+        double previous = 0;
+        for (int length = 1; length <= password.length(); length++) {
+            double bits = StrengthEstimator.estimateBits(password.substring(0, length));
+            assertTrue(bits >= previous, "Estimate dropped at length " + length);
+            previous = bits;
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package com.queomedia.scheel.core;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Locale;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Tests of {@link VaultColumns}: accounts read back from the columns, and the case-insensitive search on packed
+ * ASCII and non-ASCII values.
+ */
+class VaultColumnsTest {
+
+    /**
+     * Services and usernames of the accounts searched, ASCII and non-ASCII, some shared by several accounts.
+     */
+    private static final List<String[]> ACCOUNTS = List.of(
+            new String[] {"Äpfel-Markt", "jürgen"},
+            new String[] {"äpfel-markt", "JÜRGEN"},
+            new String[] {"MyBank", "alice"},
+            new String[] {"mybank", "ALICE@example.org"},
+            new String[] {"ÉCOLE", "Ωmega"},
+            new String[] {"Straße", "STRASSE"},
+            new String[] {"Thermometer", "\u212Aelvin"},
+            new String[] {"", ""},
+            new String[] {"MyBank", "bob"});
+
+    /**
+     * Accounts are read back unchanged, with their ids, however many accounts share a service or username.
+     */
+    @Test
+    void accountsAreReadBack() {
+        List<VaultEntry> entries = entries();
+        VaultColumns columns = VaultColumns.of(entries);
+        assertEquals(entries.size(), columns.size());
+        assertEquals(entries, columns.entries());
+        assertEquals(entries.stream().map(VaultEntry::record).toList(), columns.records());
+        for (int row = 0; row < entries.size(); row++) {
+            assertEquals(entries.get(row).id(), columns.id(row));
+            assertEquals(entries.get(row).record().service(), columns.service(row));
+            assertEquals(entries.get(row).record().username(), columns.username(row));
+            assertEquals(entries.get(row).record().password(), columns.password(row));
+        }
+        assertThrows(UnsupportedOperationException.class, () -> columns.records().remove(0));
+        assertEquals(0, VaultColumns.of(List.of()).size());
+    }
+
+    /**
+     * Non-ASCII values are found by queries in any case, and ASCII queries find them too.
+     */
+    @Test
+    void nonAsciiValuesAreFoundIgnoringCase() {
+        VaultColumns columns = VaultColumns.of(entries());
+        assertEquals(rows(0, 1), columns.search("äpf"));
+        assertEquals(rows(0, 1), columns.search("ÄPFEL"));
+        assertEquals(rows(0, 1), columns.search("pfel-m"));
+        assertEquals(rows(0, 1), columns.search("Jür"));
+        assertEquals(rows(4), columns.search("école"));
+        assertEquals(rows(4), columns.search("ωMEGA"));
+        assertEquals(rows(5), columns.search("straß"));
+        assertEquals(rows(5), columns.search("strasse"));
+        assertEquals(rows(6), columns.search("kelvin")); //The Kelvin sign lower cases to an ASCII k
+    }
+
+    /**
+     * ASCII queries match ASCII values ignoring case, a query with other characters never matches an ASCII value.
+     */
+    @Test
+    void asciiValuesAreFoundIgnoringCase() {
+        VaultColumns columns = VaultColumns.of(entries());
+        assertEquals(rows(2, 3, 8), columns.search("MYBANK"));
+        assertEquals(rows(2, 3), columns.search("alice"));
+        assertEquals(rows(3), columns.search("@EXAMPLE.org"));
+        assertEquals(rows(), columns.search("mybänk"));
+        assertEquals(rows(), columns.search("mybank-and-more"));
+        assertEquals(rows(0, 1, 2, 3, 4, 5, 6, 7, 8), columns.search(""));
+        assertEquals(rows(0, 1, 2, 3, 4, 5, 6, 7, 8), columns.search(null));
+    }
+
+    /**
+     * The search finds the same accounts as comparing the lower case strings of every account.
+     */
+    @Test
+    void searchMatchesStringComparison() {
+        List<VaultEntry> entries = entries();
+        VaultColumns columns = VaultColumns.of(entries);
+        for (String query : List.of("a", "Ä", "e", "É", "k", "K", "ss", "ß", "l", "@", "-", "ω", "Ω", "x")) {
+            String lowerQuery = query.toLowerCase(Locale.ROOT);
+            BitSet expected = new BitSet();
+            for (int row = 0; row < entries.size(); row++) {
+                VaultRecord record = entries.get(row).record();
+                if (record.service().toLowerCase(Locale.ROOT).contains(lowerQuery)
+                        || record.username().toLowerCase(Locale.ROOT).contains(lowerQuery)) {
+                    expected.set(row);
+                }
+            }
+            assertEquals(expected, columns.search(query), query);
+        }
+    }
+
+    /**
+     * Creates the accounts of {@link #ACCOUNTS}, with ids not matching their positions.
+     *
+     * @return The accounts.
+     */
+    private static List<VaultEntry> entries() {
+        List<VaultEntry> entries = new ArrayList<>();
+        for (int i = 0; i < ACCOUNTS.size(); i++) {
+            String[] account = ACCOUNTS.get(i);
+            entries.add(new VaultEntry(100 + 7L * i,
+                    new VaultRecord(account[0], account[1], "pässword-" + i, 1_700_000_000_000L + i)));
+        }
+        return entries;
+    }
+
+    /**
+     * Creates the positions of matching accounts.
+     *
+     * @param rows The positions.
+     * @return The positions as a bit set.
+     */
+    private static BitSet rows(final int... rows) {
+        BitSet set = new BitSet();
+        for (int row : rows) {
+            set.set(row);
+        }
+        return set;
+    }
+}
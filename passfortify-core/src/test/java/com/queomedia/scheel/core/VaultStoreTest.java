@@ -0,0 +1,221 @@
+package com.queomedia.scheel.core;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Tests of {@link VaultStore} on a throwaway vault. The vault files are relative to the working directory, which
+ * the build points to a directory of its own under {@code target}.
+ */
+class VaultStoreTest {
+
+    /**
+     * Master password of the throwaway vault.
+     */
+    private static final String M_PASSWORD = "vault-store-test";
+
+    /**
+     * Every file a vault consists of.
+     */
+    private static final List<String> FILES = List.of("MPass.txt", "Services.txt", "Usernames.txt",
+            "Passwords.txt", "Timestamps.txt", "Vault.lock", "Vault.commit");
+
+    /**
+     * The account files in the order of {@link PasswordTools#readAccountFiles()}.
+     */
+    private static final List<String> ACCOUNT_FILES = FILES.subList(1, 5);
+
+    /**
+     * Number of threads adding and changing accounts.
+     */
+    private static final int WRITERS = 3;
+
+    /**
+     * Number of writes of every writer, adds and changes of the added account taking turns.
+     */
+    private static final int WRITES = 4;
+
+    /**
+     * Number of threads reading the accounts while the writers write.
+     */
+    private static final int READERS = 2;
+
+    /**
+     * Replaces the vault of the last test by an empty one.
+     *
+     * @throws Exception If the files cannot be deleted or written.
+     */
+    @BeforeEach
+    void createVault() throws Exception {
+        for (String file : FILES) {
+            Files.deleteIfExists(Path.of(file));
+            Files.deleteIfExists(Path.of(file + ".tmp"));
+        }
+        Files.write(Path.of("MPass.txt"), Cryptography.encrypt(M_PASSWORD.getBytes(UTF_8), M_PASSWORD));
+    }
+
+    /**
+     * Writers add accounts and change each of them while readers read continuously; afterwards every account has to
+     * be on disk exactly once, with its change.
+     *
+     * @throws Exception If the vault cannot be read or written.
+     */
+    @Test
+    void concurrentWritesAreNotLost() throws Exception {
+        VaultStore store = VaultStore.shared();
+        AtomicBoolean writing = new AtomicBoolean(true);
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(WRITERS + READERS);
+        List<Future<?>> writers = new ArrayList<>();
+        List<Future<?>> readers = new ArrayList<>();
+        try {
+            for (int w = 0; w < WRITERS; w++) {
+                int writer = w;
+                writers.add(executor.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < WRITES; i += 2) {
+                        String service = "service-" + writer + "-" + i;
+                        store.add(List.of(new VaultRecord(service, "user", "initial", 0)), M_PASSWORD);
+                        change(store, service);
+                    }
+                    return null;
+                }));
+            }
+            for (int r = 0; r < READERS; r++) {
+                readers.add(executor.submit(() -> {
+                    start.await();
+                    while (writing.get()) {
+                        store.records(M_PASSWORD);
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> writer : writers) {
+                writer.get();
+            }
+        } finally {
+            writing.set(false); //Also if a writer failed, so the readers end
+            executor.shutdown();
+        }
+        for (Future<?> reader : readers) {
+            reader.get();
+        }
+
+        //Decrypting what actually reached the disk, not the snapshot of the store
+        Map<String, String> passwords = new HashMap<>();
+        for (VaultRecord record : PasswordTools.getVaultRecords(M_PASSWORD)) {
+            assertNull(passwords.put(record.service(), record.password()), "Duplicate " + record.service());
+        }
+        assertEquals(WRITERS * WRITES / 2, passwords.size());
+        passwords.forEach((service, password) -> assertEquals("changed-" + service, password, "Lost update"));
+    }
+
+    /**
+     * A commit that recorded its version but was interrupted while moving the account files into place is completed
+     * by the next write, which then builds on it.
+     *
+     * @throws Exception If the vault cannot be read or written.
+     */
+    @Test
+    void interruptedCommitIsCompleted() throws Exception {
+        VaultStore store = VaultStore.shared();
+        store.add(List.of(new VaultRecord("first", "user", "one", 0)), M_PASSWORD);
+        Map<String, byte[]> before = readAccountFiles();
+        store.add(List.of(new VaultRecord("second", "user", "two", 0)), M_PASSWORD);
+
+        //As if the process died after moving only the service file of the second commit into place
+        for (String file : ACCOUNT_FILES.subList(1, ACCOUNT_FILES.size())) {
+            Files.move(Path.of(file), Path.of(file + ".tmp"), StandardCopyOption.REPLACE_EXISTING);
+            Files.write(Path.of(file), before.get(file));
+        }
+        assertFalse(PasswordTools.readAccountFiles().consistent());
+
+        store.add(List.of(new VaultRecord("third", "user", "three", 0)), M_PASSWORD);
+        List<String> services = new ArrayList<>();
+        List<String> passwords = new ArrayList<>();
+        for (VaultRecord record : PasswordTools.getVaultRecords(M_PASSWORD)) {
+            services.add(record.service());
+            passwords.add(record.password());
+        }
+        assertEquals(List.of("first", "second", "third"), services);
+        assertEquals(List.of("one", "two", "three"), passwords);
+        for (String file : ACCOUNT_FILES) {
+            assertFalse(Files.exists(Path.of(file + ".tmp")), file + ".tmp was left behind");
+        }
+    }
+
+    /**
+     * Account files of different commits that cannot be repaired are shown, but never written back.
+     *
+     * @throws Exception If the vault cannot be read or written.
+     */
+    @Test
+    void mixedVersionsAreNotWritten() throws Exception {
+        VaultStore store = VaultStore.shared();
+        store.add(List.of(new VaultRecord("first", "user", "one", 0)), M_PASSWORD);
+        byte[] oldServices = Files.readAllBytes(Path.of("Services.txt"));
+        store.add(List.of(new VaultRecord("second", "user", "two", 0)), M_PASSWORD);
+        Files.write(Path.of("Services.txt"), oldServices);
+        Map<String, byte[]> mixed = readAccountFiles();
+
+        assertThrows(IOException.class, () -> store.add(List.of(new VaultRecord("third", "user", "three", 0)),
+                M_PASSWORD));
+        for (String file : ACCOUNT_FILES) {
+            assertArrayEquals(mixed.get(file), Files.readAllBytes(Path.of(file)), file + " was written");
+        }
+    }
+
+    /**
+     * Changes the password of an account to {@code changed-<service>}.
+     *
+     * @param store   The store.
+     * @param service The service of the account, which has to exist once.
+     * @throws Exception If the vault cannot be read or written.
+     */
+    private static void change(final VaultStore store, final String service) throws Exception {
+        for (VaultRecord record : store.records(M_PASSWORD)) {
+            if (record.service().equals(service)) {
+                store.update(record, new VaultRecord(service, record.username(), "changed-" + service, 0),
+                        M_PASSWORD);
+                return;
+            }
+        }
+        throw new IllegalStateException(service + " was lost");
+    }
+
+    /**
+     * Reads the account files as they are on disk.
+     *
+     * @return The content of every account file by its name.
+     * @throws IOException If a file cannot be read.
+     */
+    private static Map<String, byte[]> readAccountFiles() throws IOException {
+        Map<String, byte[]> contents = new HashMap<>();
+        for (String file : ACCOUNT_FILES) {
+            contents.put(file, Files.readAllBytes(Path.of(file)));
+        }
+        return contents;
+    }
+}
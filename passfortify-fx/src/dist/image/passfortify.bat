@@ -0,0 +1,10 @@
+@echo off
+rem Starts PassFortify from the runtime image this script is part of, built by "mvn -Pcds package". The image holds
+rem the class data sharing archive of the JDK and, in lib, the one of the application.
+set "DIR=%~dp0.."
+set "ARCHIVE=%DIR%\lib\passfortify.jsa"
+if exist "%ARCHIVE%" (
+  start "" "%DIR%\bin\javaw" -XX:SharedArchiveFile="%ARCHIVE%" -Xshare:auto -m ${launcher.module} %*
+) else (
+  start "" "%DIR%\bin\javaw" -m ${launcher.module} %*
+)
@@ -0,0 +1,11 @@
+@echo off
+rem Starts PassFortify from the jar next to this script. If the class data sharing archive built by
+rem "mvn -Pcds package" lies next to it as well, the classes are mapped from it instead of being loaded and verified.
+set "DIR=%~dp0"
+set "JAR=%DIR%PassFortify-${project.version}.jar"
+set "ARCHIVE=%DIR%PassFortify.jsa"
+if exist "%ARCHIVE%" (
+  start "" javaw -XX:SharedArchiveFile="%ARCHIVE%" -Xshare:auto -jar "%JAR%" %*
+) else (
+  start "" javaw -jar "%JAR%" %*
+)
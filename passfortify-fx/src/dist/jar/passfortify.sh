@@ -0,0 +1,10 @@
+#!/bin/sh
+# Starts PassFortify from the jar next to this script. If the class data sharing archive built by
+# "mvn -Pcds package" lies next to it as well, the classes are mapped from it instead of being loaded and verified.
+DIR=$(cd "$(dirname "$0")" && pwd)
+JAR="$DIR/PassFortify-${project.version}.jar"
+ARCHIVE="$DIR/PassFortify.jsa"
+if [ -f "$ARCHIVE" ]; then
+  exec java -XX:SharedArchiveFile="$ARCHIVE" -Xshare:auto -jar "$JAR" "$@"
+fi
+exec java -jar "$JAR" "$@"
@@ -1,5 +1,9 @@
 package com.queomedia.scheel;
 
+import com.queomedia.scheel.core.PasswordTools;
+import com.queomedia.scheel.core.VaultRecord;
+import com.queomedia.scheel.core.VaultStore;
+
 import javafx.fxml.FXML;
 import javafx.geometry.Pos;
 import javafx.scene.control.CheckBox;
@@ -9,6 +13,9 @@ import javafx.scene.control.TextField;
 import javafx.scene.input.MouseEvent;
 import javafx.stage.Stage;
 
+import java.io.IOException;
+import java.util.List;
+
 public class AddAccountController {
 
     /**
@@ -53,18 +60,54 @@ public class AddAccountController {
     @FXML
     private CheckBox passwordCheckBox;
 
+    /**
+     * Called by the FXMLLoader once all fields are injected. Registers listeners on both password inputs, so the
+     * strength of the password is shown live while the user is typing.
+     */
+    @FXML
+    void initialize() {
+        passwordField.textProperty().addListener((observable, oldValue, newValue) -> showPasswordStrength(newValue));
+        passwordPlaintext.textProperty().addListener((observable, oldValue, newValue) -> showPasswordStrength(newValue));
+    }
+
+    /**
+     * Displays the estimated strength of the entered password in the feedback label.
+     * Empty input leaves the label untouched, so feedback such as "Account added" stays visible after saving.
+     *
+     * @param password The password currently entered.
+     */
+    private void showPasswordStrength(final String password) {
+        if (password == null || password.isEmpty()) {
+            return;
+        }
+        passwordFeedback.setText("Password strength: " + PasswordTools.passwordStrengthSummary(password));
+        passwordFeedback.setStyle("-fx-text-fill: yellow;");
+        passwordFeedback.setAlignment(Pos.CENTER);
+    }
+
     /**
      * This method is called when the "Generate Password" button is clicked. It generates a random password using the
-     * PasswordTools class, sets the generated password in a text field, and copies the password to the system clipboard.
+     * PasswordTools class, following the password policy configured for the entered service, sets the generated
+     * password in a text field, and copies the password to the system clipboard.
+     *
+     * @throws IOException If the password policy file cannot be read.
      */
-    public void onGeneratePasswordClick() {
-        String password = PasswordTools.passwordGenerator();
+    public void onGeneratePasswordClick() throws IOException {
+        String password;
+        try {
+            password = PasswordTools.passwordGenerator(serviceField.getText());
+        } catch (IllegalArgumentException e) {
+            passwordFeedback.setText("Invalid password policy: " + e.getMessage());
+            passwordFeedback.setStyle("-fx-text-fill: red;");
+            passwordFeedback.setAlignment(Pos.CENTER);
+            return;
+        }
         if (passwordCheckBox.isSelected()) {
             passwordPlaintext.setText(password);
         } else {
             passwordField.setText(password);
         }
-        PasswordTools.toClipboard(password);
+        FxTools.toClipboard(password);
         passwordFeedback.setText("Password generated and copied");
         passwordFeedback.setStyle("-fx-text-fill: #03c203;");
         passwordFeedback.setAlignment(Pos.CENTER);
@@ -94,12 +137,7 @@ public class AddAccountController {
         if (!service.isEmpty() && !username.isEmpty() && !password.isEmpty()) {
             //Adding account details to the respective files
             if (PasswordTools.checkMasterpassword(masterPassword)) {
-                String serviceLocation = "Services.txt";
-                PasswordTools.addData(serviceLocation, service, masterPassword);
-                String usernameLocation = "Usernames.txt";
-                PasswordTools.addData(usernameLocation, username, masterPassword);
-                String passwordLocation = "Passwords.txt";
-                PasswordTools.addData(passwordLocation, password, masterPassword);
+                VaultStore.shared().add(List.of(new VaultRecord(service, username, password, 0)), masterPassword);
 
                 //User feedback
                 passwordFeedback.setText("Account added");
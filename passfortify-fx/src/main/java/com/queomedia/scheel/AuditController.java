@@ -0,0 +1,304 @@
+package com.queomedia.scheel;
+
+import com.queomedia.scheel.core.AuditResult;
+import com.queomedia.scheel.core.BreachIndex;
+import com.queomedia.scheel.core.PasswordTools;
+import com.queomedia.scheel.core.VaultAudit;
+import com.queomedia.scheel.core.VaultEntry;
+import com.queomedia.scheel.core.VaultStore;
+
+import javafx.application.Platform;
+import javafx.beans.property.ReadOnlyObjectWrapper;
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+import javafx.collections.transformation.SortedList;
+import javafx.fxml.FXML;
+import javafx.scene.control.Label;
+import javafx.scene.control.TableCell;
+import javafx.scene.control.TableColumn;
+import javafx.scene.control.TableView;
+import javafx.scene.input.MouseButton;
+import javafx.scene.input.MouseEvent;
+import javafx.stage.Stage;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.StringJoiner;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.LongConsumer;
+
+/**
+ * Controller of the vault audit window. Runs the audit in the background and shows results as they come in.
+ */
+public class AuditController {
+
+    /**
+     * Table displaying one audit result per account.
+     */
+    @FXML
+    private TableView<AuditResult> auditTable;
+
+    /**
+     * Column displaying the service.
+     */
+    @FXML
+    private TableColumn<AuditResult, String> serviceColumn;
+
+    /**
+     * Column displaying the username.
+     */
+    @FXML
+    private TableColumn<AuditResult, String> usernameColumn;
+
+    /**
+     * Column displaying the password strength, sorted by entropy.
+     */
+    @FXML
+    private TableColumn<AuditResult, Integer> strengthColumn;
+
+    /**
+     * Column displaying how many accounts share the password.
+     */
+    @FXML
+    private TableColumn<AuditResult, Integer> reuseColumn;
+
+    /**
+     * Column displaying the age of the password in days.
+     */
+    @FXML
+    private TableColumn<AuditResult, Long> ageColumn;
+
+    /**
+     * Column displaying how often the password appears in the breach file.
+     */
+    @FXML
+    private TableColumn<AuditResult, Long> breachColumn;
+
+    /**
+     * Label displaying the progress of the audit.
+     */
+    @FXML
+    private Label progressLabel;
+
+    /**
+     * Label displaying the details of the selected account.
+     */
+    @FXML
+    private Label detailLabel;
+
+    /**
+     * All results received so far, in the order they arrived.
+     */
+    private final ObservableList<AuditResult> results = FXCollections.observableArrayList();
+
+    /**
+     * Results computed by the audit but not yet shown in the table.
+     */
+    private final ConcurrentLinkedQueue<AuditResult> pendingResults = new ConcurrentLinkedQueue<>();
+
+    /**
+     * Whether a transfer of pending results to the FX thread is already scheduled.
+     */
+    private final AtomicBoolean drainScheduled = new AtomicBoolean();
+
+    /**
+     * Total number of accounts being audited.
+     */
+    private int totalAccounts;
+
+    /**
+     * Called with the id of an account when the user double-clicks it.
+     */
+    private LongConsumer onDrillDown = id -> { };
+
+    /**
+     * Called by the FXMLLoader once all fields are injected. Sets up the columns and the sorting of the table.
+     */
+    @FXML
+    void initialize() {
+        serviceColumn.setCellValueFactory(cell -> new ReadOnlyObjectWrapper<>(cell.getValue().service()));
+        usernameColumn.setCellValueFactory(cell -> new ReadOnlyObjectWrapper<>(cell.getValue().username()));
+        strengthColumn.setCellValueFactory(cell -> new ReadOnlyObjectWrapper<>(cell.getValue().strength()));
+        reuseColumn.setCellValueFactory(cell -> new ReadOnlyObjectWrapper<>(cell.getValue().reuseCount()));
+        ageColumn.setCellValueFactory(cell -> new ReadOnlyObjectWrapper<>(cell.getValue().ageDays()));
+        breachColumn.setCellValueFactory(cell -> new ReadOnlyObjectWrapper<>(cell.getValue().breachCount()));
+
+        strengthColumn.setCellFactory(column -> new TableCell<>() {
+            @Override
+            protected void updateItem(final Integer bits, final boolean empty) {
+                super.updateItem(bits, empty);
+                setText(empty || bits == null ? null : PasswordTools.strengthLabel(bits) + " (" + bits + " bits)");
+            }
+        });
+        ageColumn.setCellFactory(column -> new TableCell<>() {
+            @Override
+            protected void updateItem(final Long days, final boolean empty) {
+                super.updateItem(days, empty);
+                if (empty || days == null) {
+                    setText(null);
+                } else {
+                    setText(days < 0 ? "unknown" : days + " days");
+                }
+            }
+        });
+        breachColumn.setCellFactory(column -> new TableCell<>() {
+            @Override
+            protected void updateItem(final Long count, final boolean empty) {
+                super.updateItem(count, empty);
+                if (empty || count == null) {
+                    setText(null);
+                } else if (count < 0) {
+                    setText("not checked");
+                } else {
+                    setText(count == 0 ? "no" : "yes (" + count + "x)");
+                }
+            }
+        });
+
+        //Sorting a wrapper keeps the table sortable while results are still streaming in
+        SortedList<AuditResult> sortedResults = new SortedList<>(results);
+        sortedResults.comparatorProperty().bind(auditTable.comparatorProperty());
+        auditTable.setItems(sortedResults);
+        auditTable.getSortOrder().add(strengthColumn); //Weakest passwords first
+
+        auditTable.getSelectionModel().selectedItemProperty()
+                .addListener((observable, oldValue, newValue) -> showDetails(newValue));
+    }
+
+    /**
+     * Starts auditing the vault in the background. Decrypting and scoring both happen off the FX thread.
+     *
+     * @param mPassword   The master password used to decrypt the vault.
+     * @param breachIndex The breach file to check passwords against, null to skip the check.
+     * @param onDrillDown Called with the id of an account the user wants to jump to, see {@link AuditResult#id()}.
+     */
+    public void startAudit(final String mPassword, final BreachIndex breachIndex, final LongConsumer onDrillDown) {
+        this.onDrillDown = onDrillDown;
+        progressLabel.setText("Decrypting accounts...");
+        long start = System.nanoTime();
+        CompletableFuture.runAsync(() -> {
+            List<VaultEntry> entries;
+            try {
+                entries = new ArrayList<>(VaultStore.shared().entries(mPassword)); //Read several times, copied once
+            } catch (Exception e) {
+                throw new IllegalStateException("Accounts could not be decrypted", e);
+            }
+            Platform.runLater(() -> totalAccounts = entries.size());
+            VaultAudit.audit(entries, this::publish, breachIndex);
+        }).whenComplete((ignored, error) -> Platform.runLater(() -> {
+            drainPendingResults();
+            if (error != null) {
+                progressLabel.setText("Audit failed.");
+                progressLabel.setStyle("-fx-text-fill: red;");
+            } else {
+                long millis = (System.nanoTime() - start) / 1_000_000;
+                progressLabel.setText("Audited " + results.size() + " accounts in " + millis + " ms");
+                progressLabel.setStyle("-fx-text-fill: #03c203;");
+            }
+        }));
+    }
+
+    /**
+     * Receives a chunk of results from the audit. Results are queued and handed to the FX thread in batches, so
+     * the FX thread is not flooded with one runnable per chunk.
+     *
+     * @param chunk The finished results.
+     */
+    private void publish(final List<AuditResult> chunk) {
+        pendingResults.addAll(chunk);
+        if (drainScheduled.compareAndSet(false, true)) {
+            Platform.runLater(this::drainPendingResults);
+        }
+    }
+
+    /**
+     * Moves all pending results into the table. Runs on the FX thread.
+     */
+    private void drainPendingResults() {
+        drainScheduled.set(false);
+        List<AuditResult> batch = new ArrayList<>();
+        for (AuditResult result = pendingResults.poll(); result != null; result = pendingResults.poll()) {
+            batch.add(result);
+        }
+        results.addAll(batch);
+        progressLabel.setText("Audited " + results.size() + " of " + totalAccounts + " accounts");
+    }
+
+    /**
+     * Shows the details of the selected account, including all accounts sharing its password.
+     *
+     * @param result The selected result, may be null.
+     */
+    private void showDetails(final AuditResult result) {
+        if (result == null) {
+            detailLabel.setText("");
+            return;
+        }
+        StringBuilder details = new StringBuilder(result.service() + " / " + result.username() + ": "
+                + result.strengthLabel() + " (" + result.strength() + " bits)");
+        if (result.isBreached()) {
+            details.append(", found in breaches ").append(result.breachCount()).append(" times");
+        }
+        if (result.ageDays() >= 0) {
+            details.append(", changed ").append(result.ageDays()).append(" days ago");
+        }
+        if (result.isReused()) {
+            StringJoiner sharedWith = new StringJoiner(", ");
+            for (AuditResult other : results) {
+                if (other.reuseGroup() == result.reuseGroup() && other.index() != result.index()) {
+                    sharedWith.add(other.service());
+                }
+            }
+            details.append(", same password as ").append(sharedWith);
+        }
+        detailLabel.setText(details.toString());
+    }
+
+    /**
+     * Jumps to the account in the main window when a row is double-clicked and closes the audit window.
+     *
+     * @param me The MouseEvent representing the click.
+     */
+    @FXML
+    void onTableClick(final MouseEvent me) {
+        AuditResult selected = auditTable.getSelectionModel().getSelectedItem();
+        if (me.getButton() == MouseButton.PRIMARY && me.getClickCount() == 2 && selected != null) {
+            onDrillDown.accept(selected.id());
+            onExitButtonClick();
+        }
+    }
+
+    /**
+     * This method is invoked when the "Exit" button is clicked. It closes the current application window.
+     */
+    @FXML
+    void onExitButtonClick() {
+        ((Stage) auditTable.getScene().getWindow()).close();
+    }
+
+    /**
+     * Handles the pressing of a pane to initiate dragging.
+     *
+     * @param me The MouseEvent representing the mouse press action.
+     */
+    @FXML
+    void panePressed(final MouseEvent me) {
+        Stage stage = (Stage) auditTable.getScene().getWindow();
+        Delta.x = stage.getX() - me.getScreenX();
+        Delta.y = stage.getY() - me.getScreenY();
+    }
+
+    /**
+     * Handles the dragging of the application window when a pane is dragged.
+     *
+     * @param me The MouseEvent representing the dragging action.
+     */
+    @FXML
+    void paneDragged(final MouseEvent me) {
+        Stage stage = (Stage) auditTable.getScene().getWindow();
+        stage.setX(Delta.x + me.getScreenX());
+        stage.setY(Delta.y + me.getScreenY());
+    }
+}
@@ -0,0 +1,131 @@
+package com.queomedia.scheel;
+
+import com.queomedia.scheel.core.VaultColumns;
+import com.queomedia.scheel.core.VaultRecord;
+
+/**
+ * A row of the account table.
+ *
+ * <p>Rows read with the table point into the {@link VaultColumns} of the store, so the table holds no strings of
+ * its own; the values are decoded when a cell displays them. Rows of accounts changed afterwards hold the changed
+ * account, as the columns are not modified.</p>
+ */
+public class DataEntry {
+
+    /**
+     * Displayed instead of the password if passwords are hidden.
+     */
+    private static final String MASK = "******";
+
+    /**
+     * The id the vault store knows the account by, used to patch the row when the account changes.
+     */
+    private final long id;
+
+    /**
+     * The columns holding the account, null if the row holds a record.
+     */
+    private final VaultColumns columns;
+
+    /**
+     * The position of the account in {@link #columns}.
+     */
+    private final int row;
+
+    /**
+     * The account, null if the row points into columns.
+     */
+    private final VaultRecord record;
+
+    /**
+     * Whether the password is masked.
+     */
+    private final boolean masked;
+
+    /**
+     * Creates the row of an account as read with the table.
+     *
+     * @param columns The columns holding the account.
+     * @param row     The position of the account in the columns.
+     * @param masked  Whether the password is masked.
+     */
+    public DataEntry(final VaultColumns columns, final int row, final boolean masked) {
+        this.id = columns.id(row);
+        this.columns = columns;
+        this.row = row;
+        this.record = null;
+        this.masked = masked;
+    }
+
+    /**
+     * Creates the row of an account changed after the table was read.
+     *
+     * @param id     The id of the account in the vault store.
+     * @param record The account to display.
+     * @param masked Whether the password is masked.
+     */
+    public DataEntry(final long id, final VaultRecord record, final boolean masked) {
+        this.id = id;
+        this.columns = null;
+        this.row = -1;
+        this.record = record;
+        this.masked = masked;
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    /**
+     * Returns the account this row displays, used to change or delete exactly this account.
+     *
+     * @return The account.
+     */
+    public VaultRecord getRecord() {
+        return record != null ? record : columns.record(row);
+    }
+
+    public String getService() {
+        return record != null ? record.service() : columns.service(row);
+    }
+
+    public String getUsername() {
+        return record != null ? record.username() : columns.username(row);
+    }
+
+    /**
+     * Returns the password to display.
+     *
+     * @return The password, or {@link #MASK} if passwords are hidden.
+     */
+    public String getPassword() {
+        return masked ? MASK : getSavedPassword();
+    }
+
+    /**
+     * Returns the password, also if it is masked.
+     *
+     * @return The password.
+     */
+    public String getSavedPassword() {
+        return record != null ? record.password() : columns.password(row);
+    }
+
+    /**
+     * Returns the columns this row points into.
+     *
+     * @return The columns, null if the row holds a record.
+     */
+    VaultColumns getColumns() {
+        return columns;
+    }
+
+    /**
+     * Returns the position of the account in {@link #getColumns()}.
+     *
+     * @return The position, -1 if the row holds a record.
+     */
+    int getRow() {
+        return row;
+    }
+}
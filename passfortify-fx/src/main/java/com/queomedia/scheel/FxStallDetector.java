@@ -0,0 +1,184 @@
+package com.queomedia.scheel;
+
+import com.queomedia.scheel.core.Metric;
+
+import javafx.application.Platform;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Watches how quickly the FX thread responds and reports where it is stuck when it does not.
+ *
+ * <p>Every {@link #INTERVAL_MILLIS} ms a watchdog thread posts an empty task to the FX thread and measures how long
+ * it waits for it. Pulses and input are handled by the same thread in the same queue, so the wait is how long the
+ * window would not repaint or react to a click. Pulses alone only run when something changed, so timing them would
+ * miss a freeze of an idle window. Waits are recorded in {@link Metric#UI_RESPONSIVENESS} and in a histogram of the
+ * last minute. A wait longer than the threshold prints the stack of the FX thread to standard error while it is
+ * still stuck, and is recorded as the flight recorder event {@code com.queomedia.scheel.FxStall}.</p>
+ *
+ * <p>The threshold is {@value #DEFAULT_THRESHOLD_MILLIS} ms unless {@code -Dpassfortify.stallMillis} sets another;
+ * 0 turns the detector off.</p>
+ */
+final class FxStallDetector {
+
+    /**
+     * System property setting the threshold in milliseconds.
+     */
+    static final String THRESHOLD_PROPERTY = "passfortify.stallMillis";
+
+    /**
+     * Threshold unless the system property sets another.
+     */
+    static final long DEFAULT_THRESHOLD_MILLIS = 100;
+
+    /**
+     * Time between two tasks posted to the FX thread.
+     */
+    private static final long INTERVAL_MILLIS = 20;
+
+    /**
+     * Nanoseconds per millisecond.
+     */
+    private static final double NANOS_PER_MILLI = 1e6;
+
+    /**
+     * The FX thread.
+     */
+    private final Thread fxThread;
+
+    /**
+     * Waits longer than this count as a stall, in nanoseconds.
+     */
+    private final long thresholdNanos;
+
+    /**
+     * The waits of the last minute, used by the watchdog thread only.
+     */
+    private final RollingHistogram lastMinute = new RollingHistogram();
+
+    /**
+     * Creates a detector.
+     *
+     * @param fxThread       The FX thread.
+     * @param thresholdNanos Waits longer than this count as a stall, in nanoseconds.
+     */
+    private FxStallDetector(final Thread fxThread, final long thresholdNanos) {
+        this.fxThread = fxThread;
+        this.thresholdNanos = thresholdNanos;
+    }
+
+    /**
+     * Starts watching the FX thread, unless the threshold is 0. Called on the FX thread.
+     */
+    static void start() {
+        long thresholdMillis = Long.getLong(THRESHOLD_PROPERTY, DEFAULT_THRESHOLD_MILLIS);
+        if (thresholdMillis <= 0) {
+            return;
+        }
+        FxStallDetector detector = new FxStallDetector(Thread.currentThread(),
+                TimeUnit.MILLISECONDS.toNanos(thresholdMillis));
+        //A platform thread, as it has to run while the FX thread is blocked, and a daemon not to keep the JVM alive
+        Thread watchdog = new Thread(detector::watch, "fx-stall-detector");
+        watchdog.setDaemon(true);
+        watchdog.start();
+    }
+
+    /**
+     * Posts tasks to the FX thread and times them until the FX toolkit exits.
+     */
+    private void watch() {
+        try {
+            while (fxThread.isAlive()) {
+                measure();
+                Thread.sleep(INTERVAL_MILLIS);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IllegalStateException e) {
+            //The toolkit exited
+        }
+    }
+
+    /**
+     * Posts one task to the FX thread and waits for it, reporting a stall if it takes too long.
+     *
+     * @throws InterruptedException If the watchdog thread is interrupted.
+     */
+    private void measure() throws InterruptedException {
+        CountDownLatch answered = new CountDownLatch(1);
+        Stall event = new Stall();
+        event.begin();
+        long posted = System.nanoTime();
+        Platform.runLater(answered::countDown);
+        if (answered.await(thresholdNanos, TimeUnit.NANOSECONDS)) {
+            record(posted, System.nanoTime());
+            return;
+        }
+
+        //Capturing the stack while the thread is still stuck, afterwards it would show where it went on
+        StackTraceElement[] stack = fxThread.getStackTrace();
+        StringBuilder report = new StringBuilder("FX thread has not responded for ")
+                .append(TimeUnit.NANOSECONDS.toMillis(thresholdNanos)).append(" ms, it is at:");
+        StringBuilder frames = new StringBuilder();
+        for (StackTraceElement frame : stack) {
+            frames.append(System.lineSeparator()).append("\tat ").append(frame);
+        }
+        System.err.println(report.append(frames));
+
+        answered.await();
+        long now = System.nanoTime();
+        record(posted, now);
+        System.err.printf("FX thread responded again after %.0f ms; last minute: %s%n",
+                (now - posted) / NANOS_PER_MILLI, lastMinute.summary(now));
+        event.end();
+        if (event.shouldCommit()) {
+            event.thread = fxThread;
+            event.fxStackTrace = frames.toString().strip();
+            event.commit();
+        }
+    }
+
+    /**
+     * Records how long the FX thread took to respond.
+     *
+     * @param posted The value of {@link System#nanoTime()} when the task was posted.
+     * @param now    The value of {@link System#nanoTime()} when it had run.
+     */
+    private void record(final long posted, final long now) {
+        Metric.UI_RESPONSIVENESS.recordSince(posted);
+        lastMinute.record(now - posted, now);
+    }
+
+    /**
+     * The FX thread did not respond for longer than the threshold.
+     */
+    @Name("com.queomedia.scheel.FxStall")
+    @Label("FX Stall")
+    @Category("PassFortify")
+    @Description("The FX thread did not respond for longer than the threshold")
+    @Enabled(false)
+    @StackTrace(false) //The stack of the watchdog says nothing, the one of the FX thread is a field
+    static final class Stall extends Event {
+
+        /**
+         * The FX thread.
+         */
+        @Label("Thread")
+        Thread thread;
+
+        /**
+         * The stack of the FX thread when the threshold passed.
+         */
+        @Label("FX Stack Trace")
+        String fxStackTrace;
+    }
+}
@@ -0,0 +1,62 @@
+package com.queomedia.scheel;
+
+import javafx.scene.input.Clipboard;
+import javafx.scene.input.ClipboardContent;
+import javafx.stage.FileChooser;
+
+import java.io.File;
+import java.nio.file.Path;
+
+/**
+ * Helper class bundling the JavaFX dependent tools used by the controllers, such as the clipboard and file dialogs.
+ * Everything that works without a running FX toolkit lives in {@link com.queomedia.scheel.core.PasswordTools}.
+ */
+public class FxTools {
+
+    /**
+     * Displays a file chooser dialog for selecting a folder to save a backup and returns the chosen path.
+     * This method opens a file chooser dialog prompting the user to select a folder for saving a backup.
+     * The initial directory is set to the user's home directory, and the suggested file name is "PassFortify Backup".
+     * The user's chosen path is then returned as a Path object.
+     *
+     * @return The Path object representing the selected folder path for saving a backup.
+     */
+    public static Path getFilePath() {
+        FileChooser filechooser = new FileChooser();
+        filechooser.setTitle("Select a directory where to store the backup"); //Title
+        filechooser.setInitialDirectory(new File(System.getProperty("user.home"))); //Set initial directory to users home directory
+        filechooser.setInitialFileName("PassFortify Backup"); //Set automatic name for the file to "Backup"
+        filechooser.getExtensionFilters().addAll(new FileChooser.ExtensionFilter("Folders", "*."));
+
+        return filechooser.showSaveDialog(null).toPath();
+    }
+
+    /**
+     * Displays a file chooser dialog for selecting a locally downloaded Pwned Passwords SHA-1 file.
+     * The file has to be the version ordered by hash.
+     *
+     * @return The selected file, or null if the dialog was cancelled.
+     */
+    public static Path getBreachFilePath() {
+        FileChooser filechooser = new FileChooser();
+        filechooser.setTitle("Select a Pwned Passwords SHA-1 file (ordered by hash)");
+        filechooser.setInitialDirectory(new File(System.getProperty("user.home")));
+        filechooser.getExtensionFilters().addAll(new FileChooser.ExtensionFilter("Hash files", "*.txt"),
+                new FileChooser.ExtensionFilter("All files", "*.*"));
+
+        File selectedFile = filechooser.showOpenDialog(null);
+        return selectedFile == null ? null : selectedFile.toPath();
+    }
+
+    /**
+     * Support Method used to transfer a string into the user's clipboard. Used primarily when something is generated-
+     *
+     * @param clipboardContent String which will be placed in clipboard. In this case either a generated password or passphrase
+     */
+    public static void toClipboard(final String clipboardContent) {
+        final Clipboard clipboard = Clipboard.getSystemClipboard();
+        final ClipboardContent content = new ClipboardContent();
+        content.putString(clipboardContent);
+        clipboard.setContent(content);
+    }
+}
@@ -0,0 +1,62 @@
+package com.queomedia.scheel;
+
+import com.queomedia.scheel.core.FlightRecording;
+import com.queomedia.scheel.core.PassFortifyMetrics;
+
+import javafx.application.Application;
+import javafx.scene.Scene;
+import javafx.stage.Stage;
+import javafx.stage.StageStyle;
+
+import java.nio.file.Path;
+import java.nio.file.Files;
+
+public class PassFortify extends Application {
+    @Override
+    public void start(final Stage stage) throws Exception {
+        StartupTiming.phase("JavaFX toolkit start");
+        PassFortifyMetrics.register(); //Makes the durations of the operations visible in JConsole or VisualVM
+        FxStallDetector.start(); //Reports where the FX thread is stuck when the window stops responding
+        StartupTiming.phase("Metrics and stall detector");
+        String mpassfile = "MPass.txt";
+        Path masterpass = Path.of(mpassfile);
+        boolean vaultExists = Files.exists(masterpass);
+        Scene scene = new Scene(WindowCache.load(vaultExists ? "passwordFound.fxml" : "noPasswordFound.fxml")
+                .getRoot());
+        StartupTiming.phase("First window FXML");
+        stage.getIcons().add(WindowCache.icon());
+        StartupTiming.phase("Icon");
+        stage.setTitle("PassFortify v1.0");
+        stage.setScene(scene);
+        stage.initStyle(StageStyle.UNDECORATED);
+        stage.setResizable(false);
+        stage.show();
+        StartupTiming.phase("Scene and stage shown");
+        StartupTiming.report();
+
+        //Preparing the windows opened next while the user types the master password
+        if (vaultExists) {
+            WindowCache.preload("internal.fxml", "addAccount.fxml");
+        } else {
+            WindowCache.preload("passwordFound.fxml");
+        }
+        if (TrainingRun.isRequested(getParameters().getRaw())) {
+            TrainingRun.scheduleAfterFirstWindow();
+        }
+    }
+
+    /**
+     * This method launches the application. It serves as the entry point when the program is executed, especially when
+     * running the application from a JAR (Java Archive) file. The launch() method is typically used in JavaFX applications
+     * to initialize and start the graphical user interface.
+     *
+     * @param args Command-line arguments passed to the application; {@code --timing} reports the startup phases,
+     *             {@code --training-run} exits once everything is loaded, see {@link TrainingRun}.
+     */
+    public static void main(final String[] args) {
+        StartupTiming.begin(args);
+        FlightRecording.startIfRequested(); //Before the toolkit starts, so the recording covers the whole startup
+        StartupTiming.phase("Flight recording");
+        launch(args);
+    }
+}
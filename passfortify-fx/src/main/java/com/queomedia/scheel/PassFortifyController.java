@@ -1,6 +1,19 @@
 package com.queomedia.scheel;
 
+import com.queomedia.scheel.core.BreachIndex;
+import com.queomedia.scheel.core.FlightRecording;
+import com.queomedia.scheel.core.Metric;
+import com.queomedia.scheel.core.PassphraseGenerator;
+import com.queomedia.scheel.core.PasswordTools;
+import com.queomedia.scheel.core.Setting;
+import com.queomedia.scheel.core.Settings;
+import com.queomedia.scheel.core.VaultColumns;
+import com.queomedia.scheel.core.VaultEvent;
+import com.queomedia.scheel.core.VaultRecord;
+import com.queomedia.scheel.core.VaultStore;
+
 import javafx.application.Platform;
+import javafx.beans.value.ObservableValue;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 import javafx.collections.transformation.FilteredList;
@@ -18,22 +31,31 @@ import javafx.scene.control.CheckMenuItem;
 import javafx.scene.control.Button;
 import javafx.scene.control.CheckBox;
 import javafx.scene.control.cell.PropertyValueFactory;
-import javafx.scene.image.Image;
 import javafx.scene.input.KeyCode;
 import javafx.scene.input.KeyEvent;
 import javafx.scene.input.MouseEvent;
 import javafx.stage.Modality;
 import javafx.stage.Stage;
 import javafx.stage.StageStyle;
+import javafx.stage.Window;
 
-import java.io.BufferedReader;
-import java.io.FileReader;
-import java.io.FileWriter;
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.net.URI;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.BitSet;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.ListIterator;
+import java.util.Locale;
+import java.util.Map;
 import java.util.Objects;
+import java.util.StringJoiner;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Consumer;
 
 /**
  * Controller class for the password manager and login windows.
@@ -167,6 +189,32 @@ public class PassFortifyController {
      */
     private FilteredList<DataEntry> filteredData;
 
+    /**
+     * The accounts behind the filtered list, patched when the vault changes while the window is open.
+     */
+    private ObservableList<DataEntry> tableData;
+
+    /**
+     * The columns the rows read with the table point into.
+     */
+    private VaultColumns tableColumns;
+
+    /**
+     * Receives the changes of the vault once the accounts are revealed, null before.
+     */
+    private VaultEventBatcher vaultEvents;
+
+    /**
+     * Updates the menu items of the main window when a setting changes elsewhere. Registered with the settings
+     * only while the window is showing, see {@link #listenToSettings(boolean)}.
+     */
+    private final Map<Setting, Consumer<Boolean>> settingListeners = new EnumMap<>(Setting.class);
+
+    /**
+     * Whether the window of this controller is showing, kept so its listener is not collected.
+     */
+    private ObservableValue<Boolean> showing;
+
     /**
      * Global String used to save the password strength evaluation.
      */
@@ -177,6 +225,11 @@ public class PassFortifyController {
      */
     private String mPassword;
 
+    /**
+     * Breach file selected by the user, shared by all windows for the rest of the session.
+     */
+    private static BreachIndex breachIndex;
+
     /**
      * Location of the password file.
      */
@@ -203,10 +256,11 @@ public class PassFortifyController {
      *
      * @param sceneToOpen The FXML scene file to open.
      * @param closePreviousWindow boolean used to decide whether the previous window will be closed or not.
+     * @return The FXMLLoader used to load the scene, giving access to the controller of the new window.
      * @throws IOException If an I/O error occurs during the window opening process.
      */
     @FXML
-    protected void openWindow(final String sceneToOpen, final boolean closePreviousWindow) throws IOException {
+    protected FXMLLoader openWindow(final String sceneToOpen, final boolean closePreviousWindow) throws IOException {
         //Getting position of the stage to open the new stage in the same place
         Stage currentStage = ((Stage) feedbackLabel.getScene().getWindow());
         double x = currentStage.getX();
@@ -216,10 +270,10 @@ public class PassFortifyController {
             ((Stage) feedbackLabel.getScene().getWindow()).close(); //Using UI element present in all three fxml files
         }
 
-        FXMLLoader fxmlLoader = new FXMLLoader(PassFortify.class.getResource(sceneToOpen));
-        Parent root1 = fxmlLoader.load();
+        FXMLLoader fxmlLoader = WindowCache.load(sceneToOpen); //Usually a spare loaded in the background
+        Parent root1 = fxmlLoader.getRoot();
         Stage stage = new Stage();
-        stage.getIcons().add(new Image("https://i.ibb.co/KhSS1G9/icon.jpg"));
+        stage.getIcons().add(WindowCache.icon());
         stage.initModality(Modality.APPLICATION_MODAL);
         stage.setTitle("PassFortify v1.0");
         stage.setScene(new Scene(root1));
@@ -228,6 +282,7 @@ public class PassFortifyController {
         stage.show();
         stage.setY(y);
         stage.setX(x);
+        return fxmlLoader;
     }
 
     /**
@@ -238,40 +293,37 @@ public class PassFortifyController {
     public void onGeneratePasswordLoginWindow() {
         String newMasterKey = PasswordTools.passwordGenerator();
         passField.setText(newMasterKey); //Depositing generated password in the passField
-        PasswordTools.toClipboard(newMasterKey);
+        FxTools.toClipboard(newMasterKey);
         feedbackLabel.setText("Generated secure master password and copied it to clipboard");
     }
 
     /**
      * Generates a passphrase using the PassphraseGenerator class, sets it in the password field,
      * and copies it to the system clipboard.
-     * Provides feedback indicating that the passphrase has been generated and copied.
-     *
-     * @throws IOException If an I/O error occurs during the generation or clipboard copying process.
+     * Provides feedback indicating that the passphrase has been generated and copied, including its entropy.
      */
-    public void onGeneratePassphraseLoginWindow() throws IOException {
-        String passphrase = PassphraseGenerator.generatePassphrase(); //Using PassphraseGenerator class to generate Passphrase
-        passField.setText(passphrase); //Depositing passphrase in the pass field
-        PasswordTools.toClipboard(passphrase);
-        feedbackLabel.setText("Generated passphrase and copied it to clipboard");
+    public void onGeneratePassphraseLoginWindow() {
+        PassphraseGenerator.Passphrase passphrase = PassphraseGenerator.defaults().generate(); //Using PassphraseGenerator class to generate Passphrase
+        passField.setText(passphrase.phrase()); //Depositing passphrase in the pass field
+        FxTools.toClipboard(passphrase.phrase());
+        feedbackLabel.setText("Generated passphrase (" + Math.round(passphrase.entropyBits())
+                + " bits) and copied it to clipboard");
         feedbackLabel.setAlignment(Pos.CENTER); //Centering text
     }
 
     /**
      * Generates a passphrase using the PassphraseGenerator class, sets it in the input field.
-     * Provides feedback indicating that the passphrase has been generated.
-     *
-     * @throws IOException If an I/O error occurs during the generation or clipboard copying process.
+     * Provides feedback indicating that the passphrase has been generated, including its entropy.
      */
-    public void onGeneratePassphraseClick() throws IOException {
-        String passphrase = PassphraseGenerator.generatePassphrase(); //Using PassphraseGenerator class to generate Passphrase
+    public void onGeneratePassphraseClick() {
+        PassphraseGenerator.Passphrase passphrase = PassphraseGenerator.defaults().generate(); //Using PassphraseGenerator class to generate Passphrase
         if (inputCheckBox.isSelected()) {
-            inputPasswordField.setText(passphrase);
+            inputPasswordField.setText(passphrase.phrase());
         } else {
-            inputField.setText(passphrase); //Depositing passphrase in the input field
+            inputField.setText(passphrase.phrase()); //Depositing passphrase in the input field
         }
-        PasswordTools.toClipboard(passphrase);
-        feedbackLabel.setText("Generated passphrase");
+        FxTools.toClipboard(passphrase.phrase());
+        feedbackLabel.setText("Generated passphrase (" + Math.round(passphrase.entropyBits()) + " bits)");
         feedbackLabel.setStyle("-fx-text-fill: #03c203");
     }
 
@@ -322,6 +374,10 @@ public class PassFortifyController {
      * @throws IOException If an error occurs during the window opening process.
      */
     public void onLogoutClick() throws IOException {
+        if (vaultEvents != null) {
+            vaultEvents.cancel(); //The table of this window is not updated anymore
+        }
+        //The settings listeners are removed when openWindow closes this window, see listenToSettings
         String passwordFound = "passwordFound.fxml";
         openWindow(passwordFound, true); //opens login window
     }
@@ -370,87 +426,73 @@ public class PassFortifyController {
     }
 
     /**
-     * Checks and sets the application settings based on the content of the settings file.
-     * If the file exists, reads the settings and updates the corresponding toggles.
-     * If the file does not exist, creates a new settings file with default values.
+     * Called by the FXML loader once the fields are injected. In the main window, shows the settings in the menu
+     * and keeps both in sync: toggling a menu item changes the setting, and a setting changed elsewhere, e.g. in
+     * another main window, updates the menu item. The menu item listeners run before their onAction handlers.
      *
-     * @throws IOException If an I/O error occurs while reading or creating the settings file.
+     * <p>The settings outlive every window, so they only hold on to this controller while its window is showing:
+     * a window that was logged out of or closed can be collected, and a spare window loaded in advance that is
+     * never shown is never registered.</p>
      */
-    public void applySettings() throws IOException {
-        BufferedReader reader;
-        String settingLocation = "settings.txt";
-        Path settingPath = Path.of(settingLocation);
+    @FXML
+    public void initialize() {
+        if (hidePassword == null) {
+            return; //Not the main window
+        }
+        bindSetting(hidePassword, Setting.HIDE_PASSWORDS);
+        bindSetting(passwordMatch, Setting.DUPLICATE_WARNING);
+        bindSetting(clearPassword, Setting.CLEAR_MASTER_PASSWORD);
+        bindSetting(checkLeak, Setting.CHECK_LEAKS);
+        showing = feedbackLabel.sceneProperty().flatMap(Scene::windowProperty).flatMap(Window::showingProperty)
+                .orElse(false);
+        showing.addListener((observable, wasShowing, isShowing) -> listenToSettings(isShowing));
+    }
 
-        //Checking whether the setting file exits
-        if (Files.exists(settingPath)) {
-            final int positionOfCheckLeaks = 3; //Position of the check for leaks setting
-            final int amountOfSettings = 4; //4, because there is four settings.
-            String[] settingContentLines = new String[amountOfSettings]; //Array containing the settings
-            reader = new BufferedReader(new FileReader(settingLocation));
-            String line = reader.readLine();
-            int i = 0;
-            while (line != null) {
-                settingContentLines[i] = line; //Setting line is assigned to a position in the array
-                line = reader.readLine();
-                i++;
-            }
-            reader.close();
-
-            //Looking which settings are selected
-            hidePassword.setSelected(settingContentLines[0].equals("HidePassword1"));
-            passwordMatch.setSelected(settingContentLines[1].equals("PasswordWarning1"));
-            if (settingContentLines[2].equals("ClearPassword1")) {
-                clearPassword.setSelected(true);
-                clearMasterPassSettingActivated();
+    /**
+     * Keeps a menu item and a setting in sync, starting with the value of the setting.
+     *
+     * @param menuItem The menu item.
+     * @param setting  The setting.
+     */
+    private void bindSetting(final CheckMenuItem menuItem, final Setting setting) {
+        Settings settings = Settings.shared();
+        menuItem.setSelected(settings.isEnabled(setting));
+        menuItem.selectedProperty().addListener((observable, wasSelected, selected) -> settings.set(setting, selected));
+        settingListeners.put(setting, enabled -> {
+            if (Platform.isFxApplicationThread()) {
+                menuItem.setSelected(enabled);
             } else {
-                clearPassword.setSelected(false);
-            }
-            checkLeak.setSelected(settingContentLines[positionOfCheckLeaks].equals("CheckLeak1"));
-        } else { //Creating settings file, if it doesn't exist
-            try {
-                FileWriter settingWriter = new FileWriter(settingLocation);
-                settingWriter.write("HidePassword1\nPasswordWarning0\nClearPassword0\nCheckLeak0");
-                settingWriter.close();
-
-                //Manually selecting and unselecting the checkMenuItems, as otherwise it would bug out.
-                checkLeak.setSelected(false);
-                hidePassword.setSelected(true);
-                passwordMatch.setSelected(false);
-                clearPassword.setSelected(false);
-            } catch (IOException e) {
-                feedbackLabel.setText("Error creating settings file.");
-                feedbackLabel.setStyle("-fx-text-fill: red");
+                Platform.runLater(() -> menuItem.setSelected(enabled));
             }
-        }
+        });
     }
 
-    public void updateSettingsFile() {
-        String settingLocation = "settings.txt";
-        try (FileWriter settingWriter = new FileWriter(settingLocation)) {
-            StringBuilder sb = new StringBuilder();
-
-            sb.append(hidePassword.isSelected() ? "HidePassword1\n" : "HidePassword0\n");
-            sb.append(passwordMatch.isSelected() ? "PasswordWarning1\n" : "PasswordWarning0\n");
-            sb.append(clearPassword.isSelected() ? "ClearPassword1\n" : "ClearPassword0\n");
-            sb.append(checkLeak.isSelected() ? "CheckLeak1\n" : "CheckLeak0\n");
-
-            settingWriter.write(sb.toString());
-        } catch (IOException e) {
-            feedbackLabel.setText("Error updating settings file.");
-            feedbackLabel.setStyle("-fx-text-fill: red");
+    /**
+     * Registers the listeners of the menu items with the settings when the window is shown and removes them when
+     * it is hidden, e.g. on logout.
+     *
+     * @param listen True to register, false to remove them.
+     */
+    private void listenToSettings(final boolean listen) {
+        Settings settings = Settings.shared();
+        for (Map.Entry<Setting, Consumer<Boolean>> listener : settingListeners.entrySet()) {
+            if (listen) {
+                settings.addListener(listener.getKey(), listener.getValue());
+                listener.getValue().accept(settings.isEnabled(listener.getKey())); //Changed while not listening
+            } else {
+                settings.removeListener(listener.getKey(), listener.getValue());
+            }
         }
     }
 
     /**
      * Handles the action triggered when the "Clear Master Password" setting is toggled.
      * If the setting is selected, clears the content of the master password field.
-     * Regardless of the setting state, updates other relevant settings.
      */
     public void clearMasterPassSettingActivated() {
         if (clearPassword.isSelected()) {
             mPasswordField2.setText("");
         }
-        updateSettingsFile();
     }
 
     /**
@@ -565,7 +607,7 @@ public class PassFortifyController {
         mPassword = mPasswordField2.getText();
 
         if (PasswordTools.checkMasterpassword(mPassword) && newpass != null) {
-            PasswordTools.changeMPass(mPassword, newpass);
+            VaultStore.shared().changeMasterPassword(mPassword, newpass);
             mPassword = newpass;
             feedbackLabel.setText("Master password changed");
             feedbackLabel.setStyle("-fx-text-fill: #03c203;");
@@ -617,51 +659,109 @@ public class PassFortifyController {
      */
     private void populateTableData() throws Exception {
         mPassword = mPasswordField2.getText();
-        applySettings(); //Updates and applies settings
-        applySettings(); //Settings need to be checked twice. if settings file was just created all settings would be turned on by default
-
-        //Using PasswordTools class to get arrays filled with account information.
-        String[] serviceContentLines = PasswordTools.getContentLines(serviceLocation, mPassword);
-        String[] usernameContentLines = PasswordTools.getContentLines(usernameLocation, mPassword);
-        String[] passwordContentLines = PasswordTools.getContentLines(passwordLocation, mPassword);
-
-        //Checks whether the setting for warning about duplicate passwords is selected
-        if (passwordMatch.isSelected() && !hidePassword.isSelected()) {
-            samePasswordCheck(passwordContentLines); //enters the samePasswordCheck to check if passwords are reused
-        } else {
-            warningLabel.setText("");
+        if (clearPassword.isSelected()) {
+            mPasswordField2.setText(""); //Clearing the master password after each use
         }
 
-        //ObservableList is created for the data
-        ObservableList<DataEntry> data = FXCollections.observableArrayList();
+        //Subscribing before reading, so no change between reading and subscribing is missed
+        if (vaultEvents == null) {
+            vaultEvents = new VaultEventBatcher(this::applyVaultEvents);
+            VaultStore.shared().events().subscribe(vaultEvents);
+        }
 
-        //calculates the maximum number of lines
-        int maxLines = Math.max(serviceContentLines.length,
-                Math.max(usernameContentLines.length, passwordContentLines.length));
+        //Reading the accounts through the store shared with the other windows
+        tableColumns = VaultStore.shared().columns(mPassword);
 
-        //Checking whether to fill tableView with passwords shown or passwords hidden
-        for (int i = 0; i < maxLines; i++) {
-            String services = (i < serviceContentLines.length) ? serviceContentLines[i] : "";
-            String usernames = (i < usernameContentLines.length) ? usernameContentLines[i] : "";
-            String passwords;
-            if (hidePassword.isSelected()) {
-                passwords = (i < passwordContentLines.length) ? "******" : "";
-            } else {
-                passwords = (i < passwordContentLines.length) ? passwordContentLines[i] : "";
-            }
-            data.add(new DataEntry(services, usernames, passwords)); // Adds the information as a DataEntry object
+        //ObservableList is created for the data, the rows point into the columns instead of copying the values
+        long start = System.nanoTime();
+        boolean masked = hidePassword.isSelected();
+        DataEntry[] rows = new DataEntry[tableColumns.size()];
+        for (int row = 0; row < rows.length; row++) {
+            rows[row] = new DataEntry(tableColumns, row, masked);
         }
+        tableData = FXCollections.observableArrayList(rows);
 
         //The data is added to the CellValueFactories
         services.setCellValueFactory(new PropertyValueFactory<>("service"));
         usernames.setCellValueFactory(new PropertyValueFactory<>("username"));
         passwords.setCellValueFactory(new PropertyValueFactory<>("password"));
 
-        filteredData = new FilteredList<>(data, p -> true);
+        filteredData = new FilteredList<>(tableData, p -> true);
         accountTable.setItems(filteredData); //Displaying the filtered list through the tableview
-        accountLabel.setText("Accounts saved: " + maxLines); //Using maxLines to determine the amount of accounts saved
+        updateAccountSummary();
 
         accountTable.getSelectionModel().setCellSelectionEnabled(true);
+        Metric.TABLE_POPULATION.recordSince(start);
+    }
+
+    /**
+     * Applies changes of the vault made by this or another window to the rows of the table, without decrypting
+     * the vault again. Rows keep their position, the filter stays applied. Called once per pulse with all changes
+     * that arrived since the last one.
+     *
+     * @param events The changes in the order they happened.
+     */
+    private void applyVaultEvents(final List<VaultEvent> events) {
+        if (tableData == null) {
+            return;
+        }
+        //Only the last state of every account matters, null for removed accounts
+        Map<Long, VaultRecord> latest = new LinkedHashMap<>();
+        for (VaultEvent event : events) {
+            if (event instanceof VaultEvent.Added added) {
+                latest.put(added.id(), added.record());
+            } else if (event instanceof VaultEvent.Updated updated) {
+                latest.put(updated.id(), updated.record());
+            } else {
+                latest.put(event.id(), null);
+            }
+        }
+        for (ListIterator<DataEntry> rows = tableData.listIterator(); rows.hasNext() && !latest.isEmpty(); ) {
+            DataEntry row = rows.next();
+            if (latest.containsKey(row.getId())) {
+                VaultRecord record = latest.remove(row.getId());
+                if (record == null) {
+                    rows.remove();
+                } else {
+                    rows.set(toDataEntry(row.getId(), record));
+                }
+            }
+        }
+        //Accounts not in the table yet are new, or were read when the change was already saved
+        latest.forEach((id, record) -> {
+            if (record != null) {
+                tableData.add(toDataEntry(id, record));
+            }
+        });
+        updateAccountSummary();
+    }
+
+    /**
+     * Creates the row of an account, masking the password if the setting to hide passwords is selected.
+     *
+     * @param id     The id of the account in the vault store.
+     * @param record The account.
+     * @return The row.
+     */
+    private DataEntry toDataEntry(final long id, final VaultRecord record) {
+        return new DataEntry(id, record, hidePassword.isSelected());
+    }
+
+    /**
+     * Updates the number of saved accounts and the warning about reused passwords from the rows of the table.
+     */
+    private void updateAccountSummary() {
+        //Checks whether the setting for warning about duplicate passwords is selected
+        if (passwordMatch.isSelected() && !hidePassword.isSelected()) {
+            String[] passwordContentLines = new String[tableData.size()];
+            for (int i = 0; i < passwordContentLines.length; i++) {
+                passwordContentLines[i] = tableData.get(i).getSavedPassword();
+            }
+            samePasswordCheck(passwordContentLines); //enters the samePasswordCheck to check if passwords are reused
+        } else {
+            warningLabel.setText("");
+        }
+        accountLabel.setText("Accounts saved: " + tableData.size());
     }
 
     /**
@@ -675,17 +775,26 @@ public class PassFortifyController {
         if (PasswordTools.checkMasterpassword(mPasswordField2.getText())) {
             populateTableData();
             String filterThis = getInputFromTextField();
+            long start = System.nanoTime();
+            FlightRecording.Search event = new FlightRecording.Search();
+            event.begin();
+            //Matching every distinct service and username once; an empty search field matches all entries
+            BitSet matches = tableColumns.search(filterThis);
+            String lowerCaseFilter = filterThis == null ? "" : filterThis.toLowerCase(Locale.ROOT);
             filteredData.setPredicate(entry -> { //setting the predicate of the filtered list
-                if (filterThis == null || filterThis.isEmpty()) {
-                    return true; // Show all entries when the search field is empty
+                if (entry.getColumns() == tableColumns) {
+                    return matches.get(entry.getRow());
                 }
 
-                String lowerCaseFilter = filterThis.toLowerCase();
-
-                // Check if any of the columns contain the search term
-                return entry.getService().toLowerCase().contains(lowerCaseFilter)
-                        || entry.getUsername().toLowerCase().contains(lowerCaseFilter);
+                // Rows changed since the table was read hold their account, checking if its columns contain the term
+                return entry.getService().toLowerCase(Locale.ROOT).contains(lowerCaseFilter)
+                        || entry.getUsername().toLowerCase(Locale.ROOT).contains(lowerCaseFilter);
             });
+            Metric.SEARCH.recordSince(start);
+            event.entries = tableData.size();
+            event.matches = filteredData.size();
+            event.queryLength = filterThis == null ? 0 : filterThis.length();
+            event.commit();
         } else {
             feedbackLabel.setText("Wrong master password");
             feedbackLabel.setStyle("-fx-text-fill: red");
@@ -709,15 +818,14 @@ public class PassFortifyController {
             String mPassword = mPasswordField2.getText();
 
             try {
-                //table position used to delete account
-                int pos = accountTable.getSelectionModel().getSelectedIndex();
-
-                PasswordTools.deleteLineInAccountFiles(pos, serviceLocation, mPassword);
-                PasswordTools.deleteLineInAccountFiles(pos, usernameLocation, mPassword);
-                PasswordTools.deleteLineInAccountFiles(pos, passwordLocation, mPassword);
+                //Deleting the account itself, its table position may be outdated if another window saved
+                VaultStore.shared().remove(selectedItem.getRecord(), mPassword);
 
                 feedbackLabel.setText("Account '" + service + "' deleted");
                 feedbackLabel.setStyle("-fx-text-fill: #03c203;");
+            } catch (IllegalStateException e) {
+                feedbackLabel.setText(e.getMessage());
+                feedbackLabel.setStyle("-fx-text-fill: red;");
             } catch (IOException e) {
                 feedbackLabel.setText("Account could not be deleted");
                 feedbackLabel.setStyle("-fx-text-fill: red;");
@@ -727,11 +835,10 @@ public class PassFortifyController {
             feedbackLabel.setText("Please select an account to delete");
             feedbackLabel.setStyle("-fx-text-fill: red");
         }
+        //The table is updated through the change published by the store
         if (!PasswordTools.checkMasterpassword(mPass)) {
             feedbackLabel.setText("Master password incorrect");
             feedbackLabel.setStyle("-fx-text-fill: red;");
-        } else {
-            populateTableData();
         }
     }
 
@@ -745,11 +852,11 @@ public class PassFortifyController {
     public void copyPasswordFromTableview() throws Exception {
         mPassword = mPasswordField2.getText();
         if (accountTable.getSelectionModel().getSelectedItem() != null) {
-            int pos = accountTable.getSelectionModel().getSelectedIndex();
-            String password = PasswordTools.getPasswordFromFiles(mPassword, pos);
+            //The displayed password may be masked, the record always holds the real one
+            String password = accountTable.getSelectionModel().getSelectedItem().getRecord().password();
 
             if (password != null) {
-                PasswordTools.toClipboard(password);
+                FxTools.toClipboard(password);
                 feedbackLabel.setText("Password copied");
                 feedbackLabel.setStyle("-fx-text-fill: #03c203;");
             } else {
@@ -763,16 +870,14 @@ public class PassFortifyController {
     }
 
     /**
-     * Replaces the password for a selected service and username.
-     * This method retrieves the master password, new password, service, and username from UI components.
-     * It then loads the existing content lines for the service, username, and password files.
-     * If a match is found for the selected service and username, the corresponding password is replaced
-     * with the new password. The modified password content is then written back to the password file,
-     * encrypted with the master password, and the table data is updated.
+     * Replaces the service, username or password of the selected account, depending on the selected column.
+     * This method retrieves the master password and the new value from UI components and replaces the selected
+     * account through the vault store. If another window changed or deleted the account in the meantime, nothing
+     * is changed and the user is told so. The row is updated through the change published by the store.
      *
-     * @throws Exception If an error occurs during the password replacement, file writing, or encryption process.
+     * @throws Exception If an error occurs during the replacement, file writing, or encryption process.
      *
-     * @see #populateTableData()
+     * @see #applyVaultEvents(List)
      */
     public void onChangeEntryClick() throws Exception {
         if (accountTable.getSelectionModel().getSelectedItem() != null) {
@@ -781,40 +886,23 @@ public class PassFortifyController {
 
             TableColumn selectedColumn = accountTable.getSelectionModel().getSelectedCells().get(0).getTableColumn();
 
-            String service = accountTable.getSelectionModel().getSelectedItem().getService();
-            String username = accountTable.getSelectionModel().getSelectedItem().getUsername();
-            String password = accountTable.getSelectionModel().getSelectedItem().getPassword();
-
-            if (selectedColumn.getText().equals("Service")) {
-                PasswordTools.changeEntry(mPassword,
-                        passwordLocation,
-                        usernameLocation,
-                        serviceLocation,
-                        password,
-                        username,
-                        newEntry);
-            } else if (selectedColumn.getText().equals("Username")) {
-                PasswordTools.changeEntry(mPassword,
-                        serviceLocation,
-                        passwordLocation,
-                        usernameLocation,
-                        service,
-                        password,
-                        newEntry);
-            } else if (selectedColumn.getText().equals("Password")) {
-                PasswordTools.changeEntry(mPassword,
-                        serviceLocation,
-                        usernameLocation,
-                        passwordLocation,
-                        service,
-                        username,
-                        newEntry);
-            }
-
-            feedbackLabel.setText(selectedColumn.getText() + " changed successfully");
-            feedbackLabel.setStyle("-fx-text-fill: #03c203");
+            VaultRecord record = accountTable.getSelectionModel().getSelectedItem().getRecord();
+            VaultRecord changed = switch (selectedColumn.getText()) {
+                case "Service" -> new VaultRecord(newEntry, record.username(), record.password(), 0);
+                case "Username" -> new VaultRecord(record.service(), newEntry, record.password(), 0);
+                case "Password" -> new VaultRecord(record.service(), record.username(), newEntry, 0);
+                default -> record;
+            };
 
-            populateTableData();
+            try {
+                //The store sets the timestamp if the password changed
+                VaultStore.shared().update(record, changed, mPassword);
+                feedbackLabel.setText(selectedColumn.getText() + " changed successfully");
+                feedbackLabel.setStyle("-fx-text-fill: #03c203");
+            } catch (IllegalStateException e) {
+                feedbackLabel.setText(e.getMessage());
+                feedbackLabel.setStyle("-fx-text-fill: red");
+            }
         } else {
             feedbackLabel.setText("Please select an entry to change");
             feedbackLabel.setStyle("-fx-text-fill: red");
@@ -851,6 +939,154 @@ public class PassFortifyController {
         openWindow("passwordGenerationForm.fxml", false);
     }
 
+    /**
+     * Handles the action triggered when the "Audit vault" menu item is clicked.
+     * Opens the audit window, which scores the strength, reuse and age of every saved password in the background.
+     * Double-clicking an account in the audit window selects it in the account table.
+     *
+     * @throws Exception If the master password cannot be checked or the audit window cannot be opened.
+     */
+    public void onAuditVaultClick() throws Exception {
+        mPassword = mPasswordField2.getText();
+        if (!PasswordTools.checkMasterpassword(mPassword)) {
+            feedbackLabel.setText("Master password incorrect");
+            feedbackLabel.setStyle("-fx-text-fill: red;");
+            return;
+        }
+        AuditController auditController = openWindow("audit.fxml", false).getController();
+        auditController.startAudit(mPassword, breachIndex, this::selectAccount);
+    }
+
+    /**
+     * Handles the action triggered when the "Check breached passwords" menu item is clicked.
+     * Lets the user pick a locally downloaded Pwned Passwords SHA-1 file and checks every saved password against it,
+     * without any network access. Opening the file and checking the passwords happen in the background, like the
+     * audit, so the window stays responsive for large files and vaults. The file stays open for the rest of the
+     * session, so the vault audit checks breaches as well.
+     *
+     * @throws Exception If the master password cannot be checked.
+     */
+    public void onCheckBreachesClick() throws Exception {
+        mPassword = mPasswordField2.getText();
+        if (!PasswordTools.checkMasterpassword(mPassword)) {
+            feedbackLabel.setText("Master password incorrect");
+            feedbackLabel.setStyle("-fx-text-fill: red;");
+            return;
+        }
+        Path breachFile = FxTools.getBreachFilePath();
+        if (breachFile == null) {
+            return;
+        }
+        feedbackLabel.setText("Checking passwords against the breach file...");
+        feedbackLabel.setStyle("-fx-text-fill: yellow;");
+        String password = mPassword;
+        CompletableFuture.supplyAsync(() -> checkBreaches(breachFile, password))
+                .whenComplete((check, error) -> Platform.runLater(() -> showBreachCheck(check, error)));
+    }
+
+    /**
+     * Opens a breach file and checks every saved password against it. Runs in the background.
+     *
+     * @param breachFile The sorted Pwned Passwords SHA-1 file.
+     * @param password   The master password used to decrypt the vault.
+     * @return The opened file and the accounts using breached passwords.
+     * @throws IllegalArgumentException If the file is not a sorted SHA-1 hash file.
+     * @throws UncheckedIOException     If the file cannot be mapped.
+     * @throws IllegalStateException    If the accounts cannot be decrypted.
+     */
+    private static BreachCheck checkBreaches(final Path breachFile, final String password) {
+        BreachIndex index;
+        try {
+            index = BreachIndex.open(breachFile);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        StringJoiner breachedServices = new StringJoiner(", ");
+        int breached = 0;
+        try {
+            for (VaultRecord entry : VaultStore.shared().records(password)) {
+                if (index.breachCount(entry.password()) > 0) {
+                    breachedServices.add(entry.service());
+                    breached++;
+                }
+            }
+        } catch (Exception e) {
+            try {
+                index.close();
+            } catch (IOException closeError) {
+                e.addSuppressed(closeError);
+            }
+            throw new IllegalStateException("Accounts could not be decrypted", e);
+        }
+        return new BreachCheck(index, breached, breachedServices.toString());
+    }
+
+    /**
+     * Shows the outcome of a breach check and keeps its file open for the audit. Runs on the FX thread.
+     *
+     * @param check The outcome, null if the check failed.
+     * @param error Why the check failed, null if it succeeded.
+     */
+    private void showBreachCheck(final BreachCheck check, final Throwable error) {
+        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        if (cause instanceof IllegalStateException) {
+            //The previous file is still fine, only the vault could not be read
+            feedbackLabel.setText("Accounts could not be decrypted");
+            feedbackLabel.setStyle("-fx-text-fill: red;");
+            return;
+        }
+        try {
+            if (breachIndex != null) {
+                breachIndex.close();
+            }
+        } catch (IOException e) {
+            System.err.println("Breach file could not be closed: " + e.getMessage());
+        }
+        if (cause != null) {
+            breachIndex = null;
+            feedbackLabel.setText("Not a sorted SHA-1 Pwned Passwords file");
+            feedbackLabel.setStyle("-fx-text-fill: red;");
+            return;
+        }
+        breachIndex = check.index();
+        if (check.breached() > 0) {
+            warningLabel.setText("WARNING: Breached passwords used for " + check.services());
+            warningLabel.setStyle("-fx-text-fill: red;");
+            feedbackLabel.setText(check.breached() + " breached password(s) found");
+            feedbackLabel.setStyle("-fx-text-fill: red;");
+        } else {
+            feedbackLabel.setText("No breached passwords found");
+            feedbackLabel.setStyle("-fx-text-fill: #03c203;");
+        }
+    }
+
+    /**
+     * Selects an account in the account table, revealing the table first if necessary. The account is found by its
+     * id, so it is the right one also if accounts were added or removed since the audit read them.
+     *
+     * @param id The id of the account in the vault store.
+     */
+    private void selectAccount(final long id) {
+        try {
+            if (filteredData == null) {
+                populateTableData();
+            }
+            filteredData.setPredicate(entry -> true); //The account may be hidden by the search
+            for (int row = 0; row < filteredData.size(); row++) {
+                if (filteredData.get(row).getId() == id) {
+                    accountTable.getSelectionModel().clearAndSelect(row);
+                    accountTable.scrollTo(row);
+                    return;
+                }
+            }
+            feedbackLabel.setText("The account was removed in the meantime");
+            feedbackLabel.setStyle("-fx-text-fill: red;");
+        } catch (Exception e) {
+            feedbackLabel.setText("Account could not be selected");
+            feedbackLabel.setStyle("-fx-text-fill: red;");
+        }
+    }
+
     /**
      * Method that gets called when the "Create Backup" button is clicked.
      * the Path destinationDirectory gets assigned the output of the getFilePath method.
@@ -860,7 +1096,8 @@ public class PassFortifyController {
      */
     public void onCreateBackUpClick() {
         try {
-            Path destinationDirectory = PasswordTools.getFilePath(); //Assigns the file path through the getFilePath method
+            Path destinationDirectory = FxTools.getFilePath(); //Assigns the file path through the getFilePath method
+            Settings.shared().flush(); //Writing toggles of the last moment before the file is copied
             PasswordTools.createBackup(destinationDirectory);
             feedbackLabel.setText("Backup created.");
             feedbackLabel.setStyle("-fx-text-fill: #03c203;");
@@ -903,7 +1140,6 @@ public class PassFortifyController {
      */
     public void dupeUpdater() throws Exception {
         String masterPassword = mPasswordField2.getText(); //Master password taken from password field
-        updateSettingsFile();
         if (PasswordTools.checkMasterpassword(masterPassword)) {
             if (passwordMatch.isSelected()) { //Checking whether the setting to alert for duplicate passwords is enabled
                 populateTableData(); //If enabled, tableview will be repopulated and warning appears on bottom
@@ -977,7 +1213,16 @@ public class PassFortifyController {
      */
     @FXML
     public void hidePasswordsUpdater() throws Exception {
-        updateSettingsFile();
         onRevealAccountsClick();
     }
+
+    /**
+     * Outcome of checking the saved passwords against a breach file.
+     *
+     * @param index    The opened breach file.
+     * @param breached Number of accounts using a breached password.
+     * @param services The services of these accounts, separated by commas.
+     */
+    private record BreachCheck(BreachIndex index, int breached, String services) {
+    }
 }
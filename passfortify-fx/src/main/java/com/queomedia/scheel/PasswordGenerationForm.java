@@ -1,5 +1,9 @@
 package com.queomedia.scheel;
 
+import com.queomedia.scheel.core.CharacterClass;
+import com.queomedia.scheel.core.PasswordGenerator;
+import com.queomedia.scheel.core.PasswordPolicy;
+
 import javafx.fxml.FXML;
 import javafx.geometry.Pos;
 import javafx.scene.control.Label;
@@ -9,10 +13,6 @@ import javafx.scene.control.CheckBox;
 import javafx.scene.input.MouseEvent;
 import javafx.stage.Stage;
 
-import java.security.SecureRandom;
-import java.util.ArrayList;
-import java.util.List;
-
 public class PasswordGenerationForm {
 
     /**
@@ -39,6 +39,12 @@ public class PasswordGenerationForm {
     @FXML
     private CheckBox specialCharactersCheckBox;
 
+    /**
+     * CheckBox to allow user to leave out characters that are easily confused, such as l, 1 and I.
+     */
+    @FXML
+    private CheckBox ambiguousCheckBox;
+
     /**
      * TextField to allow user to input custom password length.
      */
@@ -63,53 +69,44 @@ public class PasswordGenerationForm {
     @FXML
     private Slider lengthSlider;
 
-    /**
-     * Set of all possible Special characters. Used in password generation.
-     */
-    private static final String SPECIAL_CHARACTERS = "!@#$%^&*()-_=+[{]};:'\"|,./?";
-
-    /**
-     * Set of all lowercase characters. Used in password generation.
-     */
-    private static final String LOWERCASE_LETTERS = "abcdefghijklmnopqrstuvwxyz";
-
-    /**
-     * Set of all uppercase characters. Used in password generation.
-     */
-    private static final String UPPERCASE_LETTERS = "ABCDEFGHIJKLMNOPQRSTUVWXYZ";
-
-    /**
-     * Set of all digits 0-9.
-     */
-    private static final String DIGITS = "0123456789";
-
     /**
      * Generates a random password based on the selected character sets and length.
      * This method is invoked when the user clicks the password generation button.
-     * It constructs a random password by selecting characters from the chosen character sets
-     * (lowercase letters, uppercase letters, digits, and special characters) and of the specified length.
+     * It compiles the selection into a password policy that requires at least one character of every chosen set
+     * (lowercase letters, uppercase letters, digits, and special characters), optionally without ambiguous characters,
+     * and generates a password of the specified length following it.
      * The generated password is copied to the system clipboard and displayed in the lengthField.
      * Additionally, it updates the feedbackLabel to indicate that the password has been generated and copied.
      */
     public void passwordGenerator() {
         try {
-            SecureRandom randomizer = new SecureRandom();
-            StringBuilder randomPassword = new StringBuilder(); //Using StringBuilder to construct the password
-
-            List<String> characterSets = new ArrayList<>();
+            PasswordPolicy.Builder policy = PasswordPolicy.builder();
+            int selectedSets = 0;
 
-            //Adding selected character sets to the list
+            //Requiring every selected character set at least once
             if (lowercaseLettersCheckBox.isSelected()) {
-                characterSets.add(LOWERCASE_LETTERS);
+                policy.require(CharacterClass.LOWERCASE, 1);
+                selectedSets++;
             }
             if (uppercaseLetterCheckBox.isSelected()) {
-                characterSets.add(UPPERCASE_LETTERS);
+                policy.require(CharacterClass.UPPERCASE, 1);
+                selectedSets++;
             }
             if (digitCheckBox.isSelected()) {
-                characterSets.add(DIGITS);
+                policy.require(CharacterClass.DIGITS, 1);
+                selectedSets++;
             }
             if (specialCharactersCheckBox.isSelected()) {
-                characterSets.add(SPECIAL_CHARACTERS);
+                policy.require(CharacterClass.SPECIAL, 1);
+                selectedSets++;
+            }
+            if (ambiguousCheckBox.isSelected()) {
+                policy.excludeAmbiguous();
+            }
+            if (selectedSets == 0) {
+                feedbackLabel.setText("Please select at least one set.");
+                feedbackLabel.setAlignment(Pos.CENTER);
+                return;
             }
 
             //parsing length of desired password from the textField
@@ -121,29 +118,23 @@ public class PasswordGenerationForm {
                 feedbackLabel.setAlignment(Pos.CENTER);
                 return;
             }
-
-            //Getting size of the character set
-            int numSets = characterSets.size();
-
-            //Generating password character by character
-            for (int i = 0; i < passwordLength; i++) {
-                String selectedCharacterSet = characterSets.get(randomizer.nextInt(numSets));
-                char randomChar = selectedCharacterSet.charAt(randomizer.nextInt(selectedCharacterSet.length()));
-                randomPassword.append(randomChar);
+            if (passwordLength < selectedSets) {
+                feedbackLabel.setText("Length must fit all selected sets.");
+                feedbackLabel.setAlignment(Pos.CENTER);
+                return;
             }
 
+            String randomPassword = new PasswordGenerator(policy.length(passwordLength).build()).generate();
+
             //Copying the generated password to the clipboard
-            PasswordTools.toClipboard(String.valueOf(randomPassword));
-            passwordLabel.setText(String.valueOf(randomPassword));
+            FxTools.toClipboard(randomPassword);
+            passwordLabel.setText(randomPassword);
             feedbackLabel.setText("Password generated and copied");
             passwordLabel.setAlignment(Pos.CENTER);
             feedbackLabel.setAlignment(Pos.CENTER);
         } catch (NumberFormatException e) {
             feedbackLabel.setText("Please enter numbers only.");
             feedbackLabel.setAlignment(Pos.CENTER);
-        } catch (IllegalArgumentException e) {
-            feedbackLabel.setText("Please select at least one set.");
-            feedbackLabel.setAlignment(Pos.CENTER);
         }
     }
 
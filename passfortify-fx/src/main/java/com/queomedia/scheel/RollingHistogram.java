@@ -0,0 +1,133 @@
+package com.queomedia.scheel;
+
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * Counts durations of the last minute in buckets of powers of two.
+ *
+ * <p>The minute is split into windows; recording into a window that has aged out clears it first, so the counts
+ * always cover the current window and the ones before it. Used by a single thread, it is not thread safe.</p>
+ */
+class RollingHistogram {
+
+    /**
+     * Number of buckets, one per bit of a long.
+     */
+    private static final int BUCKETS = Long.SIZE;
+
+    /**
+     * Number of windows kept.
+     */
+    private static final int WINDOWS = 6;
+
+    /**
+     * Length of a window in nanoseconds.
+     */
+    private static final long WINDOW_NANOS = 10_000_000_000L;
+
+    /**
+     * Nanoseconds per millisecond.
+     */
+    private static final double NANOS_PER_MILLI = 1e6;
+
+    /**
+     * Number of durations per window and bucket.
+     */
+    private final long[][] counts = new long[WINDOWS][BUCKETS];
+
+    /**
+     * The longest duration per window.
+     */
+    private final long[] maxNanos = new long[WINDOWS];
+
+    /**
+     * The number of the window every slot currently holds, counted from the start of {@link System#nanoTime()}.
+     */
+    private final long[] windows = new long[WINDOWS];
+
+    /**
+     * Creates an empty histogram.
+     */
+    RollingHistogram() {
+        Arrays.fill(windows, Long.MIN_VALUE); //No slot holds a window yet
+    }
+
+    /**
+     * Records a duration.
+     *
+     * @param nanos The duration in nanoseconds.
+     * @param now   The value of {@link System#nanoTime()} when it ended.
+     */
+    void record(final long nanos, final long now) {
+        long value = Math.max(nanos, 0);
+        int slot = slot(now);
+        counts[slot][BUCKETS - 1 - Long.numberOfLeadingZeros(value | 1)]++;
+        maxNanos[slot] = Math.max(maxNanos[slot], value);
+    }
+
+    /**
+     * Summarizes the durations of the last minute, e.g. for a log line.
+     *
+     * @param now The value of {@link System#nanoTime()}.
+     * @return The count, the 50th, 90th and 99th percentile and the maximum.
+     */
+    String summary(final long now) {
+        long window = Math.floorDiv(now, WINDOW_NANOS);
+        long[] merged = new long[BUCKETS];
+        long count = 0;
+        long max = 0;
+        for (int slot = 0; slot < WINDOWS; slot++) {
+            if (windows[slot] > window - WINDOWS) {
+                for (int b = 0; b < BUCKETS; b++) {
+                    merged[b] += counts[slot][b];
+                    count += counts[slot][b];
+                }
+                max = Math.max(max, maxNanos[slot]);
+            }
+        }
+        return String.format(Locale.ROOT, "%d samples, p50 %.1f ms, p90 %.1f ms, p99 %.1f ms, max %.1f ms", count,
+                percentile(merged, count, max, 0.5) / NANOS_PER_MILLI,
+                percentile(merged, count, max, 0.9) / NANOS_PER_MILLI,
+                percentile(merged, count, max, 0.99) / NANOS_PER_MILLI, max / NANOS_PER_MILLI);
+    }
+
+    /**
+     * Returns the slot of the window a time falls into, clearing it if it still holds an older window.
+     *
+     * @param now The value of {@link System#nanoTime()}.
+     * @return The slot.
+     */
+    private int slot(final long now) {
+        long window = Math.floorDiv(now, WINDOW_NANOS);
+        int slot = (int) Math.floorMod(window, (long) WINDOWS);
+        if (windows[slot] != window) {
+            Arrays.fill(counts[slot], 0);
+            maxNanos[slot] = 0;
+            windows[slot] = window;
+        }
+        return slot;
+    }
+
+    /**
+     * Estimates a percentile as the middle of the bucket it falls into.
+     *
+     * @param buckets  Number of durations per bucket.
+     * @param count    Number of durations.
+     * @param max      The longest duration.
+     * @param fraction The percentile as a fraction, e.g. 0.99.
+     * @return The estimate in nanoseconds, never above the maximum, 0 without durations.
+     */
+    private static double percentile(final long[] buckets, final long count, final long max,
+            final double fraction) {
+        long rank = (long) Math.ceil(fraction * count);
+        long seen = 0;
+        for (int b = 0; b < buckets.length; b++) {
+            seen += buckets[b];
+            if (seen >= rank && seen > 0) {
+                return Math.min(1.5 * (1L << b), max);
+            }
+        }
+        return 0;
+    }
+}
@@ -0,0 +1,95 @@
+package com.queomedia.scheel;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Measures the phases of starting the application, reported on standard error with {@code --timing}.
+ *
+ * <p>Every phase lasts from the end of the one before to its own end, so the phases add up to the time from JVM
+ * start to the first window.</p>
+ */
+final class StartupTiming {
+
+    /**
+     * The command line argument asking for the report.
+     */
+    static final String TIMING_ARGUMENT = "--timing";
+
+    /**
+     * Nanoseconds per millisecond.
+     */
+    private static final double NANOS_PER_MILLI = 1e6;
+
+    /**
+     * Duration of every phase in nanoseconds, in the order they ended.
+     */
+    private static final Map<String, Long> PHASES = new LinkedHashMap<>();
+
+    /**
+     * Value of {@link System#nanoTime()} when {@code main} was entered.
+     */
+    private static long mainStart;
+
+    /**
+     * Value of {@link System#nanoTime()} when the last phase ended.
+     */
+    private static long lastEnd;
+
+    /**
+     * Whether the report was asked for.
+     */
+    private static boolean enabled;
+
+    /**
+     * Not to be instantiated.
+     */
+    private StartupTiming() {
+    }
+
+    /**
+     * Starts measuring. Called first thing in {@code main}.
+     *
+     * @param args The command line arguments, checked for {@link #TIMING_ARGUMENT}.
+     */
+    static synchronized void begin(final String[] args) {
+        mainStart = System.nanoTime();
+        lastEnd = mainStart;
+        for (String arg : args) {
+            enabled |= TIMING_ARGUMENT.equals(arg);
+        }
+    }
+
+    /**
+     * Ends a phase.
+     *
+     * @param phase What happened since the previous phase ended.
+     */
+    static synchronized void phase(final String phase) {
+        long now = System.nanoTime();
+        PHASES.merge(phase, now - lastEnd, Long::sum);
+        lastEnd = now;
+    }
+
+    /**
+     * Reports the phases, if asked for. Called once the first window is shown.
+     */
+    static synchronized void report() {
+        if (!enabled) {
+            return;
+        }
+        long totalNanos = lastEnd - mainStart;
+        long jvmMillis = ProcessHandle.current().info().startInstant()
+                .map(start -> Duration.between(start, Instant.now()).toMillis()
+                        - (System.nanoTime() - mainStart) / 1_000_000)
+                .orElse(-1L);
+        System.err.printf(Locale.ROOT, "JVM start to main: %d ms%n", jvmMillis);
+        for (Map.Entry<String, Long> phase : PHASES.entrySet()) {
+            System.err.printf(Locale.ROOT, "%s: %.1f ms%n", phase.getKey(), phase.getValue() / NANOS_PER_MILLI);
+        }
+        System.err.printf(Locale.ROOT, "Main to first window: %.1f ms%n", totalNanos / NANOS_PER_MILLI);
+    }
+}
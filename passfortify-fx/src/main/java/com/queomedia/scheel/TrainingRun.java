@@ -0,0 +1,75 @@
+package com.queomedia.scheel;
+
+import com.queomedia.scheel.core.Cryptography;
+
+import javafx.application.Platform;
+import javafx.scene.Parent;
+import javafx.scene.Scene;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Starts the application once without a user, to record which classes it loads for a class data sharing archive.
+ *
+ * <p>With {@code --training-run} the first window is shown as usual, then every window is loaded and styled once
+ * and a throwaway text is encrypted and decrypted, so the controls, skins, controllers and ciphers used after login
+ * are loaded as well. The application exits afterwards. The vault in the working directory is never touched; the
+ * build runs the training in an empty folder.</p>
+ */
+final class TrainingRun {
+
+    /**
+     * The command line argument asking for a training run.
+     */
+    static final String TRAINING_ARGUMENT = "--training-run";
+
+    /**
+     * Every window of the application.
+     */
+    private static final String[] WINDOWS = {"noPasswordFound.fxml", "passwordFound.fxml", "internal.fxml",
+        "addAccount.fxml", "passwordGenerationForm.fxml", "audit.fxml"};
+
+    /**
+     * Not to be instantiated.
+     */
+    private TrainingRun() {
+    }
+
+    /**
+     * Checks whether a training run was asked for.
+     *
+     * @param args The command line arguments.
+     * @return True if they contain {@link #TRAINING_ARGUMENT}.
+     */
+    static boolean isRequested(final Iterable<String> args) {
+        for (String arg : args) {
+            if (TRAINING_ARGUMENT.equals(arg)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Loads what a session loads after the first window and exits, once the first window has been drawn.
+     */
+    static void scheduleAfterFirstWindow() {
+        Platform.runLater(() -> {
+            try {
+                for (String window : WINDOWS) {
+                    Parent root = WindowCache.load(window).getRoot();
+                    new Scene(root);
+                    root.applyCss(); //Creates the skins, which the table and text fields load most classes for
+                    root.layout();
+                }
+                String training = "training";
+                byte[] encrypted = Cryptography.encrypt(training.getBytes(UTF_8), training);
+                Cryptography.decrypt(encrypted, training);
+            } catch (Exception e) {
+                System.err.println("Training run failed: " + e.getMessage());
+            } finally {
+                Platform.exit();
+            }
+        });
+    }
+}
@@ -0,0 +1,123 @@
+package com.queomedia.scheel;
+
+import com.queomedia.scheel.core.VaultEvent;
+
+import javafx.animation.AnimationTimer;
+import javafx.application.Platform;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+/**
+ * Collects the changes published by the vault store and hands them to the FX thread in batches.
+ *
+ * <p>Events arrive on a thread of the store. They are queued and applied on the next pulse, all that arrived until
+ * then at once, so an import of a hundred accounts patches the table once instead of a hundred times.</p>
+ */
+class VaultEventBatcher implements Flow.Subscriber<VaultEvent> {
+
+    /**
+     * Applies a batch of changes, called on the FX thread.
+     */
+    private final Consumer<List<VaultEvent>> target;
+
+    /**
+     * Changes not yet handed to the target.
+     */
+    private final Queue<VaultEvent> pending = new ConcurrentLinkedQueue<>();
+
+    /**
+     * Whether the timer has been asked to start for the changes pending.
+     */
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+
+    /**
+     * Hands the pending changes to the target on the next pulse and stops again.
+     */
+    private final AnimationTimer timer = new AnimationTimer() {
+        @Override
+        public void handle(final long now) {
+            flush();
+        }
+    };
+
+    /**
+     * The subscription, null until the store confirmed it.
+     */
+    private volatile Flow.Subscription subscription;
+
+    /**
+     * Whether the owner of the batcher is gone and no more changes should be applied.
+     */
+    private volatile boolean cancelled;
+
+    /**
+     * Creates a batcher, to be subscribed to {@link com.queomedia.scheel.core.VaultStore#events()}.
+     *
+     * @param target Applies a batch of changes, called on the FX thread.
+     */
+    VaultEventBatcher(final Consumer<List<VaultEvent>> target) {
+        this.target = target;
+    }
+
+    @Override
+    public void onSubscribe(final Flow.Subscription newSubscription) {
+        if (cancelled) {
+            newSubscription.cancel();
+            return;
+        }
+        subscription = newSubscription;
+        newSubscription.request(Long.MAX_VALUE); //Events are only queued here, the store never has to wait
+    }
+
+    @Override
+    public void onNext(final VaultEvent event) {
+        pending.add(event);
+        if (scheduled.compareAndSet(false, true)) {
+            Platform.runLater(timer::start);
+        }
+    }
+
+    @Override
+    public void onError(final Throwable throwable) {
+        //The store does not fail its subscribers, it is never closed
+    }
+
+    @Override
+    public void onComplete() {
+        //The store is never closed
+    }
+
+    /**
+     * Stops applying changes. Called on the FX thread when the window closes.
+     */
+    void cancel() {
+        cancelled = true;
+        Flow.Subscription current = subscription;
+        if (current != null) {
+            current.cancel();
+        }
+        timer.stop();
+        pending.clear();
+    }
+
+    /**
+     * Hands all pending changes to the target. Called by the timer on the FX thread.
+     */
+    private void flush() {
+        scheduled.set(false); //Changes arriving from now on start the timer again
+        timer.stop();
+        List<VaultEvent> batch = new ArrayList<>();
+        for (VaultEvent event = pending.poll(); event != null; event = pending.poll()) {
+            batch.add(event);
+        }
+        if (!batch.isEmpty() && !cancelled) {
+            target.accept(batch);
+        }
+    }
+}
@@ -0,0 +1,147 @@
+package com.queomedia.scheel;
+
+import javafx.fxml.FXMLLoader;
+import javafx.scene.image.Image;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Loads what every window needs once: the icon, and the FXML of the windows opened next.
+ *
+ * <p>A loaded FXML root and its controller belong to one window, they cannot be shown twice. Instead of reusing
+ * roots, the cache keeps one spare for every preloaded window: a root loaded on a background thread that has never
+ * been shown. Opening the window takes the spare and starts loading the next one, so the FX thread does not parse
+ * FXML, create controls or look up controller members while the user waits. Controls may be created off the FX
+ * thread as long as they are not part of a shown scene, and the controllers only wire their controls when loaded.</p>
+ */
+final class WindowCache {
+
+    /**
+     * Loads the spares, one at a time at low priority, so the FX thread keeps the CPU.
+     */
+    private static final ExecutorService PRELOADER = Executors.newSingleThreadExecutor(task -> {
+        Thread thread = new Thread(task, "fxml-preloader");
+        thread.setDaemon(true);
+        thread.setPriority(Thread.MIN_PRIORITY);
+        return thread;
+    });
+
+    /**
+     * The spare of every preloaded FXML file, by name.
+     */
+    private static final Map<String, Future<FXMLLoader>> SPARES = new ConcurrentHashMap<>();
+
+    /**
+     * Not to be instantiated.
+     */
+    private WindowCache() {
+    }
+
+    /**
+     * Returns the icon of the windows, bundled with the application and read on first use.
+     *
+     * @return The icon.
+     */
+    static Image icon() {
+        return Icon.IMAGE;
+    }
+
+    /**
+     * Starts loading spares of windows that are likely opened next.
+     *
+     * @param fxmlFiles The FXML files, relative to {@link PassFortify}.
+     */
+    static void preload(final String... fxmlFiles) {
+        for (String fxml : fxmlFiles) {
+            SPARES.computeIfAbsent(fxml, WindowCache::loadInBackground);
+        }
+    }
+
+    /**
+     * Returns a loader that has loaded an FXML file, taking the spare if there is one. Files preloaded before get a
+     * new spare.
+     *
+     * @param fxml The FXML file, relative to {@link PassFortify}.
+     * @return The loader, giving access to the root and the controller.
+     * @throws IOException If the file cannot be loaded.
+     */
+    static FXMLLoader load(final String fxml) throws IOException {
+        Future<FXMLLoader> spare = SPARES.remove(fxml);
+        if (spare == null) {
+            return loadNow(fxml);
+        }
+        SPARES.put(fxml, loadInBackground(fxml)); //Queued after the spare, which may still be loading
+        try {
+            return spare.get();
+        } catch (ExecutionException e) {
+            return loadNow(fxml); //Reports the failure on the FX thread, where it is handled as before
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return loadNow(fxml);
+        }
+    }
+
+    /**
+     * Loads an FXML file on the preloader thread.
+     *
+     * @param fxml The FXML file, relative to {@link PassFortify}.
+     * @return The loader, once it has loaded the file.
+     */
+    private static Future<FXMLLoader> loadInBackground(final String fxml) {
+        return PRELOADER.submit(() -> loadNow(fxml));
+    }
+
+    /**
+     * Loads an FXML file on the calling thread.
+     *
+     * @param fxml The FXML file, relative to {@link PassFortify}.
+     * @return The loader, giving access to the root and the controller.
+     * @throws IOException If the file cannot be loaded.
+     */
+    private static FXMLLoader loadNow(final String fxml) throws IOException {
+        FXMLLoader fxmlLoader = new FXMLLoader(PassFortify.class.getResource(fxml));
+        fxmlLoader.load();
+        return fxmlLoader;
+    }
+
+    /**
+     * Holds the icon, read when first asked for.
+     */
+    private static final class Icon {
+
+        /**
+         * The icon.
+         */
+        private static final Image IMAGE = read();
+
+        /**
+         * Not to be instantiated.
+         */
+        private Icon() {
+        }
+
+        /**
+         * Reads the bundled icon.
+         *
+         * @return The icon.
+         */
+        private static Image read() {
+            try (InputStream in = PassFortify.class.getResourceAsStream("icon.jpg")) {
+                if (in == null) {
+                    throw new IOException("icon.jpg is missing");
+                }
+                return new Image(in);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+}
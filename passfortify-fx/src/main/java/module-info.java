@@ -0,0 +1,12 @@
+module com.queomedia.scheel {
+    requires com.queomedia.scheel.core;
+
+    requires javafx.controls;
+    requires javafx.fxml;
+
+    requires java.desktop;
+    requires jdk.jfr;
+
+    opens com.queomedia.scheel to javafx.fxml;
+    exports com.queomedia.scheel;
+}
\ No newline at end of file